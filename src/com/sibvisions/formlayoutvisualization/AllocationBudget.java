@@ -0,0 +1,304 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.rad.genui.UIFactoryManager;
+import javax.rad.genui.layout.UIFormLayout;
+
+import com.sibvisions.rad.lua.LuaException;
+import com.sibvisions.rad.ui.swing.impl.SwingFactory;
+import com.sibvisions.util.type.FileUtil;
+import com.sibvisions.util.type.ResourceUtil;
+
+/**
+ * The {@link AllocationBudget} checks that updating the layout of reference
+ * scripts does not allocate more than a stored budget.
+ * <p>
+ * Every script is built repeatedly, exactly like the {@link MainFrame} does on
+ * every change of the code, and the bytes which every update allocates are
+ * counted by the {@link AllocationCounter}. After a warm up, the median of the
+ * measured updates is compared against the budget of the script.
+ * <p>
+ * The budgets are stored in a properties file, with the file name of the
+ * script as key and the budget in KB as value. The default budgets are in
+ * {@code allocation-budget.properties} next to this class.
+ * <p>
+ * It runs headless and accepts the following arguments, all of them optional:
+ * <ol>
+ * <li>the path to a Lua script or to a directory with Lua scripts, defaults to
+ * the bundled reference scripts if empty.</li>
+ * <li>the path to the properties file with the budgets, defaults to the
+ * default budgets if empty.</li>
+ * <li>the number of measured updates, defaults to
+ * {@value #DEFAULT_UPDATES}.</li>
+ * </ol>
+ * If any script exceeds its budget, has no budget or fails, the process exits
+ * with {@code 1}. For a script without budget, a budget with some headroom
+ * over the measured allocation is suggested.
+ * 
+ * @author Robert Zenz
+ */
+public final class AllocationBudget
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The resource with the default budgets. */
+	private static final String DEFAULT_BUDGETS = "/com/sibvisions/formlayoutvisualization/allocation-budget.properties";
+	
+	/** The default number of measured updates. */
+	private static final int DEFAULT_UPDATES = 20;
+	
+	/**
+	 * The bundled reference scripts next to this class: the default script,
+	 * one with many components and one with nested layouts.
+	 */
+	private static final String[] REFERENCE_SCRIPTS = new String[] { "default.lua", "many.lua", "nested.lua" };
+	
+	/** The factor of the suggested budget over the measured allocation. */
+	private static final double SUGGESTED_HEADROOM = 1.25;
+	
+	/** The extension of the Lua scripts. */
+	private static final String SCRIPT_EXTENSION = ".lua";
+	
+	/** The number of updates which are done before measuring. */
+	private static final int WARMUP_UPDATES = 20;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Invisible constructor, because the {@link AllocationBudget} is a utility
+	 * class.
+	 */
+	private AllocationBudget()
+	{
+	}
+	
+	/**
+	 * The main method.
+	 * 
+	 * @param pArgs the arguments.
+	 * @throws Exception if the check could not be run.
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		
+		if (!AllocationCounter.isSupported())
+		{
+			System.out.println("FAILED: The allocation counter is not supported by this JVM.");
+			
+			System.exit(1);
+		}
+		
+		Map<String, String> scripts = new LinkedHashMap<>();
+		
+		if (pArgs.length >= 1 && pArgs[0].length() > 0)
+		{
+			for (Path scriptPath : getScripts(Paths.get(pArgs[0])))
+			{
+				scripts.put(scriptPath.getFileName().toString(), new String(Files.readAllBytes(scriptPath), StandardCharsets.UTF_8));
+			}
+		}
+		else
+		{
+			for (String script : REFERENCE_SCRIPTS)
+			{
+				scripts.put(script, new String(FileUtil.getContent(ResourceUtil.getResourceAsStream("/com/sibvisions/formlayoutvisualization/" + script)), StandardCharsets.UTF_8));
+			}
+		}
+		
+		Properties budgets = new Properties();
+		
+		if (pArgs.length >= 2 && pArgs[1].length() > 0)
+		{
+			try (InputStream stream = Files.newInputStream(Paths.get(pArgs[1])))
+			{
+				budgets.load(stream);
+			}
+		}
+		else
+		{
+			try (InputStream stream = ResourceUtil.getResourceAsStream(DEFAULT_BUDGETS))
+			{
+				budgets.load(stream);
+			}
+		}
+		
+		int updates = pArgs.length >= 3 ? Integer.parseInt(pArgs[2]) : DEFAULT_UPDATES;
+		
+		UIFactoryManager.getFactoryInstance(SwingFactory.class);
+		
+		int failures = 0;
+		
+		for (Map.Entry<String, String> script : scripts.entrySet())
+		{
+			if (!check(script.getKey(), script.getValue(), budgets.getProperty(script.getKey()), updates))
+			{
+				failures++;
+			}
+		}
+		
+		if (failures > 0)
+		{
+			System.out.println("FAILED: " + failures + " scripts exceeded their budget, have none or failed.");
+			
+			System.exit(1);
+		}
+		
+		System.out.println("PASSED");
+		
+		System.exit(0);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Measures the allocation of the given script and checks it against the
+	 * given budget.
+	 * 
+	 * @param pName the name of the script.
+	 * @param pScript the Lua sourcecode.
+	 * @param pBudget the budget in KB, {@code null} if the script has none.
+	 * @param pUpdates the number of measured updates.
+	 * @return {@code true} if the script is within its budget.
+	 */
+	private static boolean check(String pName, String pScript, String pBudget, int pUpdates)
+	{
+		long allocatedBytes = 0;
+		
+		try
+		{
+			allocatedBytes = measure(pScript, pUpdates);
+		}
+		catch (LuaException e)
+		{
+			System.out.println(String.format("%s: FAILED, %s", pName, e.getMessage()));
+			
+			return false;
+		}
+		
+		if (pBudget == null)
+		{
+			System.out.println(String.format("%s: %s per update, NO BUDGET, suggested: %s=%d",
+					pName,
+					AllocationCounter.format(allocatedBytes),
+					pName,
+					Long.valueOf((long)Math.ceil(allocatedBytes * SUGGESTED_HEADROOM / 1024))));
+			
+			return false;
+		}
+		
+		long budget = Long.parseLong(pBudget.trim()) * 1024;
+		boolean withinBudget = allocatedBytes <= budget;
+		
+		System.out.println(String.format("%s: %s per update, budget %s, %s",
+				pName,
+				AllocationCounter.format(allocatedBytes),
+				AllocationCounter.format(budget),
+				withinBudget ? "OK" : "EXCEEDED"));
+		
+		return withinBudget;
+	}
+	
+	/**
+	 * Gets the Lua scripts at the given path, either the path itself or all
+	 * scripts in it, if it is a directory.
+	 * 
+	 * @param pPath the path to a script or a directory.
+	 * @return the {@link List} of scripts, sorted by name.
+	 * @throws Exception if the directory could not be read.
+	 */
+	private static List<Path> getScripts(Path pPath) throws Exception
+	{
+		List<Path> scripts = new ArrayList<>();
+		
+		if (Files.isDirectory(pPath))
+		{
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(pPath, "*" + SCRIPT_EXTENSION))
+			{
+				for (Path script : stream)
+				{
+					scripts.add(script);
+				}
+			}
+			
+			scripts.sort(null);
+		}
+		else
+		{
+			scripts.add(pPath);
+		}
+		
+		return scripts;
+	}
+	
+	/**
+	 * Builds the given script repeatedly and measures the bytes which an
+	 * update allocates.
+	 * 
+	 * @param pScript the Lua sourcecode.
+	 * @param pUpdates the number of measured updates.
+	 * @return the median of the allocated bytes of the measured updates.
+	 * @throws LuaException if the script failed.
+	 */
+	private static long measure(String pScript, int pUpdates) throws LuaException
+	{
+		AnchorShowingPanel panel = new AnchorShowingPanel();
+		panel.setLayout(new UIFormLayout());
+		panel.setSize(800, 600);
+		
+		LayoutBuilder builder = new LayoutBuilder(panel);
+		
+		for (int update = 0; update < WARMUP_UPDATES; update++)
+		{
+			builder.build(pScript);
+		}
+		
+		long[] allocatedBytes = new long[Math.max(1, pUpdates)];
+		
+		for (int update = 0; update < allocatedBytes.length; update++)
+		{
+			builder.build(pScript);
+			
+			allocatedBytes[update] = builder.getAllocatedBytes();
+		}
+		
+		Arrays.sort(allocatedBytes);
+		
+		return allocatedBytes[allocatedBytes.length / 2];
+	}
+	
+}	// AllocationBudget
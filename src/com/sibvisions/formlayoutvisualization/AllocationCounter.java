@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * The {@link AllocationCounter} reads how many bytes the current thread has
+ * allocated on the heap so far, from the allocation counter of the
+ * {@link ThreadMXBean}.
+ * <p>
+ * The counter only ever grows, the bytes which some code allocates are the
+ * difference of the counter before and after it, on the same thread. It counts
+ * the allocated bytes, not the retained ones, so it also includes the garbage.
+ * <p>
+ * Not every JVM supports the counter, then all values are {@code -1}.
+ * 
+ * @author Robert Zenz
+ */
+public final class AllocationCounter
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The {@link ThreadMXBean}, {@code null} if it is not supported. */
+	private static ThreadMXBean threadMXBean = createThreadMXBean();
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Invisible constructor, because the {@link AllocationCounter} is a
+	 * utility class.
+	 */
+	private AllocationCounter()
+	{
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Formats the given count of bytes for display, in KB.
+	 * 
+	 * @param pBytes the count of bytes.
+	 * @return the formatted count, {@code "n/a"} if it is negative.
+	 */
+	public static String format(long pBytes)
+	{
+		if (pBytes < 0)
+		{
+			return "n/a";
+		}
+		
+		return String.format("%,.1f KB", Double.valueOf(pBytes / 1024d));
+	}
+	
+	/**
+	 * Gets the count of bytes which the current thread has allocated so far.
+	 * 
+	 * @return the count of bytes, {@code -1} if it is not supported.
+	 */
+	public static long getAllocatedBytes()
+	{
+		if (threadMXBean == null)
+		{
+			return -1;
+		}
+		
+		return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * Gets the count of bytes which the current thread has allocated since the
+	 * given value of {@link #getAllocatedBytes()}.
+	 * 
+	 * @param pStart the value of {@link #getAllocatedBytes()} at the start.
+	 * @return the count of bytes, {@code -1} if it is not supported.
+	 */
+	public static long getAllocatedBytesSince(long pStart)
+	{
+		if (pStart < 0)
+		{
+			return -1;
+		}
+		
+		return getAllocatedBytes() - pStart;
+	}
+	
+	/**
+	 * Gets whether the allocation counter is supported.
+	 * 
+	 * @return {@code true} if the allocation counter is supported.
+	 */
+	public static boolean isSupported()
+	{
+		return threadMXBean != null;
+	}
+	
+	/**
+	 * Creates the {@link ThreadMXBean} and enables its allocation counter.
+	 * 
+	 * @return the {@link ThreadMXBean}, {@code null} if the allocation counter
+	 *         is not supported.
+	 */
+	private static ThreadMXBean createThreadMXBean()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		
+		if (!(bean instanceof ThreadMXBean))
+		{
+			return null;
+		}
+		
+		ThreadMXBean allocationBean = (ThreadMXBean)bean;
+		
+		if (!allocationBean.isThreadAllocatedMemorySupported())
+		{
+			return null;
+		}
+		
+		if (!allocationBean.isThreadAllocatedMemoryEnabled())
+		{
+			allocationBean.setThreadAllocatedMemoryEnabled(true);
+		}
+		
+		return allocationBean;
+	}
+	
+}	// AllocationCounter
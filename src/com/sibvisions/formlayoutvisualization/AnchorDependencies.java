@@ -0,0 +1,414 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout;
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout.Constraint;
+
+/**
+ * The {@link AnchorDependencies} is a reverse index of the {@link IAnchor}s of
+ * an {@link UIFormLayout}, which answers which components are attached to an
+ * {@link IAnchor} and which {@link IAnchor}s depend on it.
+ * <p>
+ * An {@link IAnchor} depends on another one if that one is its related
+ * {@link IAnchor}, directly or through other {@link IAnchor}s, so it moves
+ * whenever the other one moves. A component is attached to the four
+ * {@link IAnchor}s of its constraints, including the constraints which the
+ * layout derived for components which have been added without any.
+ * <p>
+ * The index is built once, both relations are stored as offsets into flat int
+ * arrays. Looking up the attached components is a slice of the array, looking
+ * up the dependents walks only the dependents themselves, neither scans the
+ * constraints or the other {@link IAnchor}s.
+ * 
+ * @author Robert Zenz
+ */
+public class AnchorDependencies
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The indices of the anchors, by their resource. */
+	private Map<Object, Integer> anchorIndices = new IdentityHashMap<>();
+	
+	/** All anchors, the used ones and the ones they are related to. */
+	private List<IAnchor> anchors = new ArrayList<>();
+	
+	/** The indices of the attached components, grouped by anchor. */
+	private int[] attachedComponents = null;
+	
+	/**
+	 * The offset of the attached components of every anchor in
+	 * {@link #attachedComponents}, with one additional entry for the end.
+	 */
+	private int[] attachedComponentOffsets = null;
+	
+	/** The components, in the order in which they have been added. */
+	private List<IComponent> components = null;
+	
+	/** The indices of the directly dependent anchors, grouped by anchor. */
+	private int[] dependents = null;
+	
+	/**
+	 * The offset of the directly dependent anchors of every anchor in
+	 * {@link #dependents}, with one additional entry for the end.
+	 */
+	private int[] dependentOffsets = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link AnchorDependencies}.
+	 * <p>
+	 * The {@link IAnchor}s which are used by the constraints of the given
+	 * components at this time are indexed, the layout must have been laid out
+	 * so that the derived constraints are known.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} to index.
+	 * @param pComponents the components which have been added to the layout.
+	 */
+	public AnchorDependencies(UIFormLayout pLayout, List<IComponent> pComponents)
+	{
+		super();
+		
+		components = new ArrayList<>(pComponents);
+		
+		for (IAnchor anchor : pLayout.getHorizontalAnchors())
+		{
+			addAnchor(anchor);
+		}
+		for (IAnchor anchor : pLayout.getVerticalAnchors())
+		{
+			addAnchor(anchor);
+		}
+		
+		// The anchors they are related to, which grows the list while
+		// iterating over it.
+		for (int index = 0; index < anchors.size(); index++)
+		{
+			IAnchor relatedAnchor = anchors.get(index).getRelatedAnchor();
+			
+			if (relatedAnchor != null)
+			{
+				addAnchor(relatedAnchor);
+			}
+		}
+		
+		int[] related = new int[anchors.size()];
+		
+		for (int index = 0; index < anchors.size(); index++)
+		{
+			related[index] = indexOf(anchors.get(index).getRelatedAnchor());
+		}
+		
+		dependentOffsets = new int[anchors.size() + 1];
+		
+		for (int index = 0; index < related.length; index++)
+		{
+			if (related[index] >= 0)
+			{
+				dependentOffsets[related[index] + 1]++;
+			}
+		}
+		
+		dependents = new int[toOffsets(dependentOffsets)];
+		
+		int[] fill = dependentOffsets.clone();
+		
+		for (int index = 0; index < related.length; index++)
+		{
+			if (related[index] >= 0)
+			{
+				dependents[fill[related[index]]++] = index;
+			}
+		}
+		
+		// The anchors of every component, four per component, -1 for the ones
+		// which are not known.
+		JVxFormLayout layout = (JVxFormLayout)pLayout.getResource();
+		
+		int[] componentAnchors = new int[components.size() * 4];
+		
+		attachedComponentOffsets = new int[anchors.size() + 1];
+		
+		for (int component = 0; component < components.size(); component++)
+		{
+			Constraint constraint = layout.getConstraint((Component)components.get(component).getResource());
+			
+			if (constraint != null)
+			{
+				componentAnchors[component * 4] = indexOfResource(constraint.getTopAnchor());
+				componentAnchors[component * 4 + 1] = indexOfResource(constraint.getLeftAnchor());
+				componentAnchors[component * 4 + 2] = indexOfResource(constraint.getBottomAnchor());
+				componentAnchors[component * 4 + 3] = indexOfResource(constraint.getRightAnchor());
+			}
+			else
+			{
+				componentAnchors[component * 4] = -1;
+				componentAnchors[component * 4 + 1] = -1;
+				componentAnchors[component * 4 + 2] = -1;
+				componentAnchors[component * 4 + 3] = -1;
+			}
+		}
+		
+		for (int anchor : componentAnchors)
+		{
+			if (anchor >= 0)
+			{
+				attachedComponentOffsets[anchor + 1]++;
+			}
+		}
+		
+		attachedComponents = new int[toOffsets(attachedComponentOffsets)];
+		
+		fill = attachedComponentOffsets.clone();
+		
+		for (int index = 0; index < componentAnchors.length; index++)
+		{
+			if (componentAnchors[index] >= 0)
+			{
+				attachedComponents[fill[componentAnchors[index]]++] = index / 4;
+			}
+		}
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the {@link IAnchor} of this index with the given resource.
+	 * 
+	 * @param pResource the resource of the {@link IAnchor}.
+	 * @return the {@link IAnchor}, {@code null} if it is not in this index.
+	 */
+	public IAnchor getAnchor(Object pResource)
+	{
+		int index = indexOfResource(pResource);
+		
+		if (index < 0)
+		{
+			return null;
+		}
+		
+		return anchors.get(index);
+	}
+	
+	/**
+	 * Gets the components which are attached to the given {@link IAnchor}.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the components, in the order in which they have been added. An
+	 *         empty {@link List} if the {@link IAnchor} is not in this index.
+	 */
+	public List<IComponent> getAttachedComponents(IAnchor pAnchor)
+	{
+		int index = indexOf(pAnchor);
+		
+		if (index < 0)
+		{
+			return Collections.emptyList();
+		}
+		
+		List<IComponent> attached = new ArrayList<>(attachedComponentOffsets[index + 1] - attachedComponentOffsets[index]);
+		
+		for (int offset = attachedComponentOffsets[index]; offset < attachedComponentOffsets[index + 1]; offset++)
+		{
+			IComponent component = components.get(attachedComponents[offset]);
+			
+			// A component is attached twice if two of its anchors are the same.
+			if (attached.isEmpty() || attached.get(attached.size() - 1) != component)
+			{
+				attached.add(component);
+			}
+		}
+		
+		return attached;
+	}
+	
+	/**
+	 * Gets the constraints of the given component as {@link IAnchor}s of this
+	 * index.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} of the component.
+	 * @param pComponent the component.
+	 * @return the top, left, bottom and right {@link IAnchor}, {@code null} if
+	 *         any of them is not in this index.
+	 */
+	public IAnchor[] getConstraintAnchors(UIFormLayout pLayout, IComponent pComponent)
+	{
+		Constraint constraint = ((JVxFormLayout)pLayout.getResource()).getConstraint((Component)pComponent.getResource());
+		
+		if (constraint == null)
+		{
+			return null;
+		}
+		
+		IAnchor[] constraintAnchors = new IAnchor[] {
+				getAnchor(constraint.getTopAnchor()),
+				getAnchor(constraint.getLeftAnchor()),
+				getAnchor(constraint.getBottomAnchor()),
+				getAnchor(constraint.getRightAnchor()) };
+		
+		for (IAnchor anchor : constraintAnchors)
+		{
+			if (anchor == null)
+			{
+				return null;
+			}
+		}
+		
+		return constraintAnchors;
+	}
+	
+	/**
+	 * Gets all {@link IAnchor}s which depend on the given {@link IAnchor},
+	 * directly or transitively.
+	 * <p>
+	 * The dependents are walked iteratively, because the chains can be longer
+	 * than the stack allows.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the dependent {@link IAnchor}s, the direct ones before the ones
+	 *         which depend on them. An empty {@link List} if the
+	 *         {@link IAnchor} is not in this index.
+	 */
+	public List<IAnchor> getDependentAnchors(IAnchor pAnchor)
+	{
+		int index = indexOf(pAnchor);
+		
+		if (index < 0)
+		{
+			return Collections.emptyList();
+		}
+		
+		List<IAnchor> dependentAnchors = new ArrayList<>();
+		
+		int[] queue = new int[16];
+		int head = 0;
+		int tail = 0;
+		
+		queue[tail++] = index;
+		
+		// Every anchor has only one related anchor, so it is reached only once.
+		while (head < tail)
+		{
+			int anchor = queue[head++];
+			
+			for (int offset = dependentOffsets[anchor]; offset < dependentOffsets[anchor + 1]; offset++)
+			{
+				if (tail == queue.length)
+				{
+					queue = Arrays.copyOf(queue, queue.length * 2);
+				}
+				
+				queue[tail++] = dependents[offset];
+				
+				dependentAnchors.add(anchors.get(dependents[offset]));
+			}
+		}
+		
+		return dependentAnchors;
+	}
+	
+	/**
+	 * Adds the given {@link IAnchor} if it has not been added yet.
+	 * 
+	 * @param pAnchor the {@link IAnchor} to add.
+	 */
+	private void addAnchor(IAnchor pAnchor)
+	{
+		if (!anchorIndices.containsKey(pAnchor.getResource()))
+		{
+			anchorIndices.put(pAnchor.getResource(), Integer.valueOf(anchors.size()));
+			anchors.add(pAnchor);
+		}
+	}
+	
+	/**
+	 * Gets the index of the given {@link IAnchor}.
+	 * 
+	 * @param pAnchor the {@link IAnchor}, can be {@code null}.
+	 * @return the index, {@code -1} if the {@link IAnchor} is {@code null} or
+	 *         has not been added.
+	 */
+	private int indexOf(IAnchor pAnchor)
+	{
+		if (pAnchor == null)
+		{
+			return -1;
+		}
+		
+		return indexOfResource(pAnchor.getResource());
+	}
+	
+	/**
+	 * Gets the index of the {@link IAnchor} with the given resource.
+	 * 
+	 * @param pResource the resource, can be {@code null}.
+	 * @return the index, {@code -1} if there is no such {@link IAnchor}.
+	 */
+	private int indexOfResource(Object pResource)
+	{
+		if (pResource == null)
+		{
+			return -1;
+		}
+		
+		Integer index = anchorIndices.get(pResource);
+		
+		if (index == null)
+		{
+			return -1;
+		}
+		
+		return index.intValue();
+	}
+	
+	/**
+	 * Turns the given counts, which are stored one entry after the anchor
+	 * they belong to, into offsets in place.
+	 * 
+	 * @param pCounts the counts, with one entry more than there are anchors.
+	 * @return the total count.
+	 */
+	private static int toOffsets(int[] pCounts)
+	{
+		for (int index = 1; index < pCounts.length; index++)
+		{
+			pCounts[index] = pCounts[index] + pCounts[index - 1];
+		}
+		
+		return pCounts[pCounts.length - 1];
+	}
+	
+}	// AnchorDependencies
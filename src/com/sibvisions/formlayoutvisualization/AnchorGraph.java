@@ -0,0 +1,1349 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+
+import com.sibvisions.rad.ui.swing.ext.JVxConstants;
+import com.sibvisions.rad.ui.swing.ext.JVxUtil;
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout;
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout.Anchor;
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout.Constraint;
+
+/**
+ * The {@link AnchorGraph} is a compact representation of the anchors of a
+ * {@link JVxFormLayout}, flattened into parallel int arrays.
+ * <p>
+ * Every anchor is identified by its index. The border anchors have the fixed
+ * indices {@link #LEFT}, {@link #RIGHT}, {@link #TOP} and {@link #BOTTOM},
+ * the margin anchors {@link #LEFT_MARGIN}, {@link #RIGHT_MARGIN},
+ * {@link #TOP_MARGIN} and {@link #BOTTOM_MARGIN}. The related anchor of an
+ * anchor always has a lower index, so the absolute positions of all anchors
+ * can be resolved in a single pass.
+ * <p>
+ * {@link #solve(int, int)} performs the same calculation as the
+ * {@link JVxFormLayout} does, but only on the arrays and with the sizes of the
+ * components as they were when the graph was created. It can therefore be
+ * used on any thread and by headless tooling.
+ * 
+ * @author Robert Zenz
+ */
+public class AnchorGraph
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The index of the bottom border anchor. */
+	public static final int BOTTOM = 3;
+	
+	/** The index of the bottom margin anchor. */
+	public static final int BOTTOM_MARGIN = 7;
+	
+	/** The index of the left border anchor. */
+	public static final int LEFT = 0;
+	
+	/** The index of the left margin anchor. */
+	public static final int LEFT_MARGIN = 4;
+	
+	/** The index of the right border anchor. */
+	public static final int RIGHT = 1;
+	
+	/** The index of the right margin anchor. */
+	public static final int RIGHT_MARGIN = 5;
+	
+	/** The index of the top border anchor. */
+	public static final int TOP = 2;
+	
+	/** The index of the top margin anchor. */
+	public static final int TOP_MARGIN = 6;
+	
+	/** The flag for an autosize anchor. */
+	private static final int FLAG_AUTOSIZE = 1;
+	
+	/** The flag for an autosize anchor of which the size has been calculated. */
+	private static final int FLAG_AUTOSIZE_CALCULATED = 2;
+	
+	/** The flag for an anchor which has not been calculated yet. */
+	private static final int FLAG_FIRST_CALCULATION = 4;
+	
+	/** The flag for a relative anchor. */
+	private static final int FLAG_RELATIVE = 8;
+	
+	/** The flag for a vertical anchor. */
+	private static final int FLAG_VERTICAL = 16;
+	
+	/** The offset of the left anchor in {@link #constraints}. */
+	private static final int CONSTRAINT_LEFT = 0;
+	
+	/** The offset of the right anchor in {@link #constraints}. */
+	private static final int CONSTRAINT_RIGHT = 1;
+	
+	/** The offset of the top anchor in {@link #constraints}. */
+	private static final int CONSTRAINT_TOP = 2;
+	
+	/** The offset of the bottom anchor in {@link #constraints}. */
+	private static final int CONSTRAINT_BOTTOM = 3;
+	
+	/** The offset of the preferred width in {@link #sizes}. */
+	private static final int SIZE_PREFERRED_WIDTH = 0;
+	
+	/** The offset of the preferred height in {@link #sizes}. */
+	private static final int SIZE_PREFERRED_HEIGHT = 1;
+	
+	/** The offset of the minimum width in {@link #sizes}. */
+	private static final int SIZE_MINIMUM_WIDTH = 2;
+	
+	/** The offset of the minimum height in {@link #sizes}. */
+	private static final int SIZE_MINIMUM_HEIGHT = 3;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The count of anchors. */
+	private int anchorCount = 0;
+	
+	/** The indices of the original anchors. */
+	private Map<Anchor, Integer> anchorIndices = new IdentityHashMap<>();
+	
+	/** The buffer for the autosize anchors between two anchors. */
+	private int[] anchorsBuffer = null;
+	
+	/** If the bottom border is used by a component. */
+	private boolean bottomBorderUsed = false;
+	
+	/** The count of components. */
+	private int componentCount = 0;
+	
+	/** The anchor indices of the constraints, four per component. */
+	private int[] constraints = null;
+	
+	/** The flags of the anchors. */
+	private int[] flags = null;
+	
+	/** The horizontal alignment. */
+	private int horizontalAlignment = 0;
+	
+	/** The indices of the horizontal anchors which are used by constraints. */
+	private int[] horizontalAnchors = null;
+	
+	/** The horizontal gap. */
+	private int horizontalGap = 0;
+	
+	/** The insets of the container, top, left, bottom and right. */
+	private int[] insets = null;
+	
+	/** If the left border is used by a component. */
+	private boolean leftBorderUsed = false;
+	
+	/** The maximum size of the container, {@code null} if it is not set. */
+	private Dimension maximumSize = null;
+	
+	/** The calculated minimum height. */
+	private int minimumHeight = 0;
+	
+	/** The minimum size of the container, {@code null} if it is not set. */
+	private Dimension minimumSize = null;
+	
+	/** The calculated minimum width. */
+	private int minimumWidth = 0;
+	
+	/** The positions of the anchors. */
+	private int[] positions = null;
+	
+	/** The calculated preferred height. */
+	private int preferredHeight = 0;
+	
+	/** The calculated preferred width. */
+	private int preferredWidth = 0;
+	
+	/** The indices of the related anchors, {@code -1} for border anchors. */
+	private int[] related = null;
+	
+	/** If the right border is used by a component. */
+	private boolean rightBorderUsed = false;
+	
+	/** The sizes of the components, four per component. */
+	private int[] sizes = null;
+	
+	/** If the top border is used by a component. */
+	private boolean topBorderUsed = false;
+	
+	/** The vertical alignment. */
+	private int verticalAlignment = 0;
+	
+	/** The indices of the vertical anchors which are used by constraints. */
+	private int[] verticalAnchors = null;
+	
+	/** The vertical gap. */
+	private int verticalGap = 0;
+	
+	/** If the components are visible. */
+	private boolean[] visible = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link AnchorGraph}.
+	 * <p>
+	 * The anchors, the constraints and the current sizes of the components
+	 * are copied, this must be called on the thread which owns the
+	 * components.
+	 * 
+	 * @param pContainer the {@link Container} which has a
+	 *            {@link JVxFormLayout}.
+	 * @throws IllegalArgumentException if the {@link Container} has no
+	 *             {@link JVxFormLayout}.
+	 */
+	public AnchorGraph(Container pContainer)
+	{
+		this(pContainer, Arrays.asList(pContainer.getComponents()));
+	}
+	
+	/**
+	 * Creates a new instance of {@link AnchorGraph} which contains only the
+	 * given components of the {@link Container} and the anchors they use.
+	 * <p>
+	 * The anchors, the constraints and the current sizes of the components
+	 * are copied, this must be called on the thread which owns the
+	 * components.
+	 * 
+	 * @param pContainer the {@link Container} which has a
+	 *            {@link JVxFormLayout}.
+	 * @param pComponents the {@link Component}s of the {@link Container}
+	 *            which are part of the graph, in the order in which they have
+	 *            been added.
+	 * @throws IllegalArgumentException if the {@link Container} has no
+	 *             {@link JVxFormLayout}.
+	 */
+	public AnchorGraph(Container pContainer, List<Component> pComponents)
+	{
+		super();
+		
+		if (!(pContainer.getLayout() instanceof JVxFormLayout))
+		{
+			throw new IllegalArgumentException("The container has no JVxFormLayout.");
+		}
+		
+		JVxFormLayout layout = (JVxFormLayout)pContainer.getLayout();
+		
+		horizontalAlignment = layout.getHorizontalAlignment();
+		verticalAlignment = layout.getVerticalAlignment();
+		horizontalGap = layout.getHorizontalGap();
+		verticalGap = layout.getVerticalGap();
+		
+		Insets containerInsets = pContainer.getInsets();
+		insets = new int[] { containerInsets.top, containerInsets.left, containerInsets.bottom, containerInsets.right };
+		
+		if (pContainer.isMinimumSizeSet())
+		{
+			minimumSize = pContainer.getMinimumSize();
+		}
+		if (pContainer.isMaximumSizeSet())
+		{
+			maximumSize = pContainer.getMaximumSize();
+		}
+		
+		componentCount = pComponents.size();
+		
+		int capacity = 8 + componentCount * 4;
+		
+		related = new int[capacity];
+		positions = new int[capacity];
+		flags = new int[capacity];
+		
+		addAnchor(layout.getLeftAnchor());
+		addAnchor(layout.getRightAnchor());
+		addAnchor(layout.getTopAnchor());
+		addAnchor(layout.getBottomAnchor());
+		addAnchor(layout.getLeftMarginAnchor());
+		addAnchor(layout.getRightMarginAnchor());
+		addAnchor(layout.getTopMarginAnchor());
+		addAnchor(layout.getBottomMarginAnchor());
+		
+		constraints = new int[componentCount * 4];
+		sizes = new int[componentCount * 4];
+		visible = new boolean[componentCount];
+		
+		int[] horizontal = new int[componentCount * 2];
+		int horizontalCount = 0;
+		int[] vertical = new int[componentCount * 2];
+		int verticalCount = 0;
+		
+		// The same order as the JVxFormLayout lists them.
+		boolean[] listed = new boolean[capacity];
+		
+		for (int index = 0; index < componentCount; index++)
+		{
+			Component component = pComponents.get(index);
+			Constraint constraint = layout.getConstraint(component);
+			
+			int offset = index * 4;
+			
+			constraints[offset + CONSTRAINT_LEFT] = addAnchor(constraint.getLeftAnchor());
+			constraints[offset + CONSTRAINT_RIGHT] = addAnchor(constraint.getRightAnchor());
+			constraints[offset + CONSTRAINT_TOP] = addAnchor(constraint.getTopAnchor());
+			constraints[offset + CONSTRAINT_BOTTOM] = addAnchor(constraint.getBottomAnchor());
+			
+			if (listed.length < anchorCount)
+			{
+				boolean[] grownListed = new boolean[related.length];
+				System.arraycopy(listed, 0, grownListed, 0, listed.length);
+				listed = grownListed;
+			}
+			
+			for (int side = CONSTRAINT_LEFT; side <= CONSTRAINT_BOTTOM; side++)
+			{
+				int anchor = constraints[offset + side];
+				
+				if (!listed[anchor])
+				{
+					listed[anchor] = true;
+					
+					if (side <= CONSTRAINT_RIGHT)
+					{
+						horizontal[horizontalCount++] = anchor;
+					}
+					else
+					{
+						vertical[verticalCount++] = anchor;
+					}
+				}
+			}
+			
+			visible[index] = component.isVisible();
+			
+			if (visible[index])
+			{
+				Dimension preferredSize = JVxUtil.getPreferredSize(component);
+				Dimension minimumComponentSize = JVxUtil.getMinimumSize(component);
+				
+				sizes[offset + SIZE_PREFERRED_WIDTH] = preferredSize.width;
+				sizes[offset + SIZE_PREFERRED_HEIGHT] = preferredSize.height;
+				sizes[offset + SIZE_MINIMUM_WIDTH] = minimumComponentSize.width;
+				sizes[offset + SIZE_MINIMUM_HEIGHT] = minimumComponentSize.height;
+			}
+		}
+		
+		horizontalAnchors = new int[horizontalCount];
+		System.arraycopy(horizontal, 0, horizontalAnchors, 0, horizontalCount);
+		verticalAnchors = new int[verticalCount];
+		System.arraycopy(vertical, 0, verticalAnchors, 0, verticalCount);
+		
+		anchorsBuffer = new int[anchorCount];
+	}
+	
+	/**
+	 * Creates a new instance of {@link AnchorGraph} as copy of the given
+	 * {@link AnchorGraph}.
+	 * <p>
+	 * The copy can be solved independently of the given graph, so every
+	 * thread which solves the same layout can use its own copy.
+	 * 
+	 * @param pGraph the {@link AnchorGraph} to copy.
+	 */
+	public AnchorGraph(AnchorGraph pGraph)
+	{
+		super();
+		
+		anchorCount = pGraph.anchorCount;
+		anchorIndices = pGraph.anchorIndices;
+		anchorsBuffer = pGraph.anchorsBuffer.clone();
+		bottomBorderUsed = pGraph.bottomBorderUsed;
+		componentCount = pGraph.componentCount;
+		constraints = pGraph.constraints;
+		flags = pGraph.flags.clone();
+		horizontalAlignment = pGraph.horizontalAlignment;
+		horizontalAnchors = pGraph.horizontalAnchors;
+		horizontalGap = pGraph.horizontalGap;
+		insets = pGraph.insets;
+		leftBorderUsed = pGraph.leftBorderUsed;
+		maximumSize = pGraph.maximumSize;
+		minimumHeight = pGraph.minimumHeight;
+		minimumSize = pGraph.minimumSize;
+		minimumWidth = pGraph.minimumWidth;
+		positions = pGraph.positions.clone();
+		preferredHeight = pGraph.preferredHeight;
+		preferredWidth = pGraph.preferredWidth;
+		related = pGraph.related;
+		rightBorderUsed = pGraph.rightBorderUsed;
+		sizes = pGraph.sizes;
+		topBorderUsed = pGraph.topBorderUsed;
+		verticalAlignment = pGraph.verticalAlignment;
+		verticalAnchors = pGraph.verticalAnchors;
+		verticalGap = pGraph.verticalGap;
+		visible = pGraph.visible;
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the absolute position of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the absolute position.
+	 */
+	public int getAbsolutePosition(int pAnchor)
+	{
+		int absolutePosition = 0;
+		
+		for (int anchor = pAnchor; anchor >= 0; anchor = related[anchor])
+		{
+			absolutePosition = absolutePosition + positions[anchor];
+		}
+		
+		return absolutePosition;
+	}
+	
+	/**
+	 * Gets the absolute positions of all anchors, resolved in a single pass.
+	 * 
+	 * @return the absolute positions, indexed by anchor.
+	 */
+	public int[] getAbsolutePositions()
+	{
+		int[] absolutePositions = new int[anchorCount];
+		
+		for (int anchor = 0; anchor < anchorCount; anchor++)
+		{
+			if (related[anchor] >= 0)
+			{
+				absolutePositions[anchor] = absolutePositions[related[anchor]] + positions[anchor];
+			}
+			else
+			{
+				absolutePositions[anchor] = positions[anchor];
+			}
+		}
+		
+		return absolutePositions;
+	}
+	
+	/**
+	 * Gets the count of anchors.
+	 * 
+	 * @return the count of anchors.
+	 */
+	public int getAnchorCount()
+	{
+		return anchorCount;
+	}
+	
+	/**
+	 * Gets the bounds of the given component, as the {@link JVxFormLayout}
+	 * would set them.
+	 * 
+	 * @param pComponent the index of the component.
+	 * @return the bounds.
+	 */
+	public Rectangle getComponentBounds(int pComponent)
+	{
+		int offset = pComponent * 4;
+		
+		int x = getAbsolutePosition(constraints[offset + CONSTRAINT_LEFT]);
+		int y = getAbsolutePosition(constraints[offset + CONSTRAINT_TOP]);
+		
+		return new Rectangle(
+				x,
+				y,
+				getAbsolutePosition(constraints[offset + CONSTRAINT_RIGHT]) - x,
+				getAbsolutePosition(constraints[offset + CONSTRAINT_BOTTOM]) - y);
+	}
+	
+	/**
+	 * Gets the count of components.
+	 * 
+	 * @return the count of components.
+	 */
+	public int getComponentCount()
+	{
+		return componentCount;
+	}
+	
+	/**
+	 * Gets the minimum size of the given component, as it was when the graph
+	 * was created.
+	 * 
+	 * @param pComponent the index of the component.
+	 * @return the minimum size.
+	 */
+	public Dimension getComponentMinimumSize(int pComponent)
+	{
+		int offset = pComponent * 4;
+		
+		return new Dimension(sizes[offset + SIZE_MINIMUM_WIDTH], sizes[offset + SIZE_MINIMUM_HEIGHT]);
+	}
+	
+	/**
+	 * Gets the indices of the horizontal anchors which are used by the
+	 * constraints, in the same order as
+	 * {@link JVxFormLayout#getHorizontalAnchors()}.
+	 * 
+	 * @return the indices of the horizontal anchors.
+	 */
+	public int[] getHorizontalAnchors()
+	{
+		return horizontalAnchors.clone();
+	}
+	
+	/**
+	 * Gets the calculated minimum size.
+	 * 
+	 * @return the calculated minimum size.
+	 */
+	public Dimension getMinimumSize()
+	{
+		return new Dimension(minimumWidth, minimumHeight);
+	}
+	
+	/**
+	 * Gets the position of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the position.
+	 */
+	public int getPosition(int pAnchor)
+	{
+		return positions[pAnchor];
+	}
+	
+	/**
+	 * Gets the calculated preferred size.
+	 * 
+	 * @return the calculated preferred size.
+	 */
+	public Dimension getPreferredSize()
+	{
+		return new Dimension(preferredWidth, preferredHeight);
+	}
+	
+	/**
+	 * Gets the related anchor of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the index of the related anchor, {@code -1} if it is a border
+	 *         anchor.
+	 */
+	public int getRelatedAnchor(int pAnchor)
+	{
+		return related[pAnchor];
+	}
+	
+	/**
+	 * Gets the indices of the vertical anchors which are used by the
+	 * constraints, in the same order as
+	 * {@link JVxFormLayout#getVerticalAnchors()}.
+	 * 
+	 * @return the indices of the vertical anchors.
+	 */
+	public int[] getVerticalAnchors()
+	{
+		return verticalAnchors.clone();
+	}
+	
+	/**
+	 * Gets the index of the given {@link IAnchor}.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the index, {@code -1} if the {@link IAnchor} is not part of this
+	 *         graph.
+	 */
+	public int indexOf(IAnchor pAnchor)
+	{
+		return indexOf((Anchor)pAnchor.getResource());
+	}
+	
+	/**
+	 * Gets the index of the given {@link Anchor}.
+	 * 
+	 * @param pAnchor the {@link Anchor}.
+	 * @return the index, {@code -1} if the {@link Anchor} is not part of this
+	 *         graph.
+	 */
+	public int indexOf(Anchor pAnchor)
+	{
+		Integer index = anchorIndices.get(pAnchor);
+		
+		if (index == null)
+		{
+			return -1;
+		}
+		
+		return index.intValue();
+	}
+	
+	/**
+	 * Gets if the given anchor is an autosize anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return {@code true} if it is an autosize anchor.
+	 */
+	public boolean isAutoSize(int pAnchor)
+	{
+		return (flags[pAnchor] & FLAG_AUTOSIZE) != 0;
+	}
+	
+	/**
+	 * Gets if the given component is visible.
+	 * 
+	 * @param pComponent the index of the component.
+	 * @return {@code true} if the component is visible.
+	 */
+	public boolean isComponentVisible(int pComponent)
+	{
+		return visible[pComponent];
+	}
+	
+	/**
+	 * Gets if the given anchor is vertical.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return {@code true} if it is vertical, {@code false} if it is
+	 *         horizontal.
+	 */
+	public boolean isVertical(int pAnchor)
+	{
+		return (flags[pAnchor] & FLAG_VERTICAL) != 0;
+	}
+	
+	/**
+	 * Calculates the positions of all anchors for the given size of the
+	 * container, the same as {@link JVxFormLayout#layoutContainer(Container)}
+	 * does.
+	 * 
+	 * @param pWidth the width of the container.
+	 * @param pHeight the height of the container.
+	 */
+	public void solve(int pWidth, int pHeight)
+	{
+		calculateAnchors();
+		calculateTargetDependentAnchors(pWidth, pHeight);
+	}
+	
+	/**
+	 * Adds the given {@link Anchor} and all its related anchors, if they have
+	 * not been added yet.
+	 * 
+	 * @param pAnchor the {@link Anchor} to add.
+	 * @return the index of the {@link Anchor}.
+	 */
+	private int addAnchor(Anchor pAnchor)
+	{
+		Integer existingIndex = anchorIndices.get(pAnchor);
+		
+		if (existingIndex != null)
+		{
+			return existingIndex.intValue();
+		}
+		
+		// The related anchor is added first, so that it always has the
+		// lower index.
+		int relatedIndex = -1;
+		
+		if (pAnchor.getRelatedAnchor() != null)
+		{
+			relatedIndex = addAnchor(pAnchor.getRelatedAnchor());
+		}
+		
+		if (anchorCount == related.length)
+		{
+			int capacity = related.length * 2;
+			
+			int[] grownRelated = new int[capacity];
+			System.arraycopy(related, 0, grownRelated, 0, anchorCount);
+			related = grownRelated;
+			
+			int[] grownPositions = new int[capacity];
+			System.arraycopy(positions, 0, grownPositions, 0, anchorCount);
+			positions = grownPositions;
+			
+			int[] grownFlags = new int[capacity];
+			System.arraycopy(flags, 0, grownFlags, 0, anchorCount);
+			flags = grownFlags;
+		}
+		
+		int index = anchorCount++;
+		
+		related[index] = relatedIndex;
+		positions[index] = pAnchor.getPosition();
+		
+		if (pAnchor.isAutoSize())
+		{
+			flags[index] |= FLAG_AUTOSIZE;
+		}
+		if (pAnchor.isRelative())
+		{
+			flags[index] |= FLAG_RELATIVE;
+		}
+		if (pAnchor.getOrientation() == Anchor.VERTICAL)
+		{
+			flags[index] |= FLAG_VERTICAL;
+		}
+		
+		anchorIndices.put(pAnchor, Integer.valueOf(index));
+		
+		return index;
+	}
+	
+	/**
+	 * Calculates all anchors which do not depend on the size of the
+	 * container, the same as the {@link JVxFormLayout} does.
+	 */
+	private void calculateAnchors()
+	{
+		positions[LEFT] = 0;
+		positions[RIGHT] = 0;
+		positions[TOP] = 0;
+		positions[BOTTOM] = 0;
+		
+		preferredWidth = 0;
+		preferredHeight = 0;
+		minimumWidth = 0;
+		minimumHeight = 0;
+		
+		for (int offset = 0; offset < componentCount * 4; offset = offset + 4)
+		{
+			clearAutoSize(constraints[offset + CONSTRAINT_LEFT]);
+			clearAutoSize(constraints[offset + CONSTRAINT_RIGHT]);
+			clearAutoSize(constraints[offset + CONSTRAINT_TOP]);
+			clearAutoSize(constraints[offset + CONSTRAINT_BOTTOM]);
+		}
+		
+		for (int offset = 0; offset < componentCount * 4; offset = offset + 4)
+		{
+			initAutoSize(constraints[offset + CONSTRAINT_LEFT], constraints[offset + CONSTRAINT_RIGHT]);
+			initAutoSize(constraints[offset + CONSTRAINT_RIGHT], constraints[offset + CONSTRAINT_LEFT]);
+			initAutoSize(constraints[offset + CONSTRAINT_TOP], constraints[offset + CONSTRAINT_BOTTOM]);
+			initAutoSize(constraints[offset + CONSTRAINT_BOTTOM], constraints[offset + CONSTRAINT_TOP]);
+		}
+		
+		int autoSizeCount = 1;
+		
+		do
+		{
+			for (int component = 0; component < componentCount; component++)
+			{
+				if (visible[component])
+				{
+					int offset = component * 4;
+					
+					calculateAutoSize(constraints[offset + CONSTRAINT_TOP], constraints[offset + CONSTRAINT_BOTTOM], sizes[offset + SIZE_PREFERRED_HEIGHT], autoSizeCount);
+					calculateAutoSize(constraints[offset + CONSTRAINT_LEFT], constraints[offset + CONSTRAINT_RIGHT], sizes[offset + SIZE_PREFERRED_WIDTH], autoSizeCount);
+				}
+			}
+			
+			autoSizeCount = Integer.MAX_VALUE;
+			
+			for (int component = 0; component < componentCount; component++)
+			{
+				if (visible[component])
+				{
+					int offset = component * 4;
+					
+					autoSizeCount = minimumPositive(autoSizeCount, finishAutoSizeCalculation(constraints[offset + CONSTRAINT_LEFT], constraints[offset + CONSTRAINT_RIGHT]));
+					autoSizeCount = minimumPositive(autoSizeCount, finishAutoSizeCalculation(constraints[offset + CONSTRAINT_RIGHT], constraints[offset + CONSTRAINT_LEFT]));
+					autoSizeCount = minimumPositive(autoSizeCount, finishAutoSizeCalculation(constraints[offset + CONSTRAINT_TOP], constraints[offset + CONSTRAINT_BOTTOM]));
+					autoSizeCount = minimumPositive(autoSizeCount, finishAutoSizeCalculation(constraints[offset + CONSTRAINT_BOTTOM], constraints[offset + CONSTRAINT_TOP]));
+				}
+			}
+		}
+		while (autoSizeCount > 0 && autoSizeCount < Integer.MAX_VALUE);
+		
+		leftBorderUsed = false;
+		rightBorderUsed = false;
+		topBorderUsed = false;
+		bottomBorderUsed = false;
+		
+		int leftWidth = 0;
+		int rightWidth = 0;
+		int topHeight = 0;
+		int bottomHeight = 0;
+		
+		for (int component = 0; component < componentCount; component++)
+		{
+			if (visible[component])
+			{
+				int offset = component * 4;
+				
+				int left = constraints[offset + CONSTRAINT_LEFT];
+				int right = constraints[offset + CONSTRAINT_RIGHT];
+				int top = constraints[offset + CONSTRAINT_TOP];
+				int bottom = constraints[offset + CONSTRAINT_BOTTOM];
+				
+				int leftBorder = getBorderAnchor(left);
+				int rightBorder = getBorderAnchor(right);
+				int topBorder = getBorderAnchor(top);
+				int bottomBorder = getBorderAnchor(bottom);
+				
+				if (rightBorder == LEFT)
+				{
+					leftWidth = Math.max(leftWidth, getAbsolutePosition(right));
+					leftBorderUsed = true;
+				}
+				if (leftBorder == RIGHT)
+				{
+					rightWidth = Math.max(rightWidth, -getAbsolutePosition(left));
+					rightBorderUsed = true;
+				}
+				if (bottomBorder == TOP)
+				{
+					topHeight = Math.max(topHeight, getAbsolutePosition(bottom));
+					topBorderUsed = true;
+				}
+				if (topBorder == BOTTOM)
+				{
+					bottomHeight = Math.max(bottomHeight, -getAbsolutePosition(top));
+					bottomBorderUsed = true;
+				}
+				
+				if (leftBorder == LEFT && rightBorder == RIGHT)
+				{
+					int distance = getAbsolutePosition(left) - getAbsolutePosition(right);
+					
+					preferredWidth = Math.max(preferredWidth, distance + sizes[offset + SIZE_PREFERRED_WIDTH]);
+					minimumWidth = Math.max(minimumWidth, distance + sizes[offset + SIZE_MINIMUM_WIDTH]);
+					
+					leftBorderUsed = true;
+					rightBorderUsed = true;
+				}
+				if (topBorder == TOP && bottomBorder == BOTTOM)
+				{
+					int distance = getAbsolutePosition(top) - getAbsolutePosition(bottom);
+					
+					preferredHeight = Math.max(preferredHeight, distance + sizes[offset + SIZE_PREFERRED_HEIGHT]);
+					minimumHeight = Math.max(minimumHeight, distance + sizes[offset + SIZE_MINIMUM_HEIGHT]);
+					
+					topBorderUsed = true;
+					bottomBorderUsed = true;
+				}
+			}
+		}
+		
+		int width;
+		
+		if (leftWidth != 0 && rightWidth != 0)
+		{
+			width = leftWidth + rightWidth + horizontalGap;
+		}
+		else if (leftWidth != 0)
+		{
+			width = leftWidth - positions[RIGHT_MARGIN];
+		}
+		else
+		{
+			width = rightWidth + positions[LEFT_MARGIN];
+		}
+		
+		preferredWidth = Math.max(preferredWidth, width);
+		minimumWidth = Math.max(minimumWidth, width);
+		
+		int height;
+		
+		if (topHeight != 0 && bottomHeight != 0)
+		{
+			height = topHeight + bottomHeight + verticalGap;
+		}
+		else if (topHeight != 0)
+		{
+			height = topHeight - positions[BOTTOM_MARGIN];
+		}
+		else
+		{
+			height = bottomHeight + positions[TOP_MARGIN];
+		}
+		
+		preferredHeight = Math.max(preferredHeight, height);
+		minimumHeight = Math.max(minimumHeight, height);
+		
+		preferredWidth = preferredWidth + insets[1] + insets[3];
+		preferredHeight = preferredHeight + insets[0] + insets[2];
+		minimumWidth = minimumWidth + insets[1] + insets[3];
+		minimumHeight = minimumHeight + insets[0] + insets[2];
+	}
+	
+	/**
+	 * Calculates the autosize anchors between the given anchors, if their
+	 * count is the given count.
+	 * 
+	 * @param pLeftTopAnchor the left or top anchor.
+	 * @param pRightBottomAnchor the right or bottom anchor.
+	 * @param pPreferredSize the preferred size of the component.
+	 * @param pAutoSizeCount the count of autosize anchors which are calculated
+	 *            in this pass.
+	 */
+	private void calculateAutoSize(int pLeftTopAnchor, int pRightBottomAnchor, int pPreferredSize, int pAutoSizeCount)
+	{
+		int count = getAutoSizeAnchorsBetween(pLeftTopAnchor, pRightBottomAnchor);
+		
+		if (count == pAutoSizeCount)
+		{
+			int fixedSize = getAbsolutePosition(pRightBottomAnchor) - getAbsolutePosition(pLeftTopAnchor);
+			
+			for (int index = 0; index < count; index++)
+			{
+				fixedSize = fixedSize + positions[anchorsBuffer[index]];
+			}
+			
+			int diffSize = (pPreferredSize - fixedSize + count - 1) / count;
+			
+			for (int index = 0; index < count; index++)
+			{
+				int anchor = anchorsBuffer[index];
+				
+				if (diffSize > -positions[anchor])
+				{
+					positions[anchor] = -diffSize;
+				}
+				
+				flags[anchor] &= ~FLAG_FIRST_CALCULATION;
+			}
+		}
+		
+		count = getAutoSizeAnchorsBetween(pRightBottomAnchor, pLeftTopAnchor);
+		
+		if (count == pAutoSizeCount)
+		{
+			int fixedSize = getAbsolutePosition(pRightBottomAnchor) - getAbsolutePosition(pLeftTopAnchor);
+			
+			for (int index = 0; index < count; index++)
+			{
+				fixedSize = fixedSize - positions[anchorsBuffer[index]];
+			}
+			
+			int diffSize = (pPreferredSize - fixedSize + count - 1) / count;
+			
+			for (int index = 0; index < count; index++)
+			{
+				int anchor = anchorsBuffer[index];
+				
+				if (diffSize > positions[anchor])
+				{
+					positions[anchor] = diffSize;
+				}
+				
+				flags[anchor] &= ~FLAG_FIRST_CALCULATION;
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the relative anchors of a component which is stretched
+	 * between both borders.
+	 * 
+	 * @param pLeftTopAnchor the left or top anchor.
+	 * @param pRightBottomAnchor the right or bottom anchor.
+	 * @param pPreferredSize the preferred size of the component.
+	 */
+	private void calculateRelativeAnchor(int pLeftTopAnchor, int pRightBottomAnchor, int pPreferredSize)
+	{
+		if ((flags[pLeftTopAnchor] & FLAG_RELATIVE) != 0)
+		{
+			int rightBottom = getRelativeAnchor(pRightBottomAnchor);
+			
+			if (rightBottom >= 0 && rightBottom != pLeftTopAnchor)
+			{
+				int preferredSize = getAbsolutePosition(rightBottom) - getAbsolutePosition(pRightBottomAnchor) + pPreferredSize;
+				int size = getAbsolutePosition(related[rightBottom]) - getAbsolutePosition(related[pLeftTopAnchor]);
+				
+				int diff = preferredSize - size;
+				
+				if (diff < 0)
+				{
+					diff = diff / 2;
+				}
+				else
+				{
+					diff = diff - diff / 2;
+				}
+				
+				if ((flags[rightBottom] & FLAG_FIRST_CALCULATION) != 0 || diff > positions[rightBottom])
+				{
+					flags[rightBottom] &= ~FLAG_FIRST_CALCULATION;
+					positions[rightBottom] = diff;
+				}
+				
+				diff = preferredSize - size - diff;
+				
+				if ((flags[pLeftTopAnchor] & FLAG_FIRST_CALCULATION) != 0 || diff > -positions[pLeftTopAnchor])
+				{
+					flags[pLeftTopAnchor] &= ~FLAG_FIRST_CALCULATION;
+					positions[pLeftTopAnchor] = -diff;
+				}
+			}
+		}
+		else if ((flags[pRightBottomAnchor] & FLAG_RELATIVE) != 0)
+		{
+			int leftTop = getRelativeAnchor(pLeftTopAnchor);
+			
+			if (leftTop >= 0 && leftTop != pRightBottomAnchor)
+			{
+				int preferredSize = getAbsolutePosition(pLeftTopAnchor) - getAbsolutePosition(leftTop) + pPreferredSize;
+				int size = getAbsolutePosition(related[pRightBottomAnchor]) - getAbsolutePosition(related[leftTop]);
+				
+				int diff = size - preferredSize;
+				
+				if (diff < 0)
+				{
+					diff = diff - diff / 2;
+				}
+				else
+				{
+					diff = diff / 2;
+				}
+				
+				if ((flags[leftTop] & FLAG_FIRST_CALCULATION) != 0 || diff < positions[leftTop])
+				{
+					flags[leftTop] &= ~FLAG_FIRST_CALCULATION;
+					positions[leftTop] = diff;
+				}
+				
+				diff = preferredSize - size - diff;
+				
+				if ((flags[pRightBottomAnchor] & FLAG_FIRST_CALCULATION) != 0 || diff > -positions[pRightBottomAnchor])
+				{
+					flags[pRightBottomAnchor] &= ~FLAG_FIRST_CALCULATION;
+					positions[pRightBottomAnchor] = -diff;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the border anchors and the relative anchors for the given
+	 * size of the container, the same as the {@link JVxFormLayout} does.
+	 * 
+	 * @param pWidth the width of the container.
+	 * @param pHeight the height of the container.
+	 */
+	private void calculateTargetDependentAnchors(int pWidth, int pHeight)
+	{
+		int horizontalInsets = insets[1] + insets[3];
+		int verticalInsets = insets[0] + insets[2];
+		
+		int width = pWidth - horizontalInsets;
+		int height = pHeight - verticalInsets;
+		
+		int targetMinimumWidth;
+		int targetMinimumHeight;
+		
+		if (minimumSize != null)
+		{
+			targetMinimumWidth = minimumSize.width - horizontalInsets;
+			targetMinimumHeight = minimumSize.height - verticalInsets;
+		}
+		else
+		{
+			targetMinimumWidth = minimumWidth - horizontalInsets;
+			targetMinimumHeight = minimumHeight - verticalInsets;
+		}
+		
+		int targetMaximumWidth;
+		int targetMaximumHeight;
+		
+		if (maximumSize != null)
+		{
+			targetMaximumWidth = maximumSize.width - horizontalInsets;
+			targetMaximumHeight = maximumSize.height - verticalInsets;
+		}
+		else
+		{
+			targetMaximumWidth = Integer.MAX_VALUE - horizontalInsets;
+			targetMaximumHeight = Integer.MAX_VALUE - verticalInsets;
+		}
+		
+		if (horizontalAlignment == JVxConstants.STRETCH || (leftBorderUsed && rightBorderUsed))
+		{
+			if (targetMinimumWidth > width)
+			{
+				positions[LEFT] = 0;
+				positions[RIGHT] = targetMinimumWidth;
+			}
+			else if (targetMaximumWidth < width)
+			{
+				positions[LEFT] = getAlignedPosition(horizontalAlignment, JVxConstants.LEFT, JVxConstants.RIGHT, width - targetMaximumWidth);
+				positions[RIGHT] = positions[LEFT] + targetMaximumWidth;
+			}
+			else
+			{
+				positions[LEFT] = 0;
+				positions[RIGHT] = width;
+			}
+		}
+		else
+		{
+			if (preferredWidth > width)
+			{
+				positions[LEFT] = 0;
+			}
+			else
+			{
+				positions[LEFT] = getAlignedPosition(horizontalAlignment, JVxConstants.LEFT, JVxConstants.RIGHT, width - preferredWidth);
+			}
+			
+			positions[RIGHT] = positions[LEFT] + preferredWidth;
+		}
+		
+		if (verticalAlignment == JVxConstants.STRETCH || (topBorderUsed && bottomBorderUsed))
+		{
+			if (targetMinimumHeight > height)
+			{
+				positions[TOP] = 0;
+				positions[BOTTOM] = targetMinimumHeight;
+			}
+			else if (targetMaximumHeight < height)
+			{
+				positions[TOP] = getAlignedPosition(verticalAlignment, JVxConstants.TOP, JVxConstants.BOTTOM, height - targetMaximumHeight);
+				positions[BOTTOM] = positions[TOP] + targetMaximumHeight;
+			}
+			else
+			{
+				positions[TOP] = 0;
+				positions[BOTTOM] = height;
+			}
+		}
+		else
+		{
+			if (preferredHeight > height)
+			{
+				positions[TOP] = 0;
+			}
+			else
+			{
+				positions[TOP] = getAlignedPosition(verticalAlignment, JVxConstants.TOP, JVxConstants.BOTTOM, height - preferredHeight);
+			}
+			
+			positions[BOTTOM] = positions[TOP] + preferredHeight;
+		}
+		
+		// The JVxFormLayout moves the right and bottom anchors also only by
+		// the left and top insets.
+		positions[LEFT] = positions[LEFT] + insets[1];
+		positions[RIGHT] = positions[RIGHT] + insets[1];
+		positions[TOP] = positions[TOP] + insets[0];
+		positions[BOTTOM] = positions[BOTTOM] + insets[0];
+		
+		for (int component = 0; component < componentCount; component++)
+		{
+			if (visible[component])
+			{
+				int offset = component * 4;
+				
+				calculateRelativeAnchor(constraints[offset + CONSTRAINT_LEFT], constraints[offset + CONSTRAINT_RIGHT], sizes[offset + SIZE_PREFERRED_WIDTH]);
+				calculateRelativeAnchor(constraints[offset + CONSTRAINT_TOP], constraints[offset + CONSTRAINT_BOTTOM], sizes[offset + SIZE_PREFERRED_HEIGHT]);
+			}
+		}
+	}
+	
+	/**
+	 * Resets the autosize state of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 */
+	private void clearAutoSize(int pAnchor)
+	{
+		if ((flags[pAnchor] & FLAG_AUTOSIZE) != 0)
+		{
+			flags[pAnchor] = (flags[pAnchor] & ~FLAG_AUTOSIZE_CALCULATED) | FLAG_RELATIVE | FLAG_FIRST_CALCULATION;
+			positions[pAnchor] = 0;
+		}
+		else
+		{
+			flags[pAnchor] = (flags[pAnchor] & ~(FLAG_AUTOSIZE_CALCULATED | FLAG_RELATIVE)) | FLAG_FIRST_CALCULATION;
+		}
+	}
+	
+	/**
+	 * Marks the autosize anchors between the given anchors as calculated, if
+	 * they have been calculated.
+	 * 
+	 * @param pStartAnchor the start anchor.
+	 * @param pEndAnchor the end anchor.
+	 * @return the count of autosize anchors which are not calculated yet.
+	 */
+	private int finishAutoSizeCalculation(int pStartAnchor, int pEndAnchor)
+	{
+		int count = getAutoSizeAnchorsBetween(pStartAnchor, pEndAnchor);
+		int remaining = count;
+		
+		for (int index = 0; index < count; index++)
+		{
+			int anchor = anchorsBuffer[index];
+			
+			if ((flags[anchor] & FLAG_FIRST_CALCULATION) == 0)
+			{
+				flags[anchor] |= FLAG_AUTOSIZE_CALCULATED;
+				remaining--;
+			}
+		}
+		
+		return remaining;
+	}
+	
+	/**
+	 * Gets the aligned position of a border anchor.
+	 * 
+	 * @param pAlignment the alignment.
+	 * @param pLeading the leading alignment constant.
+	 * @param pTrailing the trailing alignment constant.
+	 * @param pFreeSpace the free space.
+	 * @return the position of the left or top border anchor.
+	 */
+	private int getAlignedPosition(int pAlignment, int pLeading, int pTrailing, int pFreeSpace)
+	{
+		if (pAlignment == pLeading)
+		{
+			return 0;
+		}
+		else if (pAlignment == pTrailing)
+		{
+			return pFreeSpace;
+		}
+		else
+		{
+			return pFreeSpace / 2;
+		}
+	}
+	
+	/**
+	 * Fills the {@link #anchorsBuffer} with the not yet calculated autosize
+	 * anchors between the given anchors.
+	 * 
+	 * @param pStartAnchor the start anchor.
+	 * @param pEndAnchor the end anchor.
+	 * @return the count of anchors in the {@link #anchorsBuffer}, {@code 0} if
+	 *         the end anchor is not related to the start anchor.
+	 */
+	private int getAutoSizeAnchorsBetween(int pStartAnchor, int pEndAnchor)
+	{
+		int count = 0;
+		int anchor = pStartAnchor;
+		
+		while (anchor >= 0 && anchor != pEndAnchor)
+		{
+			if ((flags[anchor] & (FLAG_AUTOSIZE | FLAG_AUTOSIZE_CALCULATED)) == FLAG_AUTOSIZE)
+			{
+				anchorsBuffer[count++] = anchor;
+			}
+			
+			anchor = related[anchor];
+		}
+		
+		if (anchor < 0)
+		{
+			return 0;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Gets the border anchor of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the index of the border anchor.
+	 */
+	private int getBorderAnchor(int pAnchor)
+	{
+		int anchor = pAnchor;
+		
+		while (related[anchor] >= 0)
+		{
+			anchor = related[anchor];
+		}
+		
+		return anchor;
+	}
+	
+	/**
+	 * Gets the first relative anchor, starting with the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the index of the relative anchor, {@code -1} if there is none.
+	 */
+	private int getRelativeAnchor(int pAnchor)
+	{
+		int anchor = pAnchor;
+		
+		while (anchor >= 0 && (flags[anchor] & FLAG_RELATIVE) == 0)
+		{
+			anchor = related[anchor];
+		}
+		
+		return anchor;
+	}
+	
+	/**
+	 * Initializes the autosize anchors between the given anchors.
+	 * 
+	 * @param pStartAnchor the start anchor.
+	 * @param pEndAnchor the end anchor.
+	 */
+	private void initAutoSize(int pStartAnchor, int pEndAnchor)
+	{
+		int count = getAutoSizeAnchorsBetween(pStartAnchor, pEndAnchor);
+		
+		for (int index = 0; index < count; index++)
+		{
+			int anchor = anchorsBuffer[index];
+			
+			flags[anchor] &= ~FLAG_RELATIVE;
+			
+			if ((flags[related[anchor]] & FLAG_AUTOSIZE) == 0)
+			{
+				positions[anchor] = -positions[related[anchor]];
+			}
+			else
+			{
+				positions[anchor] = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the minimum of the given values, ignoring values which are not
+	 * positive.
+	 * 
+	 * @param pCurrent the current minimum.
+	 * @param pValue the value.
+	 * @return the new minimum.
+	 */
+	private int minimumPositive(int pCurrent, int pValue)
+	{
+		if (pValue > 0 && pValue < pCurrent)
+		{
+			return pValue;
+		}
+		
+		return pCurrent;
+	}
+	
+}	// AnchorGraph
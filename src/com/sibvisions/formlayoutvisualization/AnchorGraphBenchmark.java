@@ -0,0 +1,368 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Container;
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.rad.genui.UIFactoryManager;
+import javax.rad.genui.component.UILabel;
+import javax.rad.genui.component.UITextField;
+import javax.rad.genui.container.UIPanel;
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout;
+import com.sibvisions.rad.ui.swing.impl.SwingFactory;
+
+/**
+ * The {@link AnchorGraphBenchmark} checks the results of the
+ * {@link AnchorGraph} against the {@link JVxFormLayout} and compares the time
+ * both need to calculate a large layout.
+ * <p>
+ * It runs headless and accepts the following arguments, all of them optional:
+ * <ol>
+ * <li>the number of rows of the grid layout, defaults to
+ * {@value #DEFAULT_ROWS}.</li>
+ * <li>the number of components of the random layout, defaults to
+ * {@value #DEFAULT_RANDOM_COMPONENTS}.</li>
+ * <li>the number of measured iterations, defaults to
+ * {@value #DEFAULT_ITERATIONS}.</li>
+ * </ol>
+ * Every layout is checked at its preferred size and at a smaller and a larger
+ * size. If any size, anchor position or bound differs, the process exits with
+ * {@code 1}.
+ * 
+ * @author Robert Zenz
+ */
+public final class AnchorGraphBenchmark
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default number of measured iterations. */
+	private static final int DEFAULT_ITERATIONS = 10;
+	
+	/** The default number of components of the random layout. */
+	private static final int DEFAULT_RANDOM_COMPONENTS = 3000;
+	
+	/** The default number of rows of the grid layout. */
+	private static final int DEFAULT_ROWS = 2500;
+	
+	/** The number of iterations which are done before measuring. */
+	private static final int WARMUP_ITERATIONS = 3;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Invisible constructor, because the {@link AnchorGraphBenchmark} is a
+	 * utility class.
+	 */
+	private AnchorGraphBenchmark()
+	{
+	}
+	
+	/**
+	 * The main method.
+	 * 
+	 * @param pArgs the arguments.
+	 * @throws Exception if the benchmark could not be run.
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		
+		int rows = pArgs.length >= 1 ? Integer.parseInt(pArgs[0]) : DEFAULT_ROWS;
+		int randomComponents = pArgs.length >= 2 ? Integer.parseInt(pArgs[1]) : DEFAULT_RANDOM_COMPONENTS;
+		int iterations = pArgs.length >= 3 ? Integer.parseInt(pArgs[2]) : DEFAULT_ITERATIONS;
+		
+		UIFactoryManager.getFactoryInstance(SwingFactory.class);
+		
+		int mismatches = 0;
+		
+		mismatches = mismatches + run("Grid", createGridPanel(rows), iterations);
+		mismatches = mismatches + run("Random", createRandomPanel(randomComponents, new Random(1)), iterations);
+		
+		if (mismatches > 0)
+		{
+			System.out.println("FAILED: " + mismatches + " mismatches.");
+			
+			System.exit(1);
+		}
+		
+		System.out.println("PASSED");
+		
+		System.exit(0);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Checks the {@link AnchorGraph} against the {@link JVxFormLayout} of the
+	 * given {@link Container} at the given size.
+	 * 
+	 * @param pContainer the {@link Container}.
+	 * @param pGraph the {@link AnchorGraph} of the {@link Container}.
+	 * @param pAnchors the {@link IAnchor}s of the layout.
+	 * @param pWidth the width.
+	 * @param pHeight the height.
+	 * @return the number of mismatches.
+	 */
+	private static int check(Container pContainer, AnchorGraph pGraph, IAnchor[] pAnchors, int pWidth, int pHeight)
+	{
+		JVxFormLayout layout = (JVxFormLayout)pContainer.getLayout();
+		
+		pContainer.setSize(pWidth, pHeight);
+		layout.invalidateLayout(pContainer);
+		
+		Dimension preferredSize = layout.preferredLayoutSize(pContainer);
+		Dimension minimumSize = layout.minimumLayoutSize(pContainer);
+		layout.layoutContainer(pContainer);
+		
+		pGraph.solve(pWidth, pHeight);
+		
+		int mismatches = 0;
+		
+		if (!preferredSize.equals(pGraph.getPreferredSize()))
+		{
+			mismatches++;
+		}
+		if (!minimumSize.equals(pGraph.getMinimumSize()))
+		{
+			mismatches++;
+		}
+		
+		int[] absolutePositions = pGraph.getAbsolutePositions();
+		
+		for (IAnchor anchor : pAnchors)
+		{
+			if (anchor.getAbsolutePosition() != absolutePositions[pGraph.indexOf(anchor)])
+			{
+				mismatches++;
+			}
+		}
+		
+		for (int index = 0; index < pContainer.getComponentCount(); index++)
+		{
+			if (pContainer.getComponent(index).isVisible()
+					&& !pContainer.getComponent(index).getBounds().equals(pGraph.getComponentBounds(index)))
+			{
+				mismatches++;
+			}
+		}
+		
+		return mismatches;
+	}
+	
+	/**
+	 * Creates a panel with a grid of labels and text fields.
+	 * 
+	 * @param pRows the number of rows.
+	 * @return the panel.
+	 */
+	private static UIPanel createGridPanel(int pRows)
+	{
+		UIFormLayout layout = new UIFormLayout();
+		
+		UIPanel panel = new UIPanel();
+		panel.setLayout(layout);
+		
+		for (int row = 0; row < pRows; row++)
+		{
+			panel.add(new UILabel("Label " + row), layout.getConstraints(0, row));
+			panel.add(new UITextField(), layout.getConstraints(1, row));
+			panel.add(new UILabel("Label " + row), layout.getConstraints(2, row));
+			panel.add(new UITextField(), layout.getConstraints(3, row, -1, row));
+		}
+		
+		return panel;
+	}
+	
+	/**
+	 * Creates a panel with randomly related anchors, including autosize
+	 * anchors, anchors which are stretched to the margins and invisible
+	 * components.
+	 * 
+	 * @param pComponents the number of components.
+	 * @param pRandom the {@link Random} to use.
+	 * @return the panel.
+	 */
+	private static UIPanel createRandomPanel(int pComponents, Random pRandom)
+	{
+		UIFormLayout layout = new UIFormLayout();
+		
+		UIPanel panel = new UIPanel();
+		panel.setLayout(layout);
+		
+		List<IAnchor> horizontalAnchors = new ArrayList<>();
+		horizontalAnchors.add(layout.getLeftMarginAnchor());
+		
+		List<IAnchor> verticalAnchors = new ArrayList<>();
+		verticalAnchors.add(layout.getTopMarginAnchor());
+		
+		for (int index = 0; index < pComponents; index++)
+		{
+			IAnchor left = createRandomAnchor(layout, horizontalAnchors, pRandom);
+			IAnchor top = createRandomAnchor(layout, verticalAnchors, pRandom);
+			
+			IAnchor right;
+			IAnchor bottom;
+			
+			if (pRandom.nextInt(20) == 0)
+			{
+				right = layout.createAnchor(layout.getRightMarginAnchor(), -pRandom.nextInt(20));
+			}
+			else if (pRandom.nextBoolean())
+			{
+				right = layout.createAnchor(left);
+			}
+			else
+			{
+				right = layout.createAnchor(left, pRandom.nextInt(100));
+			}
+			
+			if (pRandom.nextInt(20) == 0)
+			{
+				bottom = layout.createAnchor(layout.getBottomMarginAnchor(), -pRandom.nextInt(20));
+			}
+			else if (pRandom.nextBoolean())
+			{
+				bottom = layout.createAnchor(top);
+			}
+			else
+			{
+				bottom = layout.createAnchor(top, pRandom.nextInt(50));
+			}
+			
+			horizontalAnchors.add(right);
+			verticalAnchors.add(bottom);
+			
+			UILabel label = new UILabel("Label " + index);
+			label.setVisible(pRandom.nextInt(50) != 0);
+			
+			panel.add(label, layout.getConstraints(top, left, bottom, right));
+		}
+		
+		return panel;
+	}
+	
+	/**
+	 * Creates an anchor which is related to a random one of the given anchors.
+	 * 
+	 * @param pLayout the {@link UIFormLayout}.
+	 * @param pAnchors the existing anchors.
+	 * @param pRandom the {@link Random} to use.
+	 * @return the new anchor.
+	 */
+	private static IAnchor createRandomAnchor(UIFormLayout pLayout, List<IAnchor> pAnchors, Random pRandom)
+	{
+		// Prefer the recently created anchors, so that long chains are built.
+		int index = Math.max(0, pAnchors.size() - 1 - pRandom.nextInt(Math.min(pAnchors.size(), 10)));
+		
+		return pLayout.createAnchor(pAnchors.get(index), pRandom.nextInt(10));
+	}
+	
+	/**
+	 * Checks and measures the given panel.
+	 * 
+	 * @param pName the name of the layout.
+	 * @param pPanel the panel.
+	 * @param pIterations the number of measured iterations.
+	 * @return the number of mismatches.
+	 */
+	private static int run(String pName, UIPanel pPanel, int pIterations)
+	{
+		Container container = (Container)pPanel.getResource();
+		JVxFormLayout layout = (JVxFormLayout)container.getLayout();
+		
+		UIFormLayout uiLayout = (UIFormLayout)pPanel.getLayout();
+		
+		List<IAnchor> anchors = new ArrayList<>();
+		
+		for (IAnchor anchor : uiLayout.getHorizontalAnchors())
+		{
+			anchors.add(anchor);
+		}
+		for (IAnchor anchor : uiLayout.getVerticalAnchors())
+		{
+			anchors.add(anchor);
+		}
+		
+		IAnchor[] anchorArray = anchors.toArray(new IAnchor[anchors.size()]);
+		
+		AnchorGraph graph = new AnchorGraph(container);
+		
+		Dimension preferredSize = layout.preferredLayoutSize(container);
+		
+		int mismatches = 0;
+		
+		mismatches = mismatches + check(container, graph, anchorArray, preferredSize.width, preferredSize.height);
+		mismatches = mismatches + check(container, graph, anchorArray, preferredSize.width / 2, preferredSize.height / 2);
+		mismatches = mismatches + check(container, graph, anchorArray, preferredSize.width * 2, preferredSize.height * 2);
+		
+		for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++)
+		{
+			layout.invalidateLayout(container);
+			layout.layoutContainer(container);
+			
+			new AnchorGraph(container).solve(preferredSize.width, preferredSize.height);
+		}
+		
+		long layoutTime = 0;
+		long createTime = 0;
+		long solveTime = 0;
+		
+		for (int iteration = 0; iteration < pIterations; iteration++)
+		{
+			long start = System.nanoTime();
+			layout.invalidateLayout(container);
+			layout.layoutContainer(container);
+			long laidOut = System.nanoTime();
+			AnchorGraph measuredGraph = new AnchorGraph(container);
+			long created = System.nanoTime();
+			measuredGraph.solve(preferredSize.width, preferredSize.height);
+			long solved = System.nanoTime();
+			
+			layoutTime = layoutTime + (laidOut - start);
+			createTime = createTime + (created - laidOut);
+			solveTime = solveTime + (solved - created);
+		}
+		
+		System.out.println(String.format("%s: %d components, %d anchors, %d mismatches",
+				pName,
+				Integer.valueOf(container.getComponentCount()),
+				Integer.valueOf(graph.getAnchorCount()),
+				Integer.valueOf(mismatches)));
+		System.out.println(String.format("    JVxFormLayout: %.3f ms, AnchorGraph: %.3f ms (create %.3f ms, solve %.3f ms), speedup of solve %.2fx",
+				Double.valueOf(layoutTime / 1000000d / pIterations),
+				Double.valueOf((createTime + solveTime) / 1000000d / pIterations),
+				Double.valueOf(createTime / 1000000d / pIterations),
+				Double.valueOf(solveTime / 1000000d / pIterations),
+				Double.valueOf((double)layoutTime / solveTime)));
+		
+		return mismatches;
+	}
+	
+}	// AnchorGraphBenchmark
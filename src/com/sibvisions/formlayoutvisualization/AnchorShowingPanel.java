@@ -16,24 +16,45 @@
 
 package com.sibvisions.formlayoutvisualization;
 
+import java.awt.Color;
+import java.awt.Component;
 import java.awt.Container;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import javax.rad.genui.UIComponent;
+import javax.rad.genui.component.UICustomComponent;
 import javax.rad.genui.container.UIPanel;
 import javax.rad.genui.layout.UIFormLayout;
 import javax.rad.ui.IColor;
 import javax.rad.ui.IComponent;
+import javax.rad.ui.IContainer;
 import javax.rad.ui.IRectangle;
 import javax.rad.ui.layout.IFormLayout.IAnchor;
+import javax.swing.JComponent;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
+import com.sibvisions.formlayoutvisualization.FlightRecorderEvents.AnchorHitTestEvent;
+import com.sibvisions.formlayoutvisualization.FlightRecorderEvents.AnchorOverlayRebuildEvent;
+import com.sibvisions.formlayoutvisualization.FlightRecorderEvents.LayoutSolveEvent;
 import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout;
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout.Constraint;
 import com.sibvisions.util.ArrayUtil;
 
 /**
@@ -41,44 +62,195 @@ import com.sibvisions.util.ArrayUtil;
  * all anchors of its current layout.
  * <p>
  * This panel only works with an {@link UIFormLayout}.
+ * <p>
+ * Nested {@link IContainer}s which do have an {@link UIFormLayout} themselves
+ * are found recursively, but the placeholders for their anchors are only
+ * created when such a container is hovered or expanded (by clicking on it).
+ * <p>
+ * The {@link LayoutComplexity} of the layout is analyzed on every update, the
+ * worst offenders are shown in their own color.
+ * <p>
+ * If a {@link LayoutCost} is set, every measured component is covered with
+ * an overlay whose opacity shows how expensive the component is to lay out.
+ * <p>
+ * If only a region of the panel is visible, for example because it is zoomed
+ * or panned by a {@link FormViewport}, the placeholders are only created for
+ * the {@link IAnchor}s in and around that region, see
+ * {@link #setVisibleRegion(Rectangle)}.
+ * <p>
+ * If the {@link IAnchor}s are clustered, neighboring {@link IAnchor}s which
+ * are closer together on screen than {@value #CLUSTER_DISTANCE} pixels are
+ * shown as one marker with their count, which is expanded when it is
+ * hovered. So the count of placeholders which have to be laid out and tested
+ * depends on the visible clusters, not on the count of {@link IAnchor}s.
+ * <p>
+ * Adding many components one by one is expensive, because every add and
+ * remove mutates and invalidates the container. Between
+ * {@link #beginBatch()} and {@link #endBatch()} the components are only
+ * recorded, the container is updated and laid out once when the batch ends:
+ * 
+ * <pre>
+ * panel.batch(() -&gt;
+ * {
+ *     panel.removeAll();
+ *     
+ *     // Add the components.
+ * });
+ * </pre>
  * 
  * @author Robert Zenz
  */
 public class AnchorShowingPanel extends UIPanel
 {
+	/**
+	 * The {@link IColor} of the overlay of the components which are attached
+	 * to the highlighted {@link IAnchor}.
+	 */
+	public static final IColor ATTACHED_COMPONENT_COLOR = Tango.CHAMELEON_1;
+	
 	/** The {@link IColor} for autosizing {@link IAnchor}s. */
 	public static final IColor AUTOSIZE_ANCHOR_COLOR = Tango.SKY_BLUE_1;
 	
 	/** The {@link IColor} for border {@link IAnchor}s. */
 	public static final IColor BORDER_ANCHOR_COLOR = Tango.CHOCOLATE_3;
 	
+	/** The {@link IColor} used for the markers of clustered anchors. */
+	public static final IColor CLUSTER_COLOR = Tango.CHAMELEON_3;
+	
+	/**
+	 * The {@link IColor} used for the {@link IAnchor}s which are the worst
+	 * offenders of the {@link LayoutComplexity}.
+	 */
+	public static final IColor COMPLEX_ANCHOR_COLOR = Tango.SCARLET_RED_3;
+	
+	/**
+	 * The {@link IColor} for the {@link IAnchor}s which depend on the
+	 * highlighted {@link IAnchor}.
+	 */
+	public static final IColor DEPENDENT_ANCHOR_COLOR = Tango.CHAMELEON_2;
+	
 	/** The {@link IColor} for fixed {@link IAnchor}s. */
 	public static final IColor FIXED_ANCHOR_COLOR = Tango.SKY_BLUE_3;
 	
+	/** The {@link IColor} of the overlay which shows the {@link LayoutCost}. */
+	public static final IColor HEAT_COLOR = Tango.ORANGE_3;
+	
 	/** The {@link IColor} for margin {@link IAnchor}s. */
 	public static final IColor MARGIN_ANCHOR_COLOR = Tango.ORANGE_2;
 	
+	/** The {@link IColor} for border {@link IAnchor}s of nested layouts. */
+	public static final IColor NESTED_BORDER_ANCHOR_COLOR = Tango.PLUM_2;
+	
 	/** The object name for the associated {@link IAnchor}. */
 	private static final String ANCHOR_OBJECT = "anchor";
 	
 	/** The size of the displayed {@link IAnchor}. */
 	private static final int ANCHOR_SIZE = 1;
 	
+	/** The alpha of the overlay of the attached components. */
+	private static final int ATTACHED_COMPONENT_ALPHA = 96;
+	
 	/** The object name for the original background {@link IColor}. */
 	private static final String BACKGROUND_OBJECT = "background";
 	
+	/**
+	 * The distance on screen, in pixels, below which neighboring anchors are
+	 * clustered.
+	 */
+	private static final int CLUSTER_DISTANCE = 3;
+	
+	/** The name of the object for the anchors of a cluster marker. */
+	private static final String CLUSTER_OBJECT = "cluster";
+	
+	/** The alpha of the overlay of the most expensive component. */
+	private static final int MAXIMUM_HEAT_ALPHA = 160;
+	
+	/**
+	 * The minimum size on screen of a cluster marker, in pixels, so that its
+	 * count can be read.
+	 */
+	private static final int MINIMUM_CLUSTER_SIZE = 16;
+	
 	/** The range within wich the {@link IAnchor} is highlighted. */
 	private static final int SNAP_RANGE = 3;
 	
+	/**
+	 * The reverse index of the {@link IAnchor}s of the last update,
+	 * {@code null} if the display has not been updated yet.
+	 */
+	private AnchorDependencies anchorDependencies = null;
+	
+	/**
+	 * The placeholders of the {@link IAnchor}s of this panel, by the resource
+	 * of their {@link IAnchor}.
+	 */
+	private Map<Object, UIComponent<?>> anchorPlaceholders = new IdentityHashMap<>();
+	
+	/**
+	 * If neighboring {@link IAnchor}s which are closer together than
+	 * {@link #CLUSTER_DISTANCE} are clustered.
+	 */
+	private boolean anchorsClustered = false;
+	
 	/** If autosize {@link IAnchor}s are visible. */
 	private boolean autosizeAnchorsVisible = true;
 	
+	/** How many batches have been begun and not yet ended. */
+	private int batchDepth = 0;
+	
 	/** If order {@link IAnchor}s are visible. */
 	private boolean borderAnchorsVisible = true;
 	
+	/**
+	 * The markers of the clusters of {@link IAnchor}s, these are not in the
+	 * {@link #placeholders}.
+	 */
+	private List<UIComponent<?>> clusterPlaceholders = new ArrayList<>();
+	
+	/** If the {@link IAnchor}s which are the worst offenders are highlighted. */
+	private boolean complexAnchorsVisible = true;
+	
+	/**
+	 * The overlay which paints the components that are attached to the
+	 * highlighted {@link IAnchor}, it is not in the {@link #placeholders}.
+	 * {@code null} if there are no placeholders.
+	 */
+	private DependencyOverlay dependencyOverlay = null;
+	
+	/**
+	 * The placeholders of the {@link IAnchor}s which depend on the
+	 * highlighted {@link IAnchor}, these are also in the {@link #placeholders}.
+	 */
+	private List<UIComponent<?>> dependentPlaceholders = new ArrayList<>();
+	
+	/**
+	 * The scale at which this panel is displayed, the distance of clustered
+	 * {@link IAnchor}s is on screen.
+	 */
+	private double displayScale = 1;
+	
+	/** The marker of the cluster which is expanded, {@code null} if none. */
+	private UIComponent<?> expandedCluster = null;
+	
+	/**
+	 * The placeholders of the {@link IAnchor}s of the
+	 * {@link #expandedCluster}, these are also in the {@link #placeholders}.
+	 */
+	private List<UIComponent<?>> expandedClusterPlaceholders = new ArrayList<>();
+	
+	/** The nested {@link IContainer}s which have been expanded. */
+	private Set<IContainer> expandedContainers = Collections.newSetFromMap(new IdentityHashMap<>());
+	
 	/** If fixed {@link IAnchor}s are visible. */
 	private boolean fixedAnchorsVisible = true;
 	
+	/**
+	 * The overlays which show the {@link #layoutCost}, these are not
+	 * associated with an {@link IAnchor} and are not in the
+	 * {@link #placeholders}.
+	 */
+	private List<UIComponent<?>> heatPlaceholders = new ArrayList<>();
+	
 	/** The currently highlighted {@link IAnchor}. */
 	private IAnchor highlightedAnchor = null;
 	
@@ -87,9 +259,61 @@ public class AnchorShowingPanel extends UIPanel
 	 */
 	private Consumer<IAnchor> highlightedAnchorChangedListener = null;
 	
+	/**
+	 * The horizontal {@link IAnchor}s of the layout as of the last update,
+	 * without the ones of the placeholders.
+	 */
+	private IAnchor[] horizontalAnchors = null;
+	
+	/** The nested {@link IContainer} which is currently hovered. */
+	private IContainer hoveredContainer = null;
+	
+	/**
+	 * The {@link LayoutComplexity} of the last update, {@code null} if the
+	 * display has not been updated yet.
+	 */
+	private LayoutComplexity layoutComplexity = null;
+	
+	/**
+	 * The {@link LayoutConsistency} of the last update, {@code null} if the
+	 * display has not been updated yet.
+	 */
+	private LayoutConsistency layoutConsistency = null;
+	
+	/** The {@link LayoutCost} which is shown, {@code null} if none. */
+	private LayoutCost layoutCost = null;
+	
 	/** If margin {@link IAnchor}s are visible. */
 	private boolean marginAnchorsVisible = true;
 	
+	/**
+	 * The region in which placeholders are created, {@code null} if they are
+	 * created everywhere.
+	 */
+	private Rectangle materializedRegion = null;
+	
+	/** If the {@link IAnchor}s of nested layouts are visible. */
+	private boolean nestedAnchorsVisible = true;
+	
+	/**
+	 * The {@link List} of all nested {@link IContainer}s which have an
+	 * {@link UIFormLayout}, in depth-first order.
+	 */
+	private List<IContainer> nestedContainers = new ArrayList<>();
+	
+	/**
+	 * The placeholders of the nested {@link IContainer}s, these are created
+	 * lazily and only for the containers which are hovered or expanded.
+	 */
+	private Map<IContainer, List<UIComponent<?>>> nestedPlaceholders = new IdentityHashMap<>();
+	
+	/**
+	 * The indexed inserts into the {@link #realComponents} which have been
+	 * done in the current batch, in their order. They are applied at once
+	 * when the batch ends or when the {@link #realComponents} are needed.
+	 */
+	private List<PendingInsert> pendingInserts = new ArrayList<>();
+	
 	/** The {@link List} of added placeholders. */
 	private List<UIComponent<?>> placeholders = new ArrayList<>();
 	
@@ -99,6 +323,21 @@ public class AnchorShowingPanel extends UIPanel
 	/** The {@link List} of used constraints. */
 	private List<Object> realConstraints = new ArrayList<>();
 	
+	/**
+	 * The hash of the script which built the content, {@code 0} if it has not
+	 * been built from a script.
+	 */
+	private int scriptHash = 0;
+	
+	/**
+	 * The vertical {@link IAnchor}s of the layout as of the last update,
+	 * without the ones of the placeholders.
+	 */
+	private IAnchor[] verticalAnchors = null;
+	
+	/** The visible region, {@code null} if the whole panel is visible. */
+	private Rectangle visibleRegion = null;
+	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Initialization
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -126,7 +365,28 @@ public class AnchorShowingPanel extends UIPanel
 	@Override
 	public void add(IComponent pComponent, Object pConstraints, int pIndex)
 	{
-		if (pIndex >= 0)
+		if (batchDepth > 0)
+		{
+			// Otherwise an invalid component would only fail when the batch
+			// is ended.
+			checkAdd(pComponent, pConstraints, pIndex);
+		}
+		
+		if (batchDepth > 0 && (pIndex >= 0 || !pendingInserts.isEmpty()))
+		{
+			int size = realComponents.size() + pendingInserts.size();
+			
+			if (pIndex > size)
+			{
+				throw new IndexOutOfBoundsException("Index: " + pIndex + ", Size: " + size);
+			}
+			
+			// Every insert into the lists would move all components behind
+			// it, so the inserts are applied at once. Components which are
+			// appended after an insert have to wait for it.
+			pendingInserts.add(new PendingInsert(pIndex >= 0 ? pIndex : size, pComponent, pConstraints));
+		}
+		else if (pIndex >= 0)
 		{
 			realComponents.add(pIndex, pComponent);
 			realConstraints.add(pIndex, pConstraints);
@@ -137,7 +397,10 @@ public class AnchorShowingPanel extends UIPanel
 			realConstraints.add(pConstraints);
 		}
 		
-		super.add(pComponent, pConstraints, pIndex);
+		if (batchDepth == 0)
+		{
+			super.add(pComponent, pConstraints, pIndex);
+		}
 	}
 	
 	/**
@@ -155,10 +418,15 @@ public class AnchorShowingPanel extends UIPanel
 	@Override
 	public void remove(int pIndex)
 	{
+		applyPendingInserts();
+		
 		realComponents.remove(pIndex);
 		realConstraints.remove(pIndex);
 		
-		super.remove(pIndex);
+		if (batchDepth == 0)
+		{
+			super.remove(pIndex);
+		}
 	}
 	
 	/**
@@ -169,10 +437,14 @@ public class AnchorShowingPanel extends UIPanel
 	{
 		realComponents.clear();
 		realConstraints.clear();
+		pendingInserts.clear();
 		
-		while (components.size() > 0)
+		// The measured components are gone.
+		layoutCost = null;
+		
+		if (batchDepth == 0)
 		{
-			super.remove(components.size() - 1);
+			removeAllComponents();
 		}
 	}
 	
@@ -181,76 +453,177 @@ public class AnchorShowingPanel extends UIPanel
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	
 	/**
-	 * Gets the name of the given {@link IAnchor}.
+	 * Runs the given {@link Runnable} in a batch, the batch is ended even if
+	 * the {@link Runnable} fails.
 	 * 
-	 * @param pAnchor the {@link IAnchor} of which to get the name.
-	 * @return the name of the given {@link IAnchor}.
+	 * @param pRunnable the {@link Runnable} which changes the content.
+	 * @see #beginBatch()
 	 */
-	public String getAnchorName(IAnchor pAnchor)
+	public void batch(Runnable pRunnable)
 	{
-		if (pAnchor == getLayout().getBottomAnchor())
-		{
-			return "Border bottom";
-		}
-		else if (pAnchor == getLayout().getLeftAnchor())
-		{
-			return "Border left";
-		}
-		else if (pAnchor == getLayout().getRightAnchor())
-		{
-			return "Border right";
-		}
-		else if (pAnchor == getLayout().getTopAnchor())
-		{
-			return "Border top";
-		}
-		else if (pAnchor == getLayout().getBottomMarginAnchor())
+		beginBatch();
+		
+		try
 		{
-			return "Margin bottom / b-1";
+			pRunnable.run();
 		}
-		else if (pAnchor == getLayout().getLeftMarginAnchor())
+		finally
 		{
-			return "Margin left / l0";
+			endBatch();
 		}
-		else if (pAnchor == getLayout().getRightMarginAnchor())
+	}
+	
+	/**
+	 * Begins a batch of changes to the content.
+	 * <p>
+	 * Until the batch is ended, added and removed components are only
+	 * recorded in {@link #getRealComponents()}, the container itself is
+	 * neither changed nor invalidated and {@link #updateAnchorDisplay()} does
+	 * nothing. Batches can be nested, every call must be followed by a call to
+	 * {@link #endBatch()}.
+	 */
+	public void beginBatch()
+	{
+		batchDepth++;
+	}
+	
+	/**
+	 * Sets whether neighboring {@link IAnchor}s which are closer together on
+	 * screen than {@value #CLUSTER_DISTANCE} pixels are shown as one cluster
+	 * marker, which is expanded when it is hovered.
+	 * 
+	 * @param pCluster {@code true} if the {@link IAnchor}s should be
+	 *            clustered.
+	 * @see #setDisplayScale(double)
+	 */
+	public void clusterAnchors(boolean pCluster)
+	{
+		anchorsClustered = pCluster;
+		
+		updateAnchorDisplay();
+	}
+	
+	/**
+	 * Copies which {@link IAnchor}s are visible, the visible region and the
+	 * background from the given {@link AnchorShowingPanel}, without updating
+	 * the display of the {@link IAnchor}s.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel} to copy from.
+	 * @return {@code true} if anything changed and the display of the
+	 *         {@link IAnchor}s needs to be updated.
+	 */
+	public boolean copyAnchorVisibility(AnchorShowingPanel pPanel)
+	{
+		boolean changed = anchorsClustered != pPanel.anchorsClustered
+				|| autosizeAnchorsVisible != pPanel.autosizeAnchorsVisible
+				|| borderAnchorsVisible != pPanel.borderAnchorsVisible
+				|| complexAnchorsVisible != pPanel.complexAnchorsVisible
+				|| fixedAnchorsVisible != pPanel.fixedAnchorsVisible
+				|| marginAnchorsVisible != pPanel.marginAnchorsVisible
+				|| nestedAnchorsVisible != pPanel.nestedAnchorsVisible
+				|| displayScale != pPanel.displayScale
+				|| !Objects.equals(materializedRegion, pPanel.materializedRegion);
+		
+		anchorsClustered = pPanel.anchorsClustered;
+		autosizeAnchorsVisible = pPanel.autosizeAnchorsVisible;
+		borderAnchorsVisible = pPanel.borderAnchorsVisible;
+		complexAnchorsVisible = pPanel.complexAnchorsVisible;
+		fixedAnchorsVisible = pPanel.fixedAnchorsVisible;
+		marginAnchorsVisible = pPanel.marginAnchorsVisible;
+		nestedAnchorsVisible = pPanel.nestedAnchorsVisible;
+		
+		displayScale = pPanel.displayScale;
+		materializedRegion = pPanel.materializedRegion;
+		visibleRegion = pPanel.visibleRegion;
+		
+		setBackground(pPanel.getBackground());
+		
+		return changed;
+	}
+	
+	/**
+	 * Ends a batch of changes to the content.
+	 * <p>
+	 * If this ends the outermost batch, the container is updated with all
+	 * recorded changes at once and the display of the {@link IAnchor}s is
+	 * updated, which lays out the container once.
+	 * 
+	 * @throws IllegalStateException if no batch has been begun.
+	 */
+	public void endBatch()
+	{
+		if (batchDepth == 0)
 		{
-			return "Margin right / r-1";
+			throw new IllegalStateException("No batch has been begun.");
 		}
-		else if (pAnchor == getLayout().getTopMarginAnchor())
+		
+		batchDepth--;
+		
+		if (batchDepth == 0)
 		{
-			return "Margin top / t0";
+			applyPendingInserts();
+			updateAnchorDisplay();
 		}
-		else
+	}
+	
+	/**
+	 * Gets the name of the given {@link IAnchor}.
+	 * <p>
+	 * The {@link IAnchor} can either belong to the layout of this panel, or to
+	 * the layout of one of the nested {@link IContainer}s.
+	 * 
+	 * @param pAnchor the {@link IAnchor} of which to get the name.
+	 * @return the name of the given {@link IAnchor}.
+	 */
+	public String getAnchorName(IAnchor pAnchor)
+	{
+		if (pAnchor.getLayout().getResource() != getLayout().getResource())
 		{
-			IAnchor[] horizontalAnchors = getLayout().getHorizontalAnchors();
-			
-			String name = getHorizontalAnchorName(horizontalAnchors, pAnchor, 0, 1);
-			if (name != null)
-			{
-				return name;
-			}
-			
-			name = getHorizontalAnchorName(horizontalAnchors, pAnchor, -1, -1);
-			if (name != null)
-			{
-				return name;
-			}
-			
-			IAnchor[] verticalAnchors = getLayout().getVerticalAnchors();
-			
-			name = getVerticalAnchorName(verticalAnchors, pAnchor, 0, 1);
-			if (name != null)
+			for (IContainer container : nestedContainers)
 			{
-				return name;
+				UIFormLayout layout = (UIFormLayout)container.getLayout();
+				
+				if (pAnchor.getLayout().getResource() == layout.getResource())
+				{
+					return getAnchorName(layout, pAnchor) + " (nested)";
+				}
 			}
+		}
+		
+		return getAnchorName(getLayout(), pAnchor);
+	}
+	
+	/**
+	 * Gets the scale at which this panel is displayed.
+	 * 
+	 * @return the scale at which this panel is displayed.
+	 * @see #setDisplayScale(double)
+	 */
+	public double getDisplayScale()
+	{
+		return displayScale;
+	}
+	
+	/**
+	 * Sets the scale at which this panel is displayed, for example by a
+	 * zoomed {@link FormViewport}.
+	 * <p>
+	 * The distance below which {@link IAnchor}s are clustered is on screen,
+	 * so the clusters become smaller the larger this panel is displayed.
+	 * 
+	 * @param pDisplayScale the scale at which this panel is displayed,
+	 *            {@code 1} if it is displayed in its actual size.
+	 */
+	public void setDisplayScale(double pDisplayScale)
+	{
+		if (pDisplayScale != displayScale)
+		{
+			displayScale = pDisplayScale;
 			
-			name = getVerticalAnchorName(verticalAnchors, pAnchor, -1, -1);
-			if (name != null)
+			if (anchorsClustered)
 			{
-				return name;
+				updatePlaceholders();
 			}
-			
-			return "???";
 		}
 	}
 	
@@ -278,300 +651,1552 @@ public class AnchorShowingPanel extends UIPanel
 	}
 	
 	/**
-	 * Sets whether autosize {@link IAnchor}s should be visible.
+	 * Gets the {@link LayoutConsistency} of the layout, as it was checked by
+	 * the last update of the display. If it is not consistent, the layout has
+	 * not been solved and no {@link IAnchor}s are displayed.
 	 * 
-	 * @param pShow {@code true} if autosize {@link IAnchor}s should be visible.
+	 * @return the {@link LayoutConsistency}, {@code null} if the display has
+	 *         not been updated yet.
 	 */
-	public void showAutosizeAnchors(boolean pShow)
+	public LayoutConsistency getLayoutConsistency()
 	{
-		autosizeAnchorsVisible = pShow;
-		
-		updateAnchorDisplay();
+		return layoutConsistency;
 	}
 	
 	/**
-	 * Sets whether border {@link IAnchor}s should be visible.
+	 * Gets the {@link LayoutComplexity} of the layout, as it was analyzed by
+	 * the last update of the display.
 	 * 
-	 * @param pShow {@code true} if border {@link IAnchor}s should be visible.
+	 * @return the {@link LayoutComplexity}, {@code null} if the display has
+	 *         not been updated yet.
 	 */
-	public void showBorderAnchors(boolean pShow)
+	public LayoutComplexity getLayoutComplexity()
 	{
-		borderAnchorsVisible = pShow;
-		
-		updateAnchorDisplay();
+		return layoutComplexity;
 	}
 	
 	/**
-	 * Sets whether fixed {@link IAnchor}s should be visible.
+	 * Gets the {@link LayoutCost} which is shown.
 	 * 
-	 * @param pShow {@code true} if fixed {@link IAnchor}s should be visible.
+	 * @return the {@link LayoutCost}, {@code null} if none is shown.
 	 */
-	public void showFixedAnchors(boolean pShow)
+	public LayoutCost getLayoutCost()
 	{
-		fixedAnchorsVisible = pShow;
-		
-		updateAnchorDisplay();
+		return layoutCost;
 	}
 	
 	/**
-	 * Sets whether margin {@link IAnchor}s should be visible.
+	 * Sets the {@link LayoutCost} which is shown as overlay on the measured
+	 * components.
+	 * <p>
+	 * The {@link LayoutCost} is removed when the content is removed.
 	 * 
-	 * @param pShow {@code true} if margin {@link IAnchor}s should be visible.
+	 * @param pLayoutCost the {@link LayoutCost}, {@code null} to show none.
 	 */
-	public void showMarginAnchors(boolean pShow)
+	public void setLayoutCost(LayoutCost pLayoutCost)
 	{
-		marginAnchorsVisible = pShow;
+		layoutCost = pLayoutCost;
 		
 		updateAnchorDisplay();
 	}
 	
 	/**
-	 * Updates the display of the visible {@link IAnchor}s.
+	 * Gets all nested {@link IContainer}s which have an {@link UIFormLayout},
+	 * in depth-first order.
+	 * <p>
+	 * The nested {@link IContainer}s are searched by
+	 * {@link #updateAnchorDisplay()}.
+	 * 
+	 * @return all nested {@link IContainer}s which have an
+	 *         {@link UIFormLayout}.
 	 */
-	public void updateAnchorDisplay()
+	public List<IContainer> getNestedContainers()
 	{
-		placeholders.clear();
-		
-		while (components.size() > 0)
-		{
-			super.remove(components.size() - 1);
-		}
+		return Collections.unmodifiableList(nestedContainers);
+	}
+	
+	/**
+	 * Gets all {@link IComponent}s which have been added to this panel,
+	 * without the placeholders for the {@link IAnchor}s.
+	 * 
+	 * @return all {@link IComponent}s which have been added to this panel.
+	 */
+	public List<IComponent> getRealComponents()
+	{
+		applyPendingInserts();
 		
-		for (int index = 0; index < realComponents.size(); index++)
-		{
-			super.add(
-					realComponents.get(index),
-					realConstraints.get(index),
-					-1);
-		}
+		return Collections.unmodifiableList(realComponents);
+	}
+	
+	/**
+	 * Gets the constraints of all {@link IComponent}s which have been added to
+	 * this panel, in the same order as {@link #getRealComponents()}.
+	 * 
+	 * @return the constraints of all {@link IComponent}s which have been added
+	 *         to this panel.
+	 */
+	public List<Object> getRealConstraints()
+	{
+		applyPendingInserts();
 		
-		((JVxFormLayout)getLayout().getResource()).invalidateLayout((Container)getResource());
-		((JVxFormLayout)getLayout().getResource()).layoutContainer((Container)getResource());
+		return Collections.unmodifiableList(realConstraints);
+	}
+	
+	/**
+	 * Gets the hash of the script which built the content.
+	 * 
+	 * @return the hash of the script which built the content, {@code 0} if it
+	 *         has not been built from a script.
+	 */
+	public int getScriptHash()
+	{
+		return scriptHash;
+	}
+	
+	/**
+	 * Sets the hash of the script which built the content, which is recorded
+	 * with the {@link FlightRecorderEvents}.
+	 * 
+	 * @param pScriptHash the hash of the script which built the content.
+	 */
+	public void setScriptHash(int pScriptHash)
+	{
+		scriptHash = pScriptHash;
+	}
+	
+	/**
+	 * Gets the visible region of this panel.
+	 * 
+	 * @return the visible region, {@code null} if the whole panel is visible.
+	 * @see #setVisibleRegion(Rectangle)
+	 */
+	public Rectangle getVisibleRegion()
+	{
+		if (visibleRegion == null)
+		{
+			return null;
+		}
+		
+		return new Rectangle(visibleRegion);
+	}
+	
+	/**
+	 * Sets the visible region of this panel.
+	 * <p>
+	 * Placeholders are only created for the {@link IAnchor}s and components in
+	 * and around the visible region, so the cost of the overlay depends on the
+	 * visible region and not on the size of the form. Half of the size of the
+	 * visible region is added on every side, so the placeholders are only
+	 * replaced when the visible region leaves that area, or when it has become
+	 * a lot smaller than the area. The layout is not solved again for that,
+	 * the placeholders are positioned by the {@link IAnchor}s of the last
+	 * update.
+	 * 
+	 * @param pVisibleRegion the visible region, {@code null} if the whole
+	 *            panel is visible.
+	 */
+	public void setVisibleRegion(Rectangle pVisibleRegion)
+	{
+		if (pVisibleRegion == null)
+		{
+			visibleRegion = null;
+			
+			if (materializedRegion != null)
+			{
+				materializedRegion = null;
+				
+				updatePlaceholders();
+			}
+		}
+		else
+		{
+			visibleRegion = new Rectangle(pVisibleRegion);
+			
+			if (materializedRegion == null
+					|| !materializedRegion.contains(visibleRegion)
+					|| materializedRegion.width > visibleRegion.width * 4
+					|| materializedRegion.height > visibleRegion.height * 4)
+			{
+				materializedRegion = new Rectangle(
+						visibleRegion.x - visibleRegion.width / 2,
+						visibleRegion.y - visibleRegion.height / 2,
+						visibleRegion.width * 2,
+						visibleRegion.height * 2);
+				
+				updatePlaceholders();
+			}
+		}
+	}
+	
+	/**
+	 * Gets if neighboring {@link IAnchor}s are clustered.
+	 * 
+	 * @return {@code true} if neighboring {@link IAnchor}s are clustered.
+	 * @see #clusterAnchors(boolean)
+	 */
+	public boolean isAnchorsClustered()
+	{
+		return anchorsClustered;
+	}
+	
+	/**
+	 * Gets whether a batch is currently open.
+	 * 
+	 * @return {@code true} if a batch has been begun and not yet ended.
+	 * @see #beginBatch()
+	 */
+	public boolean isBatching()
+	{
+		return batchDepth > 0;
+	}
+	
+	/**
+	 * Gets whether the given nested {@link IContainer} is expanded, meaning
+	 * that its {@link IAnchor}s are visible even if it is not hovered.
+	 * 
+	 * @param pContainer the nested {@link IContainer}.
+	 * @return {@code true} if the given {@link IContainer} is expanded.
+	 */
+	public boolean isNestedContainerExpanded(IContainer pContainer)
+	{
+		return expandedContainers.contains(pContainer);
+	}
+	
+	/**
+	 * Sets whether the given nested {@link IContainer} is expanded, meaning
+	 * that its {@link IAnchor}s are visible even if it is not hovered.
+	 * 
+	 * @param pContainer the nested {@link IContainer}.
+	 * @param pExpanded {@code true} if the {@link IAnchor}s of the given
+	 *            {@link IContainer} should stay visible.
+	 */
+	public void setNestedContainerExpanded(IContainer pContainer, boolean pExpanded)
+	{
+		if (pExpanded)
+		{
+			expandedContainers.add(pContainer);
+			
+			addNestedPlaceholders(pContainer);
+		}
+		else
+		{
+			expandedContainers.remove(pContainer);
+			
+			if (pContainer != hoveredContainer)
+			{
+				removeNestedPlaceholders(pContainer);
+			}
+		}
+	}
+	
+	/**
+	 * Sets whether autosize {@link IAnchor}s should be visible.
+	 * 
+	 * @param pShow {@code true} if autosize {@link IAnchor}s should be visible.
+	 */
+	public void showAutosizeAnchors(boolean pShow)
+	{
+		autosizeAnchorsVisible = pShow;
+		
+		updateAnchorDisplay();
+	}
+	
+	/**
+	 * Sets whether border {@link IAnchor}s should be visible.
+	 * 
+	 * @param pShow {@code true} if border {@link IAnchor}s should be visible.
+	 */
+	public void showBorderAnchors(boolean pShow)
+	{
+		borderAnchorsVisible = pShow;
+		
+		updateAnchorDisplay();
+	}
+	
+	/**
+	 * Sets whether the {@link IAnchor}s which are the worst offenders of the
+	 * {@link LayoutComplexity} should be highlighted.
+	 * 
+	 * @param pShow {@code true} if the worst offenders should be highlighted.
+	 */
+	public void showComplexAnchors(boolean pShow)
+	{
+		complexAnchorsVisible = pShow;
+		
+		updateAnchorDisplay();
+	}
+	
+	/**
+	 * Sets whether fixed {@link IAnchor}s should be visible.
+	 * 
+	 * @param pShow {@code true} if fixed {@link IAnchor}s should be visible.
+	 */
+	public void showFixedAnchors(boolean pShow)
+	{
+		fixedAnchorsVisible = pShow;
+		
+		updateAnchorDisplay();
+	}
+	
+	/**
+	 * Sets whether margin {@link IAnchor}s should be visible.
+	 * 
+	 * @param pShow {@code true} if margin {@link IAnchor}s should be visible.
+	 */
+	public void showMarginAnchors(boolean pShow)
+	{
+		marginAnchorsVisible = pShow;
+		
+		updateAnchorDisplay();
+	}
+	
+	/**
+	 * Sets whether the {@link IAnchor}s of nested layouts should be visible
+	 * when their {@link IContainer} is hovered or expanded.
+	 * 
+	 * @param pShow {@code true} if the {@link IAnchor}s of nested layouts
+	 *            should be visible.
+	 */
+	public void showNestedAnchors(boolean pShow)
+	{
+		nestedAnchorsVisible = pShow;
+		
+		updateAnchorDisplay();
+	}
+	
+	/**
+	 * Updates the display of the visible {@link IAnchor}s.
+	 * <p>
+	 * The consistency of the layout is checked, the layout is solved and
+	 * analyzed again and all placeholders are replaced.
+	 * <p>
+	 * If the layout is inconsistent, all components are removed from the
+	 * container, so that Swing does not solve it either. They are added again
+	 * by the next update at which the layout is consistent.
+	 */
+	public void updateAnchorDisplay()
+	{
+		if (batchDepth > 0)
+		{
+			return;
+		}
+		
+		StallDetector.markPhase("updateAnchorDisplay");
+		
+		AnchorOverlayRebuildEvent overlayRebuildEvent = FlightRecorderEvents.createAnchorOverlayRebuildEvent();
+		overlayRebuildEvent.begin();
+		
+		removePlaceholders();
+		
+		// Solving inconsistent anchors fails or does not end at all.
+		layoutConsistency = new LayoutConsistency(getLayout(), realComponents, realConstraints, this::getAnchorName);
+		
+		if (!layoutConsistency.isConsistent())
+		{
+			// The anchors are shared, so the components which have been in
+			// place are affected as well.
+			removeAllComponents();
+			
+			((JComponent)getResource()).revalidate();
+			((JComponent)getResource()).repaint();
+			
+			layoutComplexity = null;
+			anchorDependencies = null;
+			horizontalAnchors = null;
+			verticalAnchors = null;
+			
+			overlayRebuildEvent.setPlaceholderCount(0);
+			FlightRecorderEvents.commit(overlayRebuildEvent, this);
+			
+			return;
+		}
+		
+		int inPlaceCount = getRealComponentsInPlaceCount();
+		
+		if (inPlaceCount < 0)
+		{
+			removeAllComponents();
+			
+			inPlaceCount = 0;
+		}
+		
+		// Only the components which have been added since the last update are
+		// missing, for example while building progressively. They are always
+		// appended in order, because the FormLayout derives the constraints of
+		// a component without constraints from the previous component.
+		for (int index = inPlaceCount; index < realComponents.size(); index++)
+		{
+			super.add(
+					realComponents.get(index),
+					realConstraints.get(index),
+					-1);
+		}
+		
+		LayoutSolveEvent layoutSolveEvent = FlightRecorderEvents.createLayoutSolveEvent();
+		layoutSolveEvent.begin();
+		
+		((JVxFormLayout)getLayout().getResource()).invalidateLayout((Container)getResource());
+		((JVxFormLayout)getLayout().getResource()).layoutContainer((Container)getResource());
+		
+		FlightRecorderEvents.commit(layoutSolveEvent, this);
+		
+		// Before the placeholders add their own anchors.
+		layoutComplexity = new LayoutComplexity(getLayout());
+		anchorDependencies = new AnchorDependencies(getLayout(), realComponents);
+		
+		horizontalAnchors = getLayout().getHorizontalAnchors();
+		verticalAnchors = getLayout().getVerticalAnchors();
+		
+		// The nested containers are searched again, the placeholders of
+		// the expanded and hovered ones are added with the others.
+		nestedContainers.clear();
+		
+		for (IComponent component : realComponents)
+		{
+			findNestedContainers(component);
+		}
+		
+		expandedContainers.removeIf(pContainer -> !nestedContainers.contains(pContainer));
+		
+		if (!nestedContainers.contains(hoveredContainer))
+		{
+			hoveredContainer = null;
+		}
+		
+		addPlaceholders();
+		
+		overlayRebuildEvent.setPlaceholderCount(components.size() - realComponents.size());
+		FlightRecorderEvents.commit(overlayRebuildEvent, this);
+	}
+	
+	/**
+	 * Gets the name of the given {@link IAnchor} in the given
+	 * {@link UIFormLayout}.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} the {@link IAnchor} belongs to.
+	 * @param pAnchor the {@link IAnchor} of which to get the name.
+	 * @return the name of the given {@link IAnchor}.
+	 */
+	private static String getAnchorName(UIFormLayout pLayout, IAnchor pAnchor)
+	{
+		if (pAnchor == pLayout.getBottomAnchor())
+		{
+			return "Border bottom";
+		}
+		else if (pAnchor == pLayout.getLeftAnchor())
+		{
+			return "Border left";
+		}
+		else if (pAnchor == pLayout.getRightAnchor())
+		{
+			return "Border right";
+		}
+		else if (pAnchor == pLayout.getTopAnchor())
+		{
+			return "Border top";
+		}
+		else if (pAnchor == pLayout.getBottomMarginAnchor())
+		{
+			return "Margin bottom / b-1";
+		}
+		else if (pAnchor == pLayout.getLeftMarginAnchor())
+		{
+			return "Margin left / l0";
+		}
+		else if (pAnchor == pLayout.getRightMarginAnchor())
+		{
+			return "Margin right / r-1";
+		}
+		else if (pAnchor == pLayout.getTopMarginAnchor())
+		{
+			return "Margin top / t0";
+		}
+		else
+		{
+			IAnchor[] horizontalAnchors = pLayout.getHorizontalAnchors();
+			
+			String name = getHorizontalAnchorName(pLayout, horizontalAnchors, pAnchor, 0, 1);
+			if (name != null)
+			{
+				return name;
+			}
+			
+			name = getHorizontalAnchorName(pLayout, horizontalAnchors, pAnchor, -1, -1);
+			if (name != null)
+			{
+				return name;
+			}
+			
+			IAnchor[] verticalAnchors = pLayout.getVerticalAnchors();
+			
+			name = getVerticalAnchorName(pLayout, verticalAnchors, pAnchor, 0, 1);
+			if (name != null)
+			{
+				return name;
+			}
+			
+			name = getVerticalAnchorName(pLayout, verticalAnchors, pAnchor, -1, -1);
+			if (name != null)
+			{
+				return name;
+			}
+			
+			return "???";
+		}
+	}
+	
+	/**
+	 * Gets the name of a horizontal {@link IAnchor}.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} the {@link IAnchor} belongs to.
+	 * @param pHorizontalAnchors the {@link IAnchor} array of all horizontal
+	 *            {@link IAnchor}.
+	 * @param pAnchor the {@link IAnchor} of which to get the name.
+	 * @param pStartIndex the start index at which to start the search.
+	 * @param pIncrement the amount to increment the search.
+	 * @return the name of the given {@link IAnchor}, {@code null} if it could
+	 *         not be found.
+	 */
+	private static String getHorizontalAnchorName(UIFormLayout pLayout, IAnchor[] pHorizontalAnchors, IAnchor pAnchor, int pStartIndex, int pIncrement)
+	{
+		int index = pStartIndex;
+		
+		while (ArrayUtil.indexOfReference(pHorizontalAnchors, pLayout.getColumnLeftAnchor(index)) >= 0)
+		{
+			if (pLayout.getColumnLeftAnchor(index) == pAnchor)
+			{
+				return "l" + Integer.toString(index);
+			}
+			else if (pLayout.getColumnRightAnchor(index) == pAnchor)
+			{
+				return "r" + Integer.toString(index);
+			}
+			
+			index = index + pIncrement;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the name of a vertical {@link IAnchor}.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} the {@link IAnchor} belongs to.
+	 * @param pHorizontalAnchors the {@link IAnchor} array of all vertical
+	 *            {@link IAnchor}.
+	 * @param pAnchor the {@link IAnchor} of which to get the name.
+	 * @param pStartIndex the start index at which to start the search.
+	 * @param pIncrement the amount to increment the search.
+	 * @return the name of the given {@link IAnchor}, {@code null} if it could
+	 *         not be found.
+	 */
+	private static String getVerticalAnchorName(UIFormLayout pLayout, IAnchor[] pVerticalAnchors, IAnchor pAnchor, int pStartIndex, int pIncrement)
+	{
+		int index = pStartIndex;
+		
+		while (ArrayUtil.indexOfReference(pVerticalAnchors, pLayout.getRowTopAnchor(index)) >= 0)
+		{
+			if (pLayout.getRowTopAnchor(index) == pAnchor)
+			{
+				return "t" + Integer.toString(index);
+			}
+			else if (pLayout.getRowBottomAnchor(index) == pAnchor)
+			{
+				return "b" + Integer.toString(index);
+			}
+			
+			index = index + pIncrement;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Adds an overlay for every component measured by the {@link #layoutCost}
+	 * which is inside the {@link #materializedRegion}, with the same
+	 * constraints as the component itself.
+	 */
+	private void addHeatPlaceholders()
+	{
+		Map<Object, IAnchor> anchors = new IdentityHashMap<>();
+		
+		for (IAnchor anchor : getLayout().getHorizontalAnchors())
+		{
+			anchors.put(anchor.getResource(), anchor);
+		}
+		for (IAnchor anchor : getLayout().getVerticalAnchors())
+		{
+			anchors.put(anchor.getResource(), anchor);
+		}
+		
+		JVxFormLayout layout = (JVxFormLayout)getLayout().getResource();
+		
+		for (IComponent component : realComponents)
+		{
+			int index = layoutCost.indexOf(component);
+			int alpha = index >= 0 ? (int)Math.round(layoutCost.getHeat(index) * MAXIMUM_HEAT_ALPHA) : 0;
+			
+			if (alpha > 0 && isMaterialized(((Component)component.getResource()).getBounds()))
+			{
+				// The constraints of a component which has been added without
+				// any have been derived by the layout.
+				Constraint constraint = layout.getConstraint((Component)component.getResource());
+				
+				IAnchor top = anchors.get(constraint.getTopAnchor());
+				IAnchor left = anchors.get(constraint.getLeftAnchor());
+				IAnchor bottom = anchors.get(constraint.getBottomAnchor());
+				IAnchor right = anchors.get(constraint.getRightAnchor());
+				
+				if (top != null && left != null && bottom != null && right != null)
+				{
+					UIComponent<?> placeholder = new UICustomComponent(new HeatOverlay(new Color(
+							HEAT_COLOR.getRed(),
+							HEAT_COLOR.getGreen(),
+							HEAT_COLOR.getBlue(),
+							alpha)));
+					
+					heatPlaceholders.add(placeholder);
+					
+					super.add(placeholder, getLayout().getConstraints(top, left, bottom, right), 0);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds a placeholder for the given {@link IAnchor} of a nested layout.
+	 * <p>
+	 * The placeholder is positioned absolutely, relative to the border
+	 * {@link IAnchor}s of this panel, and spans the whole nested
+	 * {@link IContainer}. It is not added if it is outside the
+	 * {@link #materializedRegion}.
+	 * 
+	 * @param pPlaceholders the {@link List} to which to add the placeholder.
+	 * @param pAnchor the {@link IAnchor} of the nested layout.
+	 * @param pAbsolutePosition the absolute position of the {@link IAnchor}
+	 *            in the nested {@link IContainer}.
+	 * @param pColor the {@link IColor} to use.
+	 * @param pOrigin the location of the nested {@link IContainer} in this
+	 *            panel.
+	 * @param pWidth the width of the nested {@link IContainer}.
+	 * @param pHeight the height of the nested {@link IContainer}.
+	 */
+	private void addNestedPlaceholder(List<UIComponent<?>> pPlaceholders, IAnchor pAnchor, int pAbsolutePosition, IColor pColor, Point pOrigin, int pWidth, int pHeight)
+	{
+		int offset = pAnchor.getOrientation() == IAnchor.VERTICAL ? pOrigin.y : pOrigin.x;
+		
+		if (!isMaterialized(pAnchor, offset + pAbsolutePosition))
+		{
+			return;
+		}
+		
+		UIComponent<?> placeholder = createPlaceholderPanel(pColor, pAnchor);
+		
+		int left = pOrigin.x - getLayout().getLeftAnchor().getAbsolutePosition();
+		int top = pOrigin.y - getLayout().getTopAnchor().getAbsolutePosition();
+		
+		if (pAnchor.getOrientation() == IAnchor.VERTICAL)
+		{
+			super.add(placeholder, getLayout().getConstraints(
+					getLayout().createAnchor(getLayout().getTopAnchor(), top + pAbsolutePosition),
+					getLayout().createAnchor(getLayout().getLeftAnchor(), left),
+					null,
+					getLayout().createAnchor(getLayout().getLeftAnchor(), left + pWidth)), 0);
+		}
+		else
+		{
+			super.add(placeholder, getLayout().getConstraints(
+					getLayout().createAnchor(getLayout().getTopAnchor(), top),
+					getLayout().createAnchor(getLayout().getLeftAnchor(), left + pAbsolutePosition),
+					getLayout().createAnchor(getLayout().getTopAnchor(), top + pHeight),
+					null), 0);
+		}
+		
+		pPlaceholders.add(placeholder);
+	}
+	
+	/**
+	 * Adds the placeholders for all {@link IAnchor}s of the given nested
+	 * {@link IContainer}, if they have not been added yet.
+	 * 
+	 * @param pContainer the nested {@link IContainer}.
+	 */
+	private void addNestedPlaceholders(IContainer pContainer)
+	{
+		if (!nestedAnchorsVisible || nestedPlaceholders.containsKey(pContainer))
+		{
+			return;
+		}
+		
+		// The nested containers are only laid out by Swing, so their size
+		// might not be known yet. The anchors themselves are calculated on an
+		// AnchorGraph, which is cheaper than laying out the container.
+		if (pContainer.getParent() != null && pContainer.getParent() != this)
+		{
+			layoutNestedContainer(pContainer.getParent());
+		}
+		
+		Component component = (Component)pContainer.getResource();
+		
+		if (component.getWidth() <= 0 || component.getHeight() <= 0)
+		{
+			return;
+		}
+		
+		Point origin = SwingUtilities.convertPoint(component, 0, 0, (Component)getResource());
+		int width = component.getWidth();
+		int height = component.getHeight();
+		
+		List<UIComponent<?>> containerPlaceholders = new ArrayList<>();
+		
+		// Not even the anchors have to be calculated for a container which is
+		// not visible.
+		if (!isMaterialized(new Rectangle(origin.x, origin.y, width, height)))
+		{
+			nestedPlaceholders.put(pContainer, containerPlaceholders);
+			
+			return;
+		}
+		
+		UIFormLayout layout = (UIFormLayout)pContainer.getLayout();
+		
+		AnchorGraph graph = new AnchorGraph((Container)component);
+		graph.solve(width, height);
+		
+		int[] positions = graph.getAbsolutePositions();
+		
+		if (borderAnchorsVisible)
+		{
+			addNestedPlaceholder(containerPlaceholders, layout.getBottomAnchor(), positions[graph.indexOf(layout.getBottomAnchor())], NESTED_BORDER_ANCHOR_COLOR, origin, width, height);
+			addNestedPlaceholder(containerPlaceholders, layout.getLeftAnchor(), positions[graph.indexOf(layout.getLeftAnchor())], NESTED_BORDER_ANCHOR_COLOR, origin, width, height);
+			addNestedPlaceholder(containerPlaceholders, layout.getRightAnchor(), positions[graph.indexOf(layout.getRightAnchor())], NESTED_BORDER_ANCHOR_COLOR, origin, width, height);
+			addNestedPlaceholder(containerPlaceholders, layout.getTopAnchor(), positions[graph.indexOf(layout.getTopAnchor())], NESTED_BORDER_ANCHOR_COLOR, origin, width, height);
+		}
+		
+		if (marginAnchorsVisible)
+		{
+			addNestedPlaceholder(containerPlaceholders, layout.getBottomMarginAnchor(), positions[graph.indexOf(layout.getBottomMarginAnchor())], MARGIN_ANCHOR_COLOR, origin, width, height);
+			addNestedPlaceholder(containerPlaceholders, layout.getLeftMarginAnchor(), positions[graph.indexOf(layout.getLeftMarginAnchor())], MARGIN_ANCHOR_COLOR, origin, width, height);
+			addNestedPlaceholder(containerPlaceholders, layout.getRightMarginAnchor(), positions[graph.indexOf(layout.getRightMarginAnchor())], MARGIN_ANCHOR_COLOR, origin, width, height);
+			addNestedPlaceholder(containerPlaceholders, layout.getTopMarginAnchor(), positions[graph.indexOf(layout.getTopMarginAnchor())], MARGIN_ANCHOR_COLOR, origin, width, height);
+		}
+		
+		List<IAnchor> anchors = new ArrayList<>();
+		Collections.addAll(anchors, layout.getHorizontalAnchors());
+		Collections.addAll(anchors, layout.getVerticalAnchors());
+		
+		for (IAnchor anchor : anchors)
+		{
+			if (anchor != layout.getLeftMarginAnchor()
+					&& anchor != layout.getRightMarginAnchor()
+					&& anchor != layout.getTopMarginAnchor()
+					&& anchor != layout.getBottomMarginAnchor())
+			{
+				if (anchor.isAutoSize())
+				{
+					if (autosizeAnchorsVisible)
+					{
+						addNestedPlaceholder(containerPlaceholders, anchor, positions[graph.indexOf(anchor)], AUTOSIZE_ANCHOR_COLOR, origin, width, height);
+					}
+				}
+				else
+				{
+					if (fixedAnchorsVisible)
+					{
+						addNestedPlaceholder(containerPlaceholders, anchor, positions[graph.indexOf(anchor)], FIXED_ANCHOR_COLOR, origin, width, height);
+					}
+				}
+			}
+		}
+		
+		nestedPlaceholders.put(pContainer, containerPlaceholders);
+		
+		((JComponent)getResource()).revalidate();
+		((JComponent)getResource()).repaint();
+	}
+	
+	/**
+	 * Adds the placeholders of the {@link IAnchor}s which are visible and
+	 * inside the {@link #materializedRegion}, at the positions of the last
+	 * solved layout.
+	 */
+	private void addPlaceholders()
+	{
+		dependencyOverlay = new DependencyOverlay();
+		
+		// Behind all other placeholders, in front of the components. It spans
+		// the whole panel, so highlighting only has to repaint it.
+		super.add(new UICustomComponent(dependencyOverlay), getLayout().getConstraints(
+				getLayout().getTopAnchor(),
+				getLayout().getLeftAnchor(),
+				getLayout().getBottomAnchor(),
+				getLayout().getRightAnchor()), 0);
+		
+		if (layoutCost != null)
+		{
+			// Behind the placeholders of the anchors.
+			addHeatPlaceholders();
+		}
+		
+		// Border
+		if (borderAnchorsVisible)
+		{
+			super.add(createAnchorPlaceholder(BORDER_ANCHOR_COLOR, getLayout().getBottomAnchor()), getLayout().getConstraints(
+					null,
+					getLayout().getLeftAnchor(),
+					getLayout().createAnchor(getLayout().getBottomAnchor()),
+					getLayout().getRightAnchor()), 0);
+			super.add(createAnchorPlaceholder(BORDER_ANCHOR_COLOR, getLayout().getLeftAnchor()), getLayout().getConstraints(
+					getLayout().getTopAnchor(),
+					getLayout().createAnchor(getLayout().getLeftAnchor()),
+					getLayout().getBottomAnchor(),
+					null), 0);
+			super.add(createAnchorPlaceholder(BORDER_ANCHOR_COLOR, getLayout().getRightAnchor()), getLayout().getConstraints(
+					getLayout().getTopAnchor(),
+					null,
+					getLayout().getBottomAnchor(),
+					getLayout().createAnchor(getLayout().getRightAnchor())), 0);
+			super.add(createAnchorPlaceholder(BORDER_ANCHOR_COLOR, getLayout().getTopAnchor()), getLayout().getConstraints(
+					getLayout().createAnchor(getLayout().getTopAnchor()),
+					getLayout().getLeftAnchor(),
+					null,
+					getLayout().getRightAnchor()), 0);
+		}
+		
+		// Margin
+		if (marginAnchorsVisible)
+		{
+			super.add(createAnchorPlaceholder(MARGIN_ANCHOR_COLOR, getLayout().getBottomMarginAnchor()), getLayout().getConstraints(
+					null,
+					getLayout().getLeftAnchor(),
+					getLayout().createAnchor(getLayout().getBottomMarginAnchor()),
+					getLayout().getRightAnchor()), 0);
+			super.add(createAnchorPlaceholder(MARGIN_ANCHOR_COLOR, getLayout().getLeftMarginAnchor()), getLayout().getConstraints(
+					getLayout().getTopAnchor(),
+					getLayout().createAnchor(getLayout().getLeftMarginAnchor()),
+					getLayout().getBottomAnchor(),
+					null), 0);
+			super.add(createAnchorPlaceholder(MARGIN_ANCHOR_COLOR, getLayout().getRightMarginAnchor()), getLayout().getConstraints(
+					getLayout().getTopAnchor(),
+					null,
+					getLayout().getBottomAnchor(),
+					getLayout().createAnchor(getLayout().getRightMarginAnchor())), 0);
+			super.add(createAnchorPlaceholder(MARGIN_ANCHOR_COLOR, getLayout().getTopMarginAnchor()), getLayout().getConstraints(
+					getLayout().createAnchor(getLayout().getTopMarginAnchor()),
+					getLayout().getLeftAnchor(),
+					null,
+					getLayout().getRightAnchor()), 0);
+		}
+		
+		// Horizontal
+		showAnchors(horizontalAnchors, getLayout().getLeftMarginAnchor(), getLayout().getRightMarginAnchor());
+		
+		// Vertical
+		showAnchors(verticalAnchors, getLayout().getTopMarginAnchor(), getLayout().getBottomMarginAnchor());
+		
+		// Nested
+		for (IContainer container : expandedContainers)
+		{
+			addNestedPlaceholders(container);
+		}
+		
+		if (hoveredContainer != null)
+		{
+			addNestedPlaceholders(hoveredContainer);
+		}
+	}
+	
+	/**
+	 * Applies the {@link #pendingInserts} to the {@link #realComponents} and
+	 * the {@link #realConstraints} at once.
+	 * <p>
+	 * The inserts are placed from the last to the first. An insert ends up at
+	 * the slot which has as many free slots before it as its index, because
+	 * only the inserts after it have been done in front of the components it
+	 * has been inserted between. The previous components fill the remaining
+	 * slots in their order. The free slots are counted in a Fenwick tree, so
+	 * every insert takes logarithmic instead of linear time.
+	 */
+	private void applyPendingInserts()
+	{
+		if (pendingInserts.isEmpty())
+		{
+			return;
+		}
+		
+		int size = realComponents.size() + pendingInserts.size();
+		
+		IComponent[] insertedComponents = new IComponent[size];
+		Object[] insertedConstraints = new Object[size];
+		boolean[] taken = new boolean[size];
+		
+		// The Fenwick tree is 1-based, all slots are free at first.
+		int[] freeSlots = new int[size + 1];
+		
+		for (int slot = 1; slot <= size; slot++)
+		{
+			freeSlots[slot]++;
+			
+			int parent = slot + (slot & -slot);
+			
+			if (parent <= size)
+			{
+				freeSlots[parent] = freeSlots[parent] + freeSlots[slot];
+			}
+		}
+		
+		int highestBit = Integer.highestOneBit(size);
+		
+		for (int index = pendingInserts.size() - 1; index >= 0; index--)
+		{
+			PendingInsert insert = pendingInserts.get(index);
+			
+			// The longest prefix with not more free slots than the index,
+			// the slot right after it is the free one at the index.
+			int slot = 0;
+			int remaining = insert.index;
+			
+			for (int bit = highestBit; bit > 0; bit = bit >> 1)
+			{
+				if (slot + bit <= size && freeSlots[slot + bit] <= remaining)
+				{
+					slot = slot + bit;
+					remaining = remaining - freeSlots[slot];
+				}
+			}
+			
+			taken[slot] = true;
+			insertedComponents[slot] = insert.component;
+			insertedConstraints[slot] = insert.constraints;
+			
+			for (int node = slot + 1; node <= size; node = node + (node & -node))
+			{
+				freeSlots[node]--;
+			}
+		}
+		
+		int previousIndex = 0;
+		
+		for (int slot = 0; slot < size; slot++)
+		{
+			if (!taken[slot])
+			{
+				insertedComponents[slot] = realComponents.get(previousIndex);
+				insertedConstraints[slot] = realConstraints.get(previousIndex);
+				
+				previousIndex++;
+			}
+		}
+		
+		realComponents.clear();
+		realComponents.addAll(Arrays.asList(insertedComponents));
+		realConstraints.clear();
+		realConstraints.addAll(Arrays.asList(insertedConstraints));
+		
+		pendingInserts.clear();
+	}
+	
+	/**
+	 * Creates the {@link UIComponent} which is used as placeholder for an
+	 * {@link IAnchor}.
+	 * 
+	 * @param pColor the {@link IColor} the placeholder should have.
+	 * @param pAnchor the {@link IAnchor} to for the placeholder.
+	 * @return the placeholder {@link UIComponent}.
+	 */
+	private UIComponent<?> createAnchorPlaceholder(IColor pColor, IAnchor pAnchor)
+	{
+		UIComponent<?> placeholder = createPlaceholderPanel(pColor, pAnchor);
+		
+		placeholders.add(placeholder);
+		anchorPlaceholders.put(pAnchor.getResource(), placeholder);
+		
+		return placeholder;
+	}
+	
+	/**
+	 * Creates the {@link UIPanel} which is used as placeholder for an
+	 * {@link IAnchor}, without registering it anywhere.
+	 * 
+	 * @param pColor the {@link IColor} the placeholder should have.
+	 * @param pAnchor the {@link IAnchor} to for the placeholder.
+	 * @return the placeholder {@link UIPanel}.
+	 */
+	private UIPanel createPlaceholderPanel(IColor pColor, IAnchor pAnchor)
+	{
+		UIPanel panel = new UIPanel();
+		panel.setBackground(pColor);
+		panel.setPreferredSize(ANCHOR_SIZE, ANCHOR_SIZE);
+		
+		panel.putObject(ANCHOR_OBJECT, pAnchor);
+		panel.putObject(BACKGROUND_OBJECT, pColor);
+		
+		return panel;
+	}
+	
+	/**
+	 * Fires the {@link #highlightedAnchorChangedListener}, if any.
+	 */
+	private void fireHighlightedAnchorChanged()
+	{
+		if (highlightedAnchorChangedListener != null)
+		{
+			highlightedAnchorChangedListener.accept(highlightedAnchor);
+		}
+	}
+	
+	/**
+	 * Adds the given {@link IComponent} and all its children to the
+	 * {@link #nestedContainers} if they are {@link IContainer}s with an
+	 * {@link UIFormLayout}.
+	 * 
+	 * @param pComponent the {@link IComponent} to inspect.
+	 */
+	private void findNestedContainers(IComponent pComponent)
+	{
+		if (pComponent instanceof IContainer)
+		{
+			IContainer container = (IContainer)pComponent;
+			
+			if (container.getLayout() instanceof UIFormLayout)
+			{
+				nestedContainers.add(container);
+			}
+			
+			for (int index = 0; index < container.getComponentCount(); index++)
+			{
+				findNestedContainers(container.getComponent(index));
+			}
+		}
+	}
+	
+	/**
+	 * Gets the {@link IColor} of the placeholder of the given {@link IAnchor}
+	 * of this panel.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the {@link IColor}, {@code null} if the {@link IAnchor} is not
+	 *         visible.
+	 */
+	private IColor getAnchorColor(IAnchor pAnchor)
+	{
+		if (complexAnchorsVisible && layoutComplexity.isWorstAnchor(pAnchor))
+		{
+			return COMPLEX_ANCHOR_COLOR;
+		}
+		else if (pAnchor.isAutoSize())
+		{
+			if (autosizeAnchorsVisible)
+			{
+				return AUTOSIZE_ANCHOR_COLOR;
+			}
+		}
+		else
+		{
+			if (fixedAnchorsVisible)
+			{
+				return FIXED_ANCHOR_COLOR;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the marker of the cluster at the given coordinates.
+	 * 
+	 * @param pX the x coordinate.
+	 * @param pY the y coordinate.
+	 * @return the marker of the cluster, {@code null} if there is none.
+	 */
+	private UIComponent<?> getClusterAt(int pX, int pY)
+	{
+		for (UIComponent<?> marker : clusterPlaceholders)
+		{
+			IRectangle bounds = marker.getBounds();
+			
+			if (pX >= bounds.getX()
+					&& pX < bounds.getX() + bounds.getWidth()
+					&& pY >= bounds.getY()
+					&& pY < bounds.getY() + bounds.getHeight())
+			{
+				return marker;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the innermost nested {@link IContainer} at the given coordinates.
+	 * 
+	 * @param pX the x coordinate.
+	 * @param pY the y coordinate.
+	 * @return the innermost nested {@link IContainer} at the given coordinates,
+	 *         {@code null} if there is none.
+	 */
+	private IContainer getNestedContainerAt(int pX, int pY)
+	{
+		Component panel = (Component)getResource();
+		
+		// The containers are in depth-first order, so the last one which
+		// contains the point is the innermost one.
+		for (int index = nestedContainers.size() - 1; index >= 0; index--)
+		{
+			Component component = (Component)nestedContainers.get(index).getResource();
+			
+			if (component.isVisible() && component.contains(SwingUtilities.convertPoint(panel, pX, pY, component)))
+			{
+				return nestedContainers.get(index);
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the count of {@link #realComponents} which are already in the
+	 * container, in the same order and at its start.
+	 * 
+	 * @return the count of {@link #realComponents} which are in place,
+	 *         {@code -1} if the container contains any other component.
+	 */
+	private int getRealComponentsInPlaceCount()
+	{
+		if (components.size() > realComponents.size())
+		{
+			return -1;
+		}
+		
+		for (int index = 0; index < components.size(); index++)
+		{
+			if (components.get(index) != realComponents.get(index))
+			{
+				return -1;
+			}
+		}
 		
-		IAnchor[] horizontalAnchors = getLayout().getHorizontalAnchors();
-		IAnchor[] verticalAnchors = getLayout().getVerticalAnchors();
+		return components.size();
+	}
+	
+	/**
+	 * Tests if the given position of the given {@link IAnchor} is inside the
+	 * {@link #materializedRegion}.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @param pPosition the position of the {@link IAnchor} in this panel.
+	 * @return {@code true} if the position is inside the
+	 *         {@link #materializedRegion}, or if there is none.
+	 */
+	private boolean isMaterialized(IAnchor pAnchor, int pPosition)
+	{
+		if (materializedRegion == null)
+		{
+			return true;
+		}
 		
-		// Border
-		if (borderAnchorsVisible)
+		if (pAnchor.getOrientation() == IAnchor.VERTICAL)
 		{
-			super.add(createAnchorPlaceholder(BORDER_ANCHOR_COLOR, getLayout().getBottomAnchor()), getLayout().getConstraints(
-					null,
-					getLayout().getLeftAnchor(),
-					getLayout().createAnchor(getLayout().getBottomAnchor()),
-					getLayout().getRightAnchor()), 0);
-			super.add(createAnchorPlaceholder(BORDER_ANCHOR_COLOR, getLayout().getLeftAnchor()), getLayout().getConstraints(
-					getLayout().getTopAnchor(),
-					getLayout().createAnchor(getLayout().getLeftAnchor()),
-					getLayout().getBottomAnchor(),
-					null), 0);
-			super.add(createAnchorPlaceholder(BORDER_ANCHOR_COLOR, getLayout().getRightAnchor()), getLayout().getConstraints(
-					getLayout().getTopAnchor(),
-					null,
-					getLayout().getBottomAnchor(),
-					getLayout().createAnchor(getLayout().getRightAnchor())), 0);
-			super.add(createAnchorPlaceholder(BORDER_ANCHOR_COLOR, getLayout().getTopAnchor()), getLayout().getConstraints(
-					getLayout().createAnchor(getLayout().getTopAnchor()),
-					getLayout().getLeftAnchor(),
-					null,
-					getLayout().getRightAnchor()), 0);
+			return pPosition >= materializedRegion.y
+					&& pPosition <= materializedRegion.y + materializedRegion.height;
+		}
+		else
+		{
+			return pPosition >= materializedRegion.x
+					&& pPosition <= materializedRegion.x + materializedRegion.width;
 		}
+	}
+	
+	/**
+	 * Tests if the given bounds intersect the {@link #materializedRegion}.
+	 * 
+	 * @param pBounds the bounds in this panel.
+	 * @return {@code true} if the bounds intersect the
+	 *         {@link #materializedRegion}, or if there is none.
+	 */
+	private boolean isMaterialized(Rectangle pBounds)
+	{
+		return materializedRegion == null || materializedRegion.intersects(pBounds);
+	}
+	
+	/**
+	 * Lays out the given nested {@link IContainer} and all its parents up to
+	 * this panel.
+	 * 
+	 * @param pContainer the nested {@link IContainer}.
+	 */
+	private void layoutNestedContainer(IContainer pContainer)
+	{
+		IContainer parent = pContainer.getParent();
 		
-		// Margin
-		if (marginAnchorsVisible)
+		if (parent != null && parent != this)
 		{
-			super.add(createAnchorPlaceholder(MARGIN_ANCHOR_COLOR, getLayout().getBottomMarginAnchor()), getLayout().getConstraints(
-					null,
-					getLayout().getLeftAnchor(),
-					getLayout().createAnchor(getLayout().getBottomMarginAnchor()),
-					getLayout().getRightAnchor()), 0);
-			super.add(createAnchorPlaceholder(MARGIN_ANCHOR_COLOR, getLayout().getLeftMarginAnchor()), getLayout().getConstraints(
-					getLayout().getTopAnchor(),
-					getLayout().createAnchor(getLayout().getLeftMarginAnchor()),
-					getLayout().getBottomAnchor(),
-					null), 0);
-			super.add(createAnchorPlaceholder(MARGIN_ANCHOR_COLOR, getLayout().getRightMarginAnchor()), getLayout().getConstraints(
-					getLayout().getTopAnchor(),
-					null,
-					getLayout().getBottomAnchor(),
-					getLayout().createAnchor(getLayout().getRightMarginAnchor())), 0);
-			super.add(createAnchorPlaceholder(MARGIN_ANCHOR_COLOR, getLayout().getTopMarginAnchor()), getLayout().getConstraints(
-					getLayout().createAnchor(getLayout().getTopMarginAnchor()),
-					getLayout().getLeftAnchor(),
-					null,
-					getLayout().getRightAnchor()), 0);
+			layoutNestedContainer(parent);
 		}
 		
-		// Horizontal
-		for (IAnchor anchor : horizontalAnchors)
+		((Container)pContainer.getResource()).doLayout();
+	}
+	
+	/**
+	 * Removes all components from the container, including the placeholders.
+	 * <p>
+	 * The components are removed from the front, because the container
+	 * searches its components for the removed one from the front.
+	 */
+	private void removeAllComponents()
+	{
+		while (components.size() > 0)
 		{
-			if (anchor != getLayout().getLeftMarginAnchor()
-					&& anchor != getLayout().getRightMarginAnchor())
-			{
-				if (anchor.isAutoSize())
-				{
-					if (autosizeAnchorsVisible)
-					{
-						showAnchor(anchor, AUTOSIZE_ANCHOR_COLOR);
-					}
-				}
-				else
-				{
-					if (fixedAnchorsVisible)
-					{
-						showAnchor(anchor, FIXED_ANCHOR_COLOR);
-					}
-				}
-			}
+			super.remove(0);
 		}
+	}
+	
+	/**
+	 * Removes the placeholders of the given nested {@link IContainer}, if
+	 * there are any.
+	 * 
+	 * @param pContainer the nested {@link IContainer}.
+	 */
+	private void removeNestedPlaceholders(IContainer pContainer)
+	{
+		List<UIComponent<?>> containerPlaceholders = nestedPlaceholders.remove(pContainer);
 		
-		// Vertical
-		for (IAnchor anchor : verticalAnchors)
+		if (containerPlaceholders != null)
 		{
-			if (anchor != getLayout().getTopMarginAnchor()
-					&& anchor != getLayout().getBottomMarginAnchor())
+			for (UIComponent<?> placeholder : containerPlaceholders)
 			{
-				if (anchor.isAutoSize())
-				{
-					if (autosizeAnchorsVisible)
-					{
-						showAnchor(anchor, AUTOSIZE_ANCHOR_COLOR);
-					}
-				}
-				else
-				{
-					if (fixedAnchorsVisible)
-					{
-						showAnchor(anchor, FIXED_ANCHOR_COLOR);
-					}
-				}
+				super.remove(components.indexOf(placeholder));
 			}
+			
+			((JComponent)getResource()).revalidate();
+			((JComponent)getResource()).repaint();
 		}
 	}
 	
 	/**
-	 * Creates the {@link UIComponent} which is used as placeholder for an
-	 * {@link IAnchor}.
-	 * 
-	 * @param pColor the {@link IColor} the placeholder should have.
-	 * @param pAnchor the {@link IAnchor} to for the placeholder.
-	 * @return the placeholder {@link UIComponent}.
+	 * Removes all placeholders, which are always in front of the components.
 	 */
-	private UIComponent<?> createAnchorPlaceholder(IColor pColor, IAnchor pAnchor)
+	private void removePlaceholders()
 	{
-		UIPanel panel = new UIPanel();
-		panel.setBackground(pColor);
-		panel.setPreferredSize(ANCHOR_SIZE, ANCHOR_SIZE);
+		int placeholderCount = placeholders.size() + heatPlaceholders.size() + clusterPlaceholders.size();
 		
-		panel.putObject(ANCHOR_OBJECT, pAnchor);
-		panel.putObject(BACKGROUND_OBJECT, pColor);
+		if (dependencyOverlay != null)
+		{
+			placeholderCount++;
+		}
+		
+		for (List<UIComponent<?>> containerPlaceholders : nestedPlaceholders.values())
+		{
+			placeholderCount = placeholderCount + containerPlaceholders.size();
+		}
 		
-		placeholders.add(panel);
+		placeholders.clear();
+		anchorPlaceholders.clear();
+		heatPlaceholders.clear();
+		clusterPlaceholders.clear();
+		expandedClusterPlaceholders.clear();
+		expandedCluster = null;
+		dependencyOverlay = null;
+		dependentPlaceholders.clear();
+		nestedPlaceholders.clear();
 		
-		return panel;
+		for (int count = 0; count < placeholderCount && components.size() > 0; count++)
+		{
+			super.remove(0);
+		}
 	}
 	
 	/**
-	 * Fires the {@link #highlightedAnchorChangedListener}, if any.
+	 * Highlights the {@link IAnchor}s which depend on the given
+	 * {@link IAnchor} and the components which are attached to it, resetting
+	 * the previously highlighted ones.
+	 * <p>
+	 * Both are looked up in the {@link #anchorDependencies}, so only the
+	 * dependents themselves are visited. The attached components are painted
+	 * by the {@link #dependencyOverlay}, so the container is neither changed
+	 * nor laid out again.
+	 * 
+	 * @param pAnchor the highlighted {@link IAnchor}, can be {@code null}.
 	 */
-	private void fireHighlightedAnchorChanged()
+	private void setDependenciesHighlighted(IAnchor pAnchor)
 	{
-		if (highlightedAnchorChangedListener != null)
+		for (UIComponent<?> placeholder : dependentPlaceholders)
 		{
-			highlightedAnchorChangedListener.accept(highlightedAnchor);
+			placeholder.setBackground((IColor)placeholder.getObject(BACKGROUND_OBJECT));
+		}
+		
+		dependentPlaceholders.clear();
+		
+		List<Component> attachedComponents = new ArrayList<>();
+		
+		if (pAnchor != null && anchorDependencies != null)
+		{
+			for (IAnchor anchor : anchorDependencies.getDependentAnchors(pAnchor))
+			{
+				UIComponent<?> placeholder = anchorPlaceholders.get(anchor.getResource());
+				
+				if (placeholder != null)
+				{
+					placeholder.setBackground(DEPENDENT_ANCHOR_COLOR);
+					
+					dependentPlaceholders.add(placeholder);
+				}
+			}
+			
+			for (IComponent component : anchorDependencies.getAttachedComponents(pAnchor))
+			{
+				if (anchorDependencies.getConstraintAnchors(getLayout(), component) != null)
+				{
+					attachedComponents.add((Component)component.getResource());
+				}
+			}
+		}
+		
+		if (dependencyOverlay != null)
+		{
+			dependencyOverlay.setAttachedComponents(attachedComponents);
 		}
+		
+		((JComponent)getResource()).repaint();
 	}
 	
 	/**
-	 * Gets the name of a horizontal {@link IAnchor}.
+	 * Sets the expanded cluster, creating the placeholders of its
+	 * {@link IAnchor}s and removing the ones of the previously expanded one.
 	 * 
-	 * @param pHorizontalAnchors the {@link IAnchor} array of all horizontal
-	 *            {@link IAnchor}.
-	 * @param pAnchor the {@link IAnchor} of which to get the name.
-	 * @param pStartIndex the start index at which to start the search.
-	 * @param pIncrement the amount to increment the search.
-	 * @return the name of the given {@link IAnchor}, {@code null} if it could
-	 *         not be found.
+	 * @param pMarker the marker of the expanded cluster, can be {@code null}.
 	 */
-	private String getHorizontalAnchorName(IAnchor[] pHorizontalAnchors, IAnchor pAnchor, int pStartIndex, int pIncrement)
+	private void setExpandedCluster(UIComponent<?> pMarker)
 	{
-		int index = pStartIndex;
-		
-		while (ArrayUtil.indexOfReference(pHorizontalAnchors, getLayout().getColumnLeftAnchor(index)) >= 0)
+		if (pMarker != expandedCluster)
 		{
-			if (getLayout().getColumnLeftAnchor(index) == pAnchor)
+			for (UIComponent<?> placeholder : expandedClusterPlaceholders)
 			{
-				return "l" + Integer.toString(index);
+				super.remove(components.indexOf(placeholder));
 			}
-			else if (getLayout().getColumnRightAnchor(index) == pAnchor)
+			
+			for (UIComponent<?> placeholder : expandedClusterPlaceholders)
 			{
-				return "r" + Integer.toString(index);
+				anchorPlaceholders.remove(((IAnchor)placeholder.getObject(ANCHOR_OBJECT)).getResource());
 			}
 			
-			index = index + pIncrement;
+			placeholders.removeAll(expandedClusterPlaceholders);
+			expandedClusterPlaceholders.clear();
+			
+			expandedCluster = pMarker;
+			
+			if (expandedCluster != null)
+			{
+				int placeholderCount = placeholders.size();
+				
+				for (IAnchor anchor : (IAnchor[])expandedCluster.getObject(CLUSTER_OBJECT))
+				{
+					showAnchor(anchor, getAnchorColor(anchor));
+				}
+				
+				expandedClusterPlaceholders.addAll(placeholders.subList(placeholderCount, placeholders.size()));
+			}
+			
+			((JComponent)getResource()).revalidate();
+			((JComponent)getResource()).repaint();
+		}
+	}
+	
+	/**
+	 * Sets the currently hovered nested {@link IContainer}, creating its
+	 * placeholders and removing the ones of the previously hovered one.
+	 * 
+	 * @param pContainer the hovered nested {@link IContainer}, can be
+	 *            {@code null}.
+	 */
+	private void setHoveredContainer(IContainer pContainer)
+	{
+		if (pContainer != hoveredContainer)
+		{
+			if (hoveredContainer != null && !expandedContainers.contains(hoveredContainer))
+			{
+				removeNestedPlaceholders(hoveredContainer);
+			}
+			
+			hoveredContainer = pContainer;
+			
+			if (hoveredContainer != null)
+			{
+				addNestedPlaceholders(hoveredContainer);
+			}
+		}
+	}
+	
+	/**
+	 * Adds a placeholder for the given {@link IAnchor} with the given
+	 * {@link IColor}, if it is inside the {@link #materializedRegion}.
+	 * 
+	 * @param pAnchor the {@link IAnchor} to make visible.
+	 * @param pColor the {@link IColor} to use.
+	 */
+	private void showAnchor(IAnchor pAnchor, IColor pColor)
+	{
+		if (!isMaterialized(pAnchor, pAnchor.getAbsolutePosition()))
+		{
+			return;
 		}
 		
-		return null;
+		UIComponent<?> placeholder = createAnchorPlaceholder(pColor, pAnchor);
+		
+		if (pAnchor.getOrientation() == IAnchor.VERTICAL)
+		{
+			super.add(placeholder, getLayout().getConstraints(
+					getLayout().createAnchor(pAnchor),
+					getLayout().getLeftMarginAnchor(),
+					null,
+					getLayout().getRightMarginAnchor()), 0);
+		}
+		else
+		{
+			super.add(placeholder, getLayout().getConstraints(
+					getLayout().getTopMarginAnchor(),
+					getLayout().createAnchor(pAnchor),
+					getLayout().getBottomMarginAnchor(),
+					null), 0);
+		}
 	}
 	
 	/**
-	 * Gets the name of a vertical {@link IAnchor}.
+	 * Adds the placeholders for the given {@link IAnchor}s of this panel, or
+	 * the markers of their clusters if the {@link IAnchor}s are clustered.
 	 * 
-	 * @param pHorizontalAnchors the {@link IAnchor} array of all vertical
-	 *            {@link IAnchor}.
-	 * @param pAnchor the {@link IAnchor} of which to get the name.
-	 * @param pStartIndex the start index at which to start the search.
-	 * @param pIncrement the amount to increment the search.
-	 * @return the name of the given {@link IAnchor}, {@code null} if it could
-	 *         not be found.
+	 * @param pAnchors the {@link IAnchor}s of one orientation.
+	 * @param pFirstMarginAnchor the first margin {@link IAnchor}, which is
+	 *            skipped.
+	 * @param pSecondMarginAnchor the second margin {@link IAnchor}, which is
+	 *            skipped.
 	 */
-	private String getVerticalAnchorName(IAnchor[] pVerticalAnchors, IAnchor pAnchor, int pStartIndex, int pIncrement)
+	private void showAnchors(IAnchor[] pAnchors, IAnchor pFirstMarginAnchor, IAnchor pSecondMarginAnchor)
 	{
-		int index = pStartIndex;
+		List<IAnchor> anchors = new ArrayList<>();
 		
-		while (ArrayUtil.indexOfReference(pVerticalAnchors, getLayout().getRowTopAnchor(index)) >= 0)
+		for (IAnchor anchor : pAnchors)
 		{
-			if (getLayout().getRowTopAnchor(index) == pAnchor)
+			if (anchor != pFirstMarginAnchor
+					&& anchor != pSecondMarginAnchor
+					&& getAnchorColor(anchor) != null
+					&& isMaterialized(anchor, anchor.getAbsolutePosition()))
 			{
-				return "t" + Integer.toString(index);
+				anchors.add(anchor);
 			}
-			else if (getLayout().getRowBottomAnchor(index) == pAnchor)
+		}
+		
+		if (!anchorsClustered)
+		{
+			for (IAnchor anchor : anchors)
 			{
-				return "b" + Integer.toString(index);
+				showAnchor(anchor, getAnchorColor(anchor));
 			}
 			
-			index = index + pIncrement;
+			return;
 		}
 		
-		return null;
+		anchors.sort(Comparator.comparingInt(IAnchor::getAbsolutePosition));
+		
+		double distance = CLUSTER_DISTANCE / displayScale;
+		int start = 0;
+		
+		for (int index = 1; index <= anchors.size(); index++)
+		{
+			if (index == anchors.size()
+					|| anchors.get(index).getAbsolutePosition() - anchors.get(index - 1).getAbsolutePosition() >= distance)
+			{
+				if (index - start == 1)
+				{
+					showAnchor(anchors.get(start), getAnchorColor(anchors.get(start)));
+				}
+				else if (index == anchors.size())
+				{
+					showCluster(anchors.subList(start, index), Integer.MAX_VALUE);
+				}
+				else
+				{
+					showCluster(anchors.subList(start, index), anchors.get(index).getAbsolutePosition());
+				}
+				
+				start = index;
+			}
+		}
 	}
 	
 	/**
-	 * Adds a placeholder for the given {@link IAnchor} with the given
-	 * {@link IColor}.
+	 * Adds the marker of a cluster of the given {@link IAnchor}s, which spans
+	 * from the first to the last {@link IAnchor}, or
+	 * {@link #MINIMUM_CLUSTER_SIZE} on screen if there is room for it before
+	 * the next {@link IAnchor}.
 	 * 
-	 * @param pAnchor the {@link IAnchor} to make visible.
-	 * @param pColor the {@link IColor} to use.
+	 * @param pAnchors the {@link IAnchor}s of the cluster, sorted by their
+	 *            position.
+	 * @param pLimit the position of the next {@link IAnchor}, the marker does
+	 *            not extend beyond it.
 	 */
-	private void showAnchor(IAnchor pAnchor, IColor pColor)
+	private void showCluster(List<IAnchor> pAnchors, int pLimit)
 	{
-		UIComponent<?> placeholder = createAnchorPlaceholder(pColor, pAnchor);
+		int start = pAnchors.get(0).getAbsolutePosition();
+		int end = pAnchors.get(pAnchors.size() - 1).getAbsolutePosition() + ANCHOR_SIZE;
 		
-		if (pAnchor.getOrientation() == IAnchor.VERTICAL)
+		end = Math.max(end, Math.min(start + (int)Math.ceil(MINIMUM_CLUSTER_SIZE / displayScale), pLimit));
+		
+		UIComponent<?> marker = new UICustomComponent(new ClusterMarker(pAnchors.size()));
+		marker.putObject(CLUSTER_OBJECT, pAnchors.toArray(new IAnchor[pAnchors.size()]));
+		
+		clusterPlaceholders.add(marker);
+		
+		if (pAnchors.get(0).getOrientation() == IAnchor.VERTICAL)
 		{
-			super.add(placeholder, getLayout().getConstraints(
-					getLayout().createAnchor(pAnchor),
+			int top = getLayout().getTopAnchor().getAbsolutePosition();
+			
+			super.add(marker, getLayout().getConstraints(
+					getLayout().createAnchor(getLayout().getTopAnchor(), start - top),
 					getLayout().getLeftMarginAnchor(),
-					null,
+					getLayout().createAnchor(getLayout().getTopAnchor(), end - top),
 					getLayout().getRightMarginAnchor()), 0);
 		}
 		else
 		{
-			super.add(placeholder, getLayout().getConstraints(
+			int left = getLayout().getLeftAnchor().getAbsolutePosition();
+			
+			super.add(marker, getLayout().getConstraints(
 					getLayout().getTopMarginAnchor(),
-					getLayout().createAnchor(pAnchor),
+					getLayout().createAnchor(getLayout().getLeftAnchor(), start - left),
 					getLayout().getBottomMarginAnchor(),
-					null), 0);
+					getLayout().createAnchor(getLayout().getLeftAnchor(), end - left)), 0);
+		}
+	}
+	
+	/**
+	 * Replaces the placeholders without checking or solving the layout again,
+	 * for example when only the {@link #materializedRegion} or the
+	 * {@link #displayScale} has changed. The placeholders are positioned by
+	 * the {@link IAnchor}s of the last update.
+	 */
+	private void updatePlaceholders()
+	{
+		if (batchDepth > 0 || layoutConsistency == null || !layoutConsistency.isConsistent())
+		{
+			// Either the batch updates the display when it ends, or there
+			// is no solved layout to show.
+			return;
 		}
+		
+		StallDetector.markPhase("updatePlaceholders");
+		
+		AnchorOverlayRebuildEvent overlayRebuildEvent = FlightRecorderEvents.createAnchorOverlayRebuildEvent();
+		overlayRebuildEvent.begin();
+		
+		removePlaceholders();
+		addPlaceholders();
+		
+		overlayRebuildEvent.setPlaceholderCount(components.size() - realComponents.size());
+		FlightRecorderEvents.commit(overlayRebuildEvent, this);
+		
+		((JComponent)getResource()).revalidate();
+		((JComponent)getResource()).repaint();
 	}
 	
 	//****************************************************************
@@ -604,7 +2229,14 @@ public class AnchorShowingPanel extends UIPanel
 		@Override
 		public void mouseClicked(MouseEvent pEvent)
 		{
-			// Not required.
+			IContainer container = getNestedContainerAt(pEvent.getX(), pEvent.getY());
+			
+			if (container != null)
+			{
+				resetHighlightedComponent();
+				
+				setNestedContainerExpanded(container, !isNestedContainerExpanded(container));
+			}
 		}
 		
 		/**
@@ -632,6 +2264,8 @@ public class AnchorShowingPanel extends UIPanel
 		public void mouseExited(MouseEvent pEvent)
 		{
 			resetHighlightedComponent();
+			setHoveredContainer(null);
+			setExpandedCluster(null);
 		}
 		
 		/**
@@ -640,27 +2274,14 @@ public class AnchorShowingPanel extends UIPanel
 		@Override
 		public void mouseMoved(MouseEvent pEvent)
 		{
-			for (UIComponent<?> component : placeholders)
-			{
-				if (inside(pEvent.getX(), pEvent.getY(), component.getBounds()))
-				{
-					if (component != highlightedComponent)
-					{
-						resetHighlightedComponent();
-						
-						highlightedComponent = component;
-						highlightedComponent.setBackground(Tango.SCARLET_RED_1);
-						
-						highlightedAnchor = (IAnchor)highlightedComponent.getObject(ANCHOR_OBJECT);
-						
-						fireHighlightedAnchorChanged();
-					}
-					
-					return;
-				}
-			}
+			StallDetector.markPhase("mouseMoved");
 			
-			resetHighlightedComponent();
+			AnchorHitTestEvent hitTestEvent = FlightRecorderEvents.createAnchorHitTestEvent();
+			hitTestEvent.begin();
+			
+			hitTestEvent.setHit(highlightAt(pEvent.getX(), pEvent.getY()));
+			
+			FlightRecorderEvents.commit(hitTestEvent, AnchorShowingPanel.this);
 		}
 		
 		/**
@@ -685,6 +2306,119 @@ public class AnchorShowingPanel extends UIPanel
 		// User-defined methods
 		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 		
+		/**
+		 * Highlights the given placeholder, if it is not already highlighted.
+		 * 
+		 * @param pComponent the placeholder to highlight.
+		 */
+		private void highlight(UIComponent<?> pComponent)
+		{
+			if (pComponent != highlightedComponent)
+			{
+				resetHighlightedComponent();
+				
+				highlightedComponent = pComponent;
+				highlightedComponent.setBackground(Tango.SCARLET_RED_1);
+				
+				highlightedAnchor = (IAnchor)highlightedComponent.getObject(ANCHOR_OBJECT);
+				
+				setDependenciesHighlighted(highlightedAnchor);
+				fireHighlightedAnchorChanged();
+			}
+		}
+		
+		/**
+		 * Highlights the placeholder of the {@link IAnchor} at the given
+		 * location.
+		 * 
+		 * @param pX the x coordinate.
+		 * @param pY the y coordinate.
+		 * @return {@code true} if a placeholder has been highlighted.
+		 */
+		private boolean highlightAt(int pX, int pY)
+		{
+			IContainer container = getNestedContainerAt(pX, pY);
+			
+			if (container != hoveredContainer)
+			{
+				resetHighlightedComponent();
+				setHoveredContainer(container);
+			}
+			
+			UIComponent<?> cluster = getClusterAt(pX, pY);
+			
+			if (cluster != expandedCluster)
+			{
+				resetHighlightedComponent();
+				setExpandedCluster(cluster);
+			}
+			
+			// The placeholders of the hovered container have precedence over
+			// everything else.
+			if (highlightNestedPlaceholder(pX, pY, nestedPlaceholders.get(hoveredContainer)))
+			{
+				return true;
+			}
+			
+			for (List<UIComponent<?>> containerPlaceholders : nestedPlaceholders.values())
+			{
+				if (highlightNestedPlaceholder(pX, pY, containerPlaceholders))
+				{
+					return true;
+				}
+			}
+			
+			for (UIComponent<?> component : placeholders)
+			{
+				if (inside(pX, pY, component.getBounds()))
+				{
+					highlight(component);
+					
+					return true;
+				}
+			}
+			
+			resetHighlightedComponent();
+			
+			return cluster != null;
+		}
+		
+		/**
+		 * Highlights the first placeholder of a nested layout which is at the
+		 * given coordinates.
+		 * <p>
+		 * Other than the placeholders of this panel, the placeholders of
+		 * nested layouts only span their container, so they are tested in
+		 * both directions.
+		 * 
+		 * @param pX the x coordinate.
+		 * @param pY the y coordinate.
+		 * @param pPlaceholders the placeholders to test, can be {@code null}.
+		 * @return {@code true} if a placeholder has been highlighted.
+		 */
+		private boolean highlightNestedPlaceholder(int pX, int pY, List<UIComponent<?>> pPlaceholders)
+		{
+			if (pPlaceholders != null)
+			{
+				for (UIComponent<?> component : pPlaceholders)
+				{
+					IRectangle bounds = component.getBounds();
+					
+					if (pX >= bounds.getX() - SNAP_RANGE
+							&& pX <= bounds.getX() + bounds.getWidth() + SNAP_RANGE
+							&& pY >= bounds.getY() - SNAP_RANGE
+							&& pY <= bounds.getY() + bounds.getHeight() + SNAP_RANGE)
+					{
+						highlight(component);
+						
+						return true;
+					}
+				}
+			}
+			
+			return false;
+		}
+		
 		/**
 		 * Tests if the given coordinates are within the given
 		 * {@link IRectangle}.
@@ -720,10 +2454,272 @@ public class AnchorShowingPanel extends UIPanel
 				highlightedComponent = null;
 				highlightedAnchor = null;
 				
+				setDependenciesHighlighted(null);
 				fireHighlightedAnchorChanged();
 			}
 		}
 		
 	}	// AnchorHighlightingMouseListener
 	
+	/**
+	 * The {@link ClusterMarker} is a {@link JComponent} which marks a cluster
+	 * of {@link IAnchor}s and shows their count.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class ClusterMarker extends JComponent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Constants
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The translucent {@link Color} of the background. */
+		private static final Color BACKGROUND = new Color(
+				CLUSTER_COLOR.getRed(),
+				CLUSTER_COLOR.getGreen(),
+				CLUSTER_COLOR.getBlue(),
+				96);
+		
+		/** The {@link Color} of the edges and the count. */
+		private static final Color FOREGROUND = new Color(
+				CLUSTER_COLOR.getRed(),
+				CLUSTER_COLOR.getGreen(),
+				CLUSTER_COLOR.getBlue());
+		
+		/** The serial version UID. */
+		private static final long serialVersionUID = 1L;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The count of {@link IAnchor}s in the cluster. */
+		private int count = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link ClusterMarker}.
+		 * 
+		 * @param pCount the count of {@link IAnchor}s in the cluster.
+		 */
+		public ClusterMarker(int pCount)
+		{
+			super();
+			
+			count = pCount;
+			
+			setFont(new Font(Font.SANS_SERIF, Font.BOLD, 9));
+			setOpaque(false);
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Overwritten methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void paintComponent(Graphics pGraphics)
+		{
+			pGraphics.setColor(BACKGROUND);
+			pGraphics.fillRect(0, 0, getWidth(), getHeight());
+			
+			pGraphics.setColor(FOREGROUND);
+			pGraphics.drawRect(0, 0, getWidth() - 1, getHeight() - 1);
+			
+			pGraphics.setFont(getFont());
+			pGraphics.drawString(Integer.toString(count), 2, pGraphics.getFontMetrics().getAscent() + 1);
+		}
+		
+	}	// ClusterMarker
+	
+	/**
+	 * The {@link DependencyOverlay} is a {@link JComponent} which spans the
+	 * whole panel and fills the bounds of the components which are attached
+	 * to the highlighted {@link IAnchor} with a translucent {@link Color}.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class DependencyOverlay extends JComponent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Constants
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The translucent {@link Color} of the attached components. */
+		private static final Color COLOR = new Color(
+				ATTACHED_COMPONENT_COLOR.getRed(),
+				ATTACHED_COMPONENT_COLOR.getGreen(),
+				ATTACHED_COMPONENT_COLOR.getBlue(),
+				ATTACHED_COMPONENT_ALPHA);
+		
+		/** The serial version UID. */
+		private static final long serialVersionUID = 1L;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The components which are attached to the highlighted anchor. */
+		private transient List<Component> attachedComponents = Collections.emptyList();
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link DependencyOverlay}.
+		 */
+		public DependencyOverlay()
+		{
+			super();
+			
+			setOpaque(false);
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Overwritten methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void paintComponent(Graphics pGraphics)
+		{
+			pGraphics.setColor(COLOR);
+			
+			for (Component component : attachedComponents)
+			{
+				Rectangle bounds = SwingUtilities.convertRectangle(component.getParent(), component.getBounds(), this);
+				
+				pGraphics.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+			}
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Sets the components which are attached to the highlighted anchor
+		 * and repaints this overlay.
+		 * 
+		 * @param pAttachedComponents the attached components.
+		 */
+		public void setAttachedComponents(List<Component> pAttachedComponents)
+		{
+			if (!attachedComponents.isEmpty() || !pAttachedComponents.isEmpty())
+			{
+				attachedComponents = pAttachedComponents;
+				
+				repaint();
+			}
+		}
+		
+	}	// DependencyOverlay
+	
+	/**
+	 * The {@link HeatOverlay} is a {@link JComponent} which fills itself with
+	 * a translucent {@link Color}.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class HeatOverlay extends JComponent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Constants
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The serial version UID. */
+		private static final long serialVersionUID = 1L;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The translucent {@link Color} to fill with. */
+		private Color color = null;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link HeatOverlay}.
+		 * 
+		 * @param pColor the translucent {@link Color} to fill with.
+		 */
+		public HeatOverlay(Color pColor)
+		{
+			super();
+			
+			color = pColor;
+			
+			setOpaque(false);
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Overwritten methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void paintComponent(Graphics pGraphics)
+		{
+			pGraphics.setColor(color);
+			pGraphics.fillRect(0, 0, getWidth(), getHeight());
+		}
+		
+	}	// HeatOverlay
+	
+	/**
+	 * The {@link PendingInsert} is an indexed insert of a component which has
+	 * been done in a batch and has not yet been applied.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class PendingInsert
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The inserted {@link IComponent}. */
+		private IComponent component = null;
+		
+		/** The constraints of the {@link #component}. */
+		private Object constraints = null;
+		
+		/** The index at the time of the insert. */
+		private int index = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link PendingInsert}.
+		 * 
+		 * @param pIndex the index at the time of the insert.
+		 * @param pComponent the inserted {@link IComponent}.
+		 * @param pConstraints the constraints of the {@link IComponent}.
+		 */
+		public PendingInsert(int pIndex, IComponent pComponent, Object pConstraints)
+		{
+			super();
+			
+			index = pIndex;
+			component = pComponent;
+			constraints = pConstraints;
+		}
+		
+	}	// PendingInsert
+	
 }	// AnchorShowingPanel
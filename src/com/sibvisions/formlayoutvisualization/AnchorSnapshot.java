@@ -0,0 +1,705 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.IContainer;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+import javax.swing.SwingUtilities;
+
+/**
+ * The {@link AnchorSnapshot} is the solved state of an
+ * {@link AnchorShowingPanel} in a compact binary format, which can be inspected
+ * without running the script or creating any components.
+ * <p>
+ * The file consists of a header, a table with a fixed size record for every
+ * anchor, a table with the bounds of all components and a string table with
+ * the names of the anchors. All values are big-endian. The file is memory
+ * mapped when it is opened and the records are only read when they are
+ * accessed, so opening a snapshot does not depend on its size.
+ * <p>
+ * All positions are absolute coordinates in the panel. The anchors of nested
+ * layouts are stored after the anchors of the panel.
+ * 
+ * @author Robert Zenz
+ */
+public final class AnchorSnapshot
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The kind of an autosize anchor. */
+	public static final int KIND_AUTOSIZE = 2;
+	
+	/** The kind of a border anchor. */
+	public static final int KIND_BORDER = 0;
+	
+	/** The kind of a fixed (gap) anchor. */
+	public static final int KIND_FIXED = 3;
+	
+	/** The kind of a margin anchor. */
+	public static final int KIND_MARGIN = 1;
+	
+	/** The kind of a border anchor of a nested layout. */
+	public static final int KIND_NESTED_BORDER = 4;
+	
+	/** The size of an anchor record in bytes. */
+	private static final int ANCHOR_RECORD_SIZE = 24;
+	
+	/** The size of a component record in bytes. */
+	private static final int COMPONENT_RECORD_SIZE = 16;
+	
+	/** The flag for an autosize anchor. */
+	private static final int FLAG_AUTOSIZE = 32;
+	
+	/** The flag for an anchor of a nested layout. */
+	private static final int FLAG_NESTED = 64;
+	
+	/** The flag for a vertical anchor. */
+	private static final int FLAG_VERTICAL = 16;
+	
+	/** The size of the header in bytes. */
+	private static final int HEADER_SIZE = 32;
+	
+	/** The mask for the kind in the flags. */
+	private static final int KIND_MASK = 15;
+	
+	/** The magic number at the start of every file, "FLAS". */
+	private static final int MAGIC = 0x464c4153;
+	
+	/** The maximum length of the name of an anchor. */
+	private static final int MAXIMUM_NAME_LENGTH = 0xffff / 3;
+	
+	/** The version of the format. */
+	private static final int VERSION = 1;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The count of anchors. */
+	private int anchorCount = 0;
+	
+	/** The mapped content of the file. */
+	private ByteBuffer buffer = null;
+	
+	/** The count of components. */
+	private int componentCount = 0;
+	
+	/** The offset of the component table. */
+	private int componentsOffset = 0;
+	
+	/** The height of the panel. */
+	private int height = 0;
+	
+	/** The offset of the string table. */
+	private int stringsOffset = 0;
+	
+	/** The width of the panel. */
+	private int width = 0;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link AnchorSnapshot}.
+	 * 
+	 * @param pBuffer the content of the file.
+	 * @throws IOException if the content is not a valid snapshot.
+	 */
+	private AnchorSnapshot(ByteBuffer pBuffer) throws IOException
+	{
+		super();
+		
+		buffer = pBuffer;
+		
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+		{
+			throw new IOException("The file is not an anchor snapshot.");
+		}
+		if (buffer.getInt(4) != VERSION)
+		{
+			throw new IOException("The anchor snapshot has the unsupported version " + buffer.getInt(4) + ".");
+		}
+		
+		width = buffer.getInt(8);
+		height = buffer.getInt(12);
+		anchorCount = buffer.getInt(16);
+		componentCount = buffer.getInt(20);
+		stringsOffset = buffer.getInt(24);
+		
+		componentsOffset = HEADER_SIZE + anchorCount * ANCHOR_RECORD_SIZE;
+		
+		if (anchorCount < 0
+				|| componentCount < 0
+				|| stringsOffset != componentsOffset + componentCount * COMPONENT_RECORD_SIZE
+				|| stringsOffset > buffer.capacity())
+		{
+			throw new IOException("The anchor snapshot is truncated or corrupted.");
+		}
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Opens the given snapshot file.
+	 * <p>
+	 * The file is memory mapped, nothing but the header is read.
+	 * 
+	 * @param pPath the {@link Path} of the file.
+	 * @return the {@link AnchorSnapshot}.
+	 * @throws IOException if the file could not be read or is not a valid
+	 *             snapshot.
+	 */
+	public static AnchorSnapshot open(Path pPath) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(pPath, StandardOpenOption.READ))
+		{
+			return new AnchorSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	/**
+	 * Writes the current state of the given {@link AnchorShowingPanel} to the
+	 * given file.
+	 * <p>
+	 * The anchors of all nested layouts are included, not only the ones of
+	 * the expanded containers. This must be called on the thread which owns
+	 * the components.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel}.
+	 * @param pPath the {@link Path} of the file.
+	 * @throws IOException if the file could not be written.
+	 */
+	public static void write(AnchorShowingPanel pPanel, Path pPath) throws IOException
+	{
+		Container container = (Container)pPanel.getResource();
+		container.validate();
+		
+		UIFormLayout layout = pPanel.getLayout();
+		
+		List<int[]> anchorRecords = new ArrayList<>();
+		List<byte[]> names = new ArrayList<>();
+		
+		int top = layout.getTopAnchor().getAbsolutePosition();
+		int left = layout.getLeftAnchor().getAbsolutePosition();
+		int bottom = layout.getBottomAnchor().getAbsolutePosition();
+		int right = layout.getRightAnchor().getAbsolutePosition();
+		
+		int topMargin = layout.getTopMarginAnchor().getAbsolutePosition();
+		int leftMargin = layout.getLeftMarginAnchor().getAbsolutePosition();
+		int bottomMargin = layout.getBottomMarginAnchor().getAbsolutePosition();
+		int rightMargin = layout.getRightMarginAnchor().getAbsolutePosition();
+		
+		addAnchor(anchorRecords, names, pPanel, layout.getBottomAnchor(), KIND_BORDER, 0, bottom, left, right);
+		addAnchor(anchorRecords, names, pPanel, layout.getLeftAnchor(), KIND_BORDER, 0, left, top, bottom);
+		addAnchor(anchorRecords, names, pPanel, layout.getRightAnchor(), KIND_BORDER, 0, right, top, bottom);
+		addAnchor(anchorRecords, names, pPanel, layout.getTopAnchor(), KIND_BORDER, 0, top, left, right);
+		
+		addAnchor(anchorRecords, names, pPanel, layout.getBottomMarginAnchor(), KIND_MARGIN, 0, bottomMargin, left, right);
+		addAnchor(anchorRecords, names, pPanel, layout.getLeftMarginAnchor(), KIND_MARGIN, 0, leftMargin, top, bottom);
+		addAnchor(anchorRecords, names, pPanel, layout.getRightMarginAnchor(), KIND_MARGIN, 0, rightMargin, top, bottom);
+		addAnchor(anchorRecords, names, pPanel, layout.getTopMarginAnchor(), KIND_MARGIN, 0, topMargin, left, right);
+		
+		for (IAnchor anchor : getAnchors(layout))
+		{
+			if (anchor.getOrientation() == IAnchor.VERTICAL)
+			{
+				addAnchor(anchorRecords, names, pPanel, anchor, getKind(anchor), 0, anchor.getAbsolutePosition(), leftMargin, rightMargin);
+			}
+			else
+			{
+				addAnchor(anchorRecords, names, pPanel, anchor, getKind(anchor), 0, anchor.getAbsolutePosition(), topMargin, bottomMargin);
+			}
+		}
+		
+		for (IContainer nestedContainer : pPanel.getNestedContainers())
+		{
+			Component component = (Component)nestedContainer.getResource();
+			Point origin = SwingUtilities.convertPoint(component, 0, 0, container);
+			
+			UIFormLayout nestedLayout = (UIFormLayout)nestedContainer.getLayout();
+			
+			List<IAnchor> nestedAnchors = new ArrayList<>();
+			nestedAnchors.add(nestedLayout.getBottomAnchor());
+			nestedAnchors.add(nestedLayout.getLeftAnchor());
+			nestedAnchors.add(nestedLayout.getRightAnchor());
+			nestedAnchors.add(nestedLayout.getTopAnchor());
+			nestedAnchors.add(nestedLayout.getBottomMarginAnchor());
+			nestedAnchors.add(nestedLayout.getLeftMarginAnchor());
+			nestedAnchors.add(nestedLayout.getRightMarginAnchor());
+			nestedAnchors.add(nestedLayout.getTopMarginAnchor());
+			nestedAnchors.addAll(getAnchors(nestedLayout));
+			
+			for (int index = 0; index < nestedAnchors.size(); index++)
+			{
+				IAnchor anchor = nestedAnchors.get(index);
+				
+				int kind;
+				
+				if (index < 4)
+				{
+					kind = KIND_NESTED_BORDER;
+				}
+				else if (index < 8)
+				{
+					kind = KIND_MARGIN;
+				}
+				else
+				{
+					kind = getKind(anchor);
+				}
+				
+				if (anchor.getOrientation() == IAnchor.VERTICAL)
+				{
+					addAnchor(anchorRecords, names, pPanel, anchor, kind, FLAG_NESTED, origin.y + anchor.getAbsolutePosition(), origin.x, origin.x + component.getWidth());
+				}
+				else
+				{
+					addAnchor(anchorRecords, names, pPanel, anchor, kind, FLAG_NESTED, origin.x + anchor.getAbsolutePosition(), origin.y, origin.y + component.getHeight());
+				}
+			}
+		}
+		
+		List<Rectangle> bounds = new ArrayList<>();
+		
+		for (IComponent component : pPanel.getRealComponents())
+		{
+			addBounds(bounds, (Component)component.getResource(), container);
+		}
+		
+		int stringsOffset = HEADER_SIZE + anchorRecords.size() * ANCHOR_RECORD_SIZE + bounds.size() * COMPONENT_RECORD_SIZE;
+		
+		try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(pPath))))
+		{
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			stream.writeInt(container.getWidth());
+			stream.writeInt(container.getHeight());
+			stream.writeInt(anchorRecords.size());
+			stream.writeInt(bounds.size());
+			stream.writeInt(stringsOffset);
+			stream.writeInt(0);
+			
+			int nameOffset = stringsOffset;
+			
+			for (int index = 0; index < anchorRecords.size(); index++)
+			{
+				int[] record = anchorRecords.get(index);
+				
+				stream.writeInt(nameOffset);
+				
+				for (int value : record)
+				{
+					stream.writeInt(value);
+				}
+				
+				nameOffset = nameOffset + 2 + names.get(index).length;
+			}
+			
+			for (Rectangle rectangle : bounds)
+			{
+				stream.writeInt(rectangle.x);
+				stream.writeInt(rectangle.y);
+				stream.writeInt(rectangle.width);
+				stream.writeInt(rectangle.height);
+			}
+			
+			for (byte[] name : names)
+			{
+				stream.writeShort(name.length);
+				stream.write(name);
+			}
+		}
+	}
+	
+	/**
+	 * Adds the record for the given {@link IAnchor}.
+	 * 
+	 * @param pRecords the {@link List} of records.
+	 * @param pNames the {@link List} of encoded names.
+	 * @param pPanel the {@link AnchorShowingPanel} which names the
+	 *            {@link IAnchor}.
+	 * @param pAnchor the {@link IAnchor}.
+	 * @param pKind the kind.
+	 * @param pFlags the additional flags.
+	 * @param pLocation the location of the {@link IAnchor} in the panel.
+	 * @param pStart the start of the extent of the {@link IAnchor}.
+	 * @param pEnd the end of the extent of the {@link IAnchor}.
+	 */
+	private static void addAnchor(List<int[]> pRecords, List<byte[]> pNames, AnchorShowingPanel pPanel, IAnchor pAnchor, int pKind, int pFlags, int pLocation, int pStart, int pEnd)
+	{
+		int flags = pKind | pFlags;
+		
+		if (pAnchor.getOrientation() == IAnchor.VERTICAL)
+		{
+			flags = flags | FLAG_VERTICAL;
+		}
+		if (pAnchor.isAutoSize())
+		{
+			flags = flags | FLAG_AUTOSIZE;
+		}
+		
+		String name = pPanel.getAnchorName(pAnchor);
+		
+		// The length of a name is stored as unsigned short, and a char needs
+		// at most three bytes in UTF-8.
+		if (name.length() > MAXIMUM_NAME_LENGTH)
+		{
+			name = name.substring(0, MAXIMUM_NAME_LENGTH);
+		}
+		
+		pRecords.add(new int[] { flags, pAnchor.getPosition(), pLocation, pStart, pEnd });
+		pNames.add(name.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Adds the bounds of the given {@link Component} and all its children.
+	 * 
+	 * @param pBounds the {@link List} of bounds.
+	 * @param pComponent the {@link Component}.
+	 * @param pPanel the panel, which is the origin of the coordinates.
+	 */
+	private static void addBounds(List<Rectangle> pBounds, Component pComponent, Container pPanel)
+	{
+		pBounds.add(SwingUtilities.convertRectangle(pComponent.getParent(), pComponent.getBounds(), pPanel));
+		
+		if (pComponent instanceof Container)
+		{
+			for (Component child : ((Container)pComponent).getComponents())
+			{
+				addBounds(pBounds, child, pPanel);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the horizontal and vertical {@link IAnchor}s of the given
+	 * {@link UIFormLayout}, without the margin {@link IAnchor}s.
+	 * 
+	 * @param pLayout the {@link UIFormLayout}.
+	 * @return the {@link IAnchor}s.
+	 */
+	private static List<IAnchor> getAnchors(UIFormLayout pLayout)
+	{
+		List<IAnchor> anchors = new ArrayList<>();
+		
+		for (IAnchor anchor : pLayout.getHorizontalAnchors())
+		{
+			if (anchor != pLayout.getLeftMarginAnchor() && anchor != pLayout.getRightMarginAnchor())
+			{
+				anchors.add(anchor);
+			}
+		}
+		
+		for (IAnchor anchor : pLayout.getVerticalAnchors())
+		{
+			if (anchor != pLayout.getTopMarginAnchor() && anchor != pLayout.getBottomMarginAnchor())
+			{
+				anchors.add(anchor);
+			}
+		}
+		
+		return anchors;
+	}
+	
+	/**
+	 * Gets the kind of the given {@link IAnchor}, which is not a border or
+	 * margin {@link IAnchor}.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return {@link #KIND_AUTOSIZE} or {@link #KIND_FIXED}.
+	 */
+	private static int getKind(IAnchor pAnchor)
+	{
+		if (pAnchor.isAutoSize())
+		{
+			return KIND_AUTOSIZE;
+		}
+		else
+		{
+			return KIND_FIXED;
+		}
+	}
+	
+	/**
+	 * Gets the anchor at the given coordinates.
+	 * <p>
+	 * If multiple anchors are within range, the closest one is returned, and
+	 * of equally close ones the last one, so that the anchors of nested
+	 * layouts have precedence.
+	 * 
+	 * @param pX the x coordinate.
+	 * @param pY the y coordinate.
+	 * @param pRange the range around an anchor which still counts as hit.
+	 * @return the index of the anchor, {@code -1} if there is none.
+	 */
+	public int getAnchorAt(int pX, int pY, int pRange)
+	{
+		int anchorIndex = -1;
+		int anchorDistance = Integer.MAX_VALUE;
+		
+		for (int index = 0; index < anchorCount; index++)
+		{
+			int offset = HEADER_SIZE + index * ANCHOR_RECORD_SIZE;
+			
+			int distance;
+			int along;
+			
+			if ((buffer.getInt(offset + 4) & FLAG_VERTICAL) != 0)
+			{
+				distance = Math.abs(pY - buffer.getInt(offset + 12));
+				along = pX;
+			}
+			else
+			{
+				distance = Math.abs(pX - buffer.getInt(offset + 12));
+				along = pY;
+			}
+			
+			if (distance <= pRange
+					&& distance <= anchorDistance
+					&& along >= buffer.getInt(offset + 16) - pRange
+					&& along <= buffer.getInt(offset + 20) + pRange)
+			{
+				anchorIndex = index;
+				anchorDistance = distance;
+			}
+		}
+		
+		return anchorIndex;
+	}
+	
+	/**
+	 * Gets the count of anchors.
+	 * 
+	 * @return the count of anchors.
+	 */
+	public int getAnchorCount()
+	{
+		return anchorCount;
+	}
+	
+	/**
+	 * Gets the end of the extent of the given anchor, which is the x
+	 * coordinate for a vertical anchor and the y coordinate for a horizontal
+	 * one.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the end of the extent.
+	 */
+	public int getAnchorEnd(int pAnchor)
+	{
+		return buffer.getInt(getAnchorOffset(pAnchor) + 20);
+	}
+	
+	/**
+	 * Gets the kind of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the kind, one of the {@code KIND_} constants.
+	 */
+	public int getAnchorKind(int pAnchor)
+	{
+		return buffer.getInt(getAnchorOffset(pAnchor) + 4) & KIND_MASK;
+	}
+	
+	/**
+	 * Gets the location of the given anchor in the panel, which is the y
+	 * coordinate for a vertical anchor and the x coordinate for a horizontal
+	 * one.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the location.
+	 */
+	public int getAnchorLocation(int pAnchor)
+	{
+		return buffer.getInt(getAnchorOffset(pAnchor) + 12);
+	}
+	
+	/**
+	 * Gets the name of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the name.
+	 */
+	public String getAnchorName(int pAnchor)
+	{
+		int nameOffset = buffer.getInt(getAnchorOffset(pAnchor));
+		byte[] name = new byte[buffer.getShort(nameOffset) & 0xffff];
+		
+		ByteBuffer nameBuffer = buffer.duplicate();
+		nameBuffer.position(nameOffset + 2);
+		nameBuffer.get(name);
+		
+		return new String(name, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Gets the orientation of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return {@link IAnchor#HORIZONTAL} or {@link IAnchor#VERTICAL}.
+	 */
+	public int getAnchorOrientation(int pAnchor)
+	{
+		if ((buffer.getInt(getAnchorOffset(pAnchor) + 4) & FLAG_VERTICAL) != 0)
+		{
+			return IAnchor.VERTICAL;
+		}
+		else
+		{
+			return IAnchor.HORIZONTAL;
+		}
+	}
+	
+	/**
+	 * Gets the position of the given anchor, relative to its related anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the position.
+	 */
+	public int getAnchorPosition(int pAnchor)
+	{
+		return buffer.getInt(getAnchorOffset(pAnchor) + 8);
+	}
+	
+	/**
+	 * Gets the start of the extent of the given anchor, which is the x
+	 * coordinate for a vertical anchor and the y coordinate for a horizontal
+	 * one.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the start of the extent.
+	 */
+	public int getAnchorStart(int pAnchor)
+	{
+		return buffer.getInt(getAnchorOffset(pAnchor) + 16);
+	}
+	
+	/**
+	 * Gets the bounds of the given component in the panel.
+	 * 
+	 * @param pComponent the index of the component.
+	 * @return the bounds.
+	 */
+	public Rectangle getComponentBounds(int pComponent)
+	{
+		if (pComponent < 0 || pComponent >= componentCount)
+		{
+			throw new IndexOutOfBoundsException("Component index " + pComponent + " is out of bounds.");
+		}
+		
+		int offset = componentsOffset + pComponent * COMPONENT_RECORD_SIZE;
+		
+		return new Rectangle(
+				buffer.getInt(offset),
+				buffer.getInt(offset + 4),
+				buffer.getInt(offset + 8),
+				buffer.getInt(offset + 12));
+	}
+	
+	/**
+	 * Gets the count of components.
+	 * 
+	 * @return the count of components.
+	 */
+	public int getComponentCount()
+	{
+		return componentCount;
+	}
+	
+	/**
+	 * Gets the height of the panel.
+	 * 
+	 * @return the height of the panel.
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+	
+	/**
+	 * Gets the width of the panel.
+	 * 
+	 * @return the width of the panel.
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	/**
+	 * Gets if the given anchor is an autosize anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return {@code true} if it is an autosize anchor.
+	 */
+	public boolean isAnchorAutoSize(int pAnchor)
+	{
+		return (buffer.getInt(getAnchorOffset(pAnchor) + 4) & FLAG_AUTOSIZE) != 0;
+	}
+	
+	/**
+	 * Gets if the given anchor belongs to a nested layout.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return {@code true} if it belongs to a nested layout.
+	 */
+	public boolean isAnchorNested(int pAnchor)
+	{
+		return (buffer.getInt(getAnchorOffset(pAnchor) + 4) & FLAG_NESTED) != 0;
+	}
+	
+	/**
+	 * Gets the offset of the record of the given anchor.
+	 * 
+	 * @param pAnchor the index of the anchor.
+	 * @return the offset of the record.
+	 */
+	private int getAnchorOffset(int pAnchor)
+	{
+		if (pAnchor < 0 || pAnchor >= anchorCount)
+		{
+			throw new IndexOutOfBoundsException("Anchor index " + pAnchor + " is out of bounds.");
+		}
+		
+		return HEADER_SIZE + pAnchor * ANCHOR_RECORD_SIZE;
+	}
+	
+}	// AnchorSnapshot
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.util.function.IntConsumer;
+
+import javax.rad.ui.IColor;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+import javax.swing.JComponent;
+
+/**
+ * The {@link AnchorSnapshotView} is a {@link JComponent} which displays an
+ * {@link AnchorSnapshot} the same way as the {@link AnchorShowingPanel}
+ * displays a layout.
+ * <p>
+ * Other than the {@link AnchorShowingPanel} it does not create any
+ * components, the anchors and the bounds of the components are painted
+ * directly from the snapshot, so it can display forms with a lot of anchors.
+ * 
+ * @author Robert Zenz
+ */
+public class AnchorSnapshotView extends JComponent
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The {@link Color} of the bounds of the components. */
+	private static final Color COMPONENT_COLOR = toColor(Tango.ALUMINIUM_3);
+	
+	/** The {@link Color} of the highlighted anchor. */
+	private static final Color HIGHLIGHT_COLOR = toColor(Tango.SCARLET_RED_1);
+	
+	/** The {@link Color}s of the anchors, indexed by kind. */
+	private static final Color[] KIND_COLORS = new Color[] {
+			toColor(AnchorShowingPanel.BORDER_ANCHOR_COLOR),
+			toColor(AnchorShowingPanel.MARGIN_ANCHOR_COLOR),
+			toColor(AnchorShowingPanel.AUTOSIZE_ANCHOR_COLOR),
+			toColor(AnchorShowingPanel.FIXED_ANCHOR_COLOR),
+			toColor(AnchorShowingPanel.NESTED_BORDER_ANCHOR_COLOR) };
+	
+	/** The range around an anchor in which it is still highlighted. */
+	private static final int SNAP_RANGE = 3;
+	
+	/** The serial version UID. */
+	private static final long serialVersionUID = 1L;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The index of the currently highlighted anchor, {@code -1} if none. */
+	private int highlightedAnchor = -1;
+	
+	/**
+	 * The listener which is invoked with the index of the highlighted anchor
+	 * when it changes, {@code -1} if no anchor is highlighted.
+	 */
+	private IntConsumer highlightedAnchorChangedListener = null;
+	
+	/** The displayed {@link AnchorSnapshot}. */
+	private AnchorSnapshot snapshot = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link AnchorSnapshotView}.
+	 * 
+	 * @param pSnapshot the {@link AnchorSnapshot} to display.
+	 */
+	public AnchorSnapshotView(AnchorSnapshot pSnapshot)
+	{
+		super();
+		
+		snapshot = pSnapshot;
+		
+		setBackground(Color.WHITE);
+		setOpaque(true);
+		setPreferredSize(new Dimension(snapshot.getWidth(), snapshot.getHeight()));
+		
+		AnchorHighlightingMouseListener listener = new AnchorHighlightingMouseListener();
+		
+		addMouseListener(listener);
+		addMouseMotionListener(listener);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void paintComponent(Graphics pGraphics)
+	{
+		Rectangle clip = pGraphics.getClipBounds();
+		
+		if (clip == null)
+		{
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		
+		pGraphics.setColor(getBackground());
+		pGraphics.fillRect(clip.x, clip.y, clip.width, clip.height);
+		
+		pGraphics.setColor(COMPONENT_COLOR);
+		
+		for (int index = 0; index < snapshot.getComponentCount(); index++)
+		{
+			Rectangle bounds = snapshot.getComponentBounds(index);
+			
+			if (bounds.intersects(clip))
+			{
+				pGraphics.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+			}
+		}
+		
+		for (int index = 0; index < snapshot.getAnchorCount(); index++)
+		{
+			if (index != highlightedAnchor)
+			{
+				paintAnchor(pGraphics, clip, index, KIND_COLORS[snapshot.getAnchorKind(index)]);
+			}
+		}
+		
+		if (highlightedAnchor >= 0)
+		{
+			paintAnchor(pGraphics, clip, highlightedAnchor, HIGHLIGHT_COLOR);
+		}
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the index of the currently highlighted anchor.
+	 * 
+	 * @return the index of the currently highlighted anchor, {@code -1} if
+	 *         none is highlighted.
+	 */
+	public int getHighlightedAnchor()
+	{
+		return highlightedAnchor;
+	}
+	
+	/**
+	 * Gets the current listener for when the highlighted anchor changes.
+	 * 
+	 * @return the current listener for when the highlighted anchor changes.
+	 */
+	public IntConsumer getHighlightedAnchorChangedListener()
+	{
+		return highlightedAnchorChangedListener;
+	}
+	
+	/**
+	 * Sets the listener for when the highlighted anchor changes.
+	 * <p>
+	 * The listener is invoked with the index of the highlighted anchor, or
+	 * {@code -1} if no anchor is highlighted anymore.
+	 * 
+	 * @param pHighlightedAnchorChangedListener the listener for when the
+	 *            highlighted anchor changes.
+	 */
+	public void setHighlightedAnchorChangedListener(IntConsumer pHighlightedAnchorChangedListener)
+	{
+		highlightedAnchorChangedListener = pHighlightedAnchorChangedListener;
+	}
+	
+	/**
+	 * Gets the displayed {@link AnchorSnapshot}.
+	 * 
+	 * @return the displayed {@link AnchorSnapshot}.
+	 */
+	public AnchorSnapshot getSnapshot()
+	{
+		return snapshot;
+	}
+	
+	/**
+	 * Converts the given {@link IColor} to a {@link Color}.
+	 * 
+	 * @param pColor the {@link IColor}.
+	 * @return the {@link Color}.
+	 */
+	private static Color toColor(IColor pColor)
+	{
+		return new Color(pColor.getRed(), pColor.getGreen(), pColor.getBlue());
+	}
+	
+	/**
+	 * Paints the given anchor, if it is inside the given clip.
+	 * 
+	 * @param pGraphics the {@link Graphics} to use.
+	 * @param pClip the clip.
+	 * @param pAnchor the index of the anchor.
+	 * @param pColor the {@link Color} to use.
+	 */
+	private void paintAnchor(Graphics pGraphics, Rectangle pClip, int pAnchor, Color pColor)
+	{
+		int location = snapshot.getAnchorLocation(pAnchor);
+		int start = snapshot.getAnchorStart(pAnchor);
+		int end = snapshot.getAnchorEnd(pAnchor);
+		
+		if (snapshot.getAnchorOrientation(pAnchor) == IAnchor.VERTICAL)
+		{
+			if (location >= pClip.y && location < pClip.y + pClip.height)
+			{
+				pGraphics.setColor(pColor);
+				pGraphics.drawLine(start, location, end, location);
+			}
+		}
+		else
+		{
+			if (location >= pClip.x && location < pClip.x + pClip.width)
+			{
+				pGraphics.setColor(pColor);
+				pGraphics.drawLine(location, start, location, end);
+			}
+		}
+	}
+	
+	/**
+	 * Sets the highlighted anchor and notifies the listener, if it changed.
+	 * 
+	 * @param pAnchor the index of the anchor, {@code -1} for none.
+	 */
+	private void setHighlightedAnchor(int pAnchor)
+	{
+		if (pAnchor != highlightedAnchor)
+		{
+			highlightedAnchor = pAnchor;
+			
+			repaint();
+			
+			if (highlightedAnchorChangedListener != null)
+			{
+				highlightedAnchorChangedListener.accept(highlightedAnchor);
+			}
+		}
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link AnchorHighlightingMouseListener} is an implementation of
+	 * {@link MouseListener} and {@link MouseMotionListener} which updates the
+	 * highlighted anchor.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private final class AnchorHighlightingMouseListener implements MouseListener, MouseMotionListener
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseClicked(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseDragged(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseEntered(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseExited(MouseEvent pEvent)
+		{
+			setHighlightedAnchor(-1);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseMoved(MouseEvent pEvent)
+		{
+			setHighlightedAnchor(snapshot.getAnchorAt(pEvent.getX(), pEvent.getY(), SNAP_RANGE));
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mousePressed(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseReleased(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+	}	// AnchorHighlightingMouseListener
+	
+}	// AnchorSnapshotView
@@ -0,0 +1,611 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javax.rad.ui.IDimension;
+import javax.swing.SwingUtilities;
+
+import com.sibvisions.formlayoutvisualization.LayoutBuilder.ProgressiveBuild;
+import com.sibvisions.rad.lua.LuaException;
+
+/**
+ * The {@link BufferedLayoutBuilder} builds the layout from a Lua script off
+ * the event dispatch thread into a panel which is not displayed, and swaps it
+ * with the displayed panel once it is ready.
+ * <p>
+ * It uses two {@link AnchorShowingPanel}s, each with its own
+ * {@link LayoutBuilder}. One is displayed, the other one is the buffer which
+ * is built on a single background thread. When the build is done, the panels
+ * are swapped on the event dispatch thread and the listener replaces the
+ * displayed panel, the previously displayed panel becomes the buffer for the
+ * next build. A script which is already displayed is not built again.
+ * <p>
+ * The buffer is only ever accessed by one thread at a time. The event
+ * dispatch thread only touches it while the background thread waits for it,
+ * that is when the settings of the displayed panel are copied before a build
+ * starts and when the panels are swapped. As the builds run one after another
+ * on the background thread, a superseded build has always finished before
+ * the buffer is prepared for the next one.
+ * <p>
+ * Every {@link #build(String)} supersedes all previous builds. A superseded
+ * build is abandoned as soon as possible and never swapped, a failed build
+ * only notifies the listener and leaves the displayed panel as it is. Other
+ * exceptions than a {@link LuaException} are reported as one as well.
+ * <p>
+ * If a slice size is set, the scripts are instead built progressively into the
+ * displayed panel on the event dispatch thread, see
+ * {@link LayoutBuilder#buildProgressively(String, int)}. Every slice is
+ * executed in its own event, so the partial layout is displayed and the
+ * events which have been queued in the meantime are processed between the
+ * slices. A failed progressive build keeps the components which have been
+ * added until then.
+ * 
+ * @author Robert Zenz
+ */
+public class BufferedLayoutBuilder
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * The message of the {@link LuaException} if a build failed with another
+	 * exception.
+	 */
+	private static final String FAILED_MESSAGE = "Failed to execute given script: ";
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The {@link LayoutBuilder} of the {@link #bufferPanel}. */
+	private LayoutBuilder bufferBuilder = null;
+	
+	/** The {@link AnchorShowingPanel} which is built. */
+	private AnchorShowingPanel bufferPanel = null;
+	
+	/**
+	 * The listener which is invoked on the event dispatch thread with the
+	 * displayed panel when a build has completed.
+	 */
+	private Consumer<AnchorShowingPanel> buildCompletedListener = null;
+	
+	/**
+	 * The listener which is invoked on the event dispatch thread when a build
+	 * failed.
+	 */
+	private Consumer<LuaException> buildFailedListener = null;
+	
+	/**
+	 * The generation of the last build which has completed, either by being
+	 * swapped, by failing or because its script was already displayed.
+	 */
+	private volatile long completedGeneration = 0;
+	
+	/** The {@link LayoutBuilder} of the {@link #displayedPanel}. */
+	private LayoutBuilder displayedBuilder = null;
+	
+	/** The {@link AnchorShowingPanel} which is displayed. */
+	private AnchorShowingPanel displayedPanel = null;
+	
+	/** The script of the {@link #displayedPanel}. */
+	private String displayedScript = null;
+	
+	/** The {@link ExecutorService} on which the builds are run. */
+	private ExecutorService executor = Executors.newSingleThreadExecutor(pRunnable ->
+	{
+		Thread thread = new Thread(pRunnable, "Layout builder");
+		thread.setDaemon(true);
+		
+		return thread;
+	});
+	
+	/** The generation of the last requested build. */
+	private volatile long latestGeneration = 0;
+	
+	/**
+	 * If the line of the script which added a component is recorded with the
+	 * component.
+	 */
+	private boolean scriptLinesRecorded = false;
+	
+	/**
+	 * The count of components which are added per slice, {@code 0} if the
+	 * scripts are not built progressively.
+	 */
+	private int sliceSize = 0;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link BufferedLayoutBuilder}.
+	 * <p>
+	 * Both panels must be set up the same, with an empty layout.
+	 * 
+	 * @param pDisplayedPanel the {@link AnchorShowingPanel} which is currently
+	 *            displayed.
+	 * @param pBufferPanel the {@link AnchorShowingPanel} which is not
+	 *            displayed and is used as buffer.
+	 */
+	public BufferedLayoutBuilder(AnchorShowingPanel pDisplayedPanel, AnchorShowingPanel pBufferPanel)
+	{
+		super();
+		
+		displayedPanel = pDisplayedPanel;
+		displayedBuilder = new LayoutBuilder(displayedPanel);
+		
+		bufferPanel = pBufferPanel;
+		bufferBuilder = new LayoutBuilder(bufferPanel);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Starts building the layout according to the given Lua sourcecode, this
+	 * supersedes all previous builds.
+	 * <p>
+	 * This must be called on the event dispatch thread, it returns
+	 * immediately.
+	 * 
+	 * @param pScript the Lua sourcecode.
+	 * @return the generation of the build, which is the value of
+	 *         {@link #getCompletedGeneration()} once the build has completed.
+	 */
+	public long build(String pScript)
+	{
+		long generation = ++latestGeneration;
+		
+		if (sliceSize > 0)
+		{
+			buildProgressively(generation, pScript);
+			
+			return generation;
+		}
+		
+		IDimension size = displayedPanel.getSize();
+		boolean linesRecorded = scriptLinesRecorded;
+		
+		executor.execute(() -> build(generation, pScript, linesRecorded, size.getWidth(), size.getHeight()));
+		
+		return generation;
+	}
+	
+	/**
+	 * Gets the count of bytes which the last build of the displayed panel has
+	 * allocated.
+	 * 
+	 * @return the count of bytes, {@code -1} if it is not known.
+	 * @see LayoutBuilder#getAllocatedBytes()
+	 */
+	public long getAllocatedBytes()
+	{
+		return displayedBuilder.getAllocatedBytes();
+	}
+	
+	/**
+	 * Gets the listener which is invoked when a build has completed.
+	 * 
+	 * @return the listener which is invoked when a build has completed.
+	 */
+	public Consumer<AnchorShowingPanel> getBuildCompletedListener()
+	{
+		return buildCompletedListener;
+	}
+	
+	/**
+	 * Gets the listener which is invoked when a build failed.
+	 * 
+	 * @return the listener which is invoked when a build failed.
+	 */
+	public Consumer<LuaException> getBuildFailedListener()
+	{
+		return buildFailedListener;
+	}
+	
+	/**
+	 * Gets the generation of the last build which has completed, either by
+	 * being swapped, by failing or because its script was already displayed.
+	 * 
+	 * @return the generation of the last build which has completed.
+	 */
+	public long getCompletedGeneration()
+	{
+		return completedGeneration;
+	}
+	
+	/**
+	 * Gets the {@link AnchorShowingPanel} which is displayed.
+	 * 
+	 * @return the {@link AnchorShowingPanel} which is displayed.
+	 */
+	public AnchorShowingPanel getDisplayedPanel()
+	{
+		return displayedPanel;
+	}
+	
+	/**
+	 * Gets the count of components which are added per slice.
+	 * 
+	 * @return the count of components which are added per slice, {@code 0} if
+	 *         the scripts are not built progressively.
+	 * @see #setSliceSize(int)
+	 */
+	public int getSliceSize()
+	{
+		return sliceSize;
+	}
+	
+	/**
+	 * Gets if the line of the script which added a component is recorded
+	 * with the component.
+	 * 
+	 * @return {@code true} if the lines are recorded.
+	 * @see #setScriptLinesRecorded(boolean)
+	 */
+	public boolean isScriptLinesRecorded()
+	{
+		return scriptLinesRecorded;
+	}
+	
+	/**
+	 * Sets the listener which is invoked on the event dispatch thread with the
+	 * displayed panel when a build has completed.
+	 * <p>
+	 * If the panels have been swapped, the displayed panel is the previous
+	 * buffer and the listener is responsible to replace the previously
+	 * displayed panel with it. If the script was already displayed, the
+	 * displayed panel is the same as before.
+	 * 
+	 * @param pBuildCompletedListener the listener which is invoked when a
+	 *            build has completed.
+	 */
+	public void setBuildCompletedListener(Consumer<AnchorShowingPanel> pBuildCompletedListener)
+	{
+		buildCompletedListener = pBuildCompletedListener;
+	}
+	
+	/**
+	 * Sets the listener which is invoked on the event dispatch thread when a
+	 * build failed.
+	 * 
+	 * @param pBuildFailedListener the listener which is invoked when a build
+	 *            failed.
+	 */
+	public void setBuildFailedListener(Consumer<LuaException> pBuildFailedListener)
+	{
+		buildFailedListener = pBuildFailedListener;
+	}
+	
+	/**
+	 * Sets the {@link LayoutCache} for the results of both panels.
+	 * <p>
+	 * A cached result is only ever requested for a script which is not
+	 * displayed, so its components are never taken from the displayed panel.
+	 * 
+	 * @param pCache the {@link LayoutCache}, {@code null} for none.
+	 */
+	public void setCache(LayoutCache pCache)
+	{
+		displayedBuilder.setCache(pCache);
+		bufferBuilder.setCache(pCache);
+	}
+	
+	/**
+	 * Sets if the line of the script which added a component is recorded
+	 * with the component by the following builds.
+	 * <p>
+	 * If it is enabled, the displayed script is built again by the next
+	 * {@link #build(String)}, as it has been built without the lines.
+	 * 
+	 * @param pScriptLinesRecorded {@code true} if the lines should be
+	 *            recorded.
+	 * @see LayoutBuilder#setScriptLinesRecorded(boolean)
+	 */
+	public void setScriptLinesRecorded(boolean pScriptLinesRecorded)
+	{
+		if (pScriptLinesRecorded && !scriptLinesRecorded)
+		{
+			displayedScript = null;
+		}
+		
+		scriptLinesRecorded = pScriptLinesRecorded;
+	}
+	
+	/**
+	 * Sets the count of components which are added per slice, if it is
+	 * greater than {@code 0} the following scripts are built progressively
+	 * into the displayed panel.
+	 * 
+	 * @param pSliceSize the count of components which are added per slice,
+	 *            {@code 0} to build the scripts in the background.
+	 */
+	public void setSliceSize(int pSliceSize)
+	{
+		sliceSize = Math.max(0, pSliceSize);
+	}
+	
+	/**
+	 * Builds the given script into the {@link #bufferPanel}, runs on the
+	 * background thread.
+	 * 
+	 * @param pGeneration the generation of the build.
+	 * @param pScript the Lua sourcecode.
+	 * @param pScriptLinesRecorded if the lines of the script are recorded.
+	 * @param pWidth the width of the displayed panel.
+	 * @param pHeight the height of the displayed panel.
+	 */
+	private void build(long pGeneration, String pScript, boolean pScriptLinesRecorded, int pWidth, int pHeight)
+	{
+		if (pGeneration != latestGeneration)
+		{
+			return;
+		}
+		
+		LuaException exception = null;
+		
+		try
+		{
+			// Events which have been queued while the buffer was still
+			// displayed are processed before it is touched. The previous build
+			// has finished, so the buffer can be prepared on the event dispatch
+			// thread while this thread waits.
+			invokeAndWait(() -> bufferPanel.copyAnchorVisibility(displayedPanel));
+			
+			if (pScript.equals(displayedScript))
+			{
+				invokeAndWait(() -> complete(pGeneration));
+				
+				return;
+			}
+			
+			bufferPanel.setSize(pWidth, pHeight);
+			bufferBuilder.setScriptLinesRecorded(pScriptLinesRecorded);
+			
+			bufferBuilder.build(pScript);
+			
+			if (pGeneration == latestGeneration)
+			{
+				invokeAndWait(() -> swap(pGeneration, pScript));
+			}
+		}
+		catch (LuaException e)
+		{
+			exception = e;
+		}
+		catch (RuntimeException e)
+		{
+			// Otherwise it would only end up on the executor and the build
+			// would never be completed.
+			exception = createException(e);
+		}
+		
+		if (exception != null && pGeneration == latestGeneration)
+		{
+			LuaException failure = exception;
+			
+			invokeAndWait(() -> fail(pGeneration, failure));
+		}
+	}
+	
+	/**
+	 * Starts building the given script progressively into the
+	 * {@link #displayedPanel}, runs on the event dispatch thread.
+	 * 
+	 * @param pGeneration the generation of the build.
+	 * @param pScript the Lua sourcecode.
+	 */
+	private void buildProgressively(long pGeneration, String pScript)
+	{
+		if (pScript.equals(displayedScript))
+		{
+			complete(pGeneration);
+			
+			return;
+		}
+		
+		ProgressiveBuild progressiveBuild = null;
+		
+		displayedBuilder.setScriptLinesRecorded(scriptLinesRecorded);
+		
+		try
+		{
+			progressiveBuild = displayedBuilder.buildProgressively(pScript, sliceSize);
+		}
+		catch (LuaException e)
+		{
+			fail(pGeneration, e);
+			
+			return;
+		}
+		catch (RuntimeException e)
+		{
+			fail(pGeneration, createException(e));
+			
+			return;
+		}
+		
+		// The displayed panel no longer matches any script once the first
+		// slice has been executed.
+		displayedScript = null;
+		
+		resumeProgressively(pGeneration, pScript, progressiveBuild);
+	}
+	
+	/**
+	 * Marks the given generation as completed and notifies the listener, runs
+	 * on the event dispatch thread.
+	 * 
+	 * @param pGeneration the generation of the build.
+	 */
+	private void complete(long pGeneration)
+	{
+		if (pGeneration == latestGeneration)
+		{
+			completedGeneration = pGeneration;
+			
+			if (buildCompletedListener != null)
+			{
+				buildCompletedListener.accept(displayedPanel);
+			}
+		}
+	}
+	
+	/**
+	 * Creates the {@link LuaException} which reports the given
+	 * {@link RuntimeException} of a build, the same as a failed script is
+	 * reported.
+	 * 
+	 * @param pException the {@link RuntimeException}.
+	 * @return the {@link LuaException}.
+	 */
+	private static LuaException createException(RuntimeException pException)
+	{
+		return new LuaException(FAILED_MESSAGE + pException.getMessage(), pException);
+	}
+	
+	/**
+	 * Notifies the listener that the build failed, runs on the event dispatch
+	 * thread.
+	 * 
+	 * @param pGeneration the generation of the build.
+	 * @param pException the {@link LuaException}.
+	 */
+	private void fail(long pGeneration, LuaException pException)
+	{
+		if (pGeneration == latestGeneration)
+		{
+			completedGeneration = pGeneration;
+			
+			if (buildFailedListener != null)
+			{
+				buildFailedListener.accept(pException);
+			}
+		}
+	}
+	
+	/**
+	 * Invokes the given {@link Runnable} on the event dispatch thread and
+	 * waits for it.
+	 * 
+	 * @param pRunnable the {@link Runnable}.
+	 */
+	private void invokeAndWait(Runnable pRunnable)
+	{
+		try
+		{
+			SwingUtilities.invokeAndWait(pRunnable);
+		}
+		catch (InvocationTargetException e)
+		{
+			throw new IllegalStateException(e.getCause());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Executes the next slice of the given {@link ProgressiveBuild} and
+	 * schedules the following one, runs on the event dispatch thread.
+	 * <p>
+	 * A build which has been superseded is not resumed anymore.
+	 * 
+	 * @param pGeneration the generation of the build.
+	 * @param pScript the Lua sourcecode.
+	 * @param pProgressiveBuild the {@link ProgressiveBuild}.
+	 */
+	private void resumeProgressively(long pGeneration, String pScript, ProgressiveBuild pProgressiveBuild)
+	{
+		if (pGeneration != latestGeneration)
+		{
+			return;
+		}
+		
+		StallDetector.markPhase("buildSlice");
+		
+		try
+		{
+			if (pProgressiveBuild.resume())
+			{
+				displayedScript = pScript;
+				
+				complete(pGeneration);
+			}
+			else
+			{
+				SwingUtilities.invokeLater(() -> resumeProgressively(pGeneration, pScript, pProgressiveBuild));
+			}
+		}
+		catch (LuaException e)
+		{
+			fail(pGeneration, e);
+		}
+		catch (RuntimeException e)
+		{
+			fail(pGeneration, createException(e));
+		}
+	}
+	
+	/**
+	 * Swaps the panels, runs on the event dispatch thread.
+	 * <p>
+	 * A build which has been superseded while the swap was pending is not
+	 * swapped.
+	 * 
+	 * @param pGeneration the generation of the build.
+	 * @param pScript the Lua sourcecode.
+	 */
+	private void swap(long pGeneration, String pScript)
+	{
+		if (pGeneration != latestGeneration)
+		{
+			return;
+		}
+		
+		StallDetector.markPhase("updateLayout");
+		
+		// The visibility of the anchors might have been changed during the
+		// build.
+		if (bufferPanel.copyAnchorVisibility(displayedPanel))
+		{
+			bufferPanel.updateAnchorDisplay();
+		}
+		
+		AnchorShowingPanel panel = displayedPanel;
+		displayedPanel = bufferPanel;
+		bufferPanel = panel;
+		
+		LayoutBuilder builder = displayedBuilder;
+		displayedBuilder = bufferBuilder;
+		bufferBuilder = builder;
+		
+		displayedScript = pScript;
+		
+		complete(pGeneration);
+	}
+	
+}	// BufferedLayoutBuilder
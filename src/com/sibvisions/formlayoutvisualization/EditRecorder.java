@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/**
+ * The {@link EditRecorder} records all changes of a {@link Document} with
+ * their timestamps to a file, so that the editing session can be replayed by
+ * the {@link EditReplayer}.
+ * <p>
+ * The file starts with a header and the content of the {@link Document} when
+ * the recording was started, followed by one entry per insert or remove. All
+ * values are big-endian, texts are stored as UTF-8 with their length in bytes
+ * in front.
+ * 
+ * @author Robert Zenz
+ */
+public class EditRecorder implements DocumentListener
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The type of an insert entry. */
+	public static final int INSERT = 1;
+	
+	/** The magic number at the start of every file, "FLER". */
+	public static final int MAGIC = 0x464c4552;
+	
+	/** The type of a remove entry. */
+	public static final int REMOVE = 2;
+	
+	/** The version of the format. */
+	public static final int VERSION = 1;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The recorded {@link Document}. */
+	private Document document = null;
+	
+	/** The first {@link IOException} which occurred while recording. */
+	private IOException exception = null;
+	
+	/** The time the recording was started, in nanoseconds. */
+	private long start = 0;
+	
+	/** The {@link DataOutputStream} to the file. */
+	private DataOutputStream stream = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link EditRecorder} and starts recording.
+	 * 
+	 * @param pDocument the {@link Document} to record.
+	 * @param pPath the {@link Path} of the file.
+	 * @throws IOException if the file could not be written.
+	 */
+	public EditRecorder(Document pDocument, Path pPath) throws IOException
+	{
+		super();
+		
+		document = pDocument;
+		
+		stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(pPath)));
+		
+		try
+		{
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			writeText(document.getText(0, document.getLength()));
+		}
+		catch (BadLocationException e)
+		{
+			stream.close();
+			
+			throw new IOException("The content of the document could not be read.", e);
+		}
+		
+		start = System.nanoTime();
+		
+		document.addDocumentListener(this);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Interface implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void changedUpdate(DocumentEvent pEvent)
+	{
+		// Attribute changes do not change the code.
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void insertUpdate(DocumentEvent pEvent)
+	{
+		long timestamp = System.nanoTime() - start;
+		
+		try
+		{
+			String text = document.getText(pEvent.getOffset(), pEvent.getLength());
+			
+			stream.writeByte(INSERT);
+			stream.writeLong(timestamp);
+			stream.writeInt(pEvent.getOffset());
+			writeText(text);
+		}
+		catch (BadLocationException e)
+		{
+			fail(new IOException("The inserted text could not be read.", e));
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeUpdate(DocumentEvent pEvent)
+	{
+		long timestamp = System.nanoTime() - start;
+		
+		try
+		{
+			stream.writeByte(REMOVE);
+			stream.writeLong(timestamp);
+			stream.writeInt(pEvent.getOffset());
+			stream.writeInt(pEvent.getLength());
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Stops recording and closes the file.
+	 * 
+	 * @throws IOException if writing the file failed at any point during the
+	 *             recording.
+	 */
+	public void stop() throws IOException
+	{
+		document.removeDocumentListener(this);
+		
+		try
+		{
+			stream.close();
+		}
+		catch (IOException e)
+		{
+			if (exception == null)
+			{
+				exception = e;
+			}
+		}
+		
+		if (exception != null)
+		{
+			throw exception;
+		}
+	}
+	
+	/**
+	 * Stops recording because of the given {@link IOException}, which is
+	 * thrown by {@link #stop()}.
+	 * 
+	 * @param pException the {@link IOException}.
+	 */
+	private void fail(IOException pException)
+	{
+		if (exception == null)
+		{
+			exception = pException;
+		}
+		
+		document.removeDocumentListener(this);
+	}
+	
+	/**
+	 * Writes the given text as UTF-8 with its length in front.
+	 * 
+	 * @param pText the text.
+	 * @throws IOException if writing failed.
+	 */
+	private void writeText(String pText) throws IOException
+	{
+		byte[] bytes = pText.getBytes(StandardCharsets.UTF_8);
+		
+		stream.writeInt(bytes.length);
+		stream.write(bytes);
+	}
+	
+}	// EditRecorder
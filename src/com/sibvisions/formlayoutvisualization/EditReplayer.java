@@ -0,0 +1,602 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Container;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.rad.genui.UIFactoryManager;
+import javax.rad.genui.layout.UIFormLayout;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+
+import com.sibvisions.rad.ui.swing.impl.SwingFactory;
+
+/**
+ * The {@link EditReplayer} replays an editing session which has been recorded
+ * by the {@link EditRecorder} and measures the latency from every keystroke
+ * until the updated layout has been painted.
+ * <p>
+ * The update is the same as in the {@link MainFrame}: every change of the
+ * document starts a build of the whole script with a
+ * {@link BufferedLayoutBuilder}, which supersedes the previous build. Once a
+ * build has been swapped in, the panel is validated and painted into an
+ * image. The latency of a change is measured from the time it was due
+ * according to the recording until a build which includes it has been
+ * painted, so if the updates are slower than the typing, the backlog is part
+ * of the latency, like it would be for the user.
+ * <p>
+ * It runs headless and accepts the following arguments:
+ * <ol>
+ * <li>the path to the recording.</li>
+ * <li>the speed factor, optional, defaults to {@value #DEFAULT_SPEED}.
+ * {@code 2} replays twice as fast as recorded, {@code 0} replays without any
+ * delay between the changes, which means that all changes are included in
+ * the last build.</li>
+ * </ol>
+ * 
+ * @author Robert Zenz
+ */
+public final class EditReplayer
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default speed factor. */
+	private static final double DEFAULT_SPEED = 1;
+	
+	/** The percentiles which are printed. */
+	private static final double[] PERCENTILES = new double[] { 50, 90, 95, 99 };
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The recorded changes. */
+	private List<Change> changes = new ArrayList<>();
+	
+	/** The content of the document when the recording was started. */
+	private String initialText = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link EditReplayer}.
+	 * 
+	 * @param pPath the {@link Path} of the recording.
+	 * @throws IOException if the recording could not be read.
+	 */
+	public EditReplayer(Path pPath) throws IOException
+	{
+		super();
+		
+		try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(pPath))))
+		{
+			if (stream.readInt() != EditRecorder.MAGIC)
+			{
+				throw new IOException("The file is not an editing session.");
+			}
+			if (stream.readInt() != EditRecorder.VERSION)
+			{
+				throw new IOException("The editing session has an unsupported version.");
+			}
+			
+			initialText = readText(stream);
+			
+			int type;
+			
+			while ((type = stream.read()) >= 0)
+			{
+				Change change = new Change();
+				change.type = type;
+				change.timestamp = stream.readLong();
+				change.offset = stream.readInt();
+				
+				if (type == EditRecorder.INSERT)
+				{
+					change.text = readText(stream);
+				}
+				else if (type == EditRecorder.REMOVE)
+				{
+					change.length = stream.readInt();
+				}
+				else
+				{
+					throw new IOException("The editing session contains the unknown change type " + type + ".");
+				}
+				
+				changes.add(change);
+			}
+		}
+		catch (EOFException e)
+		{
+			throw new IOException("The editing session is truncated.", e);
+		}
+	}
+	
+	/**
+	 * The main method.
+	 * 
+	 * @param pArgs the arguments.
+	 * @throws Exception if the replay could not be run.
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		
+		if (pArgs.length < 1)
+		{
+			System.out.println("Usage: EditReplayer RECORDING [SPEED]");
+			
+			System.exit(1);
+		}
+		
+		double speed = pArgs.length >= 2 ? Double.parseDouble(pArgs[1]) : DEFAULT_SPEED;
+		
+		UIFactoryManager.getFactoryInstance(SwingFactory.class);
+		
+		EditReplayer replayer = new EditReplayer(Paths.get(pArgs[0]));
+		
+		long start = System.nanoTime();
+		long[] latencies = replayer.replay(speed);
+		long duration = System.nanoTime() - start;
+		
+		System.out.println(String.format("Replayed %d changes in %.3f s at speed %s",
+				Integer.valueOf(latencies.length),
+				Double.valueOf(duration / 1000000000d),
+				Double.toString(speed)));
+		
+		if (latencies.length > 0)
+		{
+			long total = 0;
+			
+			for (long latency : latencies)
+			{
+				total = total + latency;
+			}
+			
+			Arrays.sort(latencies);
+			
+			StringBuilder percentiles = new StringBuilder();
+			
+			for (double percentile : PERCENTILES)
+			{
+				percentiles.append(String.format("p%.0f=%.3f ms, ",
+						Double.valueOf(percentile),
+						Double.valueOf(getPercentile(latencies, percentile) / 1000000d)));
+			}
+			
+			System.out.println(String.format("Keystroke to layout visible: %smax=%.3f ms, mean=%.3f ms",
+					percentiles,
+					Double.valueOf(latencies[latencies.length - 1] / 1000000d),
+					Double.valueOf(total / 1000000d / latencies.length)));
+		}
+		
+		System.exit(0);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the given percentile of the given sorted values, using the nearest
+	 * rank.
+	 * 
+	 * @param pSortedValues the sorted values.
+	 * @param pPercentile the percentile.
+	 * @return the value at the percentile.
+	 */
+	private static long getPercentile(long[] pSortedValues, double pPercentile)
+	{
+		int rank = (int)Math.ceil(pPercentile / 100 * pSortedValues.length);
+		
+		return pSortedValues[Math.max(0, Math.min(pSortedValues.length - 1, rank - 1))];
+	}
+	
+	/**
+	 * Reads a text which has been written by the {@link EditRecorder}.
+	 * 
+	 * @param pStream the {@link DataInputStream}.
+	 * @return the text.
+	 * @throws IOException if reading failed.
+	 */
+	private static String readText(DataInputStream pStream) throws IOException
+	{
+		byte[] bytes = new byte[pStream.readInt()];
+		pStream.readFully(bytes);
+		
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Gets the count of recorded changes.
+	 * 
+	 * @return the count of recorded changes.
+	 */
+	public int getChangeCount()
+	{
+		return changes.size();
+	}
+	
+	/**
+	 * Gets the content of the document when the recording was started.
+	 * 
+	 * @return the content of the document when the recording was started.
+	 */
+	public String getInitialText()
+	{
+		return initialText;
+	}
+	
+	/**
+	 * Replays the recording with the given speed factor.
+	 * <p>
+	 * The changes are applied on the event dispatch thread, this method must
+	 * not be called on it. It returns after the build of the last change has
+	 * completed.
+	 * 
+	 * @param pSpeed the speed factor, {@code 0} for no delays.
+	 * @return the latency of every change in nanoseconds, in the order of the
+	 *         changes.
+	 * @throws Exception if the replay failed.
+	 */
+	public long[] replay(double pSpeed) throws Exception
+	{
+		Pipeline pipeline = new Pipeline();
+		
+		long[] generation = new long[1];
+		
+		SwingUtilities.invokeAndWait(() -> generation[0] = pipeline.initialize(initialText));
+		
+		pipeline.awaitCompletion(generation[0]);
+		
+		long[] dues = new long[changes.size()];
+		long[] generations = new long[changes.size()];
+		long start = System.nanoTime();
+		
+		for (int index = 0; index < changes.size(); index++)
+		{
+			Change change = changes.get(index);
+			
+			long due;
+			
+			if (pSpeed > 0)
+			{
+				due = start + (long)(change.timestamp / pSpeed);
+				
+				long remaining;
+				
+				while ((remaining = due - System.nanoTime()) > 0)
+				{
+					LockSupport.parkNanos(remaining);
+				}
+			}
+			else
+			{
+				due = System.nanoTime();
+			}
+			
+			SwingUtilities.invokeAndWait(() -> generation[0] = pipeline.apply(change));
+			
+			dues[index] = due;
+			generations[index] = generation[0];
+		}
+		
+		long[] latencies = new long[changes.size()];
+		
+		if (latencies.length > 0)
+		{
+			pipeline.awaitCompletion(generations[generations.length - 1]);
+			
+			for (int index = 0; index < latencies.length; index++)
+			{
+				latencies[index] = pipeline.getCompletionTime(generations[index]) - dues[index];
+			}
+		}
+		
+		return latencies;
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * A recorded change of the document.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class Change
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The length of the removed text. */
+		private int length = 0;
+		
+		/** The offset of the change. */
+		private int offset = 0;
+		
+		/** The inserted text. */
+		private String text = null;
+		
+		/** The time of the change since the start, in nanoseconds. */
+		private long timestamp = 0;
+		
+		/** The type, {@link EditRecorder#INSERT} or {@link EditRecorder#REMOVE}. */
+		private int type = 0;
+		
+	}	// Change
+	
+	/**
+	 * The {@link Pipeline} updates the layout on every change of the document,
+	 * the same as the {@link MainFrame} does, and paints it once it has been
+	 * swapped in.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class Pipeline implements DocumentListener
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The generations of the completed builds, in ascending order. */
+		private List<Long> completedGenerations = new ArrayList<>();
+		
+		/**
+		 * The times the builds have completed, in nanoseconds, in the same
+		 * order as {@link #completedGenerations}.
+		 */
+		private List<Long> completionTimes = new ArrayList<>();
+		
+		/** The {@link Document} to which the changes are applied. */
+		private Document document = null;
+		
+		/** The generation of the last started build. */
+		private long generation = 0;
+		
+		/** The image into which the panel is painted. */
+		private BufferedImage image = null;
+		
+		/** The {@link BufferedLayoutBuilder} which builds the panels. */
+		private BufferedLayoutBuilder layoutBuilder = null;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void changedUpdate(DocumentEvent pEvent)
+		{
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void insertUpdate(DocumentEvent pEvent)
+		{
+			updateLayout();
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void removeUpdate(DocumentEvent pEvent)
+		{
+			updateLayout();
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Applies the given {@link Change} to the document, which starts a
+		 * build.
+		 * 
+		 * @param pChange the {@link Change} to apply.
+		 * @return the generation of the started build.
+		 * @throws IllegalStateException if the {@link Change} does not fit
+		 *             the document.
+		 */
+		public long apply(Change pChange)
+		{
+			try
+			{
+				if (pChange.type == EditRecorder.INSERT)
+				{
+					document.insertString(pChange.offset, pChange.text, null);
+				}
+				else
+				{
+					document.remove(pChange.offset, pChange.length);
+				}
+			}
+			catch (BadLocationException e)
+			{
+				throw new IllegalStateException("The recorded change does not fit the document.", e);
+			}
+			
+			return generation;
+		}
+			
+		/**
+		 * Waits until the build with the given generation, or a later one, has
+		 * completed.
+		 * 
+		 * @param pGeneration the generation of the build.
+		 * @throws InterruptedException if the waiting was interrupted.
+		 */
+		public synchronized void awaitCompletion(long pGeneration) throws InterruptedException
+		{
+			while (completedGenerations.isEmpty() || completedGenerations.get(completedGenerations.size() - 1).longValue() < pGeneration)
+			{
+				wait();
+			}
+		}
+		
+		/**
+		 * Gets the time the first build with the given generation, or a later
+		 * one, has completed.
+		 * 
+		 * @param pGeneration the generation of the build.
+		 * @return the time the build has completed, in nanoseconds.
+		 */
+		public synchronized long getCompletionTime(long pGeneration)
+		{
+			for (int index = 0; index < completedGenerations.size(); index++)
+			{
+				if (completedGenerations.get(index).longValue() >= pGeneration)
+				{
+					return completionTimes.get(index).longValue();
+				}
+			}
+			
+			throw new IllegalStateException("The build " + pGeneration + " has not completed.");
+		}
+		
+		/**
+		 * Creates the panels and starts building the initial layout.
+		 * 
+		 * @param pText the initial content of the document.
+		 * @return the generation of the started build.
+		 */
+		public long initialize(String pText)
+		{
+			layoutBuilder = new BufferedLayoutBuilder(createPanel(), createPanel());
+			layoutBuilder.setCache(new LayoutCache());
+			layoutBuilder.setBuildCompletedListener(this::paint);
+			// The same as in the MainFrame, an incomplete script while typing
+			// is expected and only displayed.
+			layoutBuilder.setBuildFailedListener(pException -> recordCompletion());
+			
+			image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+			
+			document = new PlainDocument();
+			
+			try
+			{
+				document.insertString(0, pText, null);
+			}
+			catch (BadLocationException e)
+			{
+				throw new IllegalStateException(e);
+			}
+			
+			document.addDocumentListener(this);
+			
+			updateLayout();
+			
+			return generation;
+		}
+		
+		/**
+		 * Creates a new panel.
+		 * 
+		 * @return the new panel.
+		 */
+		private AnchorShowingPanel createPanel()
+		{
+			AnchorShowingPanel panel = new AnchorShowingPanel();
+			panel.setLayout(new UIFormLayout());
+			panel.setSize(800, 600);
+			
+			return panel;
+		}
+		
+		/**
+		 * Paints the given panel, which has been swapped in, and records the
+		 * completion of the build.
+		 * 
+		 * @param pPanel the displayed panel.
+		 */
+		private void paint(AnchorShowingPanel pPanel)
+		{
+			Container container = (Container)pPanel.getResource();
+			container.validate();
+			
+			Graphics graphics = image.getGraphics();
+			
+			try
+			{
+				container.paint(graphics);
+			}
+			finally
+			{
+				graphics.dispose();
+			}
+			
+			recordCompletion();
+		}
+		
+		/**
+		 * Records that the last build has completed.
+		 */
+		private synchronized void recordCompletion()
+		{
+			completedGenerations.add(Long.valueOf(layoutBuilder.getCompletedGeneration()));
+			completionTimes.add(Long.valueOf(System.nanoTime()));
+			
+			notifyAll();
+		}
+		
+		/**
+		 * Starts a build according to the current content of the document.
+		 */
+		private void updateLayout()
+		{
+			try
+			{
+				generation = layoutBuilder.build(document.getText(0, document.getLength()));
+			}
+			catch (BadLocationException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		}
+		
+	}	// Pipeline
+	
+}	// EditReplayer
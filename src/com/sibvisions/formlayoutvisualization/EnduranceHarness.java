@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import javax.management.ObjectName;
+import javax.rad.genui.UIFactoryManager;
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.IContainer;
+
+import com.sibvisions.rad.ui.swing.impl.SwingFactory;
+import com.sibvisions.util.type.FileUtil;
+import com.sibvisions.util.type.ResourceUtil;
+
+/**
+ * The {@link EnduranceHarness} repeatedly builds the same layout, exactly like
+ * the {@link MainFrame} does on every change of the code, and checks that the
+ * retained memory does not grow.
+ * <p>
+ * It runs headless and accepts the following arguments, all of them optional:
+ * <ol>
+ * <li>the number of updates, defaults to {@value #DEFAULT_UPDATES}.</li>
+ * <li>the path to the Lua script, defaults to the default script if
+ * empty.</li>
+ * <li>the allowed growth of the retained heap in MB, defaults to
+ * {@value #DEFAULT_ALLOWED_GROWTH_MB}.</li>
+ * </ol>
+ * The heap is sampled after a garbage collection in regular intervals together
+ * with the count of live components and anchors. If the retained heap grows
+ * beyond the allowed bound, or the counts change, a class histogram is dumped
+ * and the process exits with {@code 1}.
+ * 
+ * @author Robert Zenz
+ */
+public final class EnduranceHarness
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default allowed growth of the retained heap in MB. */
+	private static final int DEFAULT_ALLOWED_GROWTH_MB = 16;
+	
+	/** The default number of updates. */
+	private static final int DEFAULT_UPDATES = 100000;
+	
+	/** The number of lines of the class histogram which are printed. */
+	private static final int HISTOGRAM_LINES = 40;
+	
+	/** The number of samples which are taken over the whole run. */
+	private static final int SAMPLES = 50;
+	
+	/** The number of updates which are done before the baseline is taken. */
+	private static final int WARMUP_UPDATES = 500;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Invisible constructor, because the {@link EnduranceHarness} is a utility
+	 * class.
+	 */
+	private EnduranceHarness()
+	{
+	}
+	
+	/**
+	 * The main method.
+	 * 
+	 * @param pArgs the arguments.
+	 * @throws Exception if the harness could not be run.
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		
+		int updates = DEFAULT_UPDATES;
+		String script = null;
+		long allowedGrowth = DEFAULT_ALLOWED_GROWTH_MB * 1024L * 1024L;
+		
+		if (pArgs.length >= 1)
+		{
+			updates = Integer.parseInt(pArgs[0]);
+		}
+		
+		if (pArgs.length >= 2 && pArgs[1].length() > 0)
+		{
+			script = new String(Files.readAllBytes(Paths.get(pArgs[1])), StandardCharsets.UTF_8);
+		}
+		else
+		{
+			script = new String(FileUtil.getContent(ResourceUtil.getResourceAsStream("/com/sibvisions/formlayoutvisualization/default.lua")), StandardCharsets.UTF_8);
+		}
+		
+		if (pArgs.length >= 3)
+		{
+			allowedGrowth = Long.parseLong(pArgs[2]) * 1024L * 1024L;
+		}
+		
+		UIFactoryManager.getFactoryInstance(SwingFactory.class);
+		
+		AnchorShowingPanel panel = new AnchorShowingPanel();
+		panel.setLayout(new UIFormLayout());
+		panel.setSize(800, 600);
+		
+		LayoutBuilder builder = new LayoutBuilder(panel);
+		
+		for (int update = 0; update < Math.min(WARMUP_UPDATES, updates); update++)
+		{
+			builder.build(script);
+		}
+		
+		long baselineHeap = getRetainedHeap();
+		int baselineComponents = countComponents(panel);
+		int baselineAnchors = countAnchors(builder);
+		
+		System.out.println(String.format("Baseline after %d updates: heap=%d KB, components=%d, anchors=%d",
+				Integer.valueOf(Math.min(WARMUP_UPDATES, updates)),
+				Long.valueOf(baselineHeap / 1024),
+				Integer.valueOf(baselineComponents),
+				Integer.valueOf(baselineAnchors)));
+		
+		int sampleInterval = Math.max(1, updates / SAMPLES);
+		long start = System.nanoTime();
+		
+		for (int update = WARMUP_UPDATES; update < updates; update++)
+		{
+			builder.build(script);
+			
+			if ((update - WARMUP_UPDATES + 1) % sampleInterval == 0 || update == updates - 1)
+			{
+				long heap = getRetainedHeap();
+				int components = countComponents(panel);
+				int anchors = countAnchors(builder);
+				
+				System.out.println(String.format("Update %d: heap=%d KB (%+d KB), components=%d, anchors=%d, %.3f ms/update",
+						Integer.valueOf(update + 1),
+						Long.valueOf(heap / 1024),
+						Long.valueOf((heap - baselineHeap) / 1024),
+						Integer.valueOf(components),
+						Integer.valueOf(anchors),
+						Double.valueOf((System.nanoTime() - start) / 1000000d / (update - WARMUP_UPDATES + 1))));
+				
+				if (heap - baselineHeap > allowedGrowth
+						|| components != baselineComponents
+						|| anchors != baselineAnchors)
+				{
+					System.out.println("FAILED: Retained memory or live objects grew beyond the bound.");
+					System.out.println(getClassHistogram());
+					
+					System.exit(1);
+				}
+			}
+		}
+		
+		System.out.println("PASSED");
+		
+		System.exit(0);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Counts the anchors of the last built layout.
+	 * 
+	 * @param pBuilder the {@link LayoutBuilder}.
+	 * @return the count of anchors.
+	 */
+	private static int countAnchors(LayoutBuilder pBuilder)
+	{
+		return pBuilder.getLayout().getHorizontalAnchors().length + pBuilder.getLayout().getVerticalAnchors().length;
+	}
+	
+	/**
+	 * Counts the given {@link IComponent} and all its children.
+	 * 
+	 * @param pComponent the {@link IComponent} to count.
+	 * @return the count of components.
+	 */
+	private static int countComponents(IComponent pComponent)
+	{
+		int count = 1;
+		
+		if (pComponent instanceof IContainer)
+		{
+			IContainer container = (IContainer)pComponent;
+			
+			for (int index = 0; index < container.getComponentCount(); index++)
+			{
+				count = count + countComponents(container.getComponent(index));
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Gets the class histogram of the heap, limited to the first
+	 * {@value #HISTOGRAM_LINES} lines.
+	 * 
+	 * @return the class histogram.
+	 */
+	private static String getClassHistogram()
+	{
+		try
+		{
+			String histogram = (String)ManagementFactory.getPlatformMBeanServer().invoke(
+					new ObjectName("com.sun.management:type=DiagnosticCommand"),
+					"gcClassHistogram",
+					new Object[] { new String[0] },
+					new String[] { String[].class.getName() });
+			
+			String[] lines = histogram.split("\\r?\\n");
+			StringBuilder limitedHistogram = new StringBuilder();
+			
+			for (int index = 0; index < Math.min(HISTOGRAM_LINES, lines.length); index++)
+			{
+				limitedHistogram.append(lines[index]).append(System.lineSeparator());
+			}
+			
+			return limitedHistogram.toString();
+		}
+		catch (Exception e)
+		{
+			return "Class histogram is not available: " + e.getMessage();
+		}
+	}
+	
+	/**
+	 * Gets the used heap after a garbage collection.
+	 * 
+	 * @return the used heap in bytes.
+	 */
+	private static long getRetainedHeap()
+	{
+		// Multiple collections, so that objects with finalizers and soft
+		// references are really gone.
+		for (int index = 0; index < 3; index++)
+		{
+			System.gc();
+			System.runFinalization();
+		}
+		
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+	
+}	// EnduranceHarness
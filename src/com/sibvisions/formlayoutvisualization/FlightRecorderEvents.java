@@ -0,0 +1,486 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import javax.rad.genui.layout.UIFormLayout;
+
+/**
+ * The {@link FlightRecorderEvents} contains the Java Flight Recorder events of
+ * the visualization.
+ * <p>
+ * All events carry the count of components and anchors and the hash of the
+ * script of the {@link AnchorShowingPanel}, so that a recording can be sliced
+ * by the complexity of the layout. The fields are only filled if the event is
+ * recorded, so the events are cheap while no recording is running:
+ * 
+ * <pre>
+ * ScriptExecutionEvent event = FlightRecorderEvents.createScriptExecutionEvent();
+ * event.begin();
+ * 
+ * // The work.
+ * 
+ * FlightRecorderEvents.commit(event, panel);
+ * </pre>
+ * 
+ * The events are only declared here, the actual events are implemented by the
+ * {@link JdkFlightRecorderEvents}. That class is only loaded if the runtime
+ * provides the {@code jdk.jfr} API, otherwise all events are discarded and
+ * nothing is allocated for them. So the visualization still compiles and runs
+ * on a Java 8 runtime without the Flight Recorder.
+ * 
+ * @author Robert Zenz
+ */
+public final class FlightRecorderEvents
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The name of the class which implements the events. */
+	private static final String IMPLEMENTATION_CLASS_NAME = FlightRecorderEvents.class.getPackage().getName() + ".JdkFlightRecorderEvents";
+	
+	/** The name of the base class of the events of the Flight Recorder. */
+	private static final String JFR_EVENT_CLASS_NAME = "jdk.jfr.Event";
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The {@link EventFactory} which creates the events. */
+	private static final EventFactory FACTORY = createFactory();
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Invisible constructor, because the {@link FlightRecorderEvents} is a
+	 * utility class.
+	 */
+	private FlightRecorderEvents()
+	{
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Ends the given event and commits it with the complexity of the given
+	 * {@link AnchorShowingPanel}, if it is recorded.
+	 * 
+	 * @param pEvent the event which has been begun.
+	 * @param pPanel the {@link AnchorShowingPanel}.
+	 */
+	public static void commit(LayoutComplexityEvent pEvent, AnchorShowingPanel pPanel)
+	{
+		pEvent.end();
+		
+		if (pEvent.shouldCommit())
+		{
+			int anchorCount = 0;
+			
+			UIFormLayout layout = pPanel.getLayout();
+			
+			if (layout != null)
+			{
+				anchorCount = layout.getHorizontalAnchors().length + layout.getVerticalAnchors().length;
+			}
+			
+			pEvent.commit(anchorCount, pPanel.getRealComponents().size(), pPanel.getScriptHash());
+		}
+	}
+	
+	/**
+	 * Creates a new {@link AnchorHitTestEvent}.
+	 * 
+	 * @return the new {@link AnchorHitTestEvent}.
+	 */
+	public static AnchorHitTestEvent createAnchorHitTestEvent()
+	{
+		return FACTORY.createAnchorHitTestEvent();
+	}
+	
+	/**
+	 * Creates a new {@link AnchorOverlayRebuildEvent}.
+	 * 
+	 * @return the new {@link AnchorOverlayRebuildEvent}.
+	 */
+	public static AnchorOverlayRebuildEvent createAnchorOverlayRebuildEvent()
+	{
+		return FACTORY.createAnchorOverlayRebuildEvent();
+	}
+	
+	/**
+	 * Creates a new {@link LayoutSolveEvent}.
+	 * 
+	 * @return the new {@link LayoutSolveEvent}.
+	 */
+	public static LayoutSolveEvent createLayoutSolveEvent()
+	{
+		return FACTORY.createLayoutSolveEvent();
+	}
+	
+	/**
+	 * Creates a new {@link ScriptExecutionEvent}.
+	 * 
+	 * @return the new {@link ScriptExecutionEvent}.
+	 */
+	public static ScriptExecutionEvent createScriptExecutionEvent()
+	{
+		return FACTORY.createScriptExecutionEvent();
+	}
+	
+	/**
+	 * Creates the {@link EventFactory}, the {@link JdkFlightRecorderEvents} if
+	 * the {@code jdk.jfr} API is available.
+	 * 
+	 * @return the {@link EventFactory}.
+	 */
+	private static EventFactory createFactory()
+	{
+		try
+		{
+			ClassLoader classLoader = FlightRecorderEvents.class.getClassLoader();
+			
+			// The implementation can not even be linked without the API.
+			Class.forName(JFR_EVENT_CLASS_NAME, false, classLoader);
+			
+			return (EventFactory)Class.forName(IMPLEMENTATION_CLASS_NAME, true, classLoader).getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | LinkageError e)
+		{
+			// Either the API is missing or the implementation has not been
+			// compiled, the events are discarded.
+			return DiscardedEvent.INSTANCE;
+		}
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link LayoutComplexityEvent} is the base of all events, it carries
+	 * the complexity of the layout.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public static interface LayoutComplexityEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Method definitions
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Begins the event, the duration is measured from here.
+		 */
+		public void begin();
+		
+		/**
+		 * Commits the event with the complexity of the layout.
+		 * 
+		 * @param pAnchorCount the count of anchors which are used by the
+		 *            constraints.
+		 * @param pComponentCount the count of components, without the
+		 *            placeholders.
+		 * @param pScriptHash the hash of the script which built the layout,
+		 *            {@code 0} if it has not been built from a script.
+		 */
+		public void commit(int pAnchorCount, int pComponentCount, int pScriptHash);
+		
+		/**
+		 * Ends the event, the duration is measured until here.
+		 */
+		public void end();
+		
+		/**
+		 * Gets if the event is recorded and should be committed.
+		 * 
+		 * @return {@code true} if the event should be committed.
+		 */
+		public boolean shouldCommit();
+		
+	}	// LayoutComplexityEvent
+	
+	/**
+	 * The {@link AnchorHitTestEvent} is recorded when the anchor under the
+	 * mouse is searched.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public static interface AnchorHitTestEvent extends LayoutComplexityEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Method definitions
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Sets if an anchor has been found.
+		 * 
+		 * @param pHit {@code true} if an anchor has been found.
+		 */
+		public void setHit(boolean pHit);
+		
+	}	// AnchorHitTestEvent
+	
+	/**
+	 * The {@link AnchorOverlayRebuildEvent} is recorded when the placeholders
+	 * which display the anchors are rebuilt, including the layout of the
+	 * container.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public static interface AnchorOverlayRebuildEvent extends LayoutComplexityEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Method definitions
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Sets the count of placeholders which have been created.
+		 * 
+		 * @param pPlaceholderCount the count of placeholders.
+		 */
+		public void setPlaceholderCount(int pPlaceholderCount);
+		
+	}	// AnchorOverlayRebuildEvent
+	
+	/**
+	 * The {@link EventFactory} creates the events.
+	 * 
+	 * @author Robert Zenz
+	 */
+	static interface EventFactory
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Method definitions
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new {@link AnchorHitTestEvent}.
+		 * 
+		 * @return the new {@link AnchorHitTestEvent}.
+		 */
+		public AnchorHitTestEvent createAnchorHitTestEvent();
+		
+		/**
+		 * Creates a new {@link AnchorOverlayRebuildEvent}.
+		 * 
+		 * @return the new {@link AnchorOverlayRebuildEvent}.
+		 */
+		public AnchorOverlayRebuildEvent createAnchorOverlayRebuildEvent();
+		
+		/**
+		 * Creates a new {@link LayoutSolveEvent}.
+		 * 
+		 * @return the new {@link LayoutSolveEvent}.
+		 */
+		public LayoutSolveEvent createLayoutSolveEvent();
+		
+		/**
+		 * Creates a new {@link ScriptExecutionEvent}.
+		 * 
+		 * @return the new {@link ScriptExecutionEvent}.
+		 */
+		public ScriptExecutionEvent createScriptExecutionEvent();
+		
+	}	// EventFactory
+	
+	/**
+	 * The {@link LayoutSolveEvent} is recorded when the {@link UIFormLayout}
+	 * is invalidated and laid out.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public static interface LayoutSolveEvent extends LayoutComplexityEvent
+	{
+		// Only the complexity of the layout.
+	}	// LayoutSolveEvent
+	
+	/**
+	 * The {@link ScriptExecutionEvent} is recorded when a Lua script is
+	 * compiled and executed to build the layout. It is not recorded if the
+	 * result is taken from the {@link LayoutCache} instead.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public static interface ScriptExecutionEvent extends LayoutComplexityEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Method definitions
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Sets if the script failed.
+		 * 
+		 * @param pFailed {@code true} if the script failed.
+		 */
+		public void setFailed(boolean pFailed);
+		
+		/**
+		 * Sets the length of the script.
+		 * 
+		 * @param pScriptLength the length of the script.
+		 */
+		public void setScriptLength(int pScriptLength);
+		
+	}	// ScriptExecutionEvent
+	
+	/**
+	 * The {@link DiscardedEvent} is used for all events if the Flight Recorder
+	 * is not available, it is never committed. It is stateless, so a single
+	 * instance is used for all events.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class DiscardedEvent implements EventFactory, AnchorHitTestEvent, AnchorOverlayRebuildEvent, LayoutSolveEvent, ScriptExecutionEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Constants
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The single instance. */
+		private static final DiscardedEvent INSTANCE = new DiscardedEvent();
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link DiscardedEvent}.
+		 */
+		private DiscardedEvent()
+		{
+			super();
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void begin()
+		{
+			// Nothing is measured.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void commit(int pAnchorCount, int pComponentCount, int pScriptHash)
+		{
+			// Never committed.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public AnchorHitTestEvent createAnchorHitTestEvent()
+		{
+			return this;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public AnchorOverlayRebuildEvent createAnchorOverlayRebuildEvent()
+		{
+			return this;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public LayoutSolveEvent createLayoutSolveEvent()
+		{
+			return this;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ScriptExecutionEvent createScriptExecutionEvent()
+		{
+			return this;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void end()
+		{
+			// Nothing is measured.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setFailed(boolean pFailed)
+		{
+			// Not recorded.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setHit(boolean pHit)
+		{
+			// Not recorded.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setPlaceholderCount(int pPlaceholderCount)
+		{
+			// Not recorded.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setScriptLength(int pScriptLength)
+		{
+			// Not recorded.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean shouldCommit()
+		{
+			return false;
+		}
+		
+	}	// DiscardedEvent
+	
+}	// FlightRecorderEvents
@@ -0,0 +1,778 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+
+/**
+ * The {@link FormViewport} is a {@link JComponent} which displays an
+ * {@link AnchorShowingPanel} zoomed and panned.
+ * <p>
+ * The panel is laid out as large as the viewport, or larger if its minimum
+ * size does not fit, and is painted with the zoom and the pan applied. The
+ * region of the panel which is visible is passed on with
+ * {@link AnchorShowingPanel#setVisibleRegion(Rectangle)}, so that the panel
+ * only creates the placeholders of the anchors which can be seen.
+ * <p>
+ * Swing does not know about the transformation. The mouse events are caught
+ * on top of the panel and dispatched to it with transformed coordinates, and
+ * the repaints of the panel are redirected to the viewport by the
+ * {@link ViewportRepaintManager}.
+ * <p>
+ * The mouse wheel pans vertically, horizontally with shift and zooms at the
+ * mouse position with control. Dragging with the middle mouse button pans.
+ * 
+ * @author Robert Zenz
+ */
+public class FormViewport extends JComponent
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The maximum zoom. */
+	public static final double MAXIMUM_ZOOM = 8;
+	
+	/** The minimum zoom. */
+	public static final double MINIMUM_ZOOM = 0.125;
+	
+	/** The distance which is panned per unit of the mouse wheel, in pixels. */
+	private static final int WHEEL_PAN_DISTANCE = 32;
+	
+	/** The factor by which the zoom changes per unit of the mouse wheel. */
+	private static final double WHEEL_ZOOM_FACTOR = 1.25;
+	
+	/** The serial version UID. */
+	private static final long serialVersionUID = 1L;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * The transparent {@link JComponent} on top of the panel which catches
+	 * all mouse events.
+	 */
+	private JComponent eventCatcher = null;
+	
+	/**
+	 * The x coordinate of the panel which is displayed in the top left corner.
+	 */
+	private double originX = 0;
+	
+	/**
+	 * The y coordinate of the panel which is displayed in the top left corner.
+	 */
+	private double originY = 0;
+	
+	/** The displayed {@link AnchorShowingPanel}, {@code null} if none. */
+	private AnchorShowingPanel panel = null;
+	
+	/** The zoom, {@code 1} displays the panel in its actual size. */
+	private double zoom = 1;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link FormViewport}.
+	 */
+	public FormViewport()
+	{
+		super();
+		
+		ViewportRepaintManager.install(this);
+		
+		setBackground(Color.WHITE);
+		setOpaque(true);
+		
+		EventForwardingListener listener = new EventForwardingListener();
+		
+		eventCatcher = new JPanel();
+		eventCatcher.setOpaque(false);
+		eventCatcher.addMouseListener(listener);
+		eventCatcher.addMouseMotionListener(listener);
+		eventCatcher.addMouseWheelListener(listener);
+		
+		add(eventCatcher);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void doLayout()
+	{
+		eventCatcher.setBounds(0, 0, getWidth(), getHeight());
+		
+		if (panel != null)
+		{
+			Component component = (Component)panel.getResource();
+			Dimension minimumSize = component.getMinimumSize();
+			
+			component.setBounds(
+					0,
+					0,
+					Math.max(getWidth(), minimumSize.width),
+					Math.max(getHeight(), minimumSize.height));
+		}
+		
+		updateVisibleRegion();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Dimension getMinimumSize()
+	{
+		// The panel is panned if it is larger.
+		return new Dimension(0, 0);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isOptimizedDrawingEnabled()
+	{
+		// The event catcher overlaps the panel.
+		return false;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void paintChildren(Graphics pGraphics)
+	{
+		if (panel != null)
+		{
+			Graphics2D graphics = (Graphics2D)pGraphics.create();
+			
+			try
+			{
+				graphics.scale(zoom, zoom);
+				graphics.translate(-originX, -originY);
+				
+				// The RepaintManager would otherwise paint the panel into its
+				// own buffers, without the transformation.
+				((JComponent)panel.getResource()).printAll(graphics);
+			}
+			finally
+			{
+				graphics.dispose();
+			}
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void paintComponent(Graphics pGraphics)
+	{
+		Rectangle clip = pGraphics.getClipBounds();
+		
+		if (clip == null)
+		{
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		
+		pGraphics.setColor(getBackground());
+		pGraphics.fillRect(clip.x, clip.y, clip.width, clip.height);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the displayed {@link AnchorShowingPanel}.
+	 * 
+	 * @return the displayed {@link AnchorShowingPanel}, {@code null} if none.
+	 */
+	public AnchorShowingPanel getPanel()
+	{
+		return panel;
+	}
+	
+	/**
+	 * Sets the {@link AnchorShowingPanel} to display, the zoom and the pan
+	 * are kept.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel} to display, {@code null}
+	 *            for none.
+	 */
+	public void setPanel(AnchorShowingPanel pPanel)
+	{
+		if (pPanel == panel)
+		{
+			return;
+		}
+		
+		if (panel != null)
+		{
+			panel.removeNotify();
+			
+			remove((Component)panel.getResource());
+		}
+		
+		panel = pPanel;
+		
+		if (panel != null)
+		{
+			// Behind the event catcher.
+			add((Component)panel.getResource());
+			
+			panel.addNotify();
+		}
+		
+		revalidate();
+		repaint();
+	}
+	
+	/**
+	 * Gets the region of the panel which is visible.
+	 * 
+	 * @return the region of the panel which is visible, {@code null} if there
+	 *         is no panel.
+	 */
+	public Rectangle getVisibleRegion()
+	{
+		if (panel == null)
+		{
+			return null;
+		}
+		
+		Component component = (Component)panel.getResource();
+		
+		Rectangle region = new Rectangle(
+				(int)Math.floor(originX),
+				(int)Math.floor(originY),
+				(int)Math.ceil(getWidth() / zoom) + 1,
+				(int)Math.ceil(getHeight() / zoom) + 1);
+		
+		return region.intersection(new Rectangle(0, 0, component.getWidth(), component.getHeight()));
+	}
+	
+	/**
+	 * Gets the zoom.
+	 * 
+	 * @return the zoom, {@code 1} displays the panel in its actual size.
+	 */
+	public double getZoom()
+	{
+		return zoom;
+	}
+	
+	/**
+	 * Sets the zoom, keeping the center of the viewport in place.
+	 * 
+	 * @param pZoom the zoom, between {@value #MINIMUM_ZOOM} and
+	 *            {@value #MAXIMUM_ZOOM}.
+	 */
+	public void setZoom(double pZoom)
+	{
+		zoomAt(pZoom, getWidth() / 2, getHeight() / 2);
+	}
+	
+	/**
+	 * Pans the panel by the given distance.
+	 * 
+	 * @param pDeltaX the horizontal distance, in pixels of the viewport.
+	 * @param pDeltaY the vertical distance, in pixels of the viewport.
+	 */
+	public void pan(int pDeltaX, int pDeltaY)
+	{
+		originX = originX + pDeltaX / zoom;
+		originY = originY + pDeltaY / zoom;
+		
+		updateView();
+	}
+	
+	/**
+	 * Resets the zoom and the pan, so that the panel is displayed in its
+	 * actual size from the top left corner.
+	 */
+	public void resetView()
+	{
+		zoom = 1;
+		originX = 0;
+		originY = 0;
+		
+		updateView();
+	}
+	
+	/**
+	 * Converts the given point of the viewport to a point of the panel.
+	 * 
+	 * @param pX the x coordinate in the viewport.
+	 * @param pY the y coordinate in the viewport.
+	 * @return the point in the panel.
+	 */
+	public Point toPanel(int pX, int pY)
+	{
+		return new Point(
+				(int)Math.floor(originX + pX / zoom),
+				(int)Math.floor(originY + pY / zoom));
+	}
+	
+	/**
+	 * Converts the given region of the panel to a region of the viewport.
+	 * 
+	 * @param pRegion the region in the panel.
+	 * @return the region in the viewport.
+	 */
+	public Rectangle toViewport(Rectangle pRegion)
+	{
+		int left = (int)Math.floor((pRegion.x - originX) * zoom);
+		int top = (int)Math.floor((pRegion.y - originY) * zoom);
+		int right = (int)Math.ceil((pRegion.x + pRegion.width - originX) * zoom);
+		int bottom = (int)Math.ceil((pRegion.y + pRegion.height - originY) * zoom);
+		
+		return new Rectangle(left, top, right - left, bottom - top);
+	}
+	
+	/**
+	 * Sets the zoom, keeping the given point of the viewport in place.
+	 * 
+	 * @param pZoom the zoom, between {@value #MINIMUM_ZOOM} and
+	 *            {@value #MAXIMUM_ZOOM}.
+	 * @param pX the x coordinate in the viewport.
+	 * @param pY the y coordinate in the viewport.
+	 */
+	public void zoomAt(double pZoom, int pX, int pY)
+	{
+		double newZoom = Math.max(MINIMUM_ZOOM, Math.min(MAXIMUM_ZOOM, pZoom));
+		
+		originX = originX + pX / zoom - pX / newZoom;
+		originY = originY + pY / zoom - pY / newZoom;
+		zoom = newZoom;
+		
+		updateView();
+	}
+	
+	/**
+	 * Repaints the given region of the panel.
+	 * 
+	 * @param pRegion the region in the panel.
+	 */
+	private void repaintPanelRegion(Rectangle pRegion)
+	{
+		Rectangle region = toViewport(pRegion);
+		region.grow(1, 1);
+		
+		repaint(region);
+	}
+	
+	/**
+	 * Keeps the panel inside the viewport and repaints it after the zoom or
+	 * the pan has changed.
+	 */
+	private void updateView()
+	{
+		if (panel != null)
+		{
+			Component component = (Component)panel.getResource();
+			
+			originX = Math.max(0, Math.min(originX, component.getWidth() - getWidth() / zoom));
+			originY = Math.max(0, Math.min(originY, component.getHeight() - getHeight() / zoom));
+		}
+		else
+		{
+			originX = 0;
+			originY = 0;
+		}
+		
+		updateVisibleRegion();
+		
+		repaint();
+	}
+	
+	/**
+	 * Passes the zoom and the visible region on to the panel.
+	 */
+	private void updateVisibleRegion()
+	{
+		if (panel != null)
+		{
+			panel.setDisplayScale(zoom);
+			panel.setVisibleRegion(getVisibleRegion());
+		}
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link EventForwardingListener} is an implementation of
+	 * {@link MouseListener}, {@link MouseMotionListener} and
+	 * {@link MouseWheelListener} which pans and zooms, and dispatches all other
+	 * mouse events to the components of the panel.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private final class EventForwardingListener implements MouseListener, MouseMotionListener, MouseWheelListener
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * The {@link Component} which received the last event, {@code null}
+		 * if none.
+		 */
+		private Component hoveredComponent = null;
+		
+		/**
+		 * The last point of panning with the middle mouse button, {@code null}
+		 * if not panning.
+		 */
+		private Point panPoint = null;
+		
+		/**
+		 * The {@link Component} on which a mouse button has been pressed,
+		 * {@code null} if none.
+		 */
+		private Component pressedComponent = null;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseClicked(MouseEvent pEvent)
+		{
+			if (!SwingUtilities.isMiddleMouseButton(pEvent))
+			{
+				forward(pEvent);
+			}
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseDragged(MouseEvent pEvent)
+		{
+			if (panPoint != null)
+			{
+				pan(panPoint.x - pEvent.getX(), panPoint.y - pEvent.getY());
+				
+				panPoint = pEvent.getPoint();
+			}
+			else
+			{
+				forward(pEvent);
+			}
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseEntered(MouseEvent pEvent)
+		{
+			forward(pEvent);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseExited(MouseEvent pEvent)
+		{
+			setHoveredComponent(null, pEvent);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseMoved(MouseEvent pEvent)
+		{
+			forward(pEvent);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mousePressed(MouseEvent pEvent)
+		{
+			if (SwingUtilities.isMiddleMouseButton(pEvent))
+			{
+				panPoint = pEvent.getPoint();
+			}
+			else
+			{
+				forward(pEvent);
+				
+				pressedComponent = hoveredComponent;
+			}
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseReleased(MouseEvent pEvent)
+		{
+			if (SwingUtilities.isMiddleMouseButton(pEvent))
+			{
+				panPoint = null;
+			}
+			else
+			{
+				forward(pEvent);
+				
+				pressedComponent = null;
+			}
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent pEvent)
+		{
+			double rotation = pEvent.getPreciseWheelRotation();
+			
+			if (pEvent.isControlDown())
+			{
+				zoomAt(zoom * Math.pow(WHEEL_ZOOM_FACTOR, -rotation), pEvent.getX(), pEvent.getY());
+			}
+			else if (pEvent.isShiftDown())
+			{
+				pan((int)Math.round(rotation * WHEEL_PAN_DISTANCE), 0);
+			}
+			else
+			{
+				pan(0, (int)Math.round(rotation * WHEEL_PAN_DISTANCE));
+			}
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Dispatches a copy of the given {@link MouseEvent} with the given id
+		 * to the given {@link Component}, with the coordinates converted to
+		 * it.
+		 * 
+		 * @param pEvent the {@link MouseEvent} to copy.
+		 * @param pId the id of the copy.
+		 * @param pComponent the {@link Component} to dispatch to.
+		 */
+		private void dispatch(MouseEvent pEvent, int pId, Component pComponent)
+		{
+			Point point = SwingUtilities.convertPoint(
+					(Component)panel.getResource(),
+					toPanel(pEvent.getX(), pEvent.getY()),
+					pComponent);
+			
+			pComponent.dispatchEvent(new MouseEvent(
+					pComponent,
+					pId,
+					pEvent.getWhen(),
+					pEvent.getModifiersEx(),
+					point.x,
+					point.y,
+					pEvent.getXOnScreen(),
+					pEvent.getYOnScreen(),
+					pEvent.getClickCount(),
+					pEvent.isPopupTrigger(),
+					pEvent.getButton()));
+		}
+		
+		/**
+		 * Dispatches the given {@link MouseEvent} to the {@link Component} of
+		 * the panel at its location, like Swing would if the panel was not
+		 * transformed.
+		 * <p>
+		 * While a mouse button is pressed, the events are dispatched to the
+		 * {@link Component} on which it has been pressed.
+		 * 
+		 * @param pEvent the {@link MouseEvent} to dispatch.
+		 */
+		private void forward(MouseEvent pEvent)
+		{
+			if (panel == null)
+			{
+				return;
+			}
+			
+			Component component = pressedComponent;
+			
+			if (component == null)
+			{
+				Point point = toPanel(pEvent.getX(), pEvent.getY());
+				
+				component = SwingUtilities.getDeepestComponentAt((Component)panel.getResource(), point.x, point.y);
+				
+				// The event goes to the first component which listens to it,
+				// like the placeholders are skipped for the panel.
+				while (component != null
+						&& component != panel.getResource()
+						&& component.getMouseListeners().length == 0
+						&& component.getMouseMotionListeners().length == 0)
+				{
+					component = component.getParent();
+				}
+			}
+			
+			setHoveredComponent(component, pEvent);
+			
+			if (component != null && pEvent.getID() != MouseEvent.MOUSE_ENTERED)
+			{
+				dispatch(pEvent, pEvent.getID(), component);
+			}
+		}
+		
+		/**
+		 * Sets the hovered {@link Component}, dispatches the exit and enter
+		 * events if it changes.
+		 * 
+		 * @param pComponent the hovered {@link Component}, {@code null} if
+		 *            none.
+		 * @param pEvent the {@link MouseEvent} which caused the change.
+		 */
+		private void setHoveredComponent(Component pComponent, MouseEvent pEvent)
+		{
+			if (pComponent != hoveredComponent)
+			{
+				if (hoveredComponent != null && panel != null)
+				{
+					dispatch(pEvent, MouseEvent.MOUSE_EXITED, hoveredComponent);
+				}
+				
+				hoveredComponent = pComponent;
+				
+				if (hoveredComponent != null)
+				{
+					dispatch(pEvent, MouseEvent.MOUSE_ENTERED, hoveredComponent);
+				}
+			}
+		}
+		
+	}	// EventForwardingListener
+	
+	/**
+	 * The {@link ViewportRepaintManager} is a {@link RepaintManager} which
+	 * redirects the repaints of the components inside a {@link FormViewport}
+	 * to the transformed region of the viewport.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class ViewportRepaintManager extends RepaintManager
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link ViewportRepaintManager}.
+		 */
+		public ViewportRepaintManager()
+		{
+			super();
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Overwritten methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void addDirtyRegion(JComponent pComponent, int pX, int pY, int pWidth, int pHeight)
+		{
+			Component child = pComponent;
+			
+			for (Component parent = pComponent.getParent(); parent != null; parent = parent.getParent())
+			{
+				if (parent instanceof FormViewport)
+				{
+					FormViewport viewport = (FormViewport)parent;
+					
+					if (viewport.panel != null && viewport.panel.getResource() == child)
+					{
+						viewport.repaintPanelRegion(SwingUtilities.convertRectangle(
+								pComponent,
+								new Rectangle(pX, pY, pWidth, pHeight),
+								child));
+						
+						return;
+					}
+				}
+				
+				child = parent;
+			}
+			
+			super.addDirtyRegion(pComponent, pX, pY, pWidth, pHeight);
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Installs the {@link ViewportRepaintManager} as current
+		 * {@link RepaintManager}, if it is not already installed.
+		 * 
+		 * @param pComponent the {@link JComponent} for which the current
+		 *            {@link RepaintManager} is installed.
+		 */
+		public static void install(JComponent pComponent)
+		{
+			if (!(RepaintManager.currentManager(pComponent) instanceof ViewportRepaintManager))
+			{
+				RepaintManager.setCurrentManager(new ViewportRepaintManager());
+			}
+		}
+		
+	}	// ViewportRepaintManager
+	
+}	// FormViewport
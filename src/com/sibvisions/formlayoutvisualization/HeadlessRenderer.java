@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.rad.genui.UIFactoryManager;
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IContainer;
+
+import com.sibvisions.rad.lua.LuaException;
+import com.sibvisions.rad.ui.swing.impl.SwingFactory;
+import com.sibvisions.util.type.FileUtil;
+import com.sibvisions.util.type.ResourceUtil;
+
+/**
+ * The {@link HeadlessRenderer} builds layouts without a display, renders them
+ * including the anchor overlay into images and exports their solved geometry
+ * as {@link AnchorSnapshot}.
+ * <p>
+ * The {@link AnchorShowingPanel} itself works without a display, because all
+ * its components are lightweight. But a container which is not displayable is
+ * never validated, so Swing never lays out the placeholders of the anchors and
+ * the nested containers. {@link #layout(Component)} does that instead.
+ * <p>
+ * It runs headless and accepts the following arguments, all of them optional:
+ * <ol>
+ * <li>the path to a Lua script or to a directory with Lua scripts, defaults to
+ * the default script if empty.</li>
+ * <li>the directory to which the images and snapshots are written, defaults
+ * to the current directory.</li>
+ * <li>the width of the panel, defaults to {@value #DEFAULT_WIDTH}.</li>
+ * <li>the height of the panel, defaults to {@value #DEFAULT_HEIGHT}.</li>
+ * </ol>
+ * For every script a PNG image and a snapshot are written, named like the
+ * script. The anchors of all nested layouts are shown. If a script fails, the
+ * others are still exported and the process exits with {@code 1}.
+ * 
+ * @author Robert Zenz
+ */
+public final class HeadlessRenderer
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default height of the panel. */
+	public static final int DEFAULT_HEIGHT = 600;
+	
+	/** The default width of the panel. */
+	public static final int DEFAULT_WIDTH = 800;
+	
+	/** The extension of the written images. */
+	private static final String IMAGE_EXTENSION = ".png";
+	
+	/** The extension of the Lua scripts. */
+	private static final String SCRIPT_EXTENSION = ".lua";
+	
+	/** The extension of the written snapshots. */
+	private static final String SNAPSHOT_EXTENSION = ".snapshot";
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Invisible constructor, because the {@link HeadlessRenderer} is a utility
+	 * class.
+	 */
+	private HeadlessRenderer()
+	{
+	}
+	
+	/**
+	 * The main method.
+	 * 
+	 * @param pArgs the arguments.
+	 * @throws Exception if the renderer could not be run.
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		
+		Path outputDirectory = Paths.get(pArgs.length >= 2 && pArgs[1].length() > 0 ? pArgs[1] : ".");
+		int width = pArgs.length >= 3 ? Integer.parseInt(pArgs[2]) : DEFAULT_WIDTH;
+		int height = pArgs.length >= 4 ? Integer.parseInt(pArgs[3]) : DEFAULT_HEIGHT;
+		
+		UIFactoryManager.getFactoryInstance(SwingFactory.class);
+		
+		Files.createDirectories(outputDirectory);
+		
+		AnchorShowingPanel panel = new AnchorShowingPanel();
+		panel.setLayout(new UIFormLayout());
+		panel.setSize(width, height);
+		
+		LayoutBuilder builder = new LayoutBuilder(panel);
+		
+		boolean failed = false;
+		
+		if (pArgs.length >= 1 && pArgs[0].length() > 0)
+		{
+			for (Path scriptPath : getScripts(Paths.get(pArgs[0])))
+			{
+				String name = scriptPath.getFileName().toString();
+				
+				if (name.endsWith(SCRIPT_EXTENSION))
+				{
+					name = name.substring(0, name.length() - SCRIPT_EXTENSION.length());
+				}
+				
+				String script = new String(Files.readAllBytes(scriptPath), StandardCharsets.UTF_8);
+				
+				failed = !export(builder, name, script, outputDirectory) || failed;
+			}
+		}
+		else
+		{
+			String script = new String(FileUtil.getContent(ResourceUtil.getResourceAsStream("/com/sibvisions/formlayoutvisualization/default.lua")), StandardCharsets.UTF_8);
+			
+			failed = !export(builder, "default", script, outputDirectory);
+		}
+		
+		System.exit(failed ? 1 : 0);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Lays out the given {@link Component} and all its children, from the top
+	 * down, like validating it would do if it was displayable.
+	 * 
+	 * @param pComponent the {@link Component} to lay out.
+	 */
+	public static void layout(Component pComponent)
+	{
+		if (pComponent instanceof Container)
+		{
+			Container container = (Container)pComponent;
+			container.doLayout();
+			
+			for (Component child : container.getComponents())
+			{
+				layout(child);
+			}
+		}
+	}
+	
+	/**
+	 * Lays out the given {@link AnchorShowingPanel} and renders it, including
+	 * the anchor overlay, into an image with the size of the panel.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel} to render.
+	 * @return the rendered image.
+	 */
+	public static BufferedImage render(AnchorShowingPanel pPanel)
+	{
+		Component component = (Component)pPanel.getResource();
+		
+		layout(component);
+		
+		BufferedImage image = new BufferedImage(
+				Math.max(1, component.getWidth()),
+				Math.max(1, component.getHeight()),
+				BufferedImage.TYPE_INT_ARGB);
+		
+		Graphics2D graphics = image.createGraphics();
+		
+		try
+		{
+			component.printAll(graphics);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+		
+		return image;
+	}
+	
+	/**
+	 * Builds the given script and writes the image and the snapshot of it.
+	 * 
+	 * @param pBuilder the {@link LayoutBuilder} to use.
+	 * @param pName the name of the script, used for the written files.
+	 * @param pScript the Lua sourcecode.
+	 * @param pOutputDirectory the directory to write to.
+	 * @return {@code true} if the script has been exported, {@code false} if
+	 *         it failed.
+	 * @throws IOException if writing the files failed.
+	 */
+	private static boolean export(LayoutBuilder pBuilder, String pName, String pScript, Path pOutputDirectory) throws IOException
+	{
+		AnchorShowingPanel panel = pBuilder.getPanel();
+		
+		long start = System.nanoTime();
+		
+		try
+		{
+			pBuilder.build(pScript);
+		}
+		catch (LuaException e)
+		{
+			System.out.println(String.format("%s: FAILED: %s", pName, e.getMessage()));
+			
+			return false;
+		}
+		
+		long buildDuration = System.nanoTime() - start;
+		
+		// The nested layouts can only be expanded after they have been laid
+		// out, their placeholders are laid out while rendering.
+		layout((Component)panel.getResource());
+		
+		for (IContainer container : panel.getNestedContainers())
+		{
+			panel.setNestedContainerExpanded(container, true);
+		}
+		
+		start = System.nanoTime();
+		
+		BufferedImage image = render(panel);
+		
+		long renderDuration = System.nanoTime() - start;
+		
+		ImageIO.write(image, "png", pOutputDirectory.resolve(pName + IMAGE_EXTENSION).toFile());
+		AnchorSnapshot.write(panel, pOutputDirectory.resolve(pName + SNAPSHOT_EXTENSION));
+		
+		System.out.println(String.format("%s: %d components, %d anchors, %d nested layouts, build %.3f ms, render %.3f ms",
+				pName,
+				Integer.valueOf(panel.getRealComponents().size()),
+				Integer.valueOf(panel.getLayout().getHorizontalAnchors().length + panel.getLayout().getVerticalAnchors().length),
+				Integer.valueOf(panel.getNestedContainers().size()),
+				Double.valueOf(buildDuration / 1000000d),
+				Double.valueOf(renderDuration / 1000000d)));
+		
+		return true;
+	}
+	
+	/**
+	 * Gets the Lua scripts at the given path, either the path itself or all
+	 * scripts in it, if it is a directory.
+	 * 
+	 * @param pPath the path to a script or a directory.
+	 * @return the {@link List} of scripts, sorted by name.
+	 * @throws IOException if the directory could not be read.
+	 */
+	private static List<Path> getScripts(Path pPath) throws IOException
+	{
+		List<Path> scripts = new ArrayList<>();
+		
+		if (Files.isDirectory(pPath))
+		{
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(pPath, "*" + SCRIPT_EXTENSION))
+			{
+				for (Path script : stream)
+				{
+					scripts.add(script);
+				}
+			}
+			
+			scripts.sort(null);
+		}
+		else
+		{
+			scripts.add(pPath);
+		}
+		
+		return scripts;
+	}
+	
+}	// HeadlessRenderer
@@ -0,0 +1,583 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Rectangle;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.rad.genui.UIFactoryManager;
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.IFactory;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout;
+import com.sibvisions.rad.ui.swing.impl.SwingFactory;
+import com.sibvisions.util.type.FileUtil;
+import com.sibvisions.util.type.ResourceUtil;
+
+/**
+ * The {@link JVxVersionComparison} runs the same Lua scripts with two
+ * different JVx jars and compares the time they need and the layouts they
+ * produce.
+ * <p>
+ * Every JVx jar is loaded in its own {@link ClassLoader}, together with this
+ * application and all other libraries of the classpath, but without the JVx
+ * jar of the classpath. So both versions run side by side in the same JVM,
+ * and each is warmed up before it is measured. Only LuaJ is shared, because
+ * it defines the compiled scripts in a {@link ClassLoader} below the system
+ * {@link ClassLoader}, and it does not depend on JVx.
+ * <p>
+ * For every script the time of building it, including the execution of the
+ * script, and the time of laying out the built panel again are measured. The
+ * positions of all anchors and the bounds of all components, including the
+ * nested ones, are compared.
+ * <p>
+ * It runs headless and accepts the following arguments:
+ * <ol>
+ * <li>the path to the first JVx jar, the base.</li>
+ * <li>the path to the second JVx jar, which is compared against the
+ * base.</li>
+ * <li>the path to a Lua script or to a directory with Lua scripts, optional,
+ * defaults to the default script if empty.</li>
+ * <li>the number of measured iterations, optional, defaults to
+ * {@value #DEFAULT_ITERATIONS}.</li>
+ * </ol>
+ * If any script fails with either version or any anchor position or bound
+ * differs, the process exits with {@code 1}.
+ * 
+ * @author Robert Zenz
+ */
+public final class JVxVersionComparison
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default number of measured iterations. */
+	private static final int DEFAULT_ITERATIONS = 10;
+	
+	/** The maximum number of differences which are reported per script. */
+	private static final int MAXIMUM_REPORTED_DIFFERENCES = 20;
+	
+	/** The extension of the Lua scripts. */
+	private static final String SCRIPT_EXTENSION = ".lua";
+	
+	/** The packages which are shared with the isolated {@link ClassLoader}s. */
+	private static final String[] SHARED_PACKAGES = new String[] { "org.luaj.", "org.apache.bcel." };
+	
+	/** The number of iterations which are done before measuring. */
+	private static final int WARMUP_ITERATIONS = 3;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Invisible constructor, because the {@link JVxVersionComparison} is a
+	 * utility class.
+	 */
+	private JVxVersionComparison()
+	{
+	}
+	
+	/**
+	 * The main method.
+	 * 
+	 * @param pArgs the arguments.
+	 * @throws Exception if the comparison could not be run.
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		
+		if (pArgs.length < 2)
+		{
+			System.out.println("Usage: JVxVersionComparison BASE_JAR JAR [SCRIPT_OR_DIRECTORY] [ITERATIONS]");
+			
+			System.exit(1);
+		}
+		
+		Path baseJar = Paths.get(pArgs[0]);
+		Path jar = Paths.get(pArgs[1]);
+		int iterations = pArgs.length >= 4 ? Integer.parseInt(pArgs[3]) : DEFAULT_ITERATIONS;
+		
+		Map<String, String> scripts = new LinkedHashMap<>();
+		
+		if (pArgs.length >= 3 && pArgs[2].length() > 0)
+		{
+			for (Path scriptPath : getScripts(Paths.get(pArgs[2])))
+			{
+				scripts.put(scriptPath.getFileName().toString(), new String(Files.readAllBytes(scriptPath), StandardCharsets.UTF_8));
+			}
+		}
+		else
+		{
+			scripts.put("default.lua", new String(FileUtil.getContent(ResourceUtil.getResourceAsStream("/com/sibvisions/formlayoutvisualization/default.lua")), StandardCharsets.UTF_8));
+		}
+		
+		Method baseMeasure = getMeasureMethod(createClassLoader(baseJar));
+		Method measure = getMeasureMethod(createClassLoader(jar));
+		
+		System.out.println(String.format("Base: %s", baseJar));
+		System.out.println(String.format("Compared: %s", jar));
+		
+		int failures = 0;
+		
+		for (Map.Entry<String, String> script : scripts.entrySet())
+		{
+			failures = failures + compare(script.getKey(), script.getValue(), baseMeasure, measure, iterations);
+		}
+		
+		if (failures > 0)
+		{
+			System.out.println("FAILED: " + failures + " scripts differ or failed.");
+			
+			System.exit(1);
+		}
+		
+		System.out.println("PASSED");
+		
+		System.exit(0);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Builds the given script, measures it and records the resulting
+	 * geometry.
+	 * <p>
+	 * This is invoked through reflection in the isolated {@link ClassLoader}
+	 * of a JVx jar, so it only exchanges classes of the JDK.
+	 * 
+	 * @param pScript the Lua sourcecode.
+	 * @param pWidth the width of the panel.
+	 * @param pHeight the height of the panel.
+	 * @param pIterations the number of measured iterations.
+	 * @param pGeometry the {@link Map} to which the position of every anchor
+	 *            and the bounds of every component are put.
+	 * @return the mean time of a build and the mean time of a layout, in
+	 *         nanoseconds.
+	 * @throws Exception if the script failed.
+	 */
+	public static long[] measure(String pScript, int pWidth, int pHeight, int pIterations, Map<String, String> pGeometry) throws Exception
+	{
+		UIFactoryManager.getFactoryInstance(SwingFactory.class);
+		
+		AnchorShowingPanel panel = new AnchorShowingPanel();
+		panel.setLayout(new UIFormLayout());
+		panel.setSize(pWidth, pHeight);
+		
+		LayoutBuilder builder = new LayoutBuilder(panel);
+		
+		for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++)
+		{
+			builder.build(pScript);
+			HeadlessRenderer.layout((Component)panel.getResource());
+		}
+		
+		long buildTime = 0;
+		
+		for (int iteration = 0; iteration < pIterations; iteration++)
+		{
+			long start = System.nanoTime();
+			builder.build(pScript);
+			HeadlessRenderer.layout((Component)panel.getResource());
+			
+			buildTime = buildTime + (System.nanoTime() - start);
+		}
+		
+		Container container = (Container)panel.getResource();
+		JVxFormLayout layout = (JVxFormLayout)container.getLayout();
+		
+		long layoutTime = 0;
+		
+		// The relayout is warmed up on its own, the first iterations are not
+		// timed.
+		for (int iteration = -WARMUP_ITERATIONS; iteration < pIterations; iteration++)
+		{
+			long start = System.nanoTime();
+			layout.invalidateLayout(container);
+			layout.layoutContainer(container);
+			
+			if (iteration >= 0)
+			{
+				layoutTime = layoutTime + (System.nanoTime() - start);
+			}
+		}
+		
+		for (IAnchor anchor : panel.getLayout().getHorizontalAnchors())
+		{
+			putGeometry(pGeometry, "Horizontal anchor " + panel.getAnchorName(anchor), Integer.toString(anchor.getAbsolutePosition()));
+		}
+		for (IAnchor anchor : panel.getLayout().getVerticalAnchors())
+		{
+			putGeometry(pGeometry, "Vertical anchor " + panel.getAnchorName(anchor), Integer.toString(anchor.getAbsolutePosition()));
+		}
+		
+		List<IComponent> components = panel.getRealComponents();
+		
+		for (int index = 0; index < components.size(); index++)
+		{
+			putBounds(pGeometry, Integer.toString(index), (Component)components.get(index).getResource());
+		}
+		
+		return new long[] { buildTime / pIterations, layoutTime / pIterations };
+	}
+	
+	/**
+	 * Measures and compares the given script with both JVx versions and prints
+	 * the result.
+	 * 
+	 * @param pName the name of the script.
+	 * @param pScript the Lua sourcecode.
+	 * @param pBaseMeasure the {@link #measure} method of the base version.
+	 * @param pMeasure the {@link #measure} method of the compared version.
+	 * @param pIterations the number of measured iterations.
+	 * @return {@code 1} if the script failed with either version or the
+	 *         layouts differ, {@code 0} otherwise.
+	 */
+	private static int compare(String pName, String pScript, Method pBaseMeasure, Method pMeasure, int pIterations)
+	{
+		Map<String, String> baseGeometry = new LinkedHashMap<>();
+		Map<String, String> geometry = new LinkedHashMap<>();
+		
+		long[] baseTimes;
+		long[] times;
+		
+		try
+		{
+			baseTimes = invoke(pBaseMeasure, pScript, pIterations, baseGeometry);
+			times = invoke(pMeasure, pScript, pIterations, geometry);
+		}
+		catch (Exception e)
+		{
+			System.out.println(String.format("%s: FAILED: %s", pName, e.getMessage()));
+			
+			return 1;
+		}
+		
+		Set<String> keys = new LinkedHashSet<>(baseGeometry.keySet());
+		keys.addAll(geometry.keySet());
+		
+		List<String> differences = new ArrayList<>();
+		
+		for (String key : keys)
+		{
+			String baseValue = baseGeometry.get(key);
+			String value = geometry.get(key);
+			
+			if (!Objects.equals(baseValue, value))
+			{
+				differences.add(String.format("    %s: %s -> %s",
+						key,
+						baseValue != null ? baseValue : "missing",
+						value != null ? value : "missing"));
+			}
+		}
+		
+		System.out.println(String.format("%s: %d differences", pName, Integer.valueOf(differences.size())));
+		System.out.println(String.format("    Build: %.3f ms -> %.3f ms (%+.1f %%), layout: %.3f ms -> %.3f ms (%+.1f %%)",
+				Double.valueOf(baseTimes[0] / 1000000d),
+				Double.valueOf(times[0] / 1000000d),
+				Double.valueOf(getDelta(baseTimes[0], times[0])),
+				Double.valueOf(baseTimes[1] / 1000000d),
+				Double.valueOf(times[1] / 1000000d),
+				Double.valueOf(getDelta(baseTimes[1], times[1]))));
+		
+		for (int index = 0; index < Math.min(differences.size(), MAXIMUM_REPORTED_DIFFERENCES); index++)
+		{
+			System.out.println(differences.get(index));
+		}
+		
+		if (differences.size() > MAXIMUM_REPORTED_DIFFERENCES)
+		{
+			System.out.println(String.format("    ... and %d more.", Integer.valueOf(differences.size() - MAXIMUM_REPORTED_DIFFERENCES)));
+		}
+		
+		return differences.isEmpty() ? 0 : 1;
+	}
+	
+	/**
+	 * Creates the isolated {@link ClassLoader} for the given JVx jar.
+	 * <p>
+	 * It contains the given jar and the classpath without the JVx jar, its
+	 * parent only provides the platform and the {@link #SHARED_PACKAGES}, so
+	 * that no other class of the application is shared.
+	 * 
+	 * @param pJar the JVx jar.
+	 * @return the {@link ClassLoader}.
+	 * @throws Exception if the jar does not exist or the classpath could not
+	 *             be read.
+	 */
+	private static ClassLoader createClassLoader(Path pJar) throws Exception
+	{
+		if (!Files.isRegularFile(pJar))
+		{
+			throw new IllegalArgumentException("The JVx jar <" + pJar + "> does not exist.");
+		}
+		
+		Path classpathJar = Paths.get(IFactory.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toAbsolutePath();
+		
+		List<URL> urls = new ArrayList<>();
+		urls.add(pJar.toUri().toURL());
+		
+		for (String entry : System.getProperty("java.class.path").split(File.pathSeparator))
+		{
+			Path path = Paths.get(entry).toAbsolutePath();
+			
+			if (!path.equals(classpathJar))
+			{
+				urls.add(path.toUri().toURL());
+			}
+		}
+		
+		return new URLClassLoader(urls.toArray(new URL[urls.size()]), new SharingClassLoader());
+	}
+	
+	/**
+	 * Gets the difference of the given value to the given base value.
+	 * 
+	 * @param pBase the base value.
+	 * @param pValue the value.
+	 * @return the difference, in percent of the base value.
+	 */
+	private static double getDelta(long pBase, long pValue)
+	{
+		if (pBase == 0)
+		{
+			return 0;
+		}
+		
+		return (pValue - pBase) * 100d / pBase;
+	}
+	
+	/**
+	 * Gets the {@link #measure} method of the class in the given
+	 * {@link ClassLoader}.
+	 * 
+	 * @param pClassLoader the {@link ClassLoader}.
+	 * @return the {@link #measure} method.
+	 * @throws Exception if the class could not be loaded.
+	 */
+	private static Method getMeasureMethod(ClassLoader pClassLoader) throws Exception
+	{
+		return Class.forName(JVxVersionComparison.class.getName(), true, pClassLoader).getMethod(
+				"measure",
+				String.class,
+				int.class,
+				int.class,
+				int.class,
+				Map.class);
+	}
+	
+	/**
+	 * Gets the Lua scripts at the given path, either the path itself or all
+	 * scripts in it, if it is a directory.
+	 * 
+	 * @param pPath the path to a script or a directory.
+	 * @return the {@link List} of scripts, sorted by name.
+	 * @throws Exception if the directory could not be read.
+	 */
+	private static List<Path> getScripts(Path pPath) throws Exception
+	{
+		List<Path> scripts = new ArrayList<>();
+		
+		if (Files.isDirectory(pPath))
+		{
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(pPath, "*" + SCRIPT_EXTENSION))
+			{
+				for (Path script : stream)
+				{
+					scripts.add(script);
+				}
+			}
+			
+			scripts.sort(null);
+		}
+		else
+		{
+			scripts.add(pPath);
+		}
+		
+		return scripts;
+	}
+	
+	/**
+	 * Invokes the given {@link #measure} method, in its own thread whose
+	 * context {@link ClassLoader} is the one of the method.
+	 * 
+	 * @param pMeasure the {@link #measure} method.
+	 * @param pScript the Lua sourcecode.
+	 * @param pIterations the number of measured iterations.
+	 * @param pGeometry the {@link Map} for the geometry.
+	 * @return the measured times.
+	 * @throws Exception if the script failed.
+	 */
+	private static long[] invoke(Method pMeasure, String pScript, int pIterations, Map<String, String> pGeometry) throws Exception
+	{
+		Thread thread = Thread.currentThread();
+		ClassLoader contextClassLoader = thread.getContextClassLoader();
+		
+		thread.setContextClassLoader(pMeasure.getDeclaringClass().getClassLoader());
+		
+		try
+		{
+			return (long[])pMeasure.invoke(
+					null,
+					pScript,
+					Integer.valueOf(HeadlessRenderer.DEFAULT_WIDTH),
+					Integer.valueOf(HeadlessRenderer.DEFAULT_HEIGHT),
+					Integer.valueOf(pIterations),
+					pGeometry);
+		}
+		catch (InvocationTargetException e)
+		{
+			if (e.getCause() instanceof Exception)
+			{
+				throw (Exception)e.getCause();
+			}
+			
+			throw e;
+		}
+		finally
+		{
+			thread.setContextClassLoader(contextClassLoader);
+		}
+	}
+	
+	/**
+	 * Puts the bounds of the given {@link Component} and of all its children
+	 * into the given geometry.
+	 * 
+	 * @param pGeometry the {@link Map} for the geometry.
+	 * @param pPath the path of the {@link Component}, the indexes of it and
+	 *            its parents.
+	 * @param pComponent the {@link Component}.
+	 */
+	private static void putBounds(Map<String, String> pGeometry, String pPath, Component pComponent)
+	{
+		Rectangle bounds = pComponent.getBounds();
+		
+		putGeometry(pGeometry, "Component " + pPath, String.format("%d, %d, %d x %d",
+				Integer.valueOf(bounds.x),
+				Integer.valueOf(bounds.y),
+				Integer.valueOf(bounds.width),
+				Integer.valueOf(bounds.height)));
+		
+		if (pComponent instanceof Container)
+		{
+			Component[] children = ((Container)pComponent).getComponents();
+			
+			for (int index = 0; index < children.length; index++)
+			{
+				putBounds(pGeometry, pPath + "/" + index, children[index]);
+			}
+		}
+	}
+	
+	/**
+	 * Puts the given value into the given geometry, the key is made unique
+	 * with a suffix if it is already used.
+	 * 
+	 * @param pGeometry the {@link Map} for the geometry.
+	 * @param pKey the key.
+	 * @param pValue the value.
+	 */
+	private static void putGeometry(Map<String, String> pGeometry, String pKey, String pValue)
+	{
+		String key = pKey;
+		
+		for (int suffix = 2; pGeometry.containsKey(key); suffix++)
+		{
+			key = pKey + " #" + suffix;
+		}
+		
+		pGeometry.put(key, pValue);
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link SharingClassLoader} loads the classes of the platform and
+	 * the classes of the {@link #SHARED_PACKAGES} from the system
+	 * {@link ClassLoader}.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class SharingClassLoader extends ClassLoader
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link SharingClassLoader}.
+		 */
+		public SharingClassLoader()
+		{
+			// The parent of the system class loader is the platform class
+			// loader, or the extension class loader before Java 9.
+			super(ClassLoader.getSystemClassLoader().getParent());
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Overwritten methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected Class<?> loadClass(String pName, boolean pResolve) throws ClassNotFoundException
+		{
+			for (String sharedPackage : SHARED_PACKAGES)
+			{
+				if (pName.startsWith(sharedPackage))
+				{
+					return ClassLoader.getSystemClassLoader().loadClass(pName);
+				}
+			}
+			
+			return super.loadClass(pName, pResolve);
+		}
+		
+	}	// SharingClassLoader
+	
+}	// JVxVersionComparison
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import javax.rad.genui.layout.UIFormLayout;
+
+import com.sibvisions.formlayoutvisualization.FlightRecorderEvents.EventFactory;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The {@link JdkFlightRecorderEvents} implements the
+ * {@link FlightRecorderEvents} with the {@code jdk.jfr} API.
+ * <p>
+ * This class is only loaded by the {@link FlightRecorderEvents} if the
+ * runtime provides the {@code jdk.jfr} API, it must not be referenced
+ * directly. It is not compiled if the {@code jdk.jfr} API is not available
+ * at compile time.
+ * 
+ * @author Robert Zenz
+ */
+final class JdkFlightRecorderEvents implements EventFactory
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The category of all events. */
+	private static final String CATEGORY = "FormLayout Visualization";
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link JdkFlightRecorderEvents}.
+	 */
+	JdkFlightRecorderEvents()
+	{
+		super();
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Interface implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FlightRecorderEvents.AnchorHitTestEvent createAnchorHitTestEvent()
+	{
+		return new AnchorHitTestEvent();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FlightRecorderEvents.AnchorOverlayRebuildEvent createAnchorOverlayRebuildEvent()
+	{
+		return new AnchorOverlayRebuildEvent();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FlightRecorderEvents.LayoutSolveEvent createLayoutSolveEvent()
+	{
+		return new LayoutSolveEvent();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FlightRecorderEvents.ScriptExecutionEvent createScriptExecutionEvent()
+	{
+		return new ScriptExecutionEvent();
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link LayoutComplexityEvent} is the base of all events, it carries
+	 * the complexity of the layout.
+	 * 
+	 * @author Robert Zenz
+	 */
+	@Category(CATEGORY)
+	private abstract static class LayoutComplexityEvent extends Event implements FlightRecorderEvents.LayoutComplexityEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		// The fields are not private, because the Flight Recorder does not
+		// record private fields of super classes.
+		
+		/** The count of anchors which are used by the constraints. */
+		@Label("Anchor Count")
+		int anchorCount = 0;
+		
+		/** The count of components, without the placeholders. */
+		@Label("Component Count")
+		int componentCount = 0;
+		
+		/** The hash of the script which built the layout. */
+		@Label("Script Hash")
+		@Description("The hash code of the Lua script which built the layout, 0 if it has not been built from a script.")
+		int scriptHash = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void commit(int pAnchorCount, int pComponentCount, int pScriptHash)
+		{
+			anchorCount = pAnchorCount;
+			componentCount = pComponentCount;
+			scriptHash = pScriptHash;
+			
+			commit();
+		}
+		
+	}	// LayoutComplexityEvent
+	
+	/**
+	 * The {@link AnchorHitTestEvent} is recorded when the anchor under the
+	 * mouse is searched.
+	 * 
+	 * @author Robert Zenz
+	 */
+	@Name("com.sibvisions.formlayoutvisualization.AnchorHitTest")
+	@Label("Anchor Hit Test")
+	@Description("Searching the anchor under the mouse.")
+	private static final class AnchorHitTestEvent extends LayoutComplexityEvent implements FlightRecorderEvents.AnchorHitTestEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** If an anchor has been found. */
+		@Label("Hit")
+		private boolean hit = false;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setHit(boolean pHit)
+		{
+			hit = pHit;
+		}
+		
+	}	// AnchorHitTestEvent
+	
+	/**
+	 * The {@link AnchorOverlayRebuildEvent} is recorded when the placeholders
+	 * which display the anchors are rebuilt, including the layout of the
+	 * container.
+	 * 
+	 * @author Robert Zenz
+	 */
+	@Name("com.sibvisions.formlayoutvisualization.AnchorOverlayRebuild")
+	@Label("Anchor Overlay Rebuild")
+	@Description("Rebuilding the placeholders which display the anchors.")
+	private static final class AnchorOverlayRebuildEvent extends LayoutComplexityEvent implements FlightRecorderEvents.AnchorOverlayRebuildEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The count of placeholders which have been created. */
+		@Label("Placeholder Count")
+		private int placeholderCount = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setPlaceholderCount(int pPlaceholderCount)
+		{
+			placeholderCount = pPlaceholderCount;
+		}
+		
+	}	// AnchorOverlayRebuildEvent
+	
+	/**
+	 * The {@link LayoutSolveEvent} is recorded when the {@link UIFormLayout}
+	 * is invalidated and laid out.
+	 * 
+	 * @author Robert Zenz
+	 */
+	@Name("com.sibvisions.formlayoutvisualization.LayoutSolve")
+	@Label("Layout Solve")
+	@Description("Invalidating and laying out the FormLayout of the panel.")
+	private static final class LayoutSolveEvent extends LayoutComplexityEvent implements FlightRecorderEvents.LayoutSolveEvent
+	{
+		// Only the complexity of the layout.
+	}	// LayoutSolveEvent
+	
+	/**
+	 * The {@link ScriptExecutionEvent} is recorded when a Lua script is
+	 * compiled and executed to build the layout. It is not recorded if the
+	 * result is taken from the {@link LayoutCache} instead.
+	 * 
+	 * @author Robert Zenz
+	 */
+	@Name("com.sibvisions.formlayoutvisualization.ScriptExecution")
+	@Label("Lua Script Execution")
+	@Description("Compiling and executing the Lua script which builds the layout.")
+	private static final class ScriptExecutionEvent extends LayoutComplexityEvent implements FlightRecorderEvents.ScriptExecutionEvent
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** If the script failed. */
+		@Label("Failed")
+		private boolean failed = false;
+		
+		/** The length of the script. */
+		@Label("Script Length")
+		private int scriptLength = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setFailed(boolean pFailed)
+		{
+			failed = pFailed;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setScriptLength(int pScriptLength)
+		{
+			scriptLength = pScriptLength;
+		}
+		
+	}	// ScriptExecutionEvent
+	
+}	// JdkFlightRecorderEvents
@@ -0,0 +1,953 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.util.Random;
+
+import javax.rad.genui.UIColor;
+import javax.rad.genui.UIComponent;
+import javax.rad.genui.UIResource;
+import javax.rad.genui.component.UILabel;
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IColor;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.IDimension;
+
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaThread;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.TwoArgFunction;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.ZeroArgFunction;
+import org.luaj.vm2.lib.jse.AbstractInterceptingJavaInstance;
+import org.luaj.vm2.lib.jse.CoerceJavaToLua;
+
+import com.sibvisions.formlayoutvisualization.FlightRecorderEvents.ScriptExecutionEvent;
+import com.sibvisions.rad.lua.LuaEnvironment;
+import com.sibvisions.rad.lua.LuaException;
+
+/**
+ * The {@link LayoutBuilder} builds the layout of an {@link AnchorShowingPanel}
+ * from a Lua script.
+ * <p>
+ * The script has access to the global variables {@code panel},
+ * {@code layout} and {@code stub()}. Every build replaces the content and the
+ * {@link UIFormLayout} of the panel.
+ * <p>
+ * The script is executed in a batch of the panel, so the panel is only laid
+ * out once after the script has been executed. Additionally {@code panel} has
+ * the function {@code batch}, which executes the given function in a batch:
+ * 
+ * <pre>
+ * panel:batch(function()
+ *     -- Add the components.
+ * end)
+ * </pre>
+ * 
+ * A script can also be built progressively, in slices which are displayed one
+ * after another, see {@link #buildProgressively(String, int)}.
+ * <p>
+ * If enabled, the line of the script which added a component is recorded
+ * with the component, see {@link #setScriptLinesRecorded(boolean)}.
+ * <p>
+ * If a {@link ScriptCache} has been installed, the scripts are compiled
+ * through it, so that a script which has been compiled before is not
+ * compiled again, even after a restart.
+ * <p>
+ * If a {@link LayoutCache} is set, the result of every build is cached and a
+ * script which has already been built at the same size of the panel is not
+ * executed again, instead the cached components and {@link UIFormLayout} are
+ * added to the panel.
+ * <p>
+ * The bytes which every build allocates on its thread, from the execution of
+ * the script to the updated display of the anchors, are counted by the
+ * {@link AllocationCounter}, see {@link #getAllocatedBytes()}.
+ * 
+ * @author Robert Zenz
+ */
+public class LayoutBuilder
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default count of components which are added per slice. */
+	public static final int DEFAULT_SLICE_SIZE = 500;
+	
+	/** The name of the chunk of progressively built scripts. */
+	private static final String CHUNK_NAME = "SCRIPT";
+	
+	/** The message of the {@link LuaException} if a script failed. */
+	private static final String FAILED_MESSAGE = "Failed to execute given script: ";
+	
+	/**
+	 * The message of the {@link LuaException} if the anchors of the layout are
+	 * inconsistent.
+	 */
+	private static final String INCONSISTENT_MESSAGE = "The layout has not been solved, its anchors are inconsistent:\n";
+	
+	/**
+	 * The name of the source file of the classes into which the scripts are
+	 * compiled.
+	 */
+	private static final String SCRIPT_FILE_NAME = CHUNK_NAME + ".lua";
+	
+	/** The name of the object which holds the line of the script. */
+	private static final String SCRIPT_LINE_OBJECT = "scriptLine";
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * The count of bytes which the last build has allocated, {@code -1} if it
+	 * is not known.
+	 */
+	private long allocatedBytes = -1;
+	
+	/** The {@link LayoutCache} for the results, {@code null} for none. */
+	private LayoutCache cache = null;
+	
+	/** The {@link LuaEnvironment} which is used for executing the code. */
+	private LuaEnvironment environment = new LuaEnvironment();
+	
+	/** The {@link UIFormLayout} of the last build. */
+	private UIFormLayout layout = null;
+	
+	/** The {@link AnchorShowingPanel} which is built. */
+	private AnchorShowingPanel panel = null;
+	
+	/**
+	 * The {@link ProgressiveBuild} which is currently resumed, {@code null} if
+	 * none.
+	 */
+	private ProgressiveBuild progressiveBuild = null;
+	
+	/** The {@link Random} that is used to get random colors. */
+	private Random random = new Random(1);
+	
+	/**
+	 * The {@link ScriptCache} through which the scripts are compiled,
+	 * {@code null} for none.
+	 */
+	private ScriptCache scriptCache = null;
+	
+	/**
+	 * If the line of the script which added a component is recorded with the
+	 * component.
+	 */
+	private boolean scriptLinesRecorded = false;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link LayoutBuilder}.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel} to build.
+	 */
+	public LayoutBuilder(AnchorShowingPanel pPanel)
+	{
+		super();
+		
+		panel = pPanel;
+		layout = panel.getLayout();
+		
+		environment.getGlobals().set("panel", new PanelInstance());
+		environment.getGlobals().set("layout", CoerceJavaToLua.coerce(layout));
+		environment.getGlobals().set("stub", new ZeroArgFunction()
+		{
+			@Override
+			public LuaValue call()
+			{
+				return CoerceJavaToLua.coerce(createPlaceholder());
+			}
+		});
+		
+		setScriptCache(ScriptCache.getInstalledCache());
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the line of the script which added the given {@link IComponent} to
+	 * the panel.
+	 * 
+	 * @param pComponent the {@link IComponent}.
+	 * @return the line of the script, {@code -1} if it is not known or has not
+	 *         been recorded.
+	 * @see #setScriptLinesRecorded(boolean)
+	 */
+	public static int getScriptLine(IComponent pComponent)
+	{
+		if (pComponent instanceof UIResource)
+		{
+			Object line = ((UIResource<?>)pComponent).getObject(SCRIPT_LINE_OBJECT);
+			
+			if (line instanceof Integer)
+			{
+				return ((Integer)line).intValue();
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Gets the line of the script which is currently executed.
+	 * <p>
+	 * The scripts are compiled into Java classes, so the line is taken from
+	 * the innermost frame of the script on the stack of the current thread.
+	 * That walks the whole stack, so it is only done if the lines are
+	 * recorded.
+	 * 
+	 * @return the line of the script, {@code -1} if no script is executed or
+	 *         it has not been compiled.
+	 */
+	private static int getCurrentScriptLine()
+	{
+		for (StackTraceElement element : new Throwable().getStackTrace())
+		{
+			if (SCRIPT_FILE_NAME.equals(element.getFileName()))
+			{
+				return element.getLineNumber();
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Builds the layout according to the given Lua sourcecode.
+	 * <p>
+	 * The content of the panel is removed, a new {@link UIFormLayout} is set
+	 * and the script is executed, all in one batch of the panel. Afterwards
+	 * the display of the anchors is updated, also if the script failed.
+	 * <p>
+	 * If the result is in the {@link LayoutCache}, the cached components and
+	 * {@link UIFormLayout} are set instead of executing the script.
+	 * 
+	 * @param pScript the Lua sourcecode.
+	 * @throws LuaException if executing the script failed.
+	 */
+	public void build(String pScript) throws LuaException
+	{
+		long allocationStart = AllocationCounter.getAllocatedBytes();
+		
+		IDimension size = panel.getSize();
+		
+		panel.setScriptHash(pScript.hashCode());
+		
+		if (cache != null && !scriptLinesRecorded)
+		{
+			LayoutCache.Result result = cache.get(pScript, size.getWidth(), size.getHeight());
+			
+			if (result != null)
+			{
+				restore(result);
+				
+				allocatedBytes = AllocationCounter.getAllocatedBytesSince(allocationStart);
+				
+				checkConsistency();
+				
+				return;
+			}
+		}
+		
+		panel.beginBatch();
+		
+		try
+		{
+			prepare();
+			
+			ScriptExecutionEvent scriptExecutionEvent = FlightRecorderEvents.createScriptExecutionEvent();
+			scriptExecutionEvent.begin();
+			scriptExecutionEvent.setScriptLength(pScript.length());
+			
+			try
+			{
+				// The script is compiled and executed in one go.
+				environment.execute(pScript);
+			}
+			catch (LuaException e)
+			{
+				scriptExecutionEvent.setFailed(true);
+				
+				throw e;
+			}
+			finally
+			{
+				FlightRecorderEvents.commit(scriptExecutionEvent, panel);
+			}
+		}
+		finally
+		{
+			// Adds the components to the panel and lays it out.
+			panel.endBatch();
+			
+			allocatedBytes = AllocationCounter.getAllocatedBytesSince(allocationStart);
+		}
+		
+		// The cache might be shared with a builder on another thread, so the
+		// result is only cached once the components have been added.
+		if (cache != null)
+		{
+			cache.put(pScript, size.getWidth(), size.getHeight(), layout, panel.getRealComponents(), panel.getRealConstraints());
+		}
+		
+		checkConsistency();
+	}
+	
+	/**
+	 * Starts building the layout according to the given Lua sourcecode
+	 * progressively.
+	 * <p>
+	 * The script is compiled immediately, but executed as a coroutine by
+	 * {@link ProgressiveBuild#resume()}, one slice at a time. A slice ends
+	 * after the given count of components has been added by the script, the
+	 * components which have been added so far are then laid out and
+	 * displayed. The content of the panel is only removed when the first slice
+	 * is executed.
+	 * <p>
+	 * If the result is in the {@link LayoutCache}, the cached components and
+	 * {@link UIFormLayout} are set immediately and the returned
+	 * {@link ProgressiveBuild} is already finished.
+	 * 
+	 * @param pScript the Lua sourcecode.
+	 * @param pSliceSize the count of components which are added per slice.
+	 * @return the {@link ProgressiveBuild}.
+	 * @throws LuaException if compiling the script failed.
+	 */
+	public ProgressiveBuild buildProgressively(String pScript, int pSliceSize) throws LuaException
+	{
+		long allocationStart = AllocationCounter.getAllocatedBytes();
+		
+		IDimension size = panel.getSize();
+		
+		if (cache != null && !scriptLinesRecorded)
+		{
+			LayoutCache.Result result = cache.get(pScript, size.getWidth(), size.getHeight());
+			
+			if (result != null)
+			{
+				panel.setScriptHash(pScript.hashCode());
+				
+				restore(result);
+				
+				allocatedBytes = AllocationCounter.getAllocatedBytesSince(allocationStart);
+				
+				checkConsistency();
+				
+				return new ProgressiveBuild(pScript, null, pSliceSize, size.getWidth(), size.getHeight());
+			}
+		}
+		
+		LuaValue chunk = null;
+		
+		try
+		{
+			chunk = environment.getGlobals().load(pScript, CHUNK_NAME);
+		}
+		catch (LuaError e)
+		{
+			throw new LuaException(FAILED_MESSAGE + e.getMessage(), e);
+		}
+		
+		panel.setScriptHash(pScript.hashCode());
+		
+		return new ProgressiveBuild(pScript, chunk, pSliceSize, size.getWidth(), size.getHeight());
+	}
+	
+	/**
+	 * Gets the count of bytes which the last build has allocated on its
+	 * thread.
+	 * <p>
+	 * A progressive build is counted over all its slices which have been
+	 * executed so far, including what the script has allocated on the thread
+	 * of its coroutine.
+	 * 
+	 * @return the count of bytes, {@code -1} if it is not known.
+	 * @see AllocationCounter
+	 */
+	public long getAllocatedBytes()
+	{
+		return allocatedBytes;
+	}
+	
+	/**
+	 * Gets the {@link LayoutCache} for the results.
+	 * 
+	 * @return the {@link LayoutCache}, {@code null} if none is set.
+	 */
+	public LayoutCache getCache()
+	{
+		return cache;
+	}
+	
+	/**
+	 * Gets the {@link LuaEnvironment} which is used for executing the code.
+	 * 
+	 * @return the {@link LuaEnvironment}.
+	 */
+	public LuaEnvironment getEnvironment()
+	{
+		return environment;
+	}
+	
+	/**
+	 * Gets the {@link UIFormLayout} of the last build.
+	 * 
+	 * @return the {@link UIFormLayout} of the last build.
+	 */
+	public UIFormLayout getLayout()
+	{
+		return layout;
+	}
+	
+	/**
+	 * Gets the {@link AnchorShowingPanel} which is built.
+	 * 
+	 * @return the {@link AnchorShowingPanel} which is built.
+	 */
+	public AnchorShowingPanel getPanel()
+	{
+		return panel;
+	}
+	
+	/**
+	 * Sets the {@link LayoutCache} for the results.
+	 * 
+	 * @param pCache the {@link LayoutCache}, {@code null} for none.
+	 */
+	public void setCache(LayoutCache pCache)
+	{
+		cache = pCache;
+	}
+	
+	/**
+	 * Gets the {@link ScriptCache} through which the scripts are compiled.
+	 * 
+	 * @return the {@link ScriptCache}, {@code null} if none is set.
+	 */
+	public ScriptCache getScriptCache()
+	{
+		return scriptCache;
+	}
+	
+	/**
+	 * Sets the {@link ScriptCache} through which the scripts are compiled.
+	 * <p>
+	 * The installed {@link ScriptCache}, if any, is set when the
+	 * {@link LayoutBuilder} is created.
+	 * 
+	 * @param pScriptCache the {@link ScriptCache}, {@code null} for none.
+	 */
+	public void setScriptCache(ScriptCache pScriptCache)
+	{
+		if (scriptCache != null)
+		{
+			scriptCache.detach(environment.getGlobals());
+		}
+		
+		scriptCache = pScriptCache;
+		
+		if (scriptCache != null)
+		{
+			scriptCache.attach(environment.getGlobals());
+		}
+	}
+	
+	/**
+	 * Gets if the line of the script which added a component is recorded
+	 * with the component.
+	 * 
+	 * @return {@code true} if the lines are recorded.
+	 * @see #setScriptLinesRecorded(boolean)
+	 */
+	public boolean isScriptLinesRecorded()
+	{
+		return scriptLinesRecorded;
+	}
+	
+	/**
+	 * Sets if the line of the script which added a component is recorded
+	 * with the component, see {@link #getScriptLine(IComponent)}.
+	 * <p>
+	 * Finding the line is expensive, so it should only be enabled if the
+	 * lines are needed, for example while the {@link LayoutCost} is shown.
+	 * While it is enabled, the results in the {@link LayoutCache} are not
+	 * used, as they might have been built without the lines.
+	 * 
+	 * @param pScriptLinesRecorded {@code true} if the lines should be
+	 *            recorded.
+	 */
+	public void setScriptLinesRecorded(boolean pScriptLinesRecorded)
+	{
+		scriptLinesRecorded = pScriptLinesRecorded;
+	}
+	
+	/**
+	 * Checks that the anchors of the panel have been consistent at its last
+	 * update, the layout has not been solved otherwise.
+	 * 
+	 * @throws LuaException if the anchors are inconsistent.
+	 */
+	private void checkConsistency() throws LuaException
+	{
+		LayoutConsistency consistency = panel.getLayoutConsistency();
+		
+		if (consistency != null && !consistency.isConsistent())
+		{
+			throw new LuaException(INCONSISTENT_MESSAGE + consistency);
+		}
+	}
+	
+	/**
+	 * Creates a new placeholder {@link UIComponent}.
+	 * 
+	 * @return a new placeholder {@link UIComponent}.
+	 */
+	private UIComponent<?> createPlaceholder()
+	{
+		IColor background = Tango.ALUMINIUM_1;
+		
+		int red = background.getRed();
+		int green = background.getGreen();
+		int blue = background.getBlue();
+		
+		red = Math.max(0, Math.min(255, red - random.nextInt(128)));
+		green = Math.max(0, Math.min(255, green - random.nextInt(128)));
+		blue = Math.max(0, Math.min(255, blue - random.nextInt(128)));
+		
+		UILabel label = new UILabel("   stub   ");
+		label.setBackground(new UIColor(red, green, blue));
+		label.setForeground(Tango.ALUMINIUM_6);
+		label.setHorizontalAlignment(UILabel.ALIGN_CENTER);
+		label.setVerticalAlignment(UILabel.ALIGN_CENTER);
+		
+		return label;
+	}
+	
+	/**
+	 * Removes the content of the panel and sets a new {@link UIFormLayout},
+	 * before a script is executed.
+	 */
+	private void prepare()
+	{
+		panel.removeAll();
+		
+		// Reset the Random object ot receive the same colors again.
+		random.setSeed(1);
+		
+		layout = new UIFormLayout();
+		panel.setLayout(layout);
+		environment.getGlobals().set("layout", CoerceJavaToLua.coerce(layout));
+	}
+	
+	/**
+	 * Replaces the content and the {@link UIFormLayout} of the panel with the
+	 * given cached {@link LayoutCache.Result}.
+	 * 
+	 * @param pResult the cached {@link LayoutCache.Result}.
+	 */
+	private void restore(LayoutCache.Result pResult)
+	{
+		panel.batch(() ->
+		{
+			panel.removeAll();
+			
+			layout = pResult.getLayout();
+			panel.setLayout(layout);
+			environment.getGlobals().set("layout", CoerceJavaToLua.coerce(layout));
+			
+			for (int index = 0; index < pResult.getComponents().size(); index++)
+			{
+				panel.add(pResult.getComponents().get(index), pResult.getConstraints().get(index));
+			}
+		});
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link PanelInstance} is the Lua representation of the
+	 * {@link AnchorShowingPanel}, which additionally provides the function
+	 * {@code batch} and yields from {@code add} while building progressively.
+	 * <p>
+	 * The {@code batch} function is provided by the instance itself, because
+	 * LuaJ can not coerce a Lua function to a {@link Runnable}.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private final class PanelInstance extends AbstractInterceptingJavaInstance
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The {@code add} function. */
+		private LuaValue addFunction = null;
+		
+		/** The {@code batch} function. */
+		private LuaValue batchFunction = null;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link PanelInstance}.
+		 */
+		public PanelInstance()
+		{
+			super(panel);
+			
+			// The add methods of a plain instance, which are invoked with
+			// this instance as self.
+			LuaValue addMethods = CoerceJavaToLua.coerce(panel).get("add");
+			
+			addFunction = new VarArgFunction()
+			{
+				@Override
+				public Varargs invoke(Varargs pArgs)
+				{
+					Varargs result = addMethods.invoke(pArgs);
+					
+					Object component = pArgs.arg(2).touserdata();
+					
+					if (scriptLinesRecorded && component instanceof UIResource)
+					{
+						((UIResource<?>)component).putObject(SCRIPT_LINE_OBJECT, Integer.valueOf(getCurrentScriptLine()));
+					}
+					
+					if (progressiveBuild != null)
+					{
+						progressiveBuild.componentAdded();
+					}
+					
+					return result;
+				}
+			};
+			
+			batchFunction = new TwoArgFunction()
+			{
+				@Override
+				public LuaValue call(LuaValue pSelf, LuaValue pFunction)
+				{
+					panel.batch(() -> pFunction.checkfunction().call());
+					
+					return NONE;
+				}
+			};
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Overwritten methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected LuaValue intercept(LuaValue pKey)
+		{
+			if (pKey.isstring())
+			{
+				String key = pKey.tojstring();
+				
+				if ("add".equals(key))
+				{
+					return addFunction;
+				}
+				else if ("batch".equals(key))
+				{
+					return batchFunction;
+				}
+			}
+			
+			return null;
+		}
+		
+	}	// PanelInstance
+	
+	/**
+	 * The {@link ProgressiveBuild} is a build of a script which is executed
+	 * in slices, see {@link LayoutBuilder#buildProgressively(String, int)}.
+	 * <p>
+	 * The script is executed as a LuaJ coroutine, which LuaJ runs on its own
+	 * thread. The thread which invokes {@link #resume()} waits until the
+	 * coroutine yields, so the script still only runs while the invoking
+	 * thread is blocked. Because of that, the allocated bytes are counted on
+	 * both threads.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public final class ProgressiveBuild
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The count of components which have been added by the script. */
+		private int addedCount = 0;
+		
+		/**
+		 * The count of bytes which the thread of the {@link #coroutine} has
+		 * allocated, as of the last time it yielded or finished.
+		 */
+		private long coroutineAllocatedBytes = 0;
+		
+		/**
+		 * The coroutine which executes the script, {@code null} if the result
+		 * has been taken from the {@link LayoutCache}.
+		 */
+		private LuaThread coroutine = null;
+		
+		/** If the script has finished. */
+		private boolean finished = false;
+		
+		/** The height of the panel when the build has been started. */
+		private int height = 0;
+		
+		/**
+		 * The count of bytes which the threads that invoked {@link #resume()}
+		 * have allocated, {@code -1} if it is not known.
+		 */
+		private long resumingAllocatedBytes = 0;
+		
+		/** The Lua sourcecode. */
+		private String script = null;
+		
+		/** The count of components which are added per slice. */
+		private int sliceSize = 0;
+		
+		/** If the first slice has been executed. */
+		private boolean started = false;
+		
+		/** The width of the panel when the build has been started. */
+		private int width = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link ProgressiveBuild}.
+		 * 
+		 * @param pScript the Lua sourcecode.
+		 * @param pChunk the compiled script, {@code null} if the result has
+		 *            been taken from the {@link LayoutCache}.
+		 * @param pSliceSize the count of components which are added per
+		 *            slice.
+		 * @param pWidth the width of the panel.
+		 * @param pHeight the height of the panel.
+		 */
+		private ProgressiveBuild(String pScript, LuaValue pChunk, int pSliceSize, int pWidth, int pHeight)
+		{
+			super();
+			
+			script = pScript;
+			sliceSize = Math.max(1, pSliceSize);
+			width = pWidth;
+			height = pHeight;
+			
+			if (pChunk != null)
+			{
+				coroutine = new LuaThread(environment.getGlobals(), new VarArgFunction()
+				{
+					@Override
+					public Varargs invoke(Varargs pArgs)
+					{
+						try
+						{
+							return pChunk.invoke(pArgs);
+						}
+						finally
+						{
+							countCoroutineAllocations();
+						}
+					}
+				});
+			}
+			else
+			{
+				finished = true;
+			}
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Gets the count of components which have been added by the script so
+		 * far.
+		 * 
+		 * @return the count of components which have been added.
+		 */
+		public int getAddedCount()
+		{
+			return addedCount;
+		}
+		
+		/**
+		 * Gets whether the script has finished, either successfully or
+		 * because it failed.
+		 * 
+		 * @return {@code true} if the script has finished.
+		 */
+		public boolean isFinished()
+		{
+			return finished;
+		}
+		
+		/**
+		 * Executes the next slice of the script in one batch of the panel,
+		 * the components which have been added so far are laid out and
+		 * displayed afterwards.
+		 * <p>
+		 * If the script finishes, the result is put into the
+		 * {@link LayoutCache}.
+		 * 
+		 * @return {@code true} if the script has finished.
+		 * @throws LuaException if executing the script failed, the panel keeps
+		 *             the components which have been added until then.
+		 */
+		public boolean resume() throws LuaException
+		{
+			if (finished)
+			{
+				return true;
+			}
+			
+			long allocationStart = AllocationCounter.getAllocatedBytes();
+			
+			panel.beginBatch();
+			
+			try
+			{
+				if (!started)
+				{
+					started = true;
+					
+					prepare();
+				}
+				
+				progressiveBuild = this;
+				
+				Varargs result = coroutine.resume(LuaValue.NONE);
+				
+				if (!result.arg1().toboolean())
+				{
+					finished = true;
+					
+					throw new LuaException(FAILED_MESSAGE + result.arg(2).tojstring());
+				}
+				
+				if (coroutine.state.status == LuaThread.STATUS_DEAD)
+				{
+					finished = true;
+					
+					if (cache != null)
+					{
+						cache.put(script, width, height, layout, panel.getRealComponents(), panel.getRealConstraints());
+					}
+				}
+			}
+			finally
+			{
+				progressiveBuild = null;
+				
+				// Adds the components of the slice to the panel and lays it out.
+				panel.endBatch();
+				
+				long sliceAllocatedBytes = AllocationCounter.getAllocatedBytesSince(allocationStart);
+				
+				if (sliceAllocatedBytes >= 0 && resumingAllocatedBytes >= 0)
+				{
+					resumingAllocatedBytes = resumingAllocatedBytes + sliceAllocatedBytes;
+				}
+				else
+				{
+					resumingAllocatedBytes = -1;
+				}
+				
+				// The coroutine has written its count before it yielded or
+				// finished, which happens before the resume returns.
+				if (resumingAllocatedBytes >= 0 && coroutineAllocatedBytes >= 0)
+				{
+					allocatedBytes = resumingAllocatedBytes + coroutineAllocatedBytes;
+				}
+				else
+				{
+					allocatedBytes = -1;
+				}
+			}
+			
+			LayoutConsistency consistency = panel.getLayoutConsistency();
+			
+			if (consistency != null && !consistency.isConsistent())
+			{
+				// The remaining slices are not executed.
+				finished = true;
+			}
+			
+			checkConsistency();
+			
+			return finished;
+		}
+		
+		/**
+		 * Counts an added component and yields the coroutine at the end of a
+		 * slice.
+		 */
+		private void componentAdded()
+		{
+			addedCount++;
+			
+			// Components which are added from Java code which has been
+			// invoked by the script are not on the coroutine.
+			if (addedCount % sliceSize == 0 && environment.getGlobals().running == coroutine)
+			{
+				countCoroutineAllocations();
+				
+				environment.getGlobals().yield(LuaValue.NONE);
+			}
+		}
+		
+		/**
+		 * Reads the count of bytes which the thread of the {@link #coroutine}
+		 * has allocated so far, it must be invoked on that thread.
+		 * <p>
+		 * LuaJ starts a new thread for every coroutine, so its counter only
+		 * contains what the script has allocated. It is read on the thread
+		 * itself, because the thread ends with the script.
+		 */
+		private void countCoroutineAllocations()
+		{
+			coroutineAllocatedBytes = AllocationCounter.getAllocatedBytes();
+		}
+		
+	}	// ProgressiveBuild
+	
+}	// LayoutBuilder
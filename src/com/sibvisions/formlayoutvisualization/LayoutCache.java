@@ -0,0 +1,494 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.IContainer;
+
+/**
+ * The {@link LayoutCache} keeps the results of previous builds of a
+ * {@link LayoutBuilder}, so that returning to a previously built script does
+ * not need to execute it again.
+ * <p>
+ * The results are keyed by the script and the size of the panel. They are
+ * evicted in least-recently-used order as soon as the estimated memory of all
+ * results exceeds the memory budget. The memory of a result is estimated from
+ * the number of components it contains and the length of its script, as
+ * measuring the real size of a component tree is not possible.
+ * <p>
+ * A cached result holds the very same components which have been built by the
+ * script, so it can only be displayed by one panel at a time.
+ * <p>
+ * The {@link LayoutCache} is thread-safe, so it can be shared by builders which
+ * run on different threads. Even a lookup changes the order of the results, so
+ * all accesses are synchronized on the {@link LayoutCache}.
+ * 
+ * @author Robert Zenz
+ */
+public class LayoutCache
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default memory budget, in bytes. */
+	public static final long DEFAULT_MEMORY_BUDGET = 32 * 1024 * 1024;
+	
+	/**
+	 * The estimated memory of a single component including its constraints
+	 * and anchors, in bytes.
+	 */
+	private static final long COMPONENT_MEMORY = 1536;
+	
+	/** The estimated memory of a result without any components, in bytes. */
+	private static final long RESULT_MEMORY = 1024;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The number of successful lookups. */
+	private long hitCount = 0;
+	
+	/** The memory budget, in bytes. */
+	private long memoryBudget = 0;
+	
+	/** The number of failed lookups. */
+	private long missCount = 0;
+	
+	/** The cached {@link Result}s, in least-recently-used order. */
+	private Map<Key, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+	
+	/** The estimated memory of all cached {@link Result}s, in bytes. */
+	private long usedMemory = 0;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link LayoutCache} with the
+	 * {@link #DEFAULT_MEMORY_BUDGET}.
+	 */
+	public LayoutCache()
+	{
+		this(DEFAULT_MEMORY_BUDGET);
+	}
+	
+	/**
+	 * Creates a new instance of {@link LayoutCache}.
+	 * 
+	 * @param pMemoryBudget the memory budget, in bytes.
+	 */
+	public LayoutCache(long pMemoryBudget)
+	{
+		super();
+		
+		memoryBudget = pMemoryBudget;
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Counts the given {@link IComponent}s and all their children.
+	 * 
+	 * @param pComponents the {@link IComponent}s.
+	 * @return the number of {@link IComponent}s.
+	 */
+	private static int countComponents(List<IComponent> pComponents)
+	{
+		int count = 0;
+		
+		List<IComponent> pending = new ArrayList<>(pComponents);
+		
+		while (!pending.isEmpty())
+		{
+			IComponent component = pending.remove(pending.size() - 1);
+			
+			count++;
+			
+			if (component instanceof IContainer)
+			{
+				IContainer container = (IContainer)component;
+				
+				for (int index = 0; index < container.getComponentCount(); index++)
+				{
+					pending.add(container.getComponent(index));
+				}
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Estimates the memory of a result.
+	 * 
+	 * @param pScript the script.
+	 * @param pComponents the built {@link IComponent}s.
+	 * @return the estimated memory, in bytes.
+	 */
+	private static long estimateMemory(String pScript, List<IComponent> pComponents)
+	{
+		return RESULT_MEMORY + pScript.length() * 2L + countComponents(pComponents) * COMPONENT_MEMORY;
+	}
+	
+	/**
+	 * Removes all cached {@link Result}s.
+	 */
+	public synchronized void clear()
+	{
+		results.clear();
+		usedMemory = 0;
+	}
+	
+	/**
+	 * Gets the cached {@link Result} for the given script and size.
+	 * 
+	 * @param pScript the script.
+	 * @param pWidth the width of the panel.
+	 * @param pHeight the height of the panel.
+	 * @return the cached {@link Result}, {@code null} if there is none.
+	 */
+	public synchronized Result get(String pScript, int pWidth, int pHeight)
+	{
+		Result result = results.get(new Key(pScript, pWidth, pHeight));
+		
+		if (result != null)
+		{
+			hitCount++;
+		}
+		else
+		{
+			missCount++;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Gets the number of cached {@link Result}s.
+	 * 
+	 * @return the number of cached {@link Result}s.
+	 */
+	public synchronized int getEntryCount()
+	{
+		return results.size();
+	}
+	
+	/**
+	 * Gets the number of successful lookups.
+	 * 
+	 * @return the number of successful lookups.
+	 */
+	public synchronized long getHitCount()
+	{
+		return hitCount;
+	}
+	
+	/**
+	 * Gets the memory budget.
+	 * 
+	 * @return the memory budget, in bytes.
+	 */
+	public synchronized long getMemoryBudget()
+	{
+		return memoryBudget;
+	}
+	
+	/**
+	 * Gets the number of failed lookups.
+	 * 
+	 * @return the number of failed lookups.
+	 */
+	public synchronized long getMissCount()
+	{
+		return missCount;
+	}
+	
+	/**
+	 * Gets the estimated memory of all cached {@link Result}s.
+	 * 
+	 * @return the estimated memory of all cached {@link Result}s, in bytes.
+	 */
+	public synchronized long getUsedMemory()
+	{
+		return usedMemory;
+	}
+	
+	/**
+	 * Caches the given result of a build, evicting the least recently used
+	 * {@link Result}s until the memory budget is met again.
+	 * <p>
+	 * A result which alone exceeds the memory budget is not cached.
+	 * 
+	 * @param pScript the script.
+	 * @param pWidth the width of the panel.
+	 * @param pHeight the height of the panel.
+	 * @param pLayout the built {@link UIFormLayout}.
+	 * @param pComponents the built {@link IComponent}s.
+	 * @param pConstraints the constraints of the built {@link IComponent}s.
+	 */
+	public void put(String pScript, int pWidth, int pHeight, UIFormLayout pLayout, List<IComponent> pComponents, List<Object> pConstraints)
+	{
+		Key key = new Key(pScript, pWidth, pHeight);
+		Result result = new Result(
+				pLayout,
+				new ArrayList<>(pComponents),
+				new ArrayList<>(pConstraints),
+				estimateMemory(pScript, pComponents));
+		
+		synchronized (this)
+		{
+			put(key, result);
+		}
+	}
+	
+	/**
+	 * Sets the memory budget and evicts {@link Result}s if necessary.
+	 * 
+	 * @param pMemoryBudget the memory budget, in bytes.
+	 */
+	public synchronized void setMemoryBudget(long pMemoryBudget)
+	{
+		memoryBudget = pMemoryBudget;
+		
+		evict();
+	}
+	
+	/**
+	 * Evicts the least recently used {@link Result}s until the memory budget
+	 * is met, must be called while holding the lock.
+	 */
+	private void evict()
+	{
+		Iterator<Result> iterator = results.values().iterator();
+		
+		while (usedMemory > memoryBudget)
+		{
+			usedMemory = usedMemory - iterator.next().getMemory();
+			iterator.remove();
+		}
+	}
+	
+	/**
+	 * Caches the given {@link Result}, must be called while holding the lock.
+	 * 
+	 * @param pKey the {@link Key}.
+	 * @param pResult the {@link Result}.
+	 */
+	private void put(Key pKey, Result pResult)
+	{
+		Result previousResult = results.remove(pKey);
+		
+		if (previousResult != null)
+		{
+			usedMemory = usedMemory - previousResult.getMemory();
+		}
+		
+		if (pResult.getMemory() > memoryBudget)
+		{
+			return;
+		}
+		
+		results.put(pKey, pResult);
+		usedMemory = usedMemory + pResult.getMemory();
+		
+		evict();
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link Key} is the key of a cached {@link Result}, the script and
+	 * the size of the panel.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class Key
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The height of the panel. */
+		private int height = 0;
+		
+		/** The script. */
+		private String script = null;
+		
+		/** The width of the panel. */
+		private int width = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link Key}.
+		 * 
+		 * @param pScript the script.
+		 * @param pWidth the width of the panel.
+		 * @param pHeight the height of the panel.
+		 */
+		private Key(String pScript, int pWidth, int pHeight)
+		{
+			super();
+			
+			script = pScript;
+			width = pWidth;
+			height = pHeight;
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Overwritten methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object pObject)
+		{
+			if (!(pObject instanceof Key))
+			{
+				return false;
+			}
+			
+			Key key = (Key)pObject;
+			
+			return width == key.width
+					&& height == key.height
+					&& script.equals(key.script);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode()
+		{
+			return (script.hashCode() * 31 + width) * 31 + height;
+		}
+		
+	}	// Key
+	
+	/**
+	 * The {@link Result} is a cached result of a build.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public static final class Result
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The built {@link IComponent}s. */
+		private List<IComponent> components = null;
+		
+		/** The constraints of the built {@link IComponent}s. */
+		private List<Object> constraints = null;
+		
+		/** The built {@link UIFormLayout}. */
+		private UIFormLayout layout = null;
+		
+		/** The estimated memory, in bytes. */
+		private long memory = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link Result}.
+		 * 
+		 * @param pLayout the built {@link UIFormLayout}.
+		 * @param pComponents the built {@link IComponent}s.
+		 * @param pConstraints the constraints of the built {@link IComponent}s.
+		 * @param pMemory the estimated memory, in bytes.
+		 */
+		private Result(UIFormLayout pLayout, List<IComponent> pComponents, List<Object> pConstraints, long pMemory)
+		{
+			super();
+			
+			layout = pLayout;
+			components = Collections.unmodifiableList(pComponents);
+			constraints = Collections.unmodifiableList(pConstraints);
+			memory = pMemory;
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Gets the built {@link IComponent}s.
+		 * 
+		 * @return the built {@link IComponent}s.
+		 */
+		public List<IComponent> getComponents()
+		{
+			return components;
+		}
+		
+		/**
+		 * Gets the constraints of the built {@link IComponent}s, in the same
+		 * order as the {@link IComponent}s.
+		 * 
+		 * @return the constraints of the built {@link IComponent}s.
+		 */
+		public List<Object> getConstraints()
+		{
+			return constraints;
+		}
+		
+		/**
+		 * Gets the built {@link UIFormLayout}.
+		 * 
+		 * @return the built {@link UIFormLayout}.
+		 */
+		public UIFormLayout getLayout()
+		{
+			return layout;
+		}
+		
+		/**
+		 * Gets the estimated memory.
+		 * 
+		 * @return the estimated memory, in bytes.
+		 */
+		public long getMemory()
+		{
+			return memory;
+		}
+		
+	}	// Result
+	
+}	// LayoutCache
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+
+/**
+ * The {@link LayoutComplexity} is a static analysis of the {@link IAnchor}s of
+ * an {@link UIFormLayout}, which shows which constraints make a layout
+ * expensive.
+ * <p>
+ * For every {@link IAnchor} which is used by the constraints, and for all
+ * {@link IAnchor}s they are related to, the following is calculated:
+ * <ul>
+ * <li>the chain depth, the count of related anchors until a border anchor is
+ * reached. The {@link UIFormLayout} resolves the position of an anchor along
+ * this chain.</li>
+ * <li>the fan-out, the count of anchors which are directly related to the
+ * anchor. All of them move if the anchor moves.</li>
+ * <li>the autosize count, the count of autosize anchors in the chain,
+ * including the anchor itself. Every autosize anchor needs to be calculated
+ * from the preferred sizes of the components.</li>
+ * </ul>
+ * The score of an anchor is the sum of these three values, the
+ * {@value #WORST_ANCHOR_COUNT} anchors with the highest score are the worst
+ * offenders. Border and margin anchors are never one of the worst offenders,
+ * as every layout has them.
+ * <p>
+ * The analysis only uses the {@link IAnchor}s, it does not lay out anything.
+ * 
+ * @author Robert Zenz
+ */
+public class LayoutComplexity
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The count of anchors which are the worst offenders. */
+	public static final int WORST_ANCHOR_COUNT = 5;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The indices of the anchors, by their resource. */
+	private Map<Object, Integer> anchorIndices = new IdentityHashMap<>();
+	
+	/** All anchors, the used ones and the ones they are related to. */
+	private List<IAnchor> anchors = new ArrayList<>();
+	
+	/** The autosize count of every anchor. */
+	private int[] autoSizeCounts = null;
+	
+	/** The chain depth of every anchor. */
+	private int[] chainDepths = null;
+	
+	/** The fan-out of every anchor. */
+	private int[] fanOuts = null;
+	
+	/** The count of anchors which are used by the constraints. */
+	private int usedAnchorCount = 0;
+	
+	/** The worst offenders, the anchor with the highest score first. */
+	private List<IAnchor> worstAnchors = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link LayoutComplexity}.
+	 * <p>
+	 * The {@link IAnchor}s which are used by the constraints of the components
+	 * at this time are analyzed.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} to analyze.
+	 */
+	public LayoutComplexity(UIFormLayout pLayout)
+	{
+		super();
+		
+		IAnchor[] horizontalAnchors = pLayout.getHorizontalAnchors();
+		IAnchor[] verticalAnchors = pLayout.getVerticalAnchors();
+		
+		for (IAnchor anchor : horizontalAnchors)
+		{
+			addAnchor(anchor);
+		}
+		for (IAnchor anchor : verticalAnchors)
+		{
+			addAnchor(anchor);
+		}
+		
+		usedAnchorCount = anchors.size();
+		
+		// The anchors they are related to, which grows the list while
+		// iterating over it.
+		for (int index = 0; index < anchors.size(); index++)
+		{
+			IAnchor relatedAnchor = anchors.get(index).getRelatedAnchor();
+			
+			if (relatedAnchor != null)
+			{
+				addAnchor(relatedAnchor);
+			}
+		}
+		
+		int[] related = new int[anchors.size()];
+		
+		for (int index = 0; index < anchors.size(); index++)
+		{
+			related[index] = indexOf(anchors.get(index).getRelatedAnchor());
+		}
+		
+		calculateChains(related);
+		
+		fanOuts = new int[anchors.size()];
+		
+		for (int index = 0; index < related.length; index++)
+		{
+			if (related[index] >= 0)
+			{
+				fanOuts[related[index]]++;
+			}
+		}
+		
+		findWorstAnchors(pLayout);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets whether the given {@link IAnchor} has been analyzed.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return {@code true} if the {@link IAnchor} is used by the constraints
+	 *         or related to an {@link IAnchor} which is.
+	 */
+	public boolean contains(IAnchor pAnchor)
+	{
+		return indexOf(pAnchor) >= 0;
+	}
+	
+	/**
+	 * Gets the count of autosize anchors which are used by the constraints.
+	 * 
+	 * @return the count of autosize anchors which are used by the constraints.
+	 */
+	public int getAutoSizeAnchorCount()
+	{
+		int count = 0;
+		
+		for (int index = 0; index < usedAnchorCount; index++)
+		{
+			if (anchors.get(index).isAutoSize())
+			{
+				count++;
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Gets the count of autosize anchors in the chain of the given
+	 * {@link IAnchor}, including the {@link IAnchor} itself.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the count of autosize anchors in the chain, {@code 0} if the
+	 *         {@link IAnchor} has not been analyzed.
+	 */
+	public int getAutoSizeCount(IAnchor pAnchor)
+	{
+		int index = indexOf(pAnchor);
+		
+		if (index < 0)
+		{
+			return 0;
+		}
+		
+		return autoSizeCounts[index];
+	}
+	
+	/**
+	 * Gets the chain depth of the given {@link IAnchor}, the count of related
+	 * anchors until a border anchor is reached.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the chain depth, {@code 0} for a border anchor or if the
+	 *         {@link IAnchor} has not been analyzed.
+	 */
+	public int getChainDepth(IAnchor pAnchor)
+	{
+		int index = indexOf(pAnchor);
+		
+		if (index < 0)
+		{
+			return 0;
+		}
+		
+		return chainDepths[index];
+	}
+	
+	/**
+	 * Gets the fan-out of the given {@link IAnchor}, the count of anchors
+	 * which are directly related to it.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the fan-out, {@code 0} if the {@link IAnchor} has not been
+	 *         analyzed.
+	 */
+	public int getFanOut(IAnchor pAnchor)
+	{
+		int index = indexOf(pAnchor);
+		
+		if (index < 0)
+		{
+			return 0;
+		}
+		
+		return fanOuts[index];
+	}
+	
+	/**
+	 * Gets the highest chain depth of all anchors.
+	 * 
+	 * @return the highest chain depth.
+	 */
+	public int getMaximumChainDepth()
+	{
+		int maximum = 0;
+		
+		for (int chainDepth : chainDepths)
+		{
+			maximum = Math.max(maximum, chainDepth);
+		}
+		
+		return maximum;
+	}
+	
+	/**
+	 * Gets the score of the given {@link IAnchor}, the sum of its chain depth,
+	 * fan-out and autosize count.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the score, {@code 0} if the {@link IAnchor} has not been
+	 *         analyzed.
+	 */
+	public int getScore(IAnchor pAnchor)
+	{
+		int index = indexOf(pAnchor);
+		
+		if (index < 0)
+		{
+			return 0;
+		}
+		
+		return getScore(index);
+	}
+	
+	/**
+	 * Gets the count of anchors which are used by the constraints.
+	 * 
+	 * @return the count of anchors which are used by the constraints.
+	 */
+	public int getUsedAnchorCount()
+	{
+		return usedAnchorCount;
+	}
+	
+	/**
+	 * Gets the worst offenders, the anchors with the highest score.
+	 * 
+	 * @return the worst offenders, the anchor with the highest score first.
+	 */
+	public List<IAnchor> getWorstAnchors()
+	{
+		return worstAnchors;
+	}
+	
+	/**
+	 * Gets whether the given {@link IAnchor} is one of the worst offenders.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return {@code true} if the {@link IAnchor} is one of the worst
+	 *         offenders.
+	 */
+	public boolean isWorstAnchor(IAnchor pAnchor)
+	{
+		for (IAnchor anchor : worstAnchors)
+		{
+			if (anchor.getResource() == pAnchor.getResource())
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Adds the given {@link IAnchor} if it has not been added yet.
+	 * 
+	 * @param pAnchor the {@link IAnchor} to add.
+	 */
+	private void addAnchor(IAnchor pAnchor)
+	{
+		if (!anchorIndices.containsKey(pAnchor.getResource()))
+		{
+			anchorIndices.put(pAnchor.getResource(), Integer.valueOf(anchors.size()));
+			anchors.add(pAnchor);
+		}
+	}
+	
+	/**
+	 * Calculates the chain depth and the autosize count of all anchors.
+	 * <p>
+	 * The chains are walked iteratively, because they can be longer than the
+	 * stack allows, and every anchor is only calculated once.
+	 * 
+	 * @param pRelated the index of the related anchor of every anchor,
+	 *            {@code -1} for border anchors.
+	 */
+	private void calculateChains(int[] pRelated)
+	{
+		chainDepths = new int[anchors.size()];
+		autoSizeCounts = new int[anchors.size()];
+		
+		boolean[] calculated = new boolean[anchors.size()];
+		int[] chain = new int[anchors.size()];
+		
+		for (int index = 0; index < anchors.size(); index++)
+		{
+			int chainLength = 0;
+			int current = index;
+			
+			// Up to the first anchor which is already calculated or the
+			// border anchor.
+			while (current >= 0 && !calculated[current])
+			{
+				chain[chainLength++] = current;
+				current = pRelated[current];
+			}
+			
+			// And back down again.
+			for (int chainIndex = chainLength - 1; chainIndex >= 0; chainIndex--)
+			{
+				int anchor = chain[chainIndex];
+				int relatedAnchor = pRelated[anchor];
+				
+				if (relatedAnchor >= 0)
+				{
+					chainDepths[anchor] = chainDepths[relatedAnchor] + 1;
+					autoSizeCounts[anchor] = autoSizeCounts[relatedAnchor];
+				}
+				
+				if (anchors.get(anchor).isAutoSize())
+				{
+					autoSizeCounts[anchor]++;
+				}
+				
+				calculated[anchor] = true;
+			}
+		}
+	}
+	
+	/**
+	 * Finds the {@link #WORST_ANCHOR_COUNT} worst offenders among the anchors
+	 * which are used by the constraints.
+	 * 
+	 * @param pLayout the {@link UIFormLayout}.
+	 */
+	private void findWorstAnchors(UIFormLayout pLayout)
+	{
+		List<Integer> candidates = new ArrayList<>();
+		
+		for (int index = 0; index < usedAnchorCount; index++)
+		{
+			IAnchor anchor = anchors.get(index);
+			
+			if (anchor.getRelatedAnchor() != null
+					&& anchor != pLayout.getLeftMarginAnchor()
+					&& anchor != pLayout.getRightMarginAnchor()
+					&& anchor != pLayout.getTopMarginAnchor()
+					&& anchor != pLayout.getBottomMarginAnchor())
+			{
+				candidates.add(Integer.valueOf(index));
+			}
+		}
+		
+		// The highest score first, the deeper chain if equal.
+		candidates.sort((pFirst, pSecond) ->
+		{
+			int result = Integer.compare(getScore(pSecond.intValue()), getScore(pFirst.intValue()));
+			
+			if (result == 0)
+			{
+				result = Integer.compare(chainDepths[pSecond.intValue()], chainDepths[pFirst.intValue()]);
+			}
+			
+			return result;
+		});
+		
+		List<IAnchor> worst = new ArrayList<>();
+		
+		for (int index = 0; index < candidates.size() && index < WORST_ANCHOR_COUNT; index++)
+		{
+			worst.add(anchors.get(candidates.get(index).intValue()));
+		}
+		
+		worstAnchors = Collections.unmodifiableList(worst);
+	}
+	
+	/**
+	 * Gets the score of the anchor with the given index.
+	 * 
+	 * @param pIndex the index of the anchor.
+	 * @return the score.
+	 */
+	private int getScore(int pIndex)
+	{
+		return chainDepths[pIndex] + fanOuts[pIndex] + autoSizeCounts[pIndex];
+	}
+	
+	/**
+	 * Gets the index of the given {@link IAnchor}.
+	 * 
+	 * @param pAnchor the {@link IAnchor}, can be {@code null}.
+	 * @return the index, {@code -1} if the {@link IAnchor} is {@code null} or
+	 *         has not been analyzed.
+	 */
+	private int indexOf(IAnchor pAnchor)
+	{
+		if (pAnchor == null)
+		{
+			return -1;
+		}
+		
+		Integer index = anchorIndices.get(pAnchor.getResource());
+		
+		if (index == null)
+		{
+			return -1;
+		}
+		
+		return index.intValue();
+	}
+	
+}	// LayoutComplexity
@@ -0,0 +1,551 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+import javax.rad.ui.layout.IFormLayout.IConstraints;
+
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout.Anchor;
+
+/**
+ * The {@link LayoutConsistency} is a static check of the {@link IAnchor}s of an
+ * {@link UIFormLayout} and the constraints of its components, which finds the
+ * problems that make solving the layout fail, never end or produce garbage.
+ * <p>
+ * The following problems are found:
+ * <ul>
+ * <li>cycles, an {@link IAnchor} which is related to itself through other
+ * {@link IAnchor}s. Resolving its position never ends.</li>
+ * <li>{@link IAnchor}s which are not related to a border {@link IAnchor}, so
+ * they have no position at all.</li>
+ * <li>{@link IAnchor}s which are related to an {@link IAnchor} of another
+ * orientation or of another layout, and constraints which use such
+ * {@link IAnchor}s.</li>
+ * <li>constraints with a negative size, where the end {@link IAnchor} is
+ * before the start {@link IAnchor} by a fixed distance.</li>
+ * </ul>
+ * The {@link UIFormLayout} itself rejects most of these when they are created,
+ * but not all of them, and not every version does.
+ * <p>
+ * Every {@link IAnchor} is visited once, the check only uses the
+ * {@link IAnchor}s and does not lay out anything.
+ * 
+ * @author Robert Zenz
+ */
+public class LayoutConsistency
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The maximum count of problems which are described. */
+	public static final int MAXIMUM_PROBLEMS = 10;
+	
+	/** The state of an anchor whose chain has a problem. */
+	private static final int STATE_INVALID = 3;
+	
+	/** The state of an anchor which has not been visited yet. */
+	private static final int STATE_UNVISITED = 0;
+	
+	/** The state of an anchor which is related to a border anchor. */
+	private static final int STATE_VALID = 2;
+	
+	/** The state of an anchor which is on the chain that is walked. */
+	private static final int STATE_VISITING = 1;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The indices of the anchors, by their resource. */
+	private Map<Object, Integer> anchorIndices = new IdentityHashMap<>();
+	
+	/** The function which gets the name of an anchor. */
+	private Function<IAnchor, String> anchorNames = null;
+	
+	/** All anchors, the used ones and the ones they are related to. */
+	private List<IAnchor> anchors = new ArrayList<>();
+	
+	/** The checked {@link UIFormLayout}. */
+	private UIFormLayout layout = null;
+	
+	/** The count of all problems, also the ones which are not described. */
+	private int problemCount = 0;
+	
+	/** The descriptions of the first {@value #MAXIMUM_PROBLEMS} problems. */
+	private List<String> problems = new ArrayList<>();
+	
+	/** The state of every anchor. */
+	private int[] states = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link LayoutConsistency}.
+	 * <p>
+	 * The {@link IAnchor}s of the layout and the given constraints are checked
+	 * at this time.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} to check.
+	 * @param pComponents the components.
+	 * @param pConstraints the constraints of the components, {@code null} or
+	 *            any other object than {@link IConstraints} for the ones which
+	 *            the layout derives itself.
+	 * @param pAnchorNames the function which gets the name of an
+	 *            {@link IAnchor} for the descriptions of the problems.
+	 */
+	public LayoutConsistency(UIFormLayout pLayout, List<IComponent> pComponents, List<Object> pConstraints, Function<IAnchor, String> pAnchorNames)
+	{
+		super();
+		
+		layout = pLayout;
+		anchorNames = pAnchorNames;
+		
+		for (IAnchor anchor : pLayout.getHorizontalAnchors())
+		{
+			addAnchor(anchor);
+		}
+		for (IAnchor anchor : pLayout.getVerticalAnchors())
+		{
+			addAnchor(anchor);
+		}
+		for (Object constraints : pConstraints)
+		{
+			if (constraints instanceof IConstraints)
+			{
+				addAnchor(((IConstraints)constraints).getTopAnchor());
+				addAnchor(((IConstraints)constraints).getLeftAnchor());
+				addAnchor(((IConstraints)constraints).getBottomAnchor());
+				addAnchor(((IConstraints)constraints).getRightAnchor());
+			}
+		}
+		
+		// The anchors they are related to are added while walking the chains,
+		// which grows the list while iterating over it.
+		states = new int[anchors.size()];
+		
+		for (int index = 0; index < anchors.size(); index++)
+		{
+			checkChain(index);
+		}
+		
+		for (int index = 0; index < pConstraints.size(); index++)
+		{
+			if (pConstraints.get(index) instanceof IConstraints)
+			{
+				checkConstraints(pComponents.get(index), (IConstraints)pConstraints.get(index));
+			}
+		}
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder text = new StringBuilder();
+		
+		for (String problem : problems)
+		{
+			if (text.length() > 0)
+			{
+				text.append('\n');
+			}
+			
+			text.append(problem);
+		}
+		
+		if (problemCount > problems.size())
+		{
+			text.append(String.format("\n...and %d more.", Integer.valueOf(problemCount - problems.size())));
+		}
+		
+		return text.toString();
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the count of all problems which have been found, also the ones
+	 * which are not described.
+	 * 
+	 * @return the count of all problems.
+	 */
+	public int getProblemCount()
+	{
+		return problemCount;
+	}
+	
+	/**
+	 * Gets the descriptions of the first {@value #MAXIMUM_PROBLEMS} problems
+	 * which have been found.
+	 * 
+	 * @return the descriptions of the problems, empty if there are none.
+	 */
+	public List<String> getProblems()
+	{
+		return Collections.unmodifiableList(problems);
+	}
+	
+	/**
+	 * Gets whether the layout is consistent, and can be solved.
+	 * 
+	 * @return {@code true} if no problem has been found.
+	 */
+	public boolean isConsistent()
+	{
+		return problemCount == 0;
+	}
+	
+	/**
+	 * Adds the given {@link IAnchor} if it has not been added yet.
+	 * 
+	 * @param pAnchor the {@link IAnchor} to add, can be {@code null}.
+	 * @return the index of the {@link IAnchor}, {@code -1} if it is
+	 *         {@code null}.
+	 */
+	private int addAnchor(IAnchor pAnchor)
+	{
+		if (pAnchor == null)
+		{
+			return -1;
+		}
+		
+		Integer index = anchorIndices.get(pAnchor.getResource());
+		
+		if (index == null)
+		{
+			index = Integer.valueOf(anchors.size());
+			
+			anchorIndices.put(pAnchor.getResource(), index);
+			anchors.add(pAnchor);
+			
+			if (states != null && states.length < anchors.size())
+			{
+				states = Arrays.copyOf(states, Math.max(anchors.size(), states.length * 2));
+			}
+		}
+		
+		return index.intValue();
+	}
+	
+	/**
+	 * Adds a problem, its description is only created if it is one of the
+	 * first {@value #MAXIMUM_PROBLEMS}.
+	 * 
+	 * @param pFormat the format of the description.
+	 * @param pArguments the arguments of the format, {@link IAnchor}s are
+	 *            replaced with their name.
+	 */
+	private void addProblem(String pFormat, Object... pArguments)
+	{
+		problemCount++;
+		
+		if (problems.size() < MAXIMUM_PROBLEMS)
+		{
+			for (int index = 0; index < pArguments.length; index++)
+			{
+				if (pArguments[index] instanceof IAnchor)
+				{
+					pArguments[index] = getName((IAnchor)pArguments[index]);
+				}
+			}
+			
+			problems.add(String.format(pFormat, pArguments));
+		}
+	}
+	
+	/**
+	 * Checks the chain of related anchors of the anchor with the given index,
+	 * up to the first anchor which has already been checked.
+	 * <p>
+	 * The chain is walked iteratively, because it can be longer than the
+	 * stack allows. Every anchor on the chain gets the state of the end of the
+	 * chain, so every anchor is only walked once.
+	 * 
+	 * @param pIndex the index of the anchor.
+	 */
+	private void checkChain(int pIndex)
+	{
+		List<Integer> chain = new ArrayList<>();
+		
+		int index = pIndex;
+		int state = STATE_VALID;
+		boolean ended = false;
+		
+		while (!ended && states[index] == STATE_UNVISITED)
+		{
+			states[index] = STATE_VISITING;
+			chain.add(Integer.valueOf(index));
+			
+			IAnchor anchor = anchors.get(index);
+			IAnchor relatedAnchor = anchor.getRelatedAnchor();
+			
+			if (relatedAnchor == null)
+			{
+				if (!((Anchor)anchor.getResource()).isBorderAnchor())
+				{
+					addProblem("%s is not related to a border anchor.", anchor);
+					
+					state = STATE_INVALID;
+				}
+				
+				ended = true;
+			}
+			else if (getLayout(relatedAnchor) != getLayout(anchor))
+			{
+				addProblem("%s is related to %s of another layout.", anchor, relatedAnchor);
+				
+				state = STATE_INVALID;
+				ended = true;
+			}
+			else if (relatedAnchor.getOrientation() != anchor.getOrientation())
+			{
+				addProblem("%s is related to %s of the other orientation.", anchor, relatedAnchor);
+				
+				state = STATE_INVALID;
+				ended = true;
+			}
+			else
+			{
+				index = addAnchor(relatedAnchor);
+			}
+		}
+		
+		if (!ended)
+		{
+			if (states[index] == STATE_VISITING)
+			{
+				// The chain has reached one of its own anchors.
+				StringBuilder cycle = new StringBuilder();
+				
+				for (int position = chain.indexOf(Integer.valueOf(index)); position < chain.size(); position++)
+				{
+					cycle.append(getName(anchors.get(chain.get(position).intValue()))).append(" -> ");
+				}
+				
+				cycle.append(getName(anchors.get(index)));
+				
+				addProblem("The anchors have a cycle: %s.", cycle);
+				
+				state = STATE_INVALID;
+			}
+			else
+			{
+				state = states[index];
+			}
+		}
+		
+		for (Integer anchor : chain)
+		{
+			states[anchor.intValue()] = state;
+		}
+	}
+	
+	/**
+	 * Checks the given constraints.
+	 * 
+	 * @param pComponent the component of the constraints.
+	 * @param pConstraints the constraints.
+	 */
+	private void checkConstraints(IComponent pComponent, IConstraints pConstraints)
+	{
+		IAnchor top = pConstraints.getTopAnchor();
+		IAnchor left = pConstraints.getLeftAnchor();
+		IAnchor bottom = pConstraints.getBottomAnchor();
+		IAnchor right = pConstraints.getRightAnchor();
+		
+		boolean valid = checkConstraintAnchor(pComponent, top, "top", IAnchor.VERTICAL);
+		valid = checkConstraintAnchor(pComponent, left, "left", IAnchor.HORIZONTAL) && valid;
+		valid = checkConstraintAnchor(pComponent, bottom, "bottom", IAnchor.VERTICAL) && valid;
+		valid = checkConstraintAnchor(pComponent, right, "right", IAnchor.HORIZONTAL) && valid;
+		
+		if (valid)
+		{
+			checkSize(pComponent, left, right, "width");
+			checkSize(pComponent, top, bottom, "height");
+		}
+	}
+	
+	/**
+	 * Checks the given {@link IAnchor} of a constraint.
+	 * 
+	 * @param pComponent the component of the constraint.
+	 * @param pAnchor the {@link IAnchor}, can be {@code null}.
+	 * @param pSide the side of the constraint for the description.
+	 * @param pOrientation the orientation which the {@link IAnchor} must
+	 *            have.
+	 * @return {@code true} if the {@link IAnchor} is {@code null} or valid.
+	 */
+	private boolean checkConstraintAnchor(IComponent pComponent, IAnchor pAnchor, String pSide, int pOrientation)
+	{
+		if (pAnchor == null)
+		{
+			return true;
+		}
+		
+		if (getLayout(pAnchor) != layout.getResource())
+		{
+			addProblem("The %s anchor of the %s belongs to another layout.", pSide, getName(pComponent));
+			
+			return false;
+		}
+		else if (pAnchor.getOrientation() != pOrientation)
+		{
+			addProblem("The %s anchor %s of the %s has the wrong orientation.", pSide, pAnchor, getName(pComponent));
+			
+			return false;
+		}
+		
+		return states[anchorIndices.get(pAnchor.getResource()).intValue()] == STATE_VALID;
+	}
+	
+	/**
+	 * Checks that the end {@link IAnchor} is not before the start
+	 * {@link IAnchor} by a fixed distance.
+	 * <p>
+	 * This can only be decided if one of them is related to the other one
+	 * through anchors which are not autosized, otherwise the distance depends
+	 * on the components or the size of the container.
+	 * 
+	 * @param pComponent the component of the constraints.
+	 * @param pStart the start {@link IAnchor}, can be {@code null}.
+	 * @param pEnd the end {@link IAnchor}, can be {@code null}.
+	 * @param pDimension the dimension for the description.
+	 */
+	private void checkSize(IComponent pComponent, IAnchor pStart, IAnchor pEnd, String pDimension)
+	{
+		if (pStart == null || pEnd == null || pStart.getResource() == pEnd.getResource())
+		{
+			return;
+		}
+		
+		Integer distance = getFixedDistance(pStart, pEnd);
+		
+		if (distance == null)
+		{
+			distance = getFixedDistance(pEnd, pStart);
+			
+			if (distance != null)
+			{
+				distance = Integer.valueOf(-distance.intValue());
+			}
+		}
+		
+		if (distance != null && distance.intValue() < 0)
+		{
+			addProblem("The %s has a negative %s, %s is %d pixels before %s.", getName(pComponent), pDimension, pEnd, Integer.valueOf(-distance.intValue()), pStart);
+		}
+	}
+	
+	/**
+	 * Gets the fixed distance from the given ancestor {@link IAnchor} to the
+	 * given {@link IAnchor}.
+	 * 
+	 * @param pAncestor the ancestor {@link IAnchor}.
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the distance, {@code null} if the {@link IAnchor} is not related
+	 *         to the ancestor or an autosized anchor is between them.
+	 */
+	private static Integer getFixedDistance(IAnchor pAncestor, IAnchor pAnchor)
+	{
+		int distance = 0;
+		
+		for (IAnchor anchor = pAnchor; anchor != null && !anchor.isAutoSize(); anchor = anchor.getRelatedAnchor())
+		{
+			if (anchor.getResource() == pAncestor.getResource())
+			{
+				return Integer.valueOf(distance);
+			}
+			
+			distance = distance + anchor.getPosition();
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the layout to which the given {@link IAnchor} belongs.
+	 * <p>
+	 * The {@link IAnchor}s of constraints report the layout which created the
+	 * constraints, not the one to which they belong, so the layout of the
+	 * resource is used.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the resource of the layout.
+	 */
+	private static Object getLayout(IAnchor pAnchor)
+	{
+		return ((Anchor)pAnchor.getResource()).getLayout();
+	}
+	
+	/**
+	 * Gets the name of the given {@link IAnchor}.
+	 * 
+	 * @param pAnchor the {@link IAnchor}.
+	 * @return the name with the position, {@code "an anchor"} if the
+	 *         {@link IAnchor} belongs to another layout.
+	 */
+	private String getName(IAnchor pAnchor)
+	{
+		if (getLayout(pAnchor) != layout.getResource())
+		{
+			return "an anchor";
+		}
+		
+		return "\"" + anchorNames.apply(pAnchor) + "\" (position " + pAnchor.getPosition() + ")";
+	}
+	
+	/**
+	 * Gets the name of the given component.
+	 * 
+	 * @param pComponent the component.
+	 * @return the name, with the line of the script which added it, if it is
+	 *         known.
+	 */
+	private static String getName(IComponent pComponent)
+	{
+		int line = LayoutBuilder.getScriptLine(pComponent);
+		
+		if (line >= 0)
+		{
+			return "component of line " + line;
+		}
+		
+		return "component " + pComponent.getClass().getSimpleName();
+	}
+	
+}	// LayoutConsistency
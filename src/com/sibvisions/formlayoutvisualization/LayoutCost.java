@@ -0,0 +1,275 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.rad.ui.IComponent;
+
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout;
+
+/**
+ * The {@link LayoutCost} attributes the cost of laying out an
+ * {@link AnchorShowingPanel} to its components.
+ * <p>
+ * While laying out the container, the {@link JVxFormLayout} asks every visible
+ * component for its preferred, minimum and maximum size. Swing provides no
+ * way to intercept these calls during the layout itself, so the same calls
+ * are made again for every component, in the state the layout leaves them in,
+ * and timed. The calls are repeated, the components are interleaved in every
+ * repetition so that a warming up JVM does not favor the last ones.
+ * <p>
+ * The first calls are not timed, they fill the caches of the sizes, which
+ * containers keep while they are valid, and load the classes. So the cost is
+ * the one of a layout pass in which nothing has changed.
+ * <p>
+ * This must be called on the thread which owns the components.
+ * 
+ * @author Robert Zenz
+ */
+public class LayoutCost
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default count of repetitions. */
+	public static final int DEFAULT_REPETITIONS = 20;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The measured components. */
+	private List<IComponent> components = null;
+	
+	/** The indices of the {@link #components}. */
+	private Map<IComponent, Integer> indices = new IdentityHashMap<>();
+	
+	/** The time of all maximum size calls of every component, in nanoseconds. */
+	private long[] maximumSizeTimes = null;
+	
+	/** The highest total time of a single component, in nanoseconds. */
+	private long maximumTotalTime = 0;
+	
+	/** The time of all minimum size calls of every component, in nanoseconds. */
+	private long[] minimumSizeTimes = null;
+	
+	/** The time of all preferred size calls of every component, in nanoseconds. */
+	private long[] preferredSizeTimes = null;
+	
+	/** The count of repetitions. */
+	private int repetitions = 0;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link LayoutCost} and measures the visible
+	 * components of the given {@link AnchorShowingPanel}.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel} to measure.
+	 * @param pRepetitions how often the calls are repeated.
+	 */
+	public LayoutCost(AnchorShowingPanel pPanel, int pRepetitions)
+	{
+		super();
+		
+		repetitions = Math.max(1, pRepetitions);
+		
+		List<IComponent> visibleComponents = new ArrayList<>();
+		
+		for (IComponent component : pPanel.getRealComponents())
+		{
+			if (component.isVisible())
+			{
+				indices.put(component, Integer.valueOf(visibleComponents.size()));
+				visibleComponents.add(component);
+			}
+		}
+		
+		components = Collections.unmodifiableList(visibleComponents);
+		
+		preferredSizeTimes = new long[components.size()];
+		minimumSizeTimes = new long[components.size()];
+		maximumSizeTimes = new long[components.size()];
+		
+		measure();
+		
+		for (int index = 0; index < components.size(); index++)
+		{
+			maximumTotalTime = Math.max(maximumTotalTime, getTotalTime(index));
+		}
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the measured components, these are the visible components of the
+	 * panel.
+	 * 
+	 * @return the measured components.
+	 */
+	public List<IComponent> getComponents()
+	{
+		return components;
+	}
+	
+	/**
+	 * Gets the heat of the component with the given index, its total time
+	 * relative to the most expensive component.
+	 * 
+	 * @param pIndex the index of the component.
+	 * @return the heat, between {@code 0} and {@code 1}.
+	 */
+	public double getHeat(int pIndex)
+	{
+		if (maximumTotalTime == 0)
+		{
+			return 0;
+		}
+		
+		return (double)getTotalTime(pIndex) / maximumTotalTime;
+	}
+	
+	/**
+	 * Gets the mean time of a maximum size call of the component with the
+	 * given index.
+	 * 
+	 * @param pIndex the index of the component.
+	 * @return the mean time of a call, in nanoseconds.
+	 */
+	public long getMaximumSizeTime(int pIndex)
+	{
+		return maximumSizeTimes[pIndex] / repetitions;
+	}
+	
+	/**
+	 * Gets the mean time of a minimum size call of the component with the
+	 * given index.
+	 * 
+	 * @param pIndex the index of the component.
+	 * @return the mean time of a call, in nanoseconds.
+	 */
+	public long getMinimumSizeTime(int pIndex)
+	{
+		return minimumSizeTimes[pIndex] / repetitions;
+	}
+	
+	/**
+	 * Gets the mean time of a preferred size call of the component with the
+	 * given index.
+	 * 
+	 * @param pIndex the index of the component.
+	 * @return the mean time of a call, in nanoseconds.
+	 */
+	public long getPreferredSizeTime(int pIndex)
+	{
+		return preferredSizeTimes[pIndex] / repetitions;
+	}
+	
+	/**
+	 * Gets the count of repetitions.
+	 * 
+	 * @return the count of repetitions.
+	 */
+	public int getRepetitions()
+	{
+		return repetitions;
+	}
+	
+	/**
+	 * Gets the mean time of all size calls of the component with the given
+	 * index, which is its cost in a single layout pass.
+	 * 
+	 * @param pIndex the index of the component.
+	 * @return the mean time of all calls, in nanoseconds.
+	 */
+	public long getTotalTime(int pIndex)
+	{
+		return getPreferredSizeTime(pIndex) + getMinimumSizeTime(pIndex) + getMaximumSizeTime(pIndex);
+	}
+	
+	/**
+	 * Gets the index of the given {@link IComponent}.
+	 * 
+	 * @param pComponent the {@link IComponent}.
+	 * @return the index, {@code -1} if the {@link IComponent} has not been
+	 *         measured.
+	 */
+	public int indexOf(IComponent pComponent)
+	{
+		Integer index = indices.get(pComponent);
+		
+		if (index == null)
+		{
+			return -1;
+		}
+		
+		return index.intValue();
+	}
+	
+	/**
+	 * Measures the size calls of all components.
+	 */
+	private void measure()
+	{
+		Component[] resources = new Component[components.size()];
+		
+		for (int index = 0; index < resources.length; index++)
+		{
+			resources[index] = (Component)components.get(index).getResource();
+		}
+		
+		// One pass which is not timed.
+		for (Component resource : resources)
+		{
+			resource.getPreferredSize();
+			resource.getMinimumSize();
+			resource.getMaximumSize();
+		}
+		
+		for (int repetition = 0; repetition < repetitions; repetition++)
+		{
+			for (int index = 0; index < resources.length; index++)
+			{
+				Component resource = resources[index];
+				
+				long start = System.nanoTime();
+				resource.getPreferredSize();
+				long preferredEnd = System.nanoTime();
+				resource.getMinimumSize();
+				long minimumEnd = System.nanoTime();
+				resource.getMaximumSize();
+				long maximumEnd = System.nanoTime();
+				
+				preferredSizeTimes[index] += preferredEnd - start;
+				minimumSizeTimes[index] += minimumEnd - preferredEnd;
+				maximumSizeTimes[index] += maximumEnd - minimumEnd;
+			}
+		}
+	}
+	
+}	// LayoutCost
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+import javax.rad.genui.UIColor;
+import javax.rad.genui.component.UILabel;
+import javax.rad.genui.container.UIFrame;
+import javax.rad.genui.container.UIPanel;
+import javax.rad.genui.control.UITable;
+import javax.rad.genui.layout.UIBorderLayout;
+import javax.rad.model.ColumnDefinition;
+import javax.rad.model.ColumnView;
+import javax.rad.model.ModelException;
+import javax.rad.model.SortDefinition;
+import javax.rad.model.datatype.BigDecimalDataType;
+import javax.rad.model.datatype.StringDataType;
+import javax.rad.model.event.DataBookEvent;
+import javax.rad.ui.IComponent;
+
+import com.sibvisions.rad.model.mem.MemDataBook;
+
+/**
+ * The {@link LayoutCostFrame} is an {@link UIFrame} extension which lists the
+ * measured components of a {@link LayoutCost}, the most expensive first.
+ * <p>
+ * The list can be sorted by every column. Selecting a component notifies the
+ * {@link #getScriptLineSelectedListener() script line selected listener} with
+ * the line of the script which created it.
+ * 
+ * @author Robert Zenz
+ */
+public class LayoutCostFrame extends UIFrame
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The {@link MemDataBook} that is used as backend for the list. */
+	private MemDataBook componentsDataBook = null;
+	
+	/** The {@link LayoutCost}. */
+	private LayoutCost layoutCost = null;
+	
+	/**
+	 * The listener which is notified with the line of the script which created
+	 * the selected component.
+	 */
+	private Consumer<Integer> scriptLineSelectedListener = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link LayoutCostFrame}.
+	 * 
+	 * @param pLayoutCost the {@link LayoutCost}.
+	 * @throws ModelException when initializing the model failed.
+	 */
+	public LayoutCostFrame(LayoutCost pLayoutCost) throws ModelException
+	{
+		super();
+		
+		layoutCost = pLayoutCost;
+		
+		initializeModel();
+		initializeUI();
+	}
+	
+	/**
+	 * Initializes the model.
+	 * 
+	 * @throws ModelException when initializing the model failed.
+	 */
+	private void initializeModel() throws ModelException
+	{
+		componentsDataBook = new MemDataBook();
+		componentsDataBook.setName("components");
+		componentsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("INDEX", new BigDecimalDataType()));
+		componentsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("COMPONENT", new StringDataType()));
+		componentsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("LINE", new BigDecimalDataType()));
+		componentsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("PREFERRED", new BigDecimalDataType()));
+		componentsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("MINIMUM", new BigDecimalDataType()));
+		componentsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("MAXIMUM", new BigDecimalDataType()));
+		componentsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("TOTAL", new BigDecimalDataType()));
+		componentsDataBook.getRowDefinition().getColumnDefinition("PREFERRED").setLabel("Preferred (µs)");
+		componentsDataBook.getRowDefinition().getColumnDefinition("MINIMUM").setLabel("Minimum (µs)");
+		componentsDataBook.getRowDefinition().getColumnDefinition("MAXIMUM").setLabel("Maximum (µs)");
+		componentsDataBook.getRowDefinition().getColumnDefinition("TOTAL").setLabel("Total (µs)");
+		componentsDataBook.open();
+		
+		for (int index = 0; index < layoutCost.getComponents().size(); index++)
+		{
+			IComponent component = layoutCost.getComponents().get(index);
+			int line = LayoutBuilder.getScriptLine(component);
+			
+			componentsDataBook.insert(false);
+			componentsDataBook.setValues(
+					new String[] { "INDEX", "COMPONENT", "LINE", "PREFERRED", "MINIMUM", "MAXIMUM", "TOTAL" },
+					new Object[] {
+							BigDecimal.valueOf(index),
+							getComponentName(component),
+							line >= 0 ? BigDecimal.valueOf(line) : null,
+							toMicroseconds(layoutCost.getPreferredSizeTime(index)),
+							toMicroseconds(layoutCost.getMinimumSizeTime(index)),
+							toMicroseconds(layoutCost.getMaximumSizeTime(index)),
+							toMicroseconds(layoutCost.getTotalTime(index)) });
+		}
+		
+		componentsDataBook.saveAllRows();
+		componentsDataBook.setSort(new SortDefinition(new String[] { "TOTAL" }, new boolean[] { false }));
+		componentsDataBook.eventAfterRowSelected().addListener(this::doComponentSelected);
+	}
+	
+	/**
+	 * Initializes the UI.
+	 */
+	private void initializeUI()
+	{
+		UILabel summaryLabel = new UILabel(String.format("%d components, mean of %d repetitions.",
+				Integer.valueOf(layoutCost.getComponents().size()),
+				Integer.valueOf(layoutCost.getRepetitions())));
+		
+		UIBorderLayout headerPanelLayout = new UIBorderLayout();
+		headerPanelLayout.setMargins(5, 5, 5, 5);
+		
+		UIPanel headerPanel = new UIPanel();
+		headerPanel.setLayout(headerPanelLayout);
+		headerPanel.setBackground(UIColor.white);
+		headerPanel.add(summaryLabel, UIBorderLayout.CENTER);
+		
+		UITable componentsTable = new UITable(componentsDataBook);
+		componentsTable.setColumnView(new ColumnView("COMPONENT", "LINE", "PREFERRED", "MINIMUM", "MAXIMUM", "TOTAL"));
+		componentsTable.setEditable(false);
+		
+		setLayout(new UIBorderLayout());
+		setSize(700, 500);
+		setTitle("Layout Costs");
+		add(headerPanel, UIBorderLayout.NORTH);
+		add(componentsTable, UIBorderLayout.CENTER);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the displayed name of the given {@link IComponent}.
+	 * 
+	 * @param pComponent the {@link IComponent}.
+	 * @return the displayed name.
+	 */
+	private static String getComponentName(IComponent pComponent)
+	{
+		if (pComponent.getName() != null)
+		{
+			return pComponent.getClass().getSimpleName() + " " + pComponent.getName();
+		}
+		
+		return pComponent.getClass().getSimpleName();
+	}
+	
+	/**
+	 * Converts the given nanoseconds to microseconds.
+	 * 
+	 * @param pNanoseconds the nanoseconds.
+	 * @return the microseconds, with one decimal.
+	 */
+	private static BigDecimal toMicroseconds(long pNanoseconds)
+	{
+		return BigDecimal.valueOf(pNanoseconds / 100, 1);
+	}
+	
+	/**
+	 * Gets the listener which is notified with the line of the script which
+	 * created the selected component.
+	 * 
+	 * @return the listener, {@code null} if none.
+	 */
+	public Consumer<Integer> getScriptLineSelectedListener()
+	{
+		return scriptLineSelectedListener;
+	}
+	
+	/**
+	 * Sets the listener which is notified with the line of the script which
+	 * created the selected component. It is not notified if the line is not
+	 * known.
+	 * 
+	 * @param pScriptLineSelectedListener the listener, {@code null} for none.
+	 */
+	public void setScriptLineSelectedListener(Consumer<Integer> pScriptLineSelectedListener)
+	{
+		scriptLineSelectedListener = pScriptLineSelectedListener;
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * Invoked when a row of the {@link #componentsDataBook} is selected.
+	 * 
+	 * @param pDataBookEvent the event.
+	 * @throws ModelException when accessing the data failed.
+	 */
+	private void doComponentSelected(DataBookEvent pDataBookEvent) throws ModelException
+	{
+		BigDecimal line = (BigDecimal)componentsDataBook.getValue("LINE");
+		
+		if (line != null && scriptLineSelectedListener != null)
+		{
+			scriptLineSelectedListener.accept(Integer.valueOf(line.intValue()));
+		}
+	}
+	
+}	// LayoutCostFrame
@@ -0,0 +1,696 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IColor;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.IContainer;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+import javax.swing.SwingUtilities;
+
+/**
+ * The {@link LayoutExporter} writes the solved geometry of an
+ * {@link AnchorShowingPanel}, every anchor and the bounds of every component,
+ * as SVG or as JSON with one object per line.
+ * <p>
+ * The anchors and components are written while they are walked, through a
+ * buffer of fixed size directly to a {@link FileChannel}, so no model of the
+ * document is built and the memory which is needed does not depend on the
+ * size of the layout. Only the arrays of anchors which the layouts return are
+ * allocated.
+ * <p>
+ * Every anchor has an identifier, {@code h} or {@code v} followed by its index
+ * in the horizontal or vertical anchors of its layout, and for the anchors of
+ * nested layouts prefixed with {@code n} and the index of the nested
+ * container. It is stable as long as the script does not change, so two
+ * exports can be compared line by line. Only the border and margin anchors
+ * have a name, resolving the names of the other ones requires a search over
+ * all anchors for every anchor.
+ * <p>
+ * In SVG, the components are drawn as rectangles and the anchors as lines on
+ * top of them, in the colors of the overlay of the {@link AnchorShowingPanel}.
+ * In JSON, the first line describes the panel, followed by a line for every
+ * anchor and then for every component.
+ * <p>
+ * This must be called on the thread which owns the components.
+ * 
+ * @author Robert Zenz
+ */
+public final class LayoutExporter
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The size of the buffer in bytes. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	/** The color of the components in SVG. */
+	private static final IColor COMPONENT_COLOR = Tango.ALUMINIUM_4;
+	
+	/** The extension of SVG files. */
+	private static final String SVG_EXTENSION = ".svg";
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The buffer of the encoded bytes. */
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	
+	/** The {@link FileChannel} to which is written. */
+	private FileChannel channel = null;
+	
+	/** The {@link CharsetEncoder} of the lines. */
+	private CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+	
+	/** The line which is currently assembled, reused for every line. */
+	private StringBuilder line = new StringBuilder(256);
+	
+	/** The {@link AnchorShowingPanel} which is exported. */
+	private AnchorShowingPanel panel = null;
+	
+	/** If SVG is written, otherwise JSON. */
+	private boolean svg = false;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link LayoutExporter}.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel} which is exported.
+	 * @param pChannel the {@link FileChannel} to which is written.
+	 * @param pSvg if SVG is written, otherwise JSON.
+	 */
+	private LayoutExporter(AnchorShowingPanel pPanel, FileChannel pChannel, boolean pSvg)
+	{
+		super();
+		
+		panel = pPanel;
+		channel = pChannel;
+		svg = pSvg;
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Writes the solved geometry of the given {@link AnchorShowingPanel} to
+	 * the given file, as SVG if its name ends with {@value #SVG_EXTENSION},
+	 * otherwise as JSON.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel}.
+	 * @param pPath the {@link Path} of the file.
+	 * @throws IOException if the file could not be written.
+	 */
+	public static void write(AnchorShowingPanel pPanel, Path pPath) throws IOException
+	{
+		if (pPath.getFileName().toString().toLowerCase().endsWith(SVG_EXTENSION))
+		{
+			writeSvg(pPanel, pPath);
+		}
+		else
+		{
+			writeJson(pPanel, pPath);
+		}
+	}
+	
+	/**
+	 * Writes the solved geometry of the given {@link AnchorShowingPanel} to
+	 * the given file as JSON, with one object per line.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel}.
+	 * @param pPath the {@link Path} of the file.
+	 * @throws IOException if the file could not be written.
+	 */
+	public static void writeJson(AnchorShowingPanel pPanel, Path pPath) throws IOException
+	{
+		write(pPanel, pPath, false);
+	}
+	
+	/**
+	 * Writes the solved geometry of the given {@link AnchorShowingPanel} to
+	 * the given file as SVG.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel}.
+	 * @param pPath the {@link Path} of the file.
+	 * @throws IOException if the file could not be written.
+	 */
+	public static void writeSvg(AnchorShowingPanel pPanel, Path pPath) throws IOException
+	{
+		write(pPanel, pPath, true);
+	}
+	
+	/**
+	 * Writes the solved geometry of the given {@link AnchorShowingPanel} to
+	 * the given file.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel}.
+	 * @param pPath the {@link Path} of the file.
+	 * @param pSvg if SVG is written, otherwise JSON.
+	 * @throws IOException if the file could not be written.
+	 */
+	private static void write(AnchorShowingPanel pPanel, Path pPath, boolean pSvg) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(pPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			new LayoutExporter(pPanel, channel, pSvg).write();
+		}
+	}
+	
+	/**
+	 * Appends the given {@link IColor} as hexadecimal RGB value to the
+	 * {@link #line}.
+	 * 
+	 * @param pColor the {@link IColor}.
+	 */
+	private void appendColor(IColor pColor)
+	{
+		line.append('#');
+		
+		appendHex(pColor.getRed());
+		appendHex(pColor.getGreen());
+		appendHex(pColor.getBlue());
+	}
+	
+	/**
+	 * Appends the given text to the {@link #line}, escaped for XML or JSON.
+	 * 
+	 * @param pText the text.
+	 */
+	private void appendEscaped(String pText)
+	{
+		for (int index = 0; index < pText.length(); index++)
+		{
+			char character = pText.charAt(index);
+			
+			if (svg && character == '<')
+			{
+				line.append("&lt;");
+			}
+			else if (svg && character == '>')
+			{
+				line.append("&gt;");
+			}
+			else if (svg && character == '&')
+			{
+				line.append("&amp;");
+			}
+			else if (svg && character == '"')
+			{
+				line.append("&quot;");
+			}
+			else if (!svg && (character == '"' || character == '\\'))
+			{
+				line.append('\\').append(character);
+			}
+			else if (!svg && character < ' ')
+			{
+				line.append(String.format("\\u%04x", Integer.valueOf(character)));
+			}
+			else
+			{
+				line.append(character);
+			}
+		}
+	}
+	
+	/**
+	 * Appends the given value as two hexadecimal digits to the {@link #line}.
+	 * 
+	 * @param pValue the value, between {@code 0} and {@code 255}.
+	 */
+	private void appendHex(int pValue)
+	{
+		line.append(Character.forDigit(pValue >> 4, 16));
+		line.append(Character.forDigit(pValue & 15, 16));
+	}
+	
+	/**
+	 * Appends the identifier of the anchor with the given index to the
+	 * {@link #line}.
+	 * 
+	 * @param pNestedIndex the index of the nested container, {@code -1} if the
+	 *            anchor belongs to the panel.
+	 * @param pAnchor the {@link IAnchor}.
+	 * @param pIndex the index of the {@link IAnchor} in the anchors of its
+	 *            orientation.
+	 */
+	private void appendIdentifier(int pNestedIndex, IAnchor pAnchor, int pIndex)
+	{
+		if (pNestedIndex >= 0)
+		{
+			line.append('n').append(pNestedIndex).append('.');
+		}
+		
+		line.append(pAnchor.getOrientation() == IAnchor.VERTICAL ? 'v' : 'h').append(pIndex);
+	}
+	
+	/**
+	 * Encodes the {@link #line} into the {@link #buffer} and clears it, the
+	 * {@link #buffer} is written to the {@link #channel} whenever it is full.
+	 * 
+	 * @throws IOException if writing failed.
+	 */
+	private void endLine() throws IOException
+	{
+		line.append('\n');
+		
+		CharBuffer characters = CharBuffer.wrap(line);
+		
+		while (encoder.encode(characters, buffer, false) == CoderResult.OVERFLOW)
+		{
+			flush();
+		}
+		
+		line.setLength(0);
+	}
+	
+	/**
+	 * Writes the content of the {@link #buffer} to the {@link #channel}.
+	 * 
+	 * @throws IOException if writing failed.
+	 */
+	private void flush() throws IOException
+	{
+		buffer.flip();
+		
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		
+		buffer.clear();
+	}
+	
+	/**
+	 * Gets the {@link IColor} of the overlay for anchors of the given kind.
+	 * 
+	 * @param pKind the kind, one of the kinds of the {@link AnchorSnapshot}.
+	 * @return the {@link IColor}.
+	 */
+	private static IColor getColor(int pKind)
+	{
+		switch (pKind)
+		{
+			case AnchorSnapshot.KIND_BORDER:
+				return AnchorShowingPanel.BORDER_ANCHOR_COLOR;
+			
+			case AnchorSnapshot.KIND_MARGIN:
+				return AnchorShowingPanel.MARGIN_ANCHOR_COLOR;
+			
+			case AnchorSnapshot.KIND_AUTOSIZE:
+				return AnchorShowingPanel.AUTOSIZE_ANCHOR_COLOR;
+			
+			case AnchorSnapshot.KIND_NESTED_BORDER:
+				return AnchorShowingPanel.NESTED_BORDER_ANCHOR_COLOR;
+			
+			default:
+				return AnchorShowingPanel.FIXED_ANCHOR_COLOR;
+		}
+	}
+	
+	/**
+	 * Gets the kind of the given {@link IAnchor} and the name of the border
+	 * and margin {@link IAnchor}s.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} of the {@link IAnchor}.
+	 * @param pAnchor the {@link IAnchor}.
+	 * @param pNested if the {@link UIFormLayout} is nested.
+	 * @param pName the array in which the name is returned, {@code null} if
+	 *            the {@link IAnchor} is not a border or margin
+	 *            {@link IAnchor}.
+	 * @return the kind, one of the kinds of the {@link AnchorSnapshot}.
+	 */
+	private static int getKind(UIFormLayout pLayout, IAnchor pAnchor, boolean pNested, String[] pName)
+	{
+		int borderKind = pNested ? AnchorSnapshot.KIND_NESTED_BORDER : AnchorSnapshot.KIND_BORDER;
+		
+		if (pAnchor == pLayout.getBottomAnchor())
+		{
+			pName[0] = "Border bottom";
+			return borderKind;
+		}
+		else if (pAnchor == pLayout.getLeftAnchor())
+		{
+			pName[0] = "Border left";
+			return borderKind;
+		}
+		else if (pAnchor == pLayout.getRightAnchor())
+		{
+			pName[0] = "Border right";
+			return borderKind;
+		}
+		else if (pAnchor == pLayout.getTopAnchor())
+		{
+			pName[0] = "Border top";
+			return borderKind;
+		}
+		else if (pAnchor == pLayout.getBottomMarginAnchor())
+		{
+			pName[0] = "Margin bottom";
+			return AnchorSnapshot.KIND_MARGIN;
+		}
+		else if (pAnchor == pLayout.getLeftMarginAnchor())
+		{
+			pName[0] = "Margin left";
+			return AnchorSnapshot.KIND_MARGIN;
+		}
+		else if (pAnchor == pLayout.getRightMarginAnchor())
+		{
+			pName[0] = "Margin right";
+			return AnchorSnapshot.KIND_MARGIN;
+		}
+		else if (pAnchor == pLayout.getTopMarginAnchor())
+		{
+			pName[0] = "Margin top";
+			return AnchorSnapshot.KIND_MARGIN;
+		}
+		
+		pName[0] = null;
+		
+		if (pAnchor.isAutoSize())
+		{
+			return AnchorSnapshot.KIND_AUTOSIZE;
+		}
+		else
+		{
+			return AnchorSnapshot.KIND_FIXED;
+		}
+	}
+	
+	/**
+	 * Gets the name of the given kind.
+	 * 
+	 * @param pKind the kind, one of the kinds of the {@link AnchorSnapshot}.
+	 * @return the name of the kind.
+	 */
+	private static String getKindName(int pKind)
+	{
+		switch (pKind)
+		{
+			case AnchorSnapshot.KIND_BORDER:
+				return "border";
+			
+			case AnchorSnapshot.KIND_MARGIN:
+				return "margin";
+			
+			case AnchorSnapshot.KIND_AUTOSIZE:
+				return "autosize";
+			
+			case AnchorSnapshot.KIND_NESTED_BORDER:
+				return "nestedBorder";
+			
+			default:
+				return "fixed";
+		}
+	}
+	
+	/**
+	 * Writes the document.
+	 * 
+	 * @throws IOException if writing failed.
+	 */
+	private void write() throws IOException
+	{
+		Container container = (Container)panel.getResource();
+		container.validate();
+		
+		if (svg)
+		{
+			line.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(container.getWidth());
+			line.append("\" height=\"").append(container.getHeight());
+			line.append("\" viewBox=\"0 0 ").append(container.getWidth()).append(' ').append(container.getHeight());
+			line.append("\" shape-rendering=\"crispEdges\">");
+			endLine();
+			
+			line.append("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>");
+			endLine();
+			
+			// The anchors are drawn on top of the components.
+			writeComponents(container);
+			writeAnchors(container);
+			
+			line.append("</svg>");
+			endLine();
+		}
+		else
+		{
+			List<IComponent> components = panel.getRealComponents();
+			
+			line.append("{\"type\":\"panel\",\"width\":").append(container.getWidth());
+			line.append(",\"height\":").append(container.getHeight());
+			line.append(",\"components\":").append(components.size());
+			line.append(",\"nestedLayouts\":").append(panel.getNestedContainers().size());
+			line.append('}');
+			endLine();
+			
+			writeAnchors(container);
+			writeComponents(container);
+		}
+		
+		CharBuffer empty = CharBuffer.allocate(0);
+		
+		while (encoder.encode(empty, buffer, true) == CoderResult.OVERFLOW)
+		{
+			flush();
+		}
+		while (encoder.flush(buffer) == CoderResult.OVERFLOW)
+		{
+			flush();
+		}
+		
+		flush();
+	}
+	
+	/**
+	 * Writes the given {@link IAnchor}.
+	 * 
+	 * @param pLayout the {@link UIFormLayout} of the {@link IAnchor}.
+	 * @param pNestedIndex the index of the nested container, {@code -1} if the
+	 *            {@link IAnchor} belongs to the panel.
+	 * @param pAnchor the {@link IAnchor}.
+	 * @param pIndex the index of the {@link IAnchor} in the anchors of its
+	 *            orientation.
+	 * @param pLocation the location of the {@link IAnchor} in the panel.
+	 * @param pStart the start of the extent of the {@link IAnchor}.
+	 * @param pEnd the end of the extent of the {@link IAnchor}.
+	 * @param pName the array for the name, reused for every {@link IAnchor}.
+	 * @throws IOException if writing failed.
+	 */
+	private void writeAnchor(UIFormLayout pLayout, int pNestedIndex, IAnchor pAnchor, int pIndex, int pLocation, int pStart, int pEnd, String[] pName) throws IOException
+	{
+		int kind = getKind(pLayout, pAnchor, pNestedIndex >= 0, pName);
+		boolean vertical = pAnchor.getOrientation() == IAnchor.VERTICAL;
+		
+		if (svg)
+		{
+			if (vertical)
+			{
+				line.append("<line x1=\"").append(pStart).append("\" y1=\"").append(pLocation);
+				line.append("\" x2=\"").append(pEnd).append("\" y2=\"").append(pLocation);
+			}
+			else
+			{
+				line.append("<line x1=\"").append(pLocation).append("\" y1=\"").append(pStart);
+				line.append("\" x2=\"").append(pLocation).append("\" y2=\"").append(pEnd);
+			}
+			
+			line.append("\" stroke=\"");
+			appendColor(getColor(kind));
+			line.append("\"><title>");
+			appendIdentifier(pNestedIndex, pAnchor, pIndex);
+			
+			if (pName[0] != null)
+			{
+				line.append(' ');
+				appendEscaped(pName[0]);
+			}
+			
+			line.append(": ").append(pAnchor.getPosition()).append("</title></line>");
+		}
+		else
+		{
+			line.append("{\"type\":\"anchor\",\"id\":\"");
+			appendIdentifier(pNestedIndex, pAnchor, pIndex);
+			line.append('"');
+			
+			if (pName[0] != null)
+			{
+				line.append(",\"name\":\"");
+				appendEscaped(pName[0]);
+				line.append('"');
+			}
+			
+			line.append(",\"kind\":\"").append(getKindName(kind));
+			line.append("\",\"orientation\":\"").append(vertical ? "vertical" : "horizontal");
+			line.append("\",\"autoSize\":").append(pAnchor.isAutoSize());
+			line.append(",\"position\":").append(pAnchor.getPosition());
+			line.append(",\"location\":").append(pLocation);
+			line.append(",\"start\":").append(pStart);
+			line.append(",\"end\":").append(pEnd);
+			line.append('}');
+		}
+		
+		endLine();
+	}
+	
+	/**
+	 * Writes the anchors of the panel and of all nested layouts.
+	 * 
+	 * @param pContainer the panel.
+	 * @throws IOException if writing failed.
+	 */
+	private void writeAnchors(Container pContainer) throws IOException
+	{
+		UIFormLayout layout = panel.getLayout();
+		
+		int top = layout.getTopAnchor().getAbsolutePosition();
+		int left = layout.getLeftAnchor().getAbsolutePosition();
+		int bottom = layout.getBottomAnchor().getAbsolutePosition();
+		int right = layout.getRightAnchor().getAbsolutePosition();
+		
+		String[] name = new String[1];
+		
+		IAnchor[] anchors = layout.getHorizontalAnchors();
+		
+		for (int index = 0; index < anchors.length; index++)
+		{
+			writeAnchor(layout, -1, anchors[index], index, anchors[index].getAbsolutePosition(), top, bottom, name);
+		}
+		
+		anchors = layout.getVerticalAnchors();
+		
+		for (int index = 0; index < anchors.length; index++)
+		{
+			writeAnchor(layout, -1, anchors[index], index, anchors[index].getAbsolutePosition(), left, right, name);
+		}
+		
+		List<IContainer> nestedContainers = panel.getNestedContainers();
+		
+		for (int nestedIndex = 0; nestedIndex < nestedContainers.size(); nestedIndex++)
+		{
+			IContainer nestedContainer = nestedContainers.get(nestedIndex);
+			
+			Component component = (Component)nestedContainer.getResource();
+			Point origin = SwingUtilities.convertPoint(component, 0, 0, pContainer);
+			
+			UIFormLayout nestedLayout = (UIFormLayout)nestedContainer.getLayout();
+			
+			anchors = nestedLayout.getHorizontalAnchors();
+			
+			for (int index = 0; index < anchors.length; index++)
+			{
+				writeAnchor(nestedLayout, nestedIndex, anchors[index], index, origin.x + anchors[index].getAbsolutePosition(), origin.y, origin.y + component.getHeight(), name);
+			}
+			
+			anchors = nestedLayout.getVerticalAnchors();
+			
+			for (int index = 0; index < anchors.length; index++)
+			{
+				writeAnchor(nestedLayout, nestedIndex, anchors[index], index, origin.y + anchors[index].getAbsolutePosition(), origin.x, origin.x + component.getWidth(), name);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the bounds of the given {@link Component} and all its children.
+	 * 
+	 * @param pComponent the {@link Component}.
+	 * @param pContainer the panel, which is the origin of the coordinates.
+	 * @param pDepth the depth of the {@link Component}, {@code 0} for the
+	 *            components of the panel.
+	 * @param pScriptLine the line of the script which added the
+	 *            {@link Component}, {@code -1} if it is not known.
+	 * @throws IOException if writing failed.
+	 */
+	private void writeComponent(Component pComponent, Container pContainer, int pDepth, int pScriptLine) throws IOException
+	{
+		Point location = SwingUtilities.convertPoint(pComponent.getParent(), pComponent.getX(), pComponent.getY(), pContainer);
+		
+		if (svg)
+		{
+			line.append("<rect x=\"").append(location.x).append("\" y=\"").append(location.y);
+			line.append("\" width=\"").append(pComponent.getWidth()).append("\" height=\"").append(pComponent.getHeight());
+			line.append("\" fill=\"none\" stroke=\"");
+			appendColor(COMPONENT_COLOR);
+			line.append("\"/>");
+		}
+		else
+		{
+			line.append("{\"type\":\"component\",\"class\":\"");
+			appendEscaped(pComponent.getClass().getSimpleName());
+			line.append("\",\"depth\":").append(pDepth);
+			
+			if (pScriptLine >= 0)
+			{
+				line.append(",\"line\":").append(pScriptLine);
+			}
+			
+			line.append(",\"x\":").append(location.x);
+			line.append(",\"y\":").append(location.y);
+			line.append(",\"width\":").append(pComponent.getWidth());
+			line.append(",\"height\":").append(pComponent.getHeight());
+			line.append('}');
+		}
+		
+		endLine();
+		
+		if (pComponent instanceof Container)
+		{
+			Container container = (Container)pComponent;
+			
+			for (int index = 0; index < container.getComponentCount(); index++)
+			{
+				writeComponent(container.getComponent(index), pContainer, pDepth + 1, -1);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the bounds of all components of the panel and their children.
+	 * 
+	 * @param pContainer the panel.
+	 * @throws IOException if writing failed.
+	 */
+	private void writeComponents(Container pContainer) throws IOException
+	{
+		for (IComponent component : panel.getRealComponents())
+		{
+			writeComponent((Component)component.getResource(), pContainer, 0, LayoutBuilder.getScriptLine(component));
+		}
+	}
+	
+}	// LayoutExporter
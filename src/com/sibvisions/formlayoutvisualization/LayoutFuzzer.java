@@ -0,0 +1,724 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.rad.genui.UIFactoryManager;
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IComponent;
+import javax.rad.ui.layout.IFormLayout.IAnchor;
+
+import com.sibvisions.rad.lua.LuaException;
+import com.sibvisions.rad.ui.swing.ext.layout.JVxFormLayout;
+import com.sibvisions.rad.ui.swing.impl.SwingFactory;
+
+/**
+ * The {@link LayoutFuzzer} generates random Lua scripts with unusual
+ * combinations of constraints and searches for the ones which the
+ * {@link JVxFormLayout} solves very slowly, or differently in every pass.
+ * <p>
+ * Every script consists of random statements, which add components with grid
+ * constraints, with negative indices and stretched over multiple cells, create
+ * chains of anchors with gaps, which might also be negative, and add
+ * components with constraints of these anchors. Every script is built and its
+ * solve is timed, that is invalidating and laying out the panel again.
+ * <p>
+ * A script is a finding if the median time of a solve is above the threshold,
+ * or if the anchors or the components are not at the same position after
+ * every pass, and it remains one when it is solved again. Before the first
+ * script, some scripts are solved to warm up the JVM, so that the first
+ * scripts are not reported only because they have been interpreted.
+ * <p>
+ * A finding is minimised by removing statements as long as it still is one,
+ * and written as Lua script which can be loaded into the {@link MainFrame},
+ * see {@link Main}. Statements which refer to an anchor of which the creation
+ * has been removed usually fail, and are therefore kept.
+ * <p>
+ * It runs headless and accepts the following arguments, all of them optional:
+ * <ol>
+ * <li>the number of generated scripts, defaults to
+ * {@value #DEFAULT_CASES}.</li>
+ * <li>the threshold of a solve in milliseconds, defaults to
+ * {@value #DEFAULT_THRESHOLD_MS}.</li>
+ * <li>the directory to which the minimised scripts are written, defaults to
+ * the working directory if empty.</li>
+ * <li>the seed of the first script, defaults to the current time. Every
+ * script has its own seed, which is written into the minimised script.</li>
+ * <li>the number of statements of a script, defaults to
+ * {@value #DEFAULT_STATEMENTS}.</li>
+ * </ol>
+ * If there are findings, the process exits with {@code 1}.
+ * 
+ * @author Robert Zenz
+ */
+public final class LayoutFuzzer
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default number of generated scripts. */
+	private static final int DEFAULT_CASES = 200;
+	
+	/** The default number of statements of a script. */
+	private static final int DEFAULT_STATEMENTS = 60;
+	
+	/** The default threshold of a solve in milliseconds. */
+	private static final int DEFAULT_THRESHOLD_MS = 20;
+	
+	/** The statements with which every script starts. */
+	private static final String[] HEADER = new String[] { "local h = {}", "local v = {}" };
+	
+	/** The number of timed solves. */
+	private static final int MEASURED_SOLVES = 5;
+	
+	/** The height of the panel. */
+	private static final int PANEL_HEIGHT = 600;
+	
+	/** The width of the panel. */
+	private static final int PANEL_WIDTH = 800;
+	
+	/** The number of solves which are done before timing. */
+	private static final int WARMUP_SOLVES = 2;
+	
+	/** The number of scripts which are solved before the first one is timed. */
+	private static final int WARMUP_SCRIPTS = 50;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The {@link LayoutBuilder} of the {@link #panel}. */
+	private LayoutBuilder builder = null;
+	
+	/** The {@link AnchorShowingPanel} in which the scripts are built. */
+	private AnchorShowingPanel panel = null;
+	
+	/** The threshold of a solve in nanoseconds. */
+	private long threshold = 0;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link LayoutFuzzer}.
+	 * 
+	 * @param pThreshold the threshold of a solve in nanoseconds.
+	 */
+	public LayoutFuzzer(long pThreshold)
+	{
+		super();
+		
+		threshold = pThreshold;
+		
+		panel = new AnchorShowingPanel();
+		panel.setLayout(new UIFormLayout());
+		panel.setSize(PANEL_WIDTH, PANEL_HEIGHT);
+		
+		builder = new LayoutBuilder(panel);
+	}
+	
+	/**
+	 * The main method.
+	 * 
+	 * @param pArgs the arguments.
+	 * @throws Exception if the fuzzer could not be run.
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		
+		int cases = pArgs.length >= 1 ? Integer.parseInt(pArgs[0]) : DEFAULT_CASES;
+		long threshold = (pArgs.length >= 2 ? Long.parseLong(pArgs[1]) : DEFAULT_THRESHOLD_MS) * 1000000L;
+		Path output = Paths.get(pArgs.length >= 3 && pArgs[2].length() > 0 ? pArgs[2] : ".");
+		long seed = pArgs.length >= 4 && pArgs[3].length() > 0 ? Long.parseLong(pArgs[3]) : System.currentTimeMillis();
+		int statements = pArgs.length >= 5 ? Integer.parseInt(pArgs[4]) : DEFAULT_STATEMENTS;
+		
+		UIFactoryManager.getFactoryInstance(SwingFactory.class);
+		
+		Files.createDirectories(output);
+		
+		LayoutFuzzer fuzzer = new LayoutFuzzer(threshold);
+		fuzzer.warmUp();
+		
+		int findings = 0;
+		int invalid = 0;
+		long slowest = 0;
+		
+		for (int index = 0; index < cases; index++)
+		{
+			long caseSeed = seed + index;
+			
+			List<String> script = generate(new Random(caseSeed), statements);
+			Solve solve = fuzzer.solve(script);
+			
+			if (solve == null)
+			{
+				invalid++;
+			}
+			else
+			{
+				slowest = Math.max(slowest, solve.time);
+				
+				if (fuzzer.isFinding(solve) && fuzzer.reproduces(script, solve.unstable))
+				{
+					List<String> minimised = fuzzer.minimise(script, solve.unstable);
+					Solve minimisedSolve = fuzzer.solve(minimised);
+					
+					Path file = output.resolve("fuzz-" + caseSeed + ".lua");
+					Files.write(file, toScript(minimised, caseSeed, solve, minimisedSolve, script.size()).getBytes(StandardCharsets.UTF_8));
+					
+					System.out.println(String.format("Seed %d: %.3f ms%s, minimised from %d to %d statements: %s",
+							Long.valueOf(caseSeed),
+							Double.valueOf(solve.time / 1000000d),
+							solve.unstable ? ", unstable" : "",
+							Integer.valueOf(script.size()),
+							Integer.valueOf(minimised.size()),
+							file));
+					
+					findings++;
+				}
+			}
+		}
+		
+		System.out.println(String.format("%d scripts, %d invalid, slowest solve %.3f ms, %d findings",
+				Integer.valueOf(cases),
+				Integer.valueOf(invalid),
+				Double.valueOf(slowest / 1000000d),
+				Integer.valueOf(findings)));
+		
+		if (findings > 0)
+		{
+			System.out.println("FAILED");
+			
+			System.exit(1);
+		}
+		
+		System.out.println("PASSED");
+		
+		System.exit(0);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Generates the statements of a random script, without the
+	 * {@link #HEADER}.
+	 * <p>
+	 * The created anchors are stored in the tables {@code h} and {@code v}, so
+	 * that the scripts are not limited by the count of local variables of Lua.
+	 * 
+	 * @param pRandom the {@link Random}.
+	 * @param pStatements the number of statements.
+	 * @return the statements.
+	 */
+	public static List<String> generate(Random pRandom, int pStatements)
+	{
+		List<String> statements = new ArrayList<>();
+		
+		int horizontalAnchors = 0;
+		int verticalAnchors = 0;
+		
+		for (int index = 0; index < pStatements; index++)
+		{
+			int kind = pRandom.nextInt(100);
+			
+			if (kind < 25)
+			{
+				statements.add(String.format("panel:add(%s, layout:getConstraints(%d, %d))",
+						createComponent(pRandom),
+						Integer.valueOf(createIndex(pRandom)),
+						Integer.valueOf(createIndex(pRandom))));
+			}
+			else if (kind < 45)
+			{
+				statements.add(String.format("panel:add(%s, layout:getConstraints(%d, %d, %d, %d))",
+						createComponent(pRandom),
+						Integer.valueOf(createIndex(pRandom)),
+						Integer.valueOf(createIndex(pRandom)),
+						Integer.valueOf(createIndex(pRandom)),
+						Integer.valueOf(createIndex(pRandom))));
+			}
+			else if (kind < 70)
+			{
+				boolean horizontal = pRandom.nextBoolean();
+				String anchor = createAnchorReference(pRandom, horizontal, horizontal ? horizontalAnchors : verticalAnchors);
+				
+				String creation;
+				
+				if (pRandom.nextInt(5) == 0)
+				{
+					// Without a position the anchor is autosized.
+					creation = String.format("layout:createAnchor(%s)", anchor);
+				}
+				else
+				{
+					creation = String.format("layout:createAnchor(%s, %d)", anchor, Integer.valueOf(pRandom.nextInt(61) - 20));
+				}
+				
+				if (horizontal)
+				{
+					statements.add(String.format("h[%d] = %s", Integer.valueOf(++horizontalAnchors), creation));
+				}
+				else
+				{
+					statements.add(String.format("v[%d] = %s", Integer.valueOf(++verticalAnchors), creation));
+				}
+			}
+			else
+			{
+				statements.add(String.format("panel:add(%s, layout:getConstraints(%s, %s, %s, %s))",
+						createComponent(pRandom),
+						createAnchorReference(pRandom, false, verticalAnchors),
+						createAnchorReference(pRandom, true, horizontalAnchors),
+						pRandom.nextInt(4) == 0 ? "nil" : createAnchorReference(pRandom, false, verticalAnchors),
+						pRandom.nextInt(4) == 0 ? "nil" : createAnchorReference(pRandom, true, horizontalAnchors)));
+			}
+		}
+		
+		return statements;
+	}
+	
+	/**
+	 * Gets whether the given {@link Solve} is a finding, that is if it is
+	 * unstable or slower than the threshold.
+	 * 
+	 * @param pSolve the {@link Solve}, can be {@code null}.
+	 * @return {@code true} if the {@link Solve} is a finding.
+	 */
+	public boolean isFinding(Solve pSolve)
+	{
+		return pSolve != null && (pSolve.unstable || pSolve.time > threshold);
+	}
+	
+	/**
+	 * Minimises the given statements, by removing ever smaller chunks of
+	 * statements as long as the script remains a finding of the same kind.
+	 * 
+	 * @param pStatements the statements, without the {@link #HEADER}.
+	 * @param pUnstable if the finding is an unstable solve, otherwise it is a
+	 *            slow solve.
+	 * @return the minimised statements.
+	 */
+	public List<String> minimise(List<String> pStatements, boolean pUnstable)
+	{
+		List<String> statements = new ArrayList<>(pStatements);
+		int chunks = 2;
+		
+		while (statements.size() >= 2)
+		{
+			int chunkSize = (int)Math.ceil((double)statements.size() / chunks);
+			boolean reduced = false;
+			
+			for (int start = 0; start < statements.size() && !reduced; start = start + chunkSize)
+			{
+				List<String> remaining = new ArrayList<>(statements.subList(0, start));
+				remaining.addAll(statements.subList(Math.min(statements.size(), start + chunkSize), statements.size()));
+				
+				if (reproduces(remaining, pUnstable))
+				{
+					statements = remaining;
+					chunks = Math.max(chunks - 1, 2);
+					reduced = true;
+				}
+			}
+			
+			if (!reduced)
+			{
+				if (chunks >= statements.size())
+				{
+					break;
+				}
+				
+				chunks = Math.min(chunks * 2, statements.size());
+			}
+		}
+		
+		return statements;
+	}
+	
+	/**
+	 * Gets whether the given statements are a finding of the given kind, in
+	 * two solves in a row, so that a single slow solve, for example because
+	 * of a garbage collection, is not mistaken for one.
+	 * 
+	 * @param pStatements the statements, without the {@link #HEADER}.
+	 * @param pUnstable if the finding is an unstable solve, otherwise it is a
+	 *            slow solve.
+	 * @return {@code true} if the statements are a finding of the given kind.
+	 */
+	public boolean reproduces(List<String> pStatements, boolean pUnstable)
+	{
+		for (int repetition = 0; repetition < 2; repetition++)
+		{
+			Solve solve = solve(pStatements);
+			
+			if (!isFinding(solve) || (pUnstable && !solve.unstable))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Builds the given statements and times the solve of the layout.
+	 * 
+	 * @param pStatements the statements, without the {@link #HEADER}.
+	 * @return the {@link Solve}, {@code null} if the script or the layout
+	 *         failed.
+	 */
+	public Solve solve(List<String> pStatements)
+	{
+		try
+		{
+			builder.build(toScript(pStatements));
+		}
+		catch (LuaException e)
+		{
+			return null;
+		}
+		
+		Container container = (Container)panel.getResource();
+		JVxFormLayout layout = (JVxFormLayout)container.getLayout();
+		
+		try
+		{
+			long[] times = new long[MEASURED_SOLVES];
+			int[] firstGeometry = null;
+			boolean unstable = false;
+			
+			for (int solve = -WARMUP_SOLVES; solve < MEASURED_SOLVES; solve++)
+			{
+				long start = System.nanoTime();
+				layout.invalidateLayout(container);
+				layout.layoutContainer(container);
+				long end = System.nanoTime();
+				
+				int[] geometry = getGeometry();
+				
+				if (firstGeometry == null)
+				{
+					firstGeometry = geometry;
+				}
+				else if (!Arrays.equals(firstGeometry, geometry))
+				{
+					unstable = true;
+				}
+				
+				if (solve >= 0)
+				{
+					times[solve] = end - start;
+				}
+			}
+			
+			Arrays.sort(times);
+			
+			return new Solve(times[times.length / 2], unstable);
+		}
+		catch (RuntimeException e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Solves {@value #WARMUP_SCRIPTS} random scripts, so that the solve and
+	 * the build have been compiled by the JVM before the first script is
+	 * timed.
+	 */
+	public void warmUp()
+	{
+		Random random = new Random(0);
+		
+		for (int index = 0; index < WARMUP_SCRIPTS; index++)
+		{
+			solve(generate(random, DEFAULT_STATEMENTS));
+		}
+	}
+	
+	/**
+	 * Creates a reference to a random anchor of the given orientation, either
+	 * one of the border or margin anchors, of a column or row, or one which
+	 * has been created before.
+	 * 
+	 * @param pRandom the {@link Random}.
+	 * @param pHorizontal if the anchor is horizontal.
+	 * @param pCreatedAnchors the count of anchors of that orientation which
+	 *            have been created so far.
+	 * @return the reference to the anchor.
+	 */
+	private static String createAnchorReference(Random pRandom, boolean pHorizontal, int pCreatedAnchors)
+	{
+		int kind = pRandom.nextInt(pCreatedAnchors > 0 ? 5 : 3);
+		
+		if (kind == 0)
+		{
+			String[] borders;
+			
+			if (pHorizontal)
+			{
+				borders = new String[] { "getLeftAnchor", "getRightAnchor", "getLeftMarginAnchor", "getRightMarginAnchor" };
+			}
+			else
+			{
+				borders = new String[] { "getTopAnchor", "getBottomAnchor", "getTopMarginAnchor", "getBottomMarginAnchor" };
+			}
+			
+			return "layout:" + borders[pRandom.nextInt(borders.length)] + "()";
+		}
+		else if (kind <= 2)
+		{
+			String[] cells;
+			
+			if (pHorizontal)
+			{
+				cells = new String[] { "getColumnLeftAnchor", "getColumnRightAnchor" };
+			}
+			else
+			{
+				cells = new String[] { "getRowTopAnchor", "getRowBottomAnchor" };
+			}
+			
+			return String.format("layout:%s(%d)", cells[pRandom.nextInt(cells.length)], Integer.valueOf(createIndex(pRandom)));
+		}
+		else
+		{
+			// Chains are more likely to be continued at their end.
+			int anchor = pCreatedAnchors - (int)Math.min(pCreatedAnchors - 1, Math.abs(pRandom.nextGaussian() * 3));
+			
+			return String.format("%s[%d]", pHorizontal ? "h" : "v", Integer.valueOf(anchor));
+		}
+	}
+	
+	/**
+	 * Creates a random component, with a random text if it is not a stub.
+	 * 
+	 * @param pRandom the {@link Random}.
+	 * @return the expression which creates the component.
+	 */
+	private static String createComponent(Random pRandom)
+	{
+		int kind = pRandom.nextInt(3);
+		
+		if (kind == 0)
+		{
+			return "stub()";
+		}
+		
+		char[] text = new char[1 + pRandom.nextInt(30)];
+		Arrays.fill(text, 'x');
+		
+		if (kind == 1)
+		{
+			return "UILabel.new(\"" + new String(text) + "\")";
+		}
+		else
+		{
+			return "UIButton.new(\"" + new String(text) + "\")";
+		}
+	}
+	
+	/**
+	 * Creates a random index of a column or row, which might also be
+	 * negative, that is counted from the end.
+	 * 
+	 * @param pRandom the {@link Random}.
+	 * @return the index.
+	 */
+	private static int createIndex(Random pRandom)
+	{
+		return pRandom.nextInt(10) - 3;
+	}
+	
+	/**
+	 * Creates the script of the given statements.
+	 * 
+	 * @param pStatements the statements, without the {@link #HEADER}.
+	 * @return the script.
+	 */
+	private static String toScript(List<String> pStatements)
+	{
+		StringBuilder script = new StringBuilder();
+		
+		for (String statement : HEADER)
+		{
+			script.append(statement).append("\n");
+		}
+		
+		for (String statement : pStatements)
+		{
+			script.append(statement).append("\n");
+		}
+		
+		return script.toString();
+	}
+	
+	/**
+	 * Creates the script of a minimised finding, with a comment which
+	 * describes it.
+	 * 
+	 * @param pStatements the minimised statements, without the
+	 *            {@link #HEADER}.
+	 * @param pSeed the seed of the script.
+	 * @param pSolve the {@link Solve} of the original script.
+	 * @param pMinimisedSolve the {@link Solve} of the minimised script.
+	 * @param pOriginalStatements the number of statements of the original
+	 *            script.
+	 * @return the script.
+	 */
+	private static String toScript(List<String> pStatements, long pSeed, Solve pSolve, Solve pMinimisedSolve, int pOriginalStatements)
+	{
+		StringBuilder script = new StringBuilder();
+		
+		script.append(String.format("-- Found by the LayoutFuzzer with the seed %d.\n", Long.valueOf(pSeed)));
+		script.append(String.format("-- Original: %d statements, solve %.3f ms%s.\n",
+				Integer.valueOf(pOriginalStatements),
+				Double.valueOf(pSolve.time / 1000000d),
+				pSolve.unstable ? ", unstable" : ""));
+		
+		if (pMinimisedSolve != null)
+		{
+			script.append(String.format("-- Minimised: %d statements, solve %.3f ms%s.\n",
+					Integer.valueOf(pStatements.size()),
+					Double.valueOf(pMinimisedSolve.time / 1000000d),
+					pMinimisedSolve.unstable ? ", unstable" : ""));
+		}
+		
+		script.append("\n");
+		script.append(toScript(pStatements));
+		
+		return script.toString();
+	}
+	
+	/**
+	 * Gets the positions of all anchors and the bounds of all components of
+	 * the {@link #panel}.
+	 * 
+	 * @return the geometry.
+	 */
+	private int[] getGeometry()
+	{
+		IAnchor[] horizontalAnchors = panel.getLayout().getHorizontalAnchors();
+		IAnchor[] verticalAnchors = panel.getLayout().getVerticalAnchors();
+		List<IComponent> components = panel.getRealComponents();
+		
+		int[] geometry = new int[horizontalAnchors.length + verticalAnchors.length + components.size() * 4];
+		int index = 0;
+		
+		for (IAnchor anchor : horizontalAnchors)
+		{
+			geometry[index++] = anchor.getAbsolutePosition();
+		}
+		for (IAnchor anchor : verticalAnchors)
+		{
+			geometry[index++] = anchor.getAbsolutePosition();
+		}
+		for (IComponent component : components)
+		{
+			Component resource = (Component)component.getResource();
+			
+			geometry[index++] = resource.getX();
+			geometry[index++] = resource.getY();
+			geometry[index++] = resource.getWidth();
+			geometry[index++] = resource.getHeight();
+		}
+		
+		return geometry;
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link Solve} is the timed solve of a script.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public static final class Solve
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The median time of a solve in nanoseconds. */
+		private long time = 0;
+		
+		/** If the geometry was not the same after every solve. */
+		private boolean unstable = false;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link Solve}.
+		 * 
+		 * @param pTime the median time of a solve in nanoseconds.
+		 * @param pUnstable if the geometry was not the same after every solve.
+		 */
+		private Solve(long pTime, boolean pUnstable)
+		{
+			super();
+			
+			time = pTime;
+			unstable = pUnstable;
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Gets the median time of a solve.
+		 * 
+		 * @return the median time of a solve in nanoseconds.
+		 */
+		public long getTime()
+		{
+			return time;
+		}
+		
+		/**
+		 * Gets whether the geometry was not the same after every solve.
+		 * 
+		 * @return {@code true} if the geometry was not the same after every
+		 *         solve.
+		 */
+		public boolean isUnstable()
+		{
+			return unstable;
+		}
+		
+	}	// Solve
+	
+}	// LayoutFuzzer
@@ -16,6 +16,12 @@
 
 package com.sibvisions.formlayoutvisualization;
 
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 import javax.rad.genui.UIFactoryManager;
 import javax.swing.UIManager;
 
@@ -23,6 +29,11 @@ import com.sibvisions.rad.ui.swing.impl.SwingFactory;
 
 /**
  * The {@link Main} is the main entry point for the application.
+ * <p>
+ * The first argument is the path to a Lua script which is displayed instead
+ * of the default script, for example one which has been written by the
+ * {@link LayoutFuzzer}. If there is no display, the arguments are passed to
+ * the {@link HeadlessRenderer} instead.
  * 
  * @author Robert Zenz
  */
@@ -31,19 +42,40 @@ public final class Main
 	
 	/**
 	 * The main method.
-	 *
+	 * 
 	 * @param pArgs the arguments.
 	 */
 	public static void main(String[] pArgs)
 	{
 		try
 		{
+			try
+			{
+				ScriptCache.install(Paths.get(System.getProperty("user.home"), ".formlayout-visualization", "scripts"));
+			}
+			catch (IOException e)
+			{
+				// The scripts are compiled every time without the cache.
+				e.printStackTrace();
+			}
+			
+			if (GraphicsEnvironment.isHeadless())
+			{
+				HeadlessRenderer.main(pArgs);
+				
+				return;
+			}
+			
 			UIFactoryManager.getFactoryInstance(SwingFactory.class);
 			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 			
+			StallDetector.install(Paths.get(System.getProperty("java.io.tmpdir"), "formlayout-visualization-stalls.log"));
+			
+			String script = pArgs.length >= 1 ? new String(Files.readAllBytes(Paths.get(pArgs[0])), StandardCharsets.UTF_8) : null;
+			
 			UIFactoryManager.getFactory().invokeAndWait(() ->
 			{
-				MainFrame frame = new MainFrame();
+				MainFrame frame = new MainFrame(script);
 				frame.setVisible(true);
 				frame.eventWindowClosed().addListener(pEvent -> System.exit(0));
 			});
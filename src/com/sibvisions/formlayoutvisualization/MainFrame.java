@@ -16,8 +16,10 @@
 
 package com.sibvisions.formlayoutvisualization;
 
+import java.awt.Component;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.rad.genui.IFontAwesome;
 import javax.rad.genui.UIColor;
@@ -46,17 +48,18 @@ import javax.rad.ui.IComponent;
 import javax.rad.ui.IContainer;
 import javax.rad.ui.layout.IFormLayout.IAnchor;
 import javax.rad.ui.layout.IFormLayout.IConstraints;
+import javax.rad.util.ExceptionHandler;
+import javax.swing.JFileChooser;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
 
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
 import org.fife.ui.rtextarea.RTextScrollPane;
-import org.luaj.vm2.LuaValue;
-import org.luaj.vm2.lib.ZeroArgFunction;
-import org.luaj.vm2.lib.jse.CoerceJavaToLua;
 
-import com.sibvisions.rad.lua.LuaEnvironment;
 import com.sibvisions.rad.lua.LuaException;
 import com.sibvisions.rad.model.mem.DataRow;
 import com.sibvisions.util.FileViewer;
@@ -75,12 +78,24 @@ public class MainFrame extends UIFrame
 	// Class members
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	
+	/**
+	 * The {@link UILabel} showing the bytes which the last update of the
+	 * layout has allocated.
+	 */
+	private UILabel allocatedBytes = null;
+	
 	/**
 	 * The {@link UILabel} showing the {@link IAnchor#isAutoSize()} property of
 	 * the currently highlighted {@link IAnchor}.
 	 */
 	private UILabel anchorAutoResize = null;
 	
+	/**
+	 * The {@link UILabel} showing the {@link LayoutComplexity} of the
+	 * currently highlighted {@link IAnchor}.
+	 */
+	private UILabel anchorComplexity = null;
+	
 	/**
 	 * The {@link UILabel} showing thename of the currently highlighted
 	 * {@link IAnchor}.
@@ -102,32 +117,91 @@ public class MainFrame extends UIFrame
 	/** The {@link RSyntaxTextArea} for the code. */
 	private RSyntaxTextArea codeTextArea = null;
 	
-	/** The {@link LuaEnvironment} which is used for executing the code. */
-	private LuaEnvironment environment = new LuaEnvironment();
+	/**
+	 * The {@link EditRecorder} which records the changes of the code,
+	 * {@code null} if no recording is running.
+	 */
+	private EditRecorder editRecorder = null;
 	
 	/** The {@link UILabel} that is used for displaying any error messages. */
 	private UILabel errorLabel = null;
 	
-	/** The main {@link UIFormLayout}. */
-	private UIFormLayout formLayout = null;
+	/** The {@link UIPanel} which contains the {@link #formPanel}. */
+	private UIPanel formContainer = null;
 	
-	/** The main {@link UIPanel}. */
+	/** The main {@link UIPanel}, which is replaced on every update. */
 	private AnchorShowingPanel formPanel = null;
 	
+	/**
+	 * The {@link FormViewport} which displays the {@link #formPanel} zoomed
+	 * and panned.
+	 */
+	private FormViewport formViewport = null;
+	
+	/** The wrapped {@link #formViewport}. */
+	private UIComponent<IComponent> formViewportComponent = null;
+	
+	/**
+	 * The {@link BufferedLayoutBuilder} which builds the layout and swaps the
+	 * {@link #formPanel}.
+	 */
+	private BufferedLayoutBuilder layoutBuilder = null;
+	
+	/**
+	 * If the {@link LayoutCostFrame} is shown once the layout has been built
+	 * again with the lines of the script.
+	 */
+	private boolean layoutCostsPending = false;
+	
 	/** The {@link IDataRow} that is used as backend for the legend. */
 	private IDataRow legendDataRow = null;
 	
-	/** The {@link Random} that is used to get random colors. */
-	private Random random = new Random(1);
+	/**
+	 * The {@link UIButton} which switches between building progressively and
+	 * in the background.
+	 */
+	private UIButton progressiveBuildButton = null;
+	
+	/** The {@link UIButton} which starts and stops recording the edits. */
+	private UIButton recordEditsButton = null;
+	
+	/**
+	 * The {@link StallDiagnosticsFrame} which lists the stalls, {@code null}
+	 * if it is not open.
+	 */
+	private StallDiagnosticsFrame stallDiagnosticsFrame = null;
+	
+	/**
+	 * The {@link UILabel} listing the worst offenders of the
+	 * {@link LayoutComplexity} of the {@link #formPanel}.
+	 */
+	private UILabel worstAnchors = null;
+	
+	/**
+	 * The wrapped {@link AnchorSnapshotView} which is displayed instead of the
+	 * {@link #formPanel}, {@code null} if no snapshot is opened.
+	 */
+	private UIComponent<IComponent> snapshotComponent = null;
 	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Initialization
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	
 	/**
-	 * Creates a new instance of {@link MainFrame}.
+	 * Creates a new instance of {@link MainFrame} with the default script.
 	 */
 	public MainFrame()
+	{
+		this(null);
+	}
+	
+	/**
+	 * Creates a new instance of {@link MainFrame}.
+	 * 
+	 * @param pScript the Lua sourcecode which is displayed, {@code null} for
+	 *            the default script.
+	 */
+	public MainFrame(String pScript)
 	{
 		super();
 		
@@ -136,18 +210,20 @@ public class MainFrame extends UIFrame
 			initializeModel();
 			initializeUI();
 			
-			environment.getGlobals().set("panel", CoerceJavaToLua.coerce(formPanel));
-			environment.getGlobals().set("layout", CoerceJavaToLua.coerce(formLayout));
-			environment.getGlobals().set("stub", new ZeroArgFunction()
+			layoutBuilder = new BufferedLayoutBuilder(formPanel, createFormPanel());
+			layoutBuilder.setCache(new LayoutCache());
+			layoutBuilder.setBuildCompletedListener(this::showFormPanel);
+			layoutBuilder.setBuildFailedListener(this::showBuildError);
+			
+			if (pScript != null)
 			{
-				@Override
-				public LuaValue call()
-				{
-					return CoerceJavaToLua.coerce(createPlaceholder());
-				}
-			});
+				codeTextArea.setText(pScript);
+			}
+			else
+			{
+				codeTextArea.setText(new String(FileUtil.getContent(ResourceUtil.getResourceAsStream("/com/sibvisions/formlayoutvisualization/default.lua")), StandardCharsets.UTF_8));
+			}
 			
-			codeTextArea.setText(new String(FileUtil.getContent(ResourceUtil.getResourceAsStream("/com/sibvisions/formlayoutvisualization/default.lua")), StandardCharsets.UTF_8));
 			codeTextArea.setCaretPosition(0);
 			codeTextArea.getDocument().addDocumentListener(new CodeChangedListener());
 			
@@ -178,16 +254,25 @@ public class MainFrame extends UIFrame
 				.addColumnDefinition(new ColumnDefinition("AUTOSIZE_ANCHORS_VISIBLE", new BooleanDataType(createBooleanCellEditor(AnchorShowingPanel.AUTOSIZE_ANCHOR_COLOR))));
 		legendDataRow.getRowDefinition()
 				.addColumnDefinition(new ColumnDefinition("FIXED_ANCHORS_VISIBLE", new BooleanDataType(createBooleanCellEditor(AnchorShowingPanel.FIXED_ANCHOR_COLOR))));
+		legendDataRow.getRowDefinition()
+				.addColumnDefinition(new ColumnDefinition("NESTED_ANCHORS_VISIBLE", new BooleanDataType(createBooleanCellEditor(AnchorShowingPanel.NESTED_BORDER_ANCHOR_COLOR))));
+		legendDataRow.getRowDefinition()
+				.addColumnDefinition(new ColumnDefinition("COMPLEX_ANCHORS_VISIBLE", new BooleanDataType(createBooleanCellEditor(AnchorShowingPanel.COMPLEX_ANCHOR_COLOR))));
 		legendDataRow.getRowDefinition()
 				.addColumnDefinition(new ColumnDefinition("BACKGROUND_VISIBLE", new BooleanDataType(createBooleanCellEditor(Tango.BUTTER_3))));
+		legendDataRow.getRowDefinition()
+				.addColumnDefinition(new ColumnDefinition("CLUSTERED_ANCHORS", new BooleanDataType(createBooleanCellEditor(AnchorShowingPanel.CLUSTER_COLOR))));
 		legendDataRow.setValue("BORDER_ANCHORS_VISIBLE", Boolean.TRUE);
 		legendDataRow.setValue("MARGIN_ANCHORS_VISIBLE", Boolean.TRUE);
 		legendDataRow.setValue("AUTOSIZE_ANCHORS_VISIBLE", Boolean.TRUE);
 		legendDataRow.setValue("FIXED_ANCHORS_VISIBLE", Boolean.TRUE);
+		legendDataRow.setValue("NESTED_ANCHORS_VISIBLE", Boolean.TRUE);
+		legendDataRow.setValue("COMPLEX_ANCHORS_VISIBLE", Boolean.TRUE);
 		legendDataRow.setValue("BACKGROUND_VISIBLE", Boolean.FALSE);
+		legendDataRow.setValue("CLUSTERED_ANCHORS", Boolean.FALSE);
 		legendDataRow.eventValuesChanged().addListener(this::doAnchorVisibilityChanged);
 	}
-
+	
 	/**
 	 * Initializes the UI.
 	 * 
@@ -213,20 +298,117 @@ public class MainFrame extends UIFrame
 		sibVisionsLinkButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
 		sibVisionsLinkButton.eventAction().addListener(() -> FileViewer.open("https://www.sibvisions.com/"));
 		
+		UIButton saveSnapshotButton = new UIButton("Save Snapshot");
+		saveSnapshotButton.setBackground(null);
+		saveSnapshotButton.setBorderOnMouseEntered(true);
+		saveSnapshotButton.setFocusable(false);
+		saveSnapshotButton.setImage(UIImage.getImage(IFontAwesome.DOWNLOAD_LARGE));
+		saveSnapshotButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		saveSnapshotButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		saveSnapshotButton.eventAction().addListener(this::doSaveSnapshot);
+		
+		UIButton exportLayoutButton = new UIButton("Export Layout");
+		exportLayoutButton.setBackground(null);
+		exportLayoutButton.setBorderOnMouseEntered(true);
+		exportLayoutButton.setFocusable(false);
+		exportLayoutButton.setImage(UIImage.getImage(IFontAwesome.FILE_CODE_O_LARGE));
+		exportLayoutButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		exportLayoutButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		exportLayoutButton.eventAction().addListener(this::doExportLayout);
+		
+		recordEditsButton = new UIButton("Record Edits");
+		recordEditsButton.setBackground(null);
+		recordEditsButton.setBorderOnMouseEntered(true);
+		recordEditsButton.setFocusable(false);
+		recordEditsButton.setImage(UIImage.getImage(IFontAwesome.VIDEO_CAMERA_LARGE));
+		recordEditsButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		recordEditsButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		recordEditsButton.eventAction().addListener(this::doToggleEditRecording);
+		
+		progressiveBuildButton = new UIButton("Build Progressively");
+		progressiveBuildButton.setBackground(null);
+		progressiveBuildButton.setBorderOnMouseEntered(true);
+		progressiveBuildButton.setFocusable(false);
+		progressiveBuildButton.setImage(UIImage.getImage(IFontAwesome.STEP_FORWARD_LARGE));
+		progressiveBuildButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		progressiveBuildButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		progressiveBuildButton.eventAction().addListener(this::doToggleProgressiveBuild);
+		
+		UIButton resetViewButton = new UIButton("Reset View");
+		resetViewButton.setBackground(null);
+		resetViewButton.setBorderOnMouseEntered(true);
+		resetViewButton.setFocusable(false);
+		resetViewButton.setImage(UIImage.getImage(IFontAwesome.SEARCH_LARGE));
+		resetViewButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		resetViewButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		resetViewButton.eventAction().addListener(this::doResetView);
+		
+		UIButton layoutCostsButton = new UIButton("Layout Costs");
+		layoutCostsButton.setBackground(null);
+		layoutCostsButton.setBorderOnMouseEntered(true);
+		layoutCostsButton.setFocusable(false);
+		layoutCostsButton.setImage(UIImage.getImage(IFontAwesome.TACHOMETER_LARGE));
+		layoutCostsButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		layoutCostsButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		layoutCostsButton.eventAction().addListener(this::doShowLayoutCosts);
+		
+		UIButton sizeSweepButton = new UIButton("Size Sweep");
+		sizeSweepButton.setBackground(null);
+		sizeSweepButton.setBorderOnMouseEntered(true);
+		sizeSweepButton.setFocusable(false);
+		sizeSweepButton.setImage(UIImage.getImage(IFontAwesome.LINE_CHART_LARGE));
+		sizeSweepButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		sizeSweepButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		sizeSweepButton.eventAction().addListener(this::doShowSizeSweep);
+		
+		UIButton stallsButton = new UIButton("EDT Stalls");
+		stallsButton.setBackground(null);
+		stallsButton.setBorderOnMouseEntered(true);
+		stallsButton.setEnabled(StallDetector.getInstalledDetector() != null);
+		stallsButton.setFocusable(false);
+		stallsButton.setImage(UIImage.getImage(IFontAwesome.HEARTBEAT_LARGE));
+		stallsButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		stallsButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		stallsButton.eventAction().addListener(this::doShowStalls);
+		
+		UIButton openSnapshotButton = new UIButton("Open Snapshot");
+		openSnapshotButton.setBackground(null);
+		openSnapshotButton.setBorderOnMouseEntered(true);
+		openSnapshotButton.setFocusable(false);
+		openSnapshotButton.setImage(UIImage.getImage(IFontAwesome.FOLDER_OPEN_LARGE));
+		openSnapshotButton.setHorizontalTextPosition(UIButton.ALIGN_CENTER);
+		openSnapshotButton.setVerticalTextPosition(UIButton.ALIGN_BOTTOM);
+		openSnapshotButton.eventAction().addListener(this::doOpenSnapshot);
+		
 		UIFormLayout headerPanelLayout = new UIFormLayout();
 		
 		UIPanel headerPanel = new UIPanel();
 		headerPanel.setLayout(headerPanelLayout);
 		headerPanel.setBackground(UIColor.white);
 		headerPanel.add(new UIIcon(new UIImage("/com/sibvisions/formlayoutvisualization/images/jvx.png")), headerPanelLayout.getConstraints(0, 0));
+		headerPanel.add(exportLayoutButton, headerPanelLayout.getConstraints(-11, 0));
+		headerPanel.add(resetViewButton, headerPanelLayout.getConstraints(-10, 0));
+		headerPanel.add(layoutCostsButton, headerPanelLayout.getConstraints(-9, 0));
+		headerPanel.add(progressiveBuildButton, headerPanelLayout.getConstraints(-8, 0));
+		headerPanel.add(sizeSweepButton, headerPanelLayout.getConstraints(-7, 0));
+		headerPanel.add(stallsButton, headerPanelLayout.getConstraints(-6, 0));
+		headerPanel.add(recordEditsButton, headerPanelLayout.getConstraints(-5, 0));
+		headerPanel.add(saveSnapshotButton, headerPanelLayout.getConstraints(-4, 0));
+		headerPanel.add(openSnapshotButton, headerPanelLayout.getConstraints(-3, 0));
 		headerPanel.add(jvxLinkButton, headerPanelLayout.getConstraints(-2, 0));
 		headerPanel.add(sibVisionsLinkButton, headerPanelLayout.getConstraints(-1, 0));
 		addBorder(headerPanel, IAlignmentConstants.ALIGN_STRETCH, IAlignmentConstants.ALIGN_BOTTOM);
 		
+		allocatedBytes = new UILabel("Allocated: ---");
+		
 		anchorName = new UILabel("---");
 		anchorOrientation = new UILabel("---");
 		anchorAutoResize = new UILabel("AutoResize: ---");
 		anchorPosition = new UILabel("Position: ---");
+		anchorComplexity = new UILabel("Complexity: ---");
+		
+		worstAnchors = new UILabel();
+		worstAnchors.setForeground(AnchorShowingPanel.COMPLEX_ANCHOR_COLOR);
 		
 		UIFormLayout legendPanelLayout = new UIFormLayout();
 		legendPanelLayout.setVerticalGap(3);
@@ -242,20 +424,29 @@ public class MainFrame extends UIFrame
 		legendPanel.add(new UILabel("AutoSize-Anchor"), legendPanelLayout.getConstraints(1, 2));
 		legendPanel.add(new UIEditor(legendDataRow, "FIXED_ANCHORS_VISIBLE"), legendPanelLayout.getConstraints(0, 3));
 		legendPanel.add(new UILabel("Gap-Anchor"), legendPanelLayout.getConstraints(1, 3));
-		legendPanel.add(new UIEditor(legendDataRow, "BACKGROUND_VISIBLE"), legendPanelLayout.getConstraints(0, 4));
-		legendPanel.add(new UILabel("Background"), legendPanelLayout.getConstraints(1, 4));
-		legendPanel.add(anchorName, legendPanelLayout.getConstraints(0, -4, 1, -4));
-		legendPanel.add(anchorOrientation, legendPanelLayout.getConstraints(0, -3, 1, -3));
-		legendPanel.add(anchorAutoResize, legendPanelLayout.getConstraints(0, -2, 1, -2));
-		legendPanel.add(anchorPosition, legendPanelLayout.getConstraints(0, -1, 1, -1));
+		legendPanel.add(new UIEditor(legendDataRow, "NESTED_ANCHORS_VISIBLE"), legendPanelLayout.getConstraints(0, 4));
+		legendPanel.add(new UILabel("Nested-Anchor"), legendPanelLayout.getConstraints(1, 4));
+		legendPanel.add(new UIEditor(legendDataRow, "COMPLEX_ANCHORS_VISIBLE"), legendPanelLayout.getConstraints(0, 5));
+		legendPanel.add(new UILabel("Complex-Anchor"), legendPanelLayout.getConstraints(1, 5));
+		legendPanel.add(new UIEditor(legendDataRow, "BACKGROUND_VISIBLE"), legendPanelLayout.getConstraints(0, 6));
+		legendPanel.add(new UILabel("Background"), legendPanelLayout.getConstraints(1, 6));
+		legendPanel.add(new UIEditor(legendDataRow, "CLUSTERED_ANCHORS"), legendPanelLayout.getConstraints(0, 7));
+		legendPanel.add(new UILabel("Cluster dense Anchors"), legendPanelLayout.getConstraints(1, 7));
+		legendPanel.add(worstAnchors, legendPanelLayout.getConstraints(0, 8, 1, 8));
+		legendPanel.add(allocatedBytes, legendPanelLayout.getConstraints(0, -6, 1, -6));
+		legendPanel.add(anchorName, legendPanelLayout.getConstraints(0, -5, 1, -5));
+		legendPanel.add(anchorOrientation, legendPanelLayout.getConstraints(0, -4, 1, -4));
+		legendPanel.add(anchorAutoResize, legendPanelLayout.getConstraints(0, -3, 1, -3));
+		legendPanel.add(anchorPosition, legendPanelLayout.getConstraints(0, -2, 1, -2));
+		legendPanel.add(anchorComplexity, legendPanelLayout.getConstraints(0, -1, 1, -1));
 		addBorder(legendPanel, IAlignmentConstants.ALIGN_RIGHT, IAlignmentConstants.ALIGN_STRETCH);
 		
-		formLayout = new UIFormLayout();
+		formPanel = createFormPanel();
 		
-		formPanel = new AnchorShowingPanel();
-		formPanel.setLayout(formLayout);
-		formPanel.setBackground(UIColor.white);
-		formPanel.setHighlightedAnchorChangedListener(this::updateAnchorInformation);
+		formViewport = new FormViewport();
+		formViewport.setPanel(formPanel);
+		
+		formViewportComponent = new UICustomComponent(formViewport);
 		
 		errorLabel = new UILabel();
 		errorLabel.setBackground(UIColor.white);
@@ -265,11 +456,11 @@ public class MainFrame extends UIFrame
 		UIBorderLayout containerLayout = new UIBorderLayout();
 		containerLayout.setMargins(10, 10, 10, 10);
 		
-		UIPanel container = new UIPanel();
-		container.setLayout(containerLayout);
-		container.setBackground(UIColor.white);
-		container.add(errorLabel, UIBorderLayout.NORTH);
-		container.add(formPanel, UIBorderLayout.CENTER);
+		formContainer = new UIPanel();
+		formContainer.setLayout(containerLayout);
+		formContainer.setBackground(UIColor.white);
+		formContainer.add(errorLabel, UIBorderLayout.NORTH);
+		formContainer.add(formViewportComponent, UIBorderLayout.CENTER);
 		
 		codeTextArea = new RSyntaxTextArea();
 		codeTextArea.setAutoIndentEnabled(true);
@@ -304,7 +495,7 @@ public class MainFrame extends UIFrame
 		setTitle("Formlayout Visualization");
 		add(headerPanel, UIBorderLayout.NORTH);
 		add(legendPanel, UIBorderLayout.WEST);
-		add(container, UIBorderLayout.CENTER);
+		add(formContainer, UIBorderLayout.CENTER);
 		add(codePanel, UIBorderLayout.EAST);
 		
 		formPanel.updateAnchorDisplay();
@@ -363,29 +554,149 @@ public class MainFrame extends UIFrame
 	}
 	
 	/**
-	 * Creates a new placeholder {@link UIComponent}.
+	 * Closes the opened snapshot, if any, and displays the {@link #formPanel}
+	 * again.
+	 */
+	private void closeSnapshot()
+	{
+		if (snapshotComponent != null)
+		{
+			formContainer.remove(snapshotComponent);
+			formContainer.add(formViewportComponent, UIBorderLayout.CENTER);
+			
+			snapshotComponent = null;
+			
+			resetAnchorInformation();
+			updateWorstAnchors();
+		}
+	}
+	
+	/**
+	 * Creates a new {@link AnchorShowingPanel} which can be used as
+	 * {@link #formPanel}.
 	 * 
-	 * @return a new placeholder {@link UIComponent}.
+	 * @return the new {@link AnchorShowingPanel}.
 	 */
-	private UIComponent<?> createPlaceholder()
+	private AnchorShowingPanel createFormPanel()
 	{
-		IColor background = Tango.ALUMINIUM_1;
+		AnchorShowingPanel panel = new AnchorShowingPanel();
+		panel.setLayout(new UIFormLayout());
+		panel.setBackground(UIColor.white);
+		panel.setHighlightedAnchorChangedListener(this::updateAnchorInformation);
 		
-		int red = background.getRed();
-		int green = background.getGreen();
-		int blue = background.getBlue();
+		return panel;
+	}
+	
+	/**
+	 * Resets the information of the currently highlighted {@link IAnchor}.
+	 */
+	private void resetAnchorInformation()
+	{
+		anchorName.setText("---");
+		anchorOrientation.setText("---");
+		anchorAutoResize.setText("AutoResize: ---");
+		anchorPosition.setText("Position: ---");
+		anchorComplexity.setText("Complexity: ---");
+	}
+	
+	/**
+	 * Displays the error of a failed build.
+	 * <p>
+	 * The {@link #formPanel} keeps displaying the last successful build.
+	 * 
+	 * @param pException the {@link LuaException}.
+	 */
+	private void showBuildError(LuaException pException)
+	{
+		if (layoutCostsPending)
+		{
+			layoutCostsPending = false;
+			
+			layoutBuilder.setScriptLinesRecorded(false);
+		}
+		
+		errorLabel.setText("<html>" + pException.getMessage().replace("\n", "<br>") + "</html>");
+		errorLabel.setVisible(true);
+	}
+	
+	/**
+	 * Displays the given {@link AnchorShowingPanel} as {@link #formPanel}
+	 * after a build has completed.
+	 * 
+	 * @param pPanel the {@link AnchorShowingPanel} to display.
+	 */
+	private void showFormPanel(AnchorShowingPanel pPanel)
+	{
+		errorLabel.setText(null);
+		errorLabel.setVisible(false);
 		
-		red = Math.max(0, Math.min(255, red - random.nextInt(128)));
-		green = Math.max(0, Math.min(255, green - random.nextInt(128)));
-		blue = Math.max(0, Math.min(255, blue - random.nextInt(128)));
+		if (pPanel != formPanel)
+		{
+			// If a snapshot has been opened in the meantime, the new panel
+			// will be displayed when it is closed.
+			formViewport.setPanel(pPanel);
+			
+			formPanel = pPanel;
+			
+			resetAnchorInformation();
+		}
+		
+		if (snapshotComponent == null)
+		{
+			updateWorstAnchors();
+		}
 		
-		UILabel label = new UILabel("   stub   ");
-		label.setBackground(new UIColor(red, green, blue));
-		label.setForeground(Tango.ALUMINIUM_6);
-		label.setHorizontalAlignment(UILabel.ALIGN_CENTER);
-		label.setVerticalAlignment(UILabel.ALIGN_CENTER);
+		allocatedBytes.setText("Allocated: " + AllocationCounter.format(layoutBuilder.getAllocatedBytes()) + " per update");
 		
-		return label;
+		if (layoutCostsPending)
+		{
+			layoutCostsPending = false;
+			
+			try
+			{
+				doShowLayoutCosts();
+			}
+			catch (ModelException e)
+			{
+				ExceptionHandler.show(e);
+			}
+		}
+	}
+	
+	/**
+	 * Selects the given line in the {@link #codeTextArea}.
+	 * 
+	 * @param pLine the line, starting at {@code 1}.
+	 * @throws BadLocationException if the line does not exist.
+	 */
+	private void selectScriptLine(int pLine) throws BadLocationException
+	{
+		codeTextArea.setCaretPosition(codeTextArea.getLineStartOffset(pLine - 1));
+		codeTextArea.moveCaretPosition(codeTextArea.getLineEndOffset(pLine - 1));
+		codeTextArea.requestFocusInWindow();
+	}
+	
+	/**
+	 * Shows the given {@link SizeSweep} in a new frame.
+	 * 
+	 * @param pSweep the {@link SizeSweep} which has been run.
+	 * @param pWidth the width which is selected.
+	 * @param pHeight the height which is selected.
+	 */
+	private void showSizeSweep(SizeSweep pSweep, int pWidth, int pHeight)
+	{
+		SizeSweepView sweepView = new SizeSweepView(pSweep);
+		sweepView.setSelection(pSweep.indexOf(pWidth), pSweep.indexOf(pHeight));
+		
+		JScrollPane sweepScrollPane = new JScrollPane(sweepView);
+		sweepScrollPane.setBorder(null);
+		
+		UIFrame sweepFrame = new UIFrame();
+		sweepFrame.setLayout(new UIBorderLayout());
+		sweepFrame.setTitle("Size Sweep");
+		sweepFrame.add(new UICustomComponent(sweepScrollPane), UIBorderLayout.CENTER);
+		sweepFrame.pack();
+		sweepFrame.setVisible(true);
 	}
 	
 	/**
@@ -397,59 +708,119 @@ public class MainFrame extends UIFrame
 	{
 		if (pAnchor != null)
 		{
-			anchorName.setText(formPanel.getAnchorName(pAnchor));
+			updateAnchorInformation(formPanel.getAnchorName(pAnchor), pAnchor.getOrientation(), pAnchor.isAutoSize(), pAnchor.getPosition());
+			
+			LayoutComplexity complexity = formPanel.getLayoutComplexity();
 			
-			if (pAnchor.getOrientation() == IAnchor.HORIZONTAL)
+			if (complexity != null && complexity.contains(pAnchor))
 			{
-				anchorOrientation.setText("Horizontal");
+				anchorComplexity.setText(String.format("Complexity: depth %d, fan-out %d, autosize %d",
+						Integer.valueOf(complexity.getChainDepth(pAnchor)),
+						Integer.valueOf(complexity.getFanOut(pAnchor)),
+						Integer.valueOf(complexity.getAutoSizeCount(pAnchor))));
 			}
 			else
 			{
-				anchorOrientation.setText("Vertical");
+				anchorComplexity.setText("Complexity: ---");
 			}
-			
-			anchorAutoResize.setText("AutoResize: " + Boolean.toString(pAnchor.isAutoSize()));
-			anchorPosition.setText("Position: " + Integer.toString(pAnchor.getPosition()));
 		}
 		else
 		{
-			anchorName.setText("---");
-			anchorOrientation.setText("---");
-			anchorAutoResize.setText("AutoResize: ---");
-			anchorPosition.setText("Position: ---");
+			resetAnchorInformation();
 		}
 	}
 	
+	/**
+	 * Updates the information of the currently highlighted anchor of the
+	 * given {@link AnchorSnapshot}.
+	 * 
+	 * @param pSnapshot the {@link AnchorSnapshot}.
+	 * @param pAnchor the index of the currently highlighted anchor,
+	 *            {@code -1} if none is highlighted.
+	 */
+	private void updateAnchorInformation(AnchorSnapshot pSnapshot, int pAnchor)
+	{
+		if (pAnchor >= 0)
+		{
+			updateAnchorInformation(pSnapshot.getAnchorName(pAnchor), pSnapshot.getAnchorOrientation(pAnchor), pSnapshot.isAnchorAutoSize(pAnchor), pSnapshot.getAnchorPosition(pAnchor));
+		}
+		else
+		{
+			resetAnchorInformation();
+		}
+	}
+	
+	/**
+	 * Updates the information of the currently highlighted anchor.
+	 * 
+	 * @param pName the name of the anchor.
+	 * @param pOrientation the orientation of the anchor.
+	 * @param pAutoSize if the anchor is an autosize anchor.
+	 * @param pPosition the position of the anchor.
+	 */
+	private void updateAnchorInformation(String pName, int pOrientation, boolean pAutoSize, int pPosition)
+	{
+		anchorName.setText(pName);
+		anchorComplexity.setText("Complexity: ---");
+		
+		if (pOrientation == IAnchor.HORIZONTAL)
+		{
+			anchorOrientation.setText("Horizontal");
+		}
+		else
+		{
+			anchorOrientation.setText("Vertical");
+		}
+		
+		anchorAutoResize.setText("AutoResize: " + Boolean.toString(pAutoSize));
+		anchorPosition.setText("Position: " + Integer.toString(pPosition));
+	}
+	
 	/**
 	 * Updates the layout according to the current Lua sourcecode.
+	 * <p>
+	 * The layout is built in the background, the {@link #formPanel} is
+	 * replaced once the build has completed.
 	 */
 	private void updateLayout()
 	{
-		errorLabel.setText(null);
-		errorLabel.setVisible(false);
+		StallDetector.markPhase("updateLayout");
 		
-		formPanel.removeAll();
-		formPanel.setVisible(true);
+		closeSnapshot();
 		
-		// Reset the Random object ot receive the same colors again.
-		random.setSeed(1);
+		layoutBuilder.build(codeTextArea.getText());
+	}
+	
+	/**
+	 * Updates the list of the worst offenders of the
+	 * {@link LayoutComplexity} of the {@link #formPanel}.
+	 */
+	private void updateWorstAnchors()
+	{
+		LayoutComplexity complexity = formPanel.getLayoutComplexity();
 		
-		try
+		if (complexity == null || complexity.getWorstAnchors().isEmpty())
 		{
-			formLayout = new UIFormLayout();
-			formPanel.setLayout(formLayout);
-			environment.getGlobals().set("layout", CoerceJavaToLua.coerce(formLayout));
-			
-			environment.execute(codeTextArea.getText());
+			worstAnchors.setText(null);
 			
-			formPanel.updateAnchorDisplay();
+			return;
 		}
-		catch (LuaException e)
+		
+		StringBuilder text = new StringBuilder("<html>Most complex:");
+		
+		for (IAnchor anchor : complexity.getWorstAnchors())
 		{
-			errorLabel.setText("<html>" + e.getMessage() + "</html>");
-			errorLabel.setVisible(true);
-			formPanel.setVisible(false);
+			text.append("<br>");
+			text.append(String.format("%s: depth %d, fan-out %d, autosize %d",
+					formPanel.getAnchorName(anchor),
+					Integer.valueOf(complexity.getChainDepth(anchor)),
+					Integer.valueOf(complexity.getFanOut(anchor)),
+					Integer.valueOf(complexity.getAutoSizeCount(anchor))));
 		}
+		
+		text.append("</html>");
+		
+		worstAnchors.setText(text.toString());
 	}
 	
 	//****************************************************************
@@ -484,6 +855,21 @@ public class MainFrame extends UIFrame
 			formPanel.showFixedAnchors(((Boolean)legendDataRow.getValue("FIXED_ANCHORS_VISIBLE")).booleanValue());
 		}
 		
+		if (pDataRowEvent.isChangedColumnName("NESTED_ANCHORS_VISIBLE"))
+		{
+			formPanel.showNestedAnchors(((Boolean)legendDataRow.getValue("NESTED_ANCHORS_VISIBLE")).booleanValue());
+		}
+		
+		if (pDataRowEvent.isChangedColumnName("COMPLEX_ANCHORS_VISIBLE"))
+		{
+			formPanel.showComplexAnchors(((Boolean)legendDataRow.getValue("COMPLEX_ANCHORS_VISIBLE")).booleanValue());
+		}
+		
+		if (pDataRowEvent.isChangedColumnName("CLUSTERED_ANCHORS"))
+		{
+			formPanel.clusterAnchors(((Boolean)legendDataRow.getValue("CLUSTERED_ANCHORS")).booleanValue());
+		}
+		
 		if (pDataRowEvent.isChangedColumnName("BACKGROUND_VISIBLE"))
 		{
 			if (((Boolean)legendDataRow.getValue("BACKGROUND_VISIBLE")).booleanValue())
@@ -496,7 +882,234 @@ public class MainFrame extends UIFrame
 			}
 		}
 	}
-
+	
+	/**
+	 * Exports the solved layout of the {@link #formPanel} with the
+	 * {@link LayoutExporter}, as SVG if the file name ends with ".svg",
+	 * otherwise as JSON lines.
+	 * 
+	 * @throws IOException if the layout could not be exported.
+	 */
+	private void doExportLayout() throws IOException
+	{
+		JFileChooser fileChooser = new JFileChooser();
+		
+		if (fileChooser.showSaveDialog((Component)getResource()) == JFileChooser.APPROVE_OPTION)
+		{
+			LayoutExporter.write(formPanel, fileChooser.getSelectedFile().toPath());
+		}
+	}
+	
+	/**
+	 * Opens a snapshot which has been saved with "Save Snapshot" and displays
+	 * it instead of the {@link #formPanel}, until the code is changed.
+	 * 
+	 * @throws IOException if the snapshot could not be opened.
+	 */
+	private void doOpenSnapshot() throws IOException
+	{
+		JFileChooser fileChooser = new JFileChooser();
+		
+		if (fileChooser.showOpenDialog((Component)getResource()) == JFileChooser.APPROVE_OPTION)
+		{
+			AnchorSnapshot snapshot = AnchorSnapshot.open(fileChooser.getSelectedFile().toPath());
+			
+			AnchorSnapshotView snapshotView = new AnchorSnapshotView(snapshot);
+			snapshotView.setHighlightedAnchorChangedListener(pAnchor -> updateAnchorInformation(snapshot, pAnchor));
+			
+			JScrollPane snapshotScrollPane = new JScrollPane(snapshotView);
+			snapshotScrollPane.setBorder(null);
+			
+			closeSnapshot();
+			
+			snapshotComponent = new UICustomComponent(snapshotScrollPane);
+			
+			formContainer.remove(formViewportComponent);
+			formContainer.add(snapshotComponent, UIBorderLayout.CENTER);
+			
+			// The snapshot has no complexity analysis.
+			worstAnchors.setText(null);
+		}
+	}
+	
+	/**
+	 * Resets the zoom and the pan of the {@link #formViewport}.
+	 */
+	private void doResetView()
+	{
+		formViewport.resetView();
+	}
+	
+	/**
+	 * Saves the current state of the {@link #formPanel} as snapshot.
+	 * 
+	 * @throws IOException if the snapshot could not be saved.
+	 */
+	private void doSaveSnapshot() throws IOException
+	{
+		JFileChooser fileChooser = new JFileChooser();
+		
+		if (fileChooser.showSaveDialog((Component)getResource()) == JFileChooser.APPROVE_OPTION)
+		{
+			AnchorSnapshot.write(formPanel, fileChooser.getSelectedFile().toPath());
+		}
+	}
+	
+	/**
+	 * Solves the layout of the current Lua sourcecode at a range of container
+	 * sizes and shows the result in a new frame.
+	 * <p>
+	 * The layout is built on the EDT, the sizes are solved in the background
+	 * on all cores.
+	 * 
+	 * @throws LuaException if executing the script failed.
+	 */
+	private void doShowSizeSweep() throws LuaException
+	{
+		StallDetector.markPhase("sizeSweep");
+		
+		SizeSweep sweep = new SizeSweep(
+				SizeSweep.createGraph(codeTextArea.getText()),
+				SizeSweep.DEFAULT_MINIMUM_SIZE,
+				SizeSweep.DEFAULT_MAXIMUM_SIZE,
+				SizeSweep.DEFAULT_STEP);
+		
+		int width = formPanel.getSize().getWidth();
+		int height = formPanel.getSize().getHeight();
+		
+		ForkJoinPool.commonPool().execute(() ->
+		{
+			sweep.run(ForkJoinPool.commonPool());
+			
+			SwingUtilities.invokeLater(() -> showSizeSweep(sweep, width, height));
+		});
+	}
+	
+	/**
+	 * Measures the {@link LayoutCost} of the {@link #formPanel}, shows it as
+	 * overlay and lists it in a new {@link LayoutCostFrame}.
+	 * <p>
+	 * Selecting a component in the list selects the line of the code which
+	 * created it. The lines are only recorded while the frame is shown, so the
+	 * layout is built again with them first, and the frame is shown once that
+	 * build has completed. The overlay is removed when the frame is closed.
+	 * 
+	 * @throws ModelException when initializing the frame failed.
+	 */
+	private void doShowLayoutCosts() throws ModelException
+	{
+		StallDetector.markPhase("layoutCosts");
+		
+		if (!layoutBuilder.isScriptLinesRecorded())
+		{
+			layoutBuilder.setScriptLinesRecorded(true);
+			layoutCostsPending = true;
+			
+			updateLayout();
+			
+			return;
+		}
+		
+		AnchorShowingPanel panel = formPanel;
+		LayoutCost layoutCost = new LayoutCost(panel, LayoutCost.DEFAULT_REPETITIONS);
+		
+		panel.setLayoutCost(layoutCost);
+		
+		LayoutCostFrame layoutCostFrame = new LayoutCostFrame(layoutCost);
+		layoutCostFrame.setScriptLineSelectedListener(pLine ->
+		{
+			try
+			{
+				selectScriptLine(pLine.intValue());
+			}
+			catch (BadLocationException e)
+			{
+				// The code has been changed since, there is nothing to select.
+			}
+		});
+		layoutCostFrame.eventWindowClosed().addListener(() ->
+		{
+			if (panel.getLayoutCost() == layoutCost)
+			{
+				panel.setLayoutCost(null);
+			}
+			
+			layoutBuilder.setScriptLinesRecorded(false);
+		});
+		layoutCostFrame.setVisible(true);
+	}
+	
+	/**
+	 * Shows the {@link StallDiagnosticsFrame} of the installed
+	 * {@link StallDetector}.
+	 * 
+	 * @throws ModelException when initializing the frame failed.
+	 */
+	private void doShowStalls() throws ModelException
+	{
+		if (stallDiagnosticsFrame == null)
+		{
+			stallDiagnosticsFrame = new StallDiagnosticsFrame(StallDetector.getInstalledDetector());
+			stallDiagnosticsFrame.eventWindowClosed().addListener(() -> stallDiagnosticsFrame = null);
+		}
+		
+		stallDiagnosticsFrame.setVisible(true);
+		stallDiagnosticsFrame.toFront();
+	}
+	
+	/**
+	 * Starts recording the changes of the code into a file, or stops the
+	 * running recording.
+	 * <p>
+	 * The recording can be replayed with the {@link EditReplayer}.
+	 * 
+	 * @throws IOException if the recording could not be started or written.
+	 */
+	private void doToggleEditRecording() throws IOException
+	{
+		if (editRecorder == null)
+		{
+			JFileChooser fileChooser = new JFileChooser();
+			
+			if (fileChooser.showSaveDialog((Component)getResource()) == JFileChooser.APPROVE_OPTION)
+			{
+				editRecorder = new EditRecorder(codeTextArea.getDocument(), fileChooser.getSelectedFile().toPath());
+				
+				recordEditsButton.setText("Stop Recording");
+			}
+		}
+		else
+		{
+			EditRecorder recorder = editRecorder;
+			
+			editRecorder = null;
+			recordEditsButton.setText("Record Edits");
+			
+			recorder.stop();
+		}
+	}
+	
+	/**
+	 * Switches between building the layout progressively into the displayed
+	 * panel and building it in the background, starting with the next change
+	 * of the code.
+	 */
+	private void doToggleProgressiveBuild()
+	{
+		if (layoutBuilder.getSliceSize() == 0)
+		{
+			layoutBuilder.setSliceSize(LayoutBuilder.DEFAULT_SLICE_SIZE);
+			
+			progressiveBuildButton.setText("Build Buffered");
+		}
+		else
+		{
+			layoutBuilder.setSliceSize(0);
+			
+			progressiveBuildButton.setText("Build Progressively");
+		}
+	}
+	
 	/**
 	 * The {@link CodeChangedListener} is a {@link DocumentListener} which
 	 * invokes the update.
@@ -0,0 +1,998 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.rad.ui.IFactory;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.Lua;
+import org.luaj.vm2.LuaFunction;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Prototype;
+import org.luaj.vm2.compiler.LuaC;
+import org.luaj.vm2.luajc.JavaGen;
+import org.luaj.vm2.luajc.LuaJC;
+
+/**
+ * The {@link ScriptCache} keeps the Java classes into which Lua scripts are
+ * compiled in a directory, so that a script which has been compiled before,
+ * even by a previous run, is not compiled again.
+ * <p>
+ * It is attached to the {@link Globals} of a {@link LayoutBuilder} as their
+ * compiler and loader. Every chunk which is loaded from source is compiled by
+ * {@link LuaC} and {@link JavaGen}, like {@link LuaJC} would do, and the
+ * generated classes are written to the directory. The entries are keyed by
+ * the hash of the source and the versions of LuaJ and JVx, so that an update
+ * of either does not load stale classes.
+ * <p>
+ * The directory is scanned when the cache is created, the entries are read
+ * only when they are needed. They are evicted in least-recently-used order,
+ * by the time they have been last used, as soon as all entries together
+ * exceed the size limit.
+ * <p>
+ * Because the classes of an entry are defined without any further checks,
+ * the directory should belong to the current user. Where the file system
+ * supports POSIX permissions, it is created with access for the owner only
+ * and a directory which belongs to another user is refused. Additionally,
+ * every entry is signed with a random key which is kept in the directory,
+ * an entry whose signature does not match its bytecode is compiled again
+ * instead of being loaded.
+ * 
+ * @author Robert Zenz
+ */
+public class ScriptCache implements Globals.Compiler, Globals.Loader
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default size limit, in bytes. */
+	public static final long DEFAULT_SIZE_LIMIT = 64 * 1024 * 1024;
+	
+	/** The permissions of the directory, access for the owner only. */
+	private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+	
+	/** The extension of the entries. */
+	private static final String ENTRY_EXTENSION = ".luajc";
+	
+	/** The size of the header of an entry. */
+	private static final int HEADER_SIZE = 12;
+	
+	/** The name of the file of the key with which the entries are signed. */
+	private static final String KEY_FILE_NAME = "entries.key";
+	
+	/** The size of the key with which the entries are signed, in bytes. */
+	private static final int KEY_SIZE = 32;
+	
+	/** The algorithm of the signature of an entry. */
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+	
+	/** The size of the signature at the end of an entry, in bytes. */
+	private static final int MAC_SIZE = 32;
+	
+	/** The magic number at the start of an entry, "LUJC". */
+	private static final int MAGIC = 0x4c554a43;
+	
+	/** The version of the format. */
+	private static final int VERSION = 2;
+	
+	/** The versions of LuaJ and JVx, which are part of every key. */
+	private static final String VERSIONS = Lua._VERSION + "\n" + IFactory.class.getPackage().getImplementationVersion() + "\n";
+	
+	/** The installed {@link ScriptCache}. */
+	private static volatile ScriptCache installedCache = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The directory of the entries. */
+	private Path directory = null;
+	
+	/** The sizes of the entries by their key, in least-recently-used order. */
+	private Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	
+	/** The number of successful lookups. */
+	private long hitCount = 0;
+	
+	/** The key with which the entries are signed. */
+	private SecretKeySpec key = null;
+	
+	/** The number of failed lookups. */
+	private long missCount = 0;
+	
+	/** The size limit, in bytes. */
+	private long sizeLimit = 0;
+	
+	/** The size of all entries, in bytes. */
+	private long usedSize = 0;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link ScriptCache}.
+	 * <p>
+	 * The directory is created if it does not exist, the entries in it are
+	 * evicted until they fit into the size limit.
+	 * 
+	 * @param pDirectory the directory of the entries.
+	 * @param pSizeLimit the size limit, in bytes.
+	 * @throws IOException if the directory could not be created or read, or
+	 *                     belongs to another user.
+	 */
+	public ScriptCache(Path pDirectory, long pSizeLimit) throws IOException
+	{
+		super();
+		
+		directory = pDirectory;
+		sizeLimit = pSizeLimit;
+		
+		createPrivateDirectory(directory);
+		
+		key = new SecretKeySpec(readKey(directory), MAC_ALGORITHM);
+		
+		List<Path> paths = new ArrayList<>();
+		
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_EXTENSION))
+		{
+			for (Path path : stream)
+			{
+				paths.add(path);
+			}
+		}
+		
+		// The least recently used first.
+		Map<Path, FileTime> lastUsed = new LinkedHashMap<>();
+		
+		for (Path path : paths)
+		{
+			lastUsed.put(path, Files.getLastModifiedTime(path));
+		}
+		
+		paths.sort((pFirst, pSecond) -> lastUsed.get(pFirst).compareTo(lastUsed.get(pSecond)));
+		
+		for (Path path : paths)
+		{
+			long size = Files.size(path);
+			
+			String fileName = path.getFileName().toString();
+			
+			entries.put(fileName.substring(0, fileName.length() - ENTRY_EXTENSION.length()), Long.valueOf(size));
+			usedSize = usedSize + size;
+		}
+		
+		evict();
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Interface implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The returned {@link Prototype} only carries the compiled classes, it can
+	 * only be loaded by this {@link ScriptCache}.
+	 */
+	@Override
+	public Prototype compile(InputStream pStream, String pChunkName) throws IOException
+	{
+		byte[] source = readAll(pStream);
+		
+		String key = createKey(pChunkName, source);
+		
+		synchronized (this)
+		{
+			if (entries.containsKey(key))
+			{
+				try
+				{
+					CompiledPrototype prototype = read(key);
+					
+					hitCount++;
+					
+					Files.setLastModifiedTime(getPath(key), FileTime.fromMillis(System.currentTimeMillis()));
+					
+					return prototype;
+				}
+				catch (IOException e)
+				{
+					// The entry is corrupted, it is compiled again.
+					remove(key);
+				}
+			}
+			
+			missCount++;
+		}
+		
+		String fileName = getFileName(pChunkName);
+		
+		JavaGen gen = new JavaGen(
+				LuaC.instance.compile(new ByteArrayInputStream(source), pChunkName),
+				getClassName(fileName),
+				fileName,
+				false);
+		
+		Map<String, byte[]> classes = new LinkedHashMap<>();
+		addClasses(classes, gen);
+		
+		CompiledPrototype prototype = new CompiledPrototype(gen.classname, classes);
+		
+		synchronized (this)
+		{
+			try
+			{
+				write(key, prototype);
+				
+				evict();
+			}
+			catch (IOException e)
+			{
+				// The script is not cached, but the build does not fail
+				// because of that.
+				remove(key);
+			}
+		}
+		
+		return prototype;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * A {@link Prototype} which has not been compiled by this
+	 * {@link ScriptCache}, for example a precompiled binary chunk, is loaded
+	 * by {@link LuaJC}.
+	 */
+	@Override
+	public LuaFunction load(Prototype pPrototype, String pChunkName, LuaValue pEnvironment) throws IOException
+	{
+		if (pPrototype instanceof CompiledPrototype)
+		{
+			return ((CompiledPrototype)pPrototype).load(pEnvironment);
+		}
+		
+		return LuaJC.instance.load(pPrototype, pChunkName, pEnvironment);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Gets the installed {@link ScriptCache}.
+	 * 
+	 * @return the installed {@link ScriptCache}, {@code null} if none has
+	 *         been installed.
+	 */
+	public static ScriptCache getInstalledCache()
+	{
+		return installedCache;
+	}
+	
+	/**
+	 * Installs a new {@link ScriptCache} with the {@link #DEFAULT_SIZE_LIMIT},
+	 * if none has been installed yet. Every {@link LayoutBuilder} which is
+	 * created afterwards uses it.
+	 * 
+	 * @param pDirectory the directory of the entries.
+	 * @return the installed {@link ScriptCache}.
+	 * @throws IOException if the directory could not be created or read, or
+	 *                     belongs to another user.
+	 */
+	public static synchronized ScriptCache install(Path pDirectory) throws IOException
+	{
+		if (installedCache == null)
+		{
+			installedCache = new ScriptCache(pDirectory, DEFAULT_SIZE_LIMIT);
+		}
+		
+		return installedCache;
+	}
+	
+	/**
+	 * Adds the classes of the given {@link JavaGen} and all its inner ones to
+	 * the given {@link Map}.
+	 * 
+	 * @param pClasses the {@link Map} of the classes by their name.
+	 * @param pGen the {@link JavaGen}.
+	 */
+	private static void addClasses(Map<String, byte[]> pClasses, JavaGen pGen)
+	{
+		pClasses.put(pGen.classname, pGen.bytecode);
+		
+		if (pGen.inners != null)
+		{
+			for (JavaGen inner : pGen.inners)
+			{
+				addClasses(pClasses, inner);
+			}
+		}
+	}
+	
+	/**
+	 * Creates the given directory, if it does not exist, so that only the
+	 * current user has access to it.
+	 * <p>
+	 * Where the file system supports POSIX permissions, the directory must
+	 * belong to the current user and its permissions are restricted to the
+	 * owner, also if it existed already.
+	 * 
+	 * @param pDirectory the directory.
+	 * @throws IOException if the directory could not be created, is a symbolic
+	 *                     link or belongs to another user.
+	 */
+	private static void createPrivateDirectory(Path pDirectory) throws IOException
+	{
+		if (Files.isSymbolicLink(pDirectory))
+		{
+			throw new IOException("The directory <" + pDirectory + "> is a symbolic link.");
+		}
+		
+		boolean posix = pDirectory.getFileSystem().supportedFileAttributeViews().contains("posix");
+		
+		if (!Files.isDirectory(pDirectory, LinkOption.NOFOLLOW_LINKS))
+		{
+			Path parent = pDirectory.toAbsolutePath().getParent();
+			
+			if (parent != null)
+			{
+				Files.createDirectories(parent);
+			}
+			
+			try
+			{
+				if (posix)
+				{
+					Files.createDirectory(pDirectory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+				}
+				else
+				{
+					Files.createDirectory(pDirectory);
+				}
+			}
+			catch (FileAlreadyExistsException e)
+			{
+				// Another instance has created it in the meantime, its owner
+				// is checked below.
+			}
+		}
+		
+		if (posix)
+		{
+			UserPrincipal user = pDirectory.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+			
+			if (!user.equals(Files.getOwner(pDirectory, LinkOption.NOFOLLOW_LINKS)))
+			{
+				throw new IOException("The directory <" + pDirectory + "> belongs to another user.");
+			}
+			
+			Files.setPosixFilePermissions(pDirectory, DIRECTORY_PERMISSIONS);
+		}
+	}
+	
+	/**
+	 * Creates the key of the given chunk.
+	 * 
+	 * @param pChunkName the name of the chunk.
+	 * @param pSource the source of the chunk.
+	 * @return the key, the hexadecimal hash.
+	 */
+	private static String createKey(String pChunkName, byte[] pSource)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update((VERSIONS + pChunkName + "\n").getBytes(StandardCharsets.UTF_8));
+			digest.update(pSource);
+			
+			StringBuilder key = new StringBuilder();
+			
+			for (byte value : digest.digest())
+			{
+				key.append(String.format("%02x", Integer.valueOf(value & 0xff)));
+			}
+			
+			return key.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("SHA-256 is not available.", e);
+		}
+	}
+	
+	/**
+	 * Gets the name of the main class of the chunk in the given file, the
+	 * same way as {@link LuaJC} names it.
+	 * 
+	 * @param pFileName the name of the file of the chunk.
+	 * @return the name of the main class.
+	 */
+	private static String getClassName(String pFileName)
+	{
+		StringBuilder className = new StringBuilder(pFileName.substring(0, pFileName.length() - ".lua".length()));
+		
+		for (int index = 0; index < className.length(); index++)
+		{
+			if (!Character.isJavaIdentifierPart(className.charAt(index)))
+			{
+				className.setCharAt(index, '_');
+			}
+		}
+		
+		if (className.length() == 0 || !Character.isJavaIdentifierStart(className.charAt(0)))
+		{
+			className.insert(0, '_');
+		}
+		
+		return className.toString();
+	}
+	
+	/**
+	 * Gets the name of the file of the given chunk, which the compiled classes
+	 * report as their source file.
+	 * 
+	 * @param pChunkName the name of the chunk.
+	 * @return the name of the file.
+	 */
+	private static String getFileName(String pChunkName)
+	{
+		String fileName = pChunkName.replace('\\', '/');
+		fileName = fileName.substring(fileName.lastIndexOf('/') + 1);
+		
+		if (fileName.startsWith("@") || fileName.startsWith("="))
+		{
+			fileName = fileName.substring(1);
+		}
+		
+		if (!fileName.endsWith(".lua"))
+		{
+			fileName = fileName + ".lua";
+		}
+		
+		return fileName;
+	}
+	
+	/**
+	 * Reads the key with which the entries are signed from the given
+	 * directory. A new random key is created if there is none yet or the
+	 * existing one is corrupted, the entries which have been signed with the
+	 * previous one are compiled again.
+	 * 
+	 * @param pDirectory the directory of the entries.
+	 * @return the key.
+	 * @throws IOException if the key could not be read or written.
+	 */
+	private static byte[] readKey(Path pDirectory) throws IOException
+	{
+		Path path = pDirectory.resolve(KEY_FILE_NAME);
+		
+		if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && Files.size(path) == KEY_SIZE)
+		{
+			return Files.readAllBytes(path);
+		}
+		
+		byte[] key = new byte[KEY_SIZE];
+		new SecureRandom().nextBytes(key);
+		
+		// Temporary files are only accessible by the owner.
+		Path temporaryPath = Files.createTempFile(pDirectory, KEY_FILE_NAME, ".tmp");
+		
+		try
+		{
+			Files.write(temporaryPath, key);
+			Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temporaryPath);
+		}
+		
+		return key;
+	}
+	
+	/**
+	 * Reads the given {@link InputStream} completely.
+	 * 
+	 * @param pStream the {@link InputStream}.
+	 * @return the content.
+	 * @throws IOException if reading failed.
+	 */
+	private static byte[] readAll(InputStream pStream) throws IOException
+	{
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		
+		byte[] buffer = new byte[8192];
+		int length = pStream.read(buffer);
+		
+		while (length >= 0)
+		{
+			content.write(buffer, 0, length);
+			
+			length = pStream.read(buffer);
+		}
+		
+		return content.toByteArray();
+	}
+	
+	/**
+	 * Attaches this {@link ScriptCache} to the given {@link Globals} as their
+	 * compiler and loader.
+	 * 
+	 * @param pGlobals the {@link Globals}.
+	 * @see #detach(Globals)
+	 */
+	public void attach(Globals pGlobals)
+	{
+		pGlobals.compiler = this;
+		pGlobals.loader = this;
+	}
+	
+	/**
+	 * Removes all entries.
+	 * 
+	 * @throws IOException if an entry could not be deleted.
+	 */
+	public synchronized void clear() throws IOException
+	{
+		Iterator<String> iterator = entries.keySet().iterator();
+		
+		while (iterator.hasNext())
+		{
+			Files.deleteIfExists(getPath(iterator.next()));
+			
+			iterator.remove();
+		}
+		
+		usedSize = 0;
+	}
+	
+	/**
+	 * Detaches this {@link ScriptCache} from the given {@link Globals}, they
+	 * compile with {@link LuaC} and load with {@link LuaJC} again.
+	 * 
+	 * @param pGlobals the {@link Globals}.
+	 */
+	public void detach(Globals pGlobals)
+	{
+		if (pGlobals.compiler == this)
+		{
+			pGlobals.compiler = LuaC.instance;
+		}
+		if (pGlobals.loader == this)
+		{
+			pGlobals.loader = LuaJC.instance;
+		}
+	}
+	
+	/**
+	 * Gets the directory of the entries.
+	 * 
+	 * @return the directory of the entries.
+	 */
+	public Path getDirectory()
+	{
+		return directory;
+	}
+	
+	/**
+	 * Gets the number of entries.
+	 * 
+	 * @return the number of entries.
+	 */
+	public synchronized int getEntryCount()
+	{
+		return entries.size();
+	}
+	
+	/**
+	 * Gets the number of successful lookups.
+	 * 
+	 * @return the number of successful lookups.
+	 */
+	public synchronized long getHitCount()
+	{
+		return hitCount;
+	}
+	
+	/**
+	 * Gets the number of failed lookups.
+	 * 
+	 * @return the number of failed lookups.
+	 */
+	public synchronized long getMissCount()
+	{
+		return missCount;
+	}
+	
+	/**
+	 * Gets the size limit.
+	 * 
+	 * @return the size limit, in bytes.
+	 */
+	public synchronized long getSizeLimit()
+	{
+		return sizeLimit;
+	}
+	
+	/**
+	 * Gets the size of all entries.
+	 * 
+	 * @return the size of all entries, in bytes.
+	 */
+	public synchronized long getUsedSize()
+	{
+		return usedSize;
+	}
+	
+	/**
+	 * Sets the size limit, the entries are evicted until they fit into it.
+	 * 
+	 * @param pSizeLimit the size limit, in bytes.
+	 * @throws IOException if an entry could not be deleted.
+	 */
+	public synchronized void setSizeLimit(long pSizeLimit) throws IOException
+	{
+		sizeLimit = pSizeLimit;
+		
+		evict();
+	}
+	
+	/**
+	 * Creates a new {@link Mac} for the signature of an entry.
+	 * 
+	 * @return the {@link Mac}.
+	 */
+	private Mac createMac()
+	{
+		try
+		{
+			Mac mac = Mac.getInstance(MAC_ALGORITHM);
+			mac.init(key);
+			
+			return mac;
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new IllegalStateException(MAC_ALGORITHM + " is not available.", e);
+		}
+	}
+	
+	/**
+	 * Evicts the least recently used entries until all entries fit into the
+	 * size limit.
+	 * 
+	 * @throws IOException if an entry could not be deleted.
+	 */
+	private void evict() throws IOException
+	{
+		Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+		
+		while (usedSize > sizeLimit && iterator.hasNext())
+		{
+			Map.Entry<String, Long> entry = iterator.next();
+			
+			Files.deleteIfExists(getPath(entry.getKey()));
+			
+			usedSize = usedSize - entry.getValue().longValue();
+			iterator.remove();
+		}
+	}
+	
+	/**
+	 * Gets the {@link Path} of the entry with the given key.
+	 * 
+	 * @param pKey the key.
+	 * @return the {@link Path} of the entry.
+	 */
+	private Path getPath(String pKey)
+	{
+		return directory.resolve(pKey + ENTRY_EXTENSION);
+	}
+	
+	/**
+	 * Reads the entry with the given key.
+	 * 
+	 * @param pKey the key.
+	 * @return the {@link CompiledPrototype} of the entry.
+	 * @throws IOException if the entry could not be read, is corrupted or its
+	 *                     signature does not match.
+	 */
+	private CompiledPrototype read(String pKey) throws IOException
+	{
+		ByteBuffer buffer = null;
+		
+		try (FileChannel channel = FileChannel.open(getPath(pKey), StandardOpenOption.READ))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		
+		if (buffer.capacity() < HEADER_SIZE + MAC_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+		{
+			throw new IOException("The entry is not a compiled script.");
+		}
+		
+		int contentSize = buffer.capacity() - MAC_SIZE;
+		
+		ByteBuffer content = buffer.duplicate();
+		content.limit(contentSize);
+		
+		Mac mac = createMac();
+		mac.update(content);
+		
+		byte[] signature = new byte[MAC_SIZE];
+		buffer.position(contentSize);
+		buffer.get(signature);
+		
+		// The bytecode is only defined if it has been written with our key.
+		if (!MessageDigest.isEqual(mac.doFinal(), signature))
+		{
+			throw new IOException("The signature of the entry does not match.");
+		}
+		
+		buffer.limit(contentSize);
+		
+		try
+		{
+			buffer.position(8);
+			
+			int classCount = buffer.getInt();
+			
+			Map<String, byte[]> classes = new LinkedHashMap<>();
+			String mainClassName = null;
+			
+			for (int index = 0; index < classCount; index++)
+			{
+				byte[] name = new byte[buffer.getInt()];
+				buffer.get(name);
+				
+				byte[] bytecode = new byte[buffer.getInt()];
+				buffer.get(bytecode);
+				
+				String className = new String(name, StandardCharsets.UTF_8);
+				
+				if (mainClassName == null)
+				{
+					mainClassName = className;
+				}
+				
+				classes.put(className, bytecode);
+			}
+			
+			if (mainClassName == null)
+			{
+				throw new IOException("The entry contains no classes.");
+			}
+			
+			return new CompiledPrototype(mainClassName, classes);
+		}
+		catch (RuntimeException e)
+		{
+			throw new IOException("The entry is truncated or corrupted.", e);
+		}
+	}
+	
+	/**
+	 * Removes the entry with the given key, if it exists.
+	 * 
+	 * @param pKey the key.
+	 */
+	private void remove(String pKey)
+	{
+		Long size = entries.remove(pKey);
+		
+		if (size != null)
+		{
+			usedSize = usedSize - size.longValue();
+		}
+		
+		try
+		{
+			Files.deleteIfExists(getPath(pKey));
+		}
+		catch (IOException e)
+		{
+			// Ignore it, it is overwritten or evicted at the next start.
+		}
+	}
+	
+	/**
+	 * Writes the given {@link CompiledPrototype} as entry with the given key.
+	 * <p>
+	 * The entry is written to a temporary file first, so that another
+	 * instance never reads an incomplete entry. The signature of the content
+	 * is appended to it.
+	 * 
+	 * @param pKey the key.
+	 * @param pPrototype the {@link CompiledPrototype}.
+	 * @throws IOException if the entry could not be written.
+	 */
+	private void write(String pKey, CompiledPrototype pPrototype) throws IOException
+	{
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		
+		try (DataOutputStream stream = new DataOutputStream(content))
+		{
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			stream.writeInt(pPrototype.classes.size());
+			
+			for (Map.Entry<String, byte[]> entry : pPrototype.classes.entrySet())
+			{
+				byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+				
+				stream.writeInt(name.length);
+				stream.write(name);
+				stream.writeInt(entry.getValue().length);
+				stream.write(entry.getValue());
+			}
+		}
+		
+		byte[] signature = createMac().doFinal(content.toByteArray());
+		
+		Path path = getPath(pKey);
+		Path temporaryPath = Files.createTempFile(directory, pKey, ".tmp");
+		
+		try
+		{
+			try (OutputStream stream = Files.newOutputStream(temporaryPath))
+			{
+				content.writeTo(stream);
+				stream.write(signature);
+			}
+			
+			Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temporaryPath);
+		}
+		
+		long size = Files.size(path);
+		
+		Long previousSize = entries.put(pKey, Long.valueOf(size));
+		
+		if (previousSize != null)
+		{
+			usedSize = usedSize - previousSize.longValue();
+		}
+		
+		usedSize = usedSize + size;
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link CompiledPrototype} is a {@link Prototype} extension which
+	 * carries the classes into which a chunk has been compiled, instead of the
+	 * Lua bytecode.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private static final class CompiledPrototype extends Prototype
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The bytecode of the classes by their name, the main class first. */
+		private Map<String, byte[]> classes = null;
+		
+		/** The name of the main class. */
+		private String mainClassName = null;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link CompiledPrototype}.
+		 * 
+		 * @param pMainClassName the name of the main class.
+		 * @param pClasses the bytecode of the classes by their name.
+		 */
+		public CompiledPrototype(String pMainClassName, Map<String, byte[]> pClasses)
+		{
+			super();
+			
+			mainClassName = pMainClassName;
+			classes = pClasses;
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Defines the classes in a new {@link ClassLoader} and creates the
+		 * function of the chunk.
+		 * 
+		 * @param pEnvironment the environment of the chunk.
+		 * @return the function of the chunk.
+		 * @throws IOException if the classes could not be defined.
+		 */
+		public LuaFunction load(LuaValue pEnvironment) throws IOException
+		{
+			ClassLoader classLoader = new ClassLoader(ScriptCache.class.getClassLoader())
+			{
+				@Override
+				protected Class<?> findClass(String pName) throws ClassNotFoundException
+				{
+					byte[] bytecode = classes.get(pName);
+					
+					if (bytecode == null)
+					{
+						throw new ClassNotFoundException(pName);
+					}
+					
+					return defineClass(pName, bytecode, 0, bytecode.length);
+				}
+			};
+			
+			try
+			{
+				LuaFunction function = (LuaFunction)classLoader.loadClass(mainClassName).getDeclaredConstructor().newInstance();
+				function.initupvalue1(pEnvironment);
+				
+				return function;
+			}
+			catch (ReflectiveOperationException | LinkageError e)
+			{
+				throw new IOException("The compiled script could not be loaded.", e);
+			}
+		}
+		
+	}	// CompiledPrototype
+	
+}	// ScriptCache
@@ -0,0 +1,539 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import javax.rad.genui.UIFactoryManager;
+import javax.rad.genui.layout.UIFormLayout;
+import javax.rad.ui.IComponent;
+
+import com.sibvisions.rad.lua.LuaException;
+import com.sibvisions.rad.ui.swing.impl.SwingFactory;
+import com.sibvisions.util.type.FileUtil;
+import com.sibvisions.util.type.ResourceUtil;
+
+/**
+ * The {@link SizeSweep} solves a layout at many different sizes of the
+ * container and records the absolute positions of all anchors at every size.
+ * <p>
+ * The sizes are the same range in both dimensions, every combination of width
+ * and height is solved. Every height is solved on its own copy of the
+ * {@link AnchorGraph}, the heights are distributed over a
+ * {@link ForkJoinPool}.
+ * <p>
+ * At every size the visible components are checked, a component is
+ * {@link #ISSUE_COLLAPSED collapsed} if its anchors have been moved onto or
+ * past each other, and {@link #ISSUE_BELOW_MINIMUM below its minimum} if it is
+ * smaller than its minimum size.
+ * <p>
+ * It can also be run headless, it accepts the following arguments, all of
+ * them optional:
+ * <ol>
+ * <li>the path to the Lua script, defaults to the default script if
+ * empty.</li>
+ * <li>the smallest size, defaults to {@value #DEFAULT_MINIMUM_SIZE}.</li>
+ * <li>the largest size, defaults to {@value #DEFAULT_MAXIMUM_SIZE}.</li>
+ * <li>the step between two sizes, defaults to {@value #DEFAULT_STEP}.</li>
+ * </ol>
+ * The sweep is run sequentially and in parallel, the results are compared
+ * and the sizes with issues are printed.
+ * 
+ * @author Robert Zenz
+ */
+public class SizeSweep
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The default largest size. */
+	public static final int DEFAULT_MAXIMUM_SIZE = 2000;
+	
+	/** The default smallest size. */
+	public static final int DEFAULT_MINIMUM_SIZE = 200;
+	
+	/** The default step between two sizes. */
+	public static final int DEFAULT_STEP = 10;
+	
+	/** The issue flag for a component which is smaller than its minimum. */
+	public static final int ISSUE_BELOW_MINIMUM = 2;
+	
+	/**
+	 * The issue flag for a component of which the anchors have been moved onto
+	 * or past each other.
+	 */
+	public static final int ISSUE_COLLAPSED = 1;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * The count of components below their minimum size, indexed by height and
+	 * width.
+	 */
+	private int[][] belowMinimumCounts = null;
+	
+	/** The count of collapsed components, indexed by height and width. */
+	private int[][] collapsedCounts = null;
+	
+	/** The duration of the last run in nanoseconds. */
+	private long duration = 0;
+	
+	/** The {@link AnchorGraph} which is solved. */
+	private AnchorGraph graph = null;
+	
+	/** The largest size. */
+	private int maximumSize = 0;
+	
+	/** The smallest size. */
+	private int minimumSize = 0;
+	
+	/**
+	 * The absolute positions of the anchors, indexed by height and then by
+	 * width times the count of anchors plus the anchor.
+	 */
+	private int[][] positions = null;
+	
+	/** The count of sizes in every dimension. */
+	private int sizeCount = 0;
+	
+	/** The step between two sizes. */
+	private int step = 0;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link SizeSweep}.
+	 * 
+	 * @param pGraph the {@link AnchorGraph} to solve, it is not modified.
+	 * @param pMinimumSize the smallest size.
+	 * @param pMaximumSize the largest size, inclusive.
+	 * @param pStep the step between two sizes.
+	 * @throws IllegalArgumentException if the range or the step is not valid.
+	 */
+	public SizeSweep(AnchorGraph pGraph, int pMinimumSize, int pMaximumSize, int pStep)
+	{
+		super();
+		
+		if (pStep <= 0 || pMinimumSize < 0 || pMaximumSize < pMinimumSize)
+		{
+			throw new IllegalArgumentException("The range or the step is not valid.");
+		}
+		
+		graph = pGraph;
+		minimumSize = pMinimumSize;
+		maximumSize = pMaximumSize;
+		step = pStep;
+		
+		sizeCount = (maximumSize - minimumSize) / step + 1;
+	}
+	
+	/**
+	 * The main method.
+	 * 
+	 * @param pArgs the arguments.
+	 * @throws Exception if the sweep could not be run.
+	 */
+	public static void main(String[] pArgs) throws Exception
+	{
+		System.setProperty("java.awt.headless", "true");
+		
+		String script = null;
+		
+		if (pArgs.length >= 1 && pArgs[0].length() > 0)
+		{
+			script = new String(Files.readAllBytes(Paths.get(pArgs[0])), StandardCharsets.UTF_8);
+		}
+		else
+		{
+			script = new String(FileUtil.getContent(ResourceUtil.getResourceAsStream("/com/sibvisions/formlayoutvisualization/default.lua")), StandardCharsets.UTF_8);
+		}
+		
+		int minimum = pArgs.length >= 2 ? Integer.parseInt(pArgs[1]) : DEFAULT_MINIMUM_SIZE;
+		int maximum = pArgs.length >= 3 ? Integer.parseInt(pArgs[2]) : DEFAULT_MAXIMUM_SIZE;
+		int sizeStep = pArgs.length >= 4 ? Integer.parseInt(pArgs[3]) : DEFAULT_STEP;
+		
+		UIFactoryManager.getFactoryInstance(SwingFactory.class);
+		
+		AnchorGraph graph = createGraph(script);
+		
+		// Warm up, so that the sequential sweep is not measured with the
+		// interpreter.
+		new SizeSweep(graph, minimum, maximum, sizeStep).run(new ForkJoinPool(1));
+		
+		SizeSweep sequentialSweep = new SizeSweep(graph, minimum, maximum, sizeStep);
+		sequentialSweep.run(new ForkJoinPool(1));
+		
+		int processors = Runtime.getRuntime().availableProcessors();
+		
+		SizeSweep parallelSweep = new SizeSweep(graph, minimum, maximum, sizeStep);
+		parallelSweep.run(new ForkJoinPool(processors));
+		
+		System.out.println(String.format("Sweep of %d x %d sizes (%d to %d px, step %d px), %d anchors, %d components",
+				Integer.valueOf(parallelSweep.getSizeCount()),
+				Integer.valueOf(parallelSweep.getSizeCount()),
+				Integer.valueOf(minimum),
+				Integer.valueOf(parallelSweep.getSize(parallelSweep.getSizeCount() - 1)),
+				Integer.valueOf(sizeStep),
+				Integer.valueOf(graph.getAnchorCount()),
+				Integer.valueOf(graph.getComponentCount())));
+		System.out.println(String.format("Sequential: %.3f ms", Double.valueOf(sequentialSweep.getDuration() / 1000000d)));
+		System.out.println(String.format("Parallel (%d threads): %.3f ms",
+				Integer.valueOf(processors),
+				Double.valueOf(parallelSweep.getDuration() / 1000000d)));
+		
+		if (!Arrays.deepEquals(sequentialSweep.positions, parallelSweep.positions))
+		{
+			System.out.println("FAILED: The parallel sweep differs from the sequential sweep.");
+			
+			System.exit(1);
+		}
+		
+		System.out.println(formatIssues(parallelSweep, ISSUE_COLLAPSED, "Collapsed components"));
+		System.out.println(formatIssues(parallelSweep, ISSUE_BELOW_MINIMUM, "Components below their minimum size"));
+		
+		System.exit(0);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Builds the layout according to the given Lua sourcecode into a panel
+	 * without any anchors displayed and creates the {@link AnchorGraph} of
+	 * it, which contains only the components created by the script.
+	 * <p>
+	 * This must be called on the thread which owns the components, normally
+	 * the EDT.
+	 * 
+	 * @param pScript the Lua sourcecode.
+	 * @return the {@link AnchorGraph} of the layout.
+	 * @throws LuaException if executing the script failed.
+	 */
+	public static AnchorGraph createGraph(String pScript) throws LuaException
+	{
+		AnchorShowingPanel panel = new AnchorShowingPanel();
+		panel.setLayout(new UIFormLayout());
+		panel.showAutosizeAnchors(false);
+		panel.showBorderAnchors(false);
+		panel.showFixedAnchors(false);
+		panel.showMarginAnchors(false);
+		panel.showNestedAnchors(false);
+		
+		new LayoutBuilder(panel).build(pScript);
+		
+		// The placeholders and overlays which are still added to the panel
+		// are not part of the layout.
+		List<Component> components = new ArrayList<>(panel.getRealComponents().size());
+		
+		for (IComponent component : panel.getRealComponents())
+		{
+			components.add((Component)component.getResource());
+		}
+		
+		return new AnchorGraph((Container)panel.getResource(), components);
+	}
+	
+	/**
+	 * Formats the widths and heights at which the given issue occurs.
+	 * 
+	 * @param pSweep the {@link SizeSweep}.
+	 * @param pIssue the issue flag.
+	 * @param pDescription the description of the issue.
+	 * @return the formatted widths and heights.
+	 */
+	private static String formatIssues(SizeSweep pSweep, int pIssue, String pDescription)
+	{
+		boolean[] widths = new boolean[pSweep.getSizeCount()];
+		boolean[] heights = new boolean[pSweep.getSizeCount()];
+		int count = 0;
+		
+		for (int heightIndex = 0; heightIndex < pSweep.getSizeCount(); heightIndex++)
+		{
+			for (int widthIndex = 0; widthIndex < pSweep.getSizeCount(); widthIndex++)
+			{
+				if ((pSweep.getIssues(widthIndex, heightIndex) & pIssue) != 0)
+				{
+					widths[widthIndex] = true;
+					heights[heightIndex] = true;
+					count++;
+				}
+			}
+		}
+		
+		return String.format("%s at %d of %d sizes, widths: %s, heights: %s",
+				pDescription,
+				Integer.valueOf(count),
+				Integer.valueOf(pSweep.getSizeCount() * pSweep.getSizeCount()),
+				formatRanges(pSweep, widths),
+				formatRanges(pSweep, heights));
+	}
+	
+	/**
+	 * Formats the flagged sizes as ranges.
+	 * 
+	 * @param pSweep the {@link SizeSweep}.
+	 * @param pFlagged if the size is flagged, indexed by size.
+	 * @return the formatted ranges, "none" if no size is flagged.
+	 */
+	private static String formatRanges(SizeSweep pSweep, boolean[] pFlagged)
+	{
+		StringBuilder ranges = new StringBuilder();
+		
+		int index = 0;
+		
+		while (index < pFlagged.length)
+		{
+			if (pFlagged[index])
+			{
+				int start = index;
+				
+				while (index + 1 < pFlagged.length && pFlagged[index + 1])
+				{
+					index++;
+				}
+				
+				if (ranges.length() > 0)
+				{
+					ranges.append(", ");
+				}
+				
+				ranges.append(pSweep.getSize(start));
+				
+				if (index > start)
+				{
+					ranges.append("-").append(pSweep.getSize(index));
+				}
+			}
+			
+			index++;
+		}
+		
+		if (ranges.length() == 0)
+		{
+			return "none";
+		}
+		
+		return ranges.toString();
+	}
+	
+	/**
+	 * Gets the absolute position of the given anchor at the given size.
+	 * 
+	 * @param pWidthIndex the index of the width.
+	 * @param pHeightIndex the index of the height.
+	 * @param pAnchor the index of the anchor in the {@link #getGraph() graph}.
+	 * @return the absolute position.
+	 */
+	public int getAbsolutePosition(int pWidthIndex, int pHeightIndex, int pAnchor)
+	{
+		return positions[pHeightIndex][pWidthIndex * graph.getAnchorCount() + pAnchor];
+	}
+	
+	/**
+	 * Gets the count of components which are below their minimum size at the
+	 * given size.
+	 * 
+	 * @param pWidthIndex the index of the width.
+	 * @param pHeightIndex the index of the height.
+	 * @return the count of components which are below their minimum size.
+	 */
+	public int getBelowMinimumCount(int pWidthIndex, int pHeightIndex)
+	{
+		return belowMinimumCounts[pHeightIndex][pWidthIndex];
+	}
+	
+	/**
+	 * Gets the count of components which are collapsed at the given size.
+	 * 
+	 * @param pWidthIndex the index of the width.
+	 * @param pHeightIndex the index of the height.
+	 * @return the count of components which are collapsed.
+	 */
+	public int getCollapsedCount(int pWidthIndex, int pHeightIndex)
+	{
+		return collapsedCounts[pHeightIndex][pWidthIndex];
+	}
+	
+	/**
+	 * Gets the duration of the last run.
+	 * 
+	 * @return the duration of the last run in nanoseconds.
+	 */
+	public long getDuration()
+	{
+		return duration;
+	}
+	
+	/**
+	 * Gets the {@link AnchorGraph} which is solved.
+	 * 
+	 * @return the {@link AnchorGraph} which is solved.
+	 */
+	public AnchorGraph getGraph()
+	{
+		return graph;
+	}
+	
+	/**
+	 * Gets the issues at the given size.
+	 * 
+	 * @param pWidthIndex the index of the width.
+	 * @param pHeightIndex the index of the height.
+	 * @return the combination of {@link #ISSUE_COLLAPSED} and
+	 *         {@link #ISSUE_BELOW_MINIMUM}, {@code 0} if there are none.
+	 */
+	public int getIssues(int pWidthIndex, int pHeightIndex)
+	{
+		int issues = 0;
+		
+		if (collapsedCounts[pHeightIndex][pWidthIndex] > 0)
+		{
+			issues = issues | ISSUE_COLLAPSED;
+		}
+		if (belowMinimumCounts[pHeightIndex][pWidthIndex] > 0)
+		{
+			issues = issues | ISSUE_BELOW_MINIMUM;
+		}
+		
+		return issues;
+	}
+	
+	/**
+	 * Gets the size at the given index.
+	 * 
+	 * @param pIndex the index of the size.
+	 * @return the size.
+	 */
+	public int getSize(int pIndex)
+	{
+		return minimumSize + pIndex * step;
+	}
+	
+	/**
+	 * Gets the count of sizes in every dimension.
+	 * 
+	 * @return the count of sizes in every dimension.
+	 */
+	public int getSizeCount()
+	{
+		return sizeCount;
+	}
+	
+	/**
+	 * Gets the index of the size which is nearest to the given size.
+	 * 
+	 * @param pSize the size.
+	 * @return the index of the nearest size.
+	 */
+	public int indexOf(int pSize)
+	{
+		return Math.max(0, Math.min(sizeCount - 1, Math.round((pSize - minimumSize) / (float)step)));
+	}
+	
+	/**
+	 * Solves the layout at all sizes on the given {@link ForkJoinPool} and
+	 * waits until all sizes are solved.
+	 * 
+	 * @param pPool the {@link ForkJoinPool} to use.
+	 */
+	public void run(ForkJoinPool pPool)
+	{
+		positions = new int[sizeCount][];
+		collapsedCounts = new int[sizeCount][];
+		belowMinimumCounts = new int[sizeCount][];
+		
+		long start = System.nanoTime();
+		
+		pPool.submit(() -> IntStream.range(0, sizeCount).parallel().forEach(this::solveHeight)).join();
+		
+		duration = System.nanoTime() - start;
+	}
+	
+	/**
+	 * Solves the layout at all widths for the height at the given index, on
+	 * its own copy of the {@link #graph}.
+	 * 
+	 * @param pHeightIndex the index of the height.
+	 */
+	private void solveHeight(int pHeightIndex)
+	{
+		AnchorGraph heightGraph = new AnchorGraph(graph);
+		
+		int anchorCount = heightGraph.getAnchorCount();
+		int height = getSize(pHeightIndex);
+		
+		int[] heightPositions = new int[sizeCount * anchorCount];
+		int[] heightCollapsedCounts = new int[sizeCount];
+		int[] heightBelowMinimumCounts = new int[sizeCount];
+		
+		Dimension[] minimumSizes = new Dimension[heightGraph.getComponentCount()];
+		
+		for (int component = 0; component < minimumSizes.length; component++)
+		{
+			minimumSizes[component] = heightGraph.getComponentMinimumSize(component);
+		}
+		
+		for (int widthIndex = 0; widthIndex < sizeCount; widthIndex++)
+		{
+			heightGraph.solve(getSize(widthIndex), height);
+			
+			System.arraycopy(heightGraph.getAbsolutePositions(), 0, heightPositions, widthIndex * anchorCount, anchorCount);
+			
+			for (int component = 0; component < minimumSizes.length; component++)
+			{
+				if (heightGraph.isComponentVisible(component))
+				{
+					Rectangle bounds = heightGraph.getComponentBounds(component);
+					
+					if (bounds.width < 0 || bounds.height < 0
+							|| (bounds.width == 0 && minimumSizes[component].width > 0)
+							|| (bounds.height == 0 && minimumSizes[component].height > 0))
+					{
+						heightCollapsedCounts[widthIndex]++;
+					}
+					else if (bounds.width < minimumSizes[component].width
+							|| bounds.height < minimumSizes[component].height)
+					{
+						heightBelowMinimumCounts[widthIndex]++;
+					}
+				}
+			}
+		}
+		
+		positions[pHeightIndex] = heightPositions;
+		collapsedCounts[pHeightIndex] = heightCollapsedCounts;
+		belowMinimumCounts[pHeightIndex] = heightBelowMinimumCounts;
+	}
+	
+}	// SizeSweep
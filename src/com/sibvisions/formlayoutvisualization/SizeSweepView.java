@@ -0,0 +1,574 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+
+import javax.rad.ui.IColor;
+import javax.swing.JComponent;
+
+/**
+ * The {@link SizeSweepView} is a {@link JComponent} which plots the results of
+ * a {@link SizeSweep}.
+ * <p>
+ * The horizontal anchors are plotted by the width of the container at the
+ * selected height, the vertical anchors by the height at the selected width.
+ * Below them a map of all sizes shows at which sizes components collapse or
+ * fall below their minimum size. Moving the mouse over the map or the plots
+ * selects the size.
+ * 
+ * @author Robert Zenz
+ */
+public class SizeSweepView extends JComponent
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The {@link Color} of sizes at which components are below minimum. */
+	private static final Color BELOW_MINIMUM_COLOR = toColor(Tango.ORANGE_1);
+	
+	/** The size of the plots and the map. */
+	private static final int CHART_SIZE = 360;
+	
+	/** The {@link Color} of sizes at which components are collapsed. */
+	private static final Color COLLAPSED_COLOR = toColor(Tango.SCARLET_RED_1);
+	
+	/** The {@link Color}s of the anchors, indexed by kind. */
+	private static final Color[] KIND_COLORS = new Color[] {
+			toColor(AnchorShowingPanel.BORDER_ANCHOR_COLOR),
+			toColor(AnchorShowingPanel.MARGIN_ANCHOR_COLOR),
+			toColor(AnchorShowingPanel.AUTOSIZE_ANCHOR_COLOR),
+			toColor(AnchorShowingPanel.FIXED_ANCHOR_COLOR) };
+	
+	/** The margin around the plots and the map. */
+	private static final int MARGIN = 30;
+	
+	/** The {@link Color} of sizes without issues. */
+	private static final Color NO_ISSUES_COLOR = toColor(Tango.CHAMELEON_1);
+	
+	/** The {@link Color} of the frames, the labels and the selection. */
+	private static final Color TEXT_COLOR = toColor(Tango.ALUMINIUM_6);
+	
+	/** The serial version UID. */
+	private static final long serialVersionUID = 1L;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The bounds of the plot of the horizontal anchors. */
+	private Rectangle horizontalChart = new Rectangle(MARGIN, MARGIN, CHART_SIZE, CHART_SIZE);
+	
+	/** The bounds of the map of the issues. */
+	private Rectangle issueMap = new Rectangle(MARGIN, 3 * MARGIN + CHART_SIZE, CHART_SIZE, CHART_SIZE);
+	
+	/** The largest absolute position of all anchors at all sizes. */
+	private int maximumPosition = 0;
+	
+	/** The smallest absolute position of all anchors at all sizes. */
+	private int minimumPosition = 0;
+	
+	/** The index of the selected height. */
+	private int selectedHeightIndex = 0;
+	
+	/** The index of the selected width. */
+	private int selectedWidthIndex = 0;
+	
+	/** The displayed {@link SizeSweep}. */
+	private SizeSweep sweep = null;
+	
+	/** The bounds of the plot of the vertical anchors. */
+	private Rectangle verticalChart = new Rectangle(3 * MARGIN + CHART_SIZE, MARGIN, CHART_SIZE, CHART_SIZE);
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link SizeSweepView}.
+	 * 
+	 * @param pSweep the {@link SizeSweep} to display, it must have been run.
+	 */
+	public SizeSweepView(SizeSweep pSweep)
+	{
+		super();
+		
+		sweep = pSweep;
+		
+		for (int heightIndex = 0; heightIndex < sweep.getSizeCount(); heightIndex++)
+		{
+			for (int widthIndex = 0; widthIndex < sweep.getSizeCount(); widthIndex++)
+			{
+				for (int anchor = 0; anchor < sweep.getGraph().getAnchorCount(); anchor++)
+				{
+					int position = sweep.getAbsolutePosition(widthIndex, heightIndex, anchor);
+					
+					minimumPosition = Math.min(minimumPosition, position);
+					maximumPosition = Math.max(maximumPosition, position);
+				}
+			}
+		}
+		
+		// Avoid a division by zero for an empty layout.
+		maximumPosition = Math.max(maximumPosition, minimumPosition + 1);
+		
+		setBackground(Color.WHITE);
+		setOpaque(true);
+		setPreferredSize(new Dimension(4 * MARGIN + 2 * CHART_SIZE, 4 * MARGIN + 2 * CHART_SIZE));
+		
+		SizeSelectingMouseListener listener = new SizeSelectingMouseListener();
+		
+		addMouseListener(listener);
+		addMouseMotionListener(listener);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void paintComponent(Graphics pGraphics)
+	{
+		pGraphics.setColor(getBackground());
+		pGraphics.fillRect(0, 0, getWidth(), getHeight());
+		
+		AnchorGraph graph = sweep.getGraph();
+		
+		paintIssueBands(pGraphics, horizontalChart, false);
+		paintIssueBands(pGraphics, verticalChart, true);
+		
+		for (int anchor = 0; anchor < graph.getAnchorCount(); anchor++)
+		{
+			if (graph.isVertical(anchor))
+			{
+				paintAnchor(pGraphics, verticalChart, anchor, true);
+			}
+			else
+			{
+				paintAnchor(pGraphics, horizontalChart, anchor, false);
+			}
+		}
+		
+		paintIssueMap(pGraphics);
+		
+		pGraphics.setColor(TEXT_COLOR);
+		
+		pGraphics.drawRect(horizontalChart.x, horizontalChart.y, horizontalChart.width, horizontalChart.height);
+		pGraphics.drawRect(verticalChart.x, verticalChart.y, verticalChart.width, verticalChart.height);
+		pGraphics.drawRect(issueMap.x, issueMap.y, issueMap.width, issueMap.height);
+		
+		int selectedWidth = sweep.getSize(selectedWidthIndex);
+		int selectedHeight = sweep.getSize(selectedHeightIndex);
+		
+		pGraphics.drawString("Horizontal anchors by width, at height " + selectedHeight, horizontalChart.x, horizontalChart.y - 10);
+		pGraphics.drawString("Vertical anchors by height, at width " + selectedWidth, verticalChart.x, verticalChart.y - 10);
+		pGraphics.drawString("Issues by width and height", issueMap.x, issueMap.y - 10);
+		
+		int textX = verticalChart.x;
+		int textY = issueMap.y + 10;
+		int lineHeight = pGraphics.getFontMetrics().getHeight();
+		
+		pGraphics.drawString(String.format("Size: %d x %d", Integer.valueOf(selectedWidth), Integer.valueOf(selectedHeight)), textX, textY);
+		pGraphics.drawString(String.format("Collapsed components: %d",
+				Integer.valueOf(sweep.getCollapsedCount(selectedWidthIndex, selectedHeightIndex))), textX, textY + lineHeight);
+		pGraphics.drawString(String.format("Components below minimum size: %d",
+				Integer.valueOf(sweep.getBelowMinimumCount(selectedWidthIndex, selectedHeightIndex))), textX, textY + 2 * lineHeight);
+		pGraphics.drawString(String.format("%d x %d sizes solved in %.1f ms",
+				Integer.valueOf(sweep.getSizeCount()),
+				Integer.valueOf(sweep.getSizeCount()),
+				Double.valueOf(sweep.getDuration() / 1000000d)), textX, textY + 4 * lineHeight);
+		
+		paintLegend(pGraphics, COLLAPSED_COLOR, "Collapsed", textX, textY + 6 * lineHeight, lineHeight);
+		paintLegend(pGraphics, BELOW_MINIMUM_COLOR, "Below minimum size", textX, textY + 7 * lineHeight, lineHeight);
+		paintLegend(pGraphics, NO_ISSUES_COLOR, "No issues", textX, textY + 8 * lineHeight, lineHeight);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Converts the given {@link IColor} to a {@link Color}.
+	 * 
+	 * @param pColor the {@link IColor}.
+	 * @return the {@link Color}.
+	 */
+	private static Color toColor(IColor pColor)
+	{
+		return new Color(pColor.getRed(), pColor.getGreen(), pColor.getBlue());
+	}
+	
+	/**
+	 * Gets the index of the selected height.
+	 * 
+	 * @return the index of the selected height.
+	 */
+	public int getSelectedHeightIndex()
+	{
+		return selectedHeightIndex;
+	}
+	
+	/**
+	 * Gets the index of the selected width.
+	 * 
+	 * @return the index of the selected width.
+	 */
+	public int getSelectedWidthIndex()
+	{
+		return selectedWidthIndex;
+	}
+	
+	/**
+	 * Gets the displayed {@link SizeSweep}.
+	 * 
+	 * @return the displayed {@link SizeSweep}.
+	 */
+	public SizeSweep getSweep()
+	{
+		return sweep;
+	}
+	
+	/**
+	 * Selects the given size.
+	 * 
+	 * @param pWidthIndex the index of the width.
+	 * @param pHeightIndex the index of the height.
+	 */
+	public void setSelection(int pWidthIndex, int pHeightIndex)
+	{
+		int widthIndex = Math.max(0, Math.min(sweep.getSizeCount() - 1, pWidthIndex));
+		int heightIndex = Math.max(0, Math.min(sweep.getSizeCount() - 1, pHeightIndex));
+		
+		if (widthIndex != selectedWidthIndex || heightIndex != selectedHeightIndex)
+		{
+			selectedWidthIndex = widthIndex;
+			selectedHeightIndex = heightIndex;
+			
+			repaint();
+		}
+	}
+	
+	/**
+	 * Gets the index of the size at the given location in the given bounds.
+	 * 
+	 * @param pLocation the location, relative to the start of the bounds.
+	 * @param pSize the width or height of the bounds.
+	 * @return the index of the size.
+	 */
+	private int getSizeIndex(int pLocation, int pSize)
+	{
+		return pLocation * sweep.getSizeCount() / pSize;
+	}
+	
+	/**
+	 * Gets the location of the given size index in the given bounds.
+	 * 
+	 * @param pIndex the index of the size.
+	 * @param pSize the width or height of the bounds.
+	 * @return the location, relative to the start of the bounds.
+	 */
+	private int getSizeLocation(int pIndex, int pSize)
+	{
+		return pIndex * pSize / sweep.getSizeCount();
+	}
+	
+	/**
+	 * Paints the given anchor as line of its positions by size.
+	 * 
+	 * @param pGraphics the {@link Graphics} to use.
+	 * @param pChart the bounds of the plot.
+	 * @param pAnchor the index of the anchor.
+	 * @param pVertical if the anchor is plotted by height.
+	 */
+	private void paintAnchor(Graphics pGraphics, Rectangle pChart, int pAnchor, boolean pVertical)
+	{
+		AnchorGraph graph = sweep.getGraph();
+		
+		if (pAnchor <= AnchorGraph.BOTTOM)
+		{
+			pGraphics.setColor(KIND_COLORS[0]);
+		}
+		else if (pAnchor <= AnchorGraph.BOTTOM_MARGIN)
+		{
+			pGraphics.setColor(KIND_COLORS[1]);
+		}
+		else if (graph.isAutoSize(pAnchor))
+		{
+			pGraphics.setColor(KIND_COLORS[2]);
+		}
+		else
+		{
+			pGraphics.setColor(KIND_COLORS[3]);
+		}
+		
+		int previousX = 0;
+		int previousY = 0;
+		
+		for (int index = 0; index < sweep.getSizeCount(); index++)
+		{
+			int position;
+			
+			if (pVertical)
+			{
+				position = sweep.getAbsolutePosition(selectedWidthIndex, index, pAnchor);
+			}
+			else
+			{
+				position = sweep.getAbsolutePosition(index, selectedHeightIndex, pAnchor);
+			}
+			
+			int x = pChart.x + getSizeLocation(index, pChart.width);
+			int y = pChart.y + pChart.height - (int)((long)(position - minimumPosition) * pChart.height / (maximumPosition - minimumPosition));
+			
+			if (index > 0)
+			{
+				pGraphics.drawLine(previousX, previousY, x, y);
+			}
+			
+			previousX = x;
+			previousY = y;
+		}
+	}
+	
+	/**
+	 * Paints the background of the sizes with issues of the given plot.
+	 * 
+	 * @param pGraphics the {@link Graphics} to use.
+	 * @param pChart the bounds of the plot.
+	 * @param pVertical if the plot is by height.
+	 */
+	private void paintIssueBands(Graphics pGraphics, Rectangle pChart, boolean pVertical)
+	{
+		for (int index = 0; index < sweep.getSizeCount(); index++)
+		{
+			int issues;
+			
+			if (pVertical)
+			{
+				issues = sweep.getIssues(selectedWidthIndex, index);
+			}
+			else
+			{
+				issues = sweep.getIssues(index, selectedHeightIndex);
+			}
+			
+			if (issues != 0)
+			{
+				Color color = toIssueColor(issues);
+				
+				pGraphics.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 64));
+				
+				int start = getSizeLocation(index, pChart.width);
+				int end = getSizeLocation(index + 1, pChart.width);
+				
+				pGraphics.fillRect(pChart.x + start, pChart.y, Math.max(1, end - start), pChart.height);
+			}
+		}
+	}
+	
+	/**
+	 * Paints the map of the issues with the selected size.
+	 * 
+	 * @param pGraphics the {@link Graphics} to use.
+	 */
+	private void paintIssueMap(Graphics pGraphics)
+	{
+		for (int heightIndex = 0; heightIndex < sweep.getSizeCount(); heightIndex++)
+		{
+			int top = getSizeLocation(heightIndex, issueMap.height);
+			int bottom = getSizeLocation(heightIndex + 1, issueMap.height);
+			
+			for (int widthIndex = 0; widthIndex < sweep.getSizeCount(); widthIndex++)
+			{
+				int left = getSizeLocation(widthIndex, issueMap.width);
+				int right = getSizeLocation(widthIndex + 1, issueMap.width);
+				
+				pGraphics.setColor(toIssueColor(sweep.getIssues(widthIndex, heightIndex)));
+				pGraphics.fillRect(issueMap.x + left, issueMap.y + top, Math.max(1, right - left), Math.max(1, bottom - top));
+			}
+		}
+		
+		pGraphics.setColor(TEXT_COLOR);
+		
+		int selectedX = issueMap.x + getSizeLocation(selectedWidthIndex, issueMap.width);
+		int selectedY = issueMap.y + getSizeLocation(selectedHeightIndex, issueMap.height);
+		
+		pGraphics.drawLine(selectedX, issueMap.y, selectedX, issueMap.y + issueMap.height);
+		pGraphics.drawLine(issueMap.x, selectedY, issueMap.x + issueMap.width, selectedY);
+	}
+	
+	/**
+	 * Paints an entry of the legend.
+	 * 
+	 * @param pGraphics the {@link Graphics} to use.
+	 * @param pColor the {@link Color} of the entry.
+	 * @param pText the text of the entry.
+	 * @param pX the x coordinate.
+	 * @param pY the y coordinate of the baseline.
+	 * @param pLineHeight the height of a line.
+	 */
+	private void paintLegend(Graphics pGraphics, Color pColor, String pText, int pX, int pY, int pLineHeight)
+	{
+		pGraphics.setColor(pColor);
+		pGraphics.fillRect(pX, pY - pLineHeight + 4, pLineHeight - 4, pLineHeight - 4);
+		
+		pGraphics.setColor(TEXT_COLOR);
+		pGraphics.drawString(pText, pX + pLineHeight, pY);
+	}
+	
+	/**
+	 * Gets the {@link Color} of the given issues.
+	 * 
+	 * @param pIssues the issues.
+	 * @return the {@link Color} of the given issues.
+	 */
+	private Color toIssueColor(int pIssues)
+	{
+		if ((pIssues & SizeSweep.ISSUE_COLLAPSED) != 0)
+		{
+			return COLLAPSED_COLOR;
+		}
+		else if ((pIssues & SizeSweep.ISSUE_BELOW_MINIMUM) != 0)
+		{
+			return BELOW_MINIMUM_COLOR;
+		}
+		
+		return NO_ISSUES_COLOR;
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link SizeSelectingMouseListener} is an implementation of
+	 * {@link MouseListener} and {@link MouseMotionListener} which selects the
+	 * size under the mouse.
+	 * 
+	 * @author Robert Zenz
+	 */
+	private final class SizeSelectingMouseListener implements MouseListener, MouseMotionListener
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Interface implementation
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseClicked(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseDragged(MouseEvent pEvent)
+		{
+			select(pEvent.getX(), pEvent.getY());
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseEntered(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseExited(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseMoved(MouseEvent pEvent)
+		{
+			select(pEvent.getX(), pEvent.getY());
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mousePressed(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void mouseReleased(MouseEvent pEvent)
+		{
+			// Not required.
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Selects the size at the given location, if it is inside the map or
+		 * one of the plots.
+		 * 
+		 * @param pX the x coordinate.
+		 * @param pY the y coordinate.
+		 */
+		private void select(int pX, int pY)
+		{
+			if (issueMap.contains(pX, pY))
+			{
+				setSelection(
+						getSizeIndex(pX - issueMap.x, issueMap.width),
+						getSizeIndex(pY - issueMap.y, issueMap.height));
+			}
+			else if (horizontalChart.contains(pX, pY))
+			{
+				setSelection(getSizeIndex(pX - horizontalChart.x, horizontalChart.width), selectedHeightIndex);
+			}
+			else if (verticalChart.contains(pX, pY))
+			{
+				setSelection(selectedWidthIndex, getSizeIndex(pX - verticalChart.x, verticalChart.width));
+			}
+		}
+		
+	}	// SizeSelectingMouseListener
+	
+}	// SizeSweepView
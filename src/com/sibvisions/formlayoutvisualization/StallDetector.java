@@ -0,0 +1,624 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The {@link StallDetector} is an {@link EventQueue} extension which detects
+ * stalls of the event dispatch thread.
+ * <p>
+ * Every event which takes longer than {@link #STALL_THRESHOLD} to dispatch is
+ * recorded as {@link Stall}. While the event is still being dispatched, a
+ * watchdog thread samples the stack of the event dispatch thread, so that it
+ * can be seen afterwards where the time was spent. Every {@link Stall} is
+ * attributed to the phases which have been marked with
+ * {@link #markPhase(String)} while the event was dispatched, and is written
+ * to the log file by another thread, so that neither the event dispatch
+ * thread nor the sampling is held up by it.
+ * <p>
+ * Events which are dispatched by a secondary loop, for example while a modal
+ * dialog is showing, are measured on their own. The event which opened the
+ * secondary loop is not recorded, as most of its time is spent waiting for
+ * the user.
+ * 
+ * @author Robert Zenz
+ */
+public class StallDetector extends EventQueue
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Constants
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The duration after which a stall is a freeze, in milliseconds. */
+	public static final long FREEZE_THRESHOLD = 100;
+	
+	/** The duration after which a dispatch is a stall, in milliseconds. */
+	public static final long STALL_THRESHOLD = 16;
+	
+	/** The maximum number of frames of a stack which are formatted. */
+	private static final int MAXIMUM_FORMATTED_FRAMES = 32;
+	
+	/** The maximum number of {@link Stall}s which are kept. */
+	private static final int MAXIMUM_STALLS = 1000;
+	
+	/** The phase of a {@link Stall} for which no phase was marked. */
+	private static final String OTHER_PHASE = "other";
+	
+	/** The interval in which the stack is sampled, in milliseconds. */
+	private static final long SAMPLE_INTERVAL = 4;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The installed {@link StallDetector}, {@code null} if none. */
+	private static volatile StallDetector installedDetector = null;
+	
+	/**
+	 * The sequence number of the current dispatch, used by the watchdog to
+	 * discard samples of a dispatch that has already ended.
+	 */
+	private volatile long dispatchSequence = 0;
+	
+	/**
+	 * The time the current dispatch was started, in nanoseconds, {@code 0} if
+	 * no dispatch is measured.
+	 */
+	private volatile long dispatchStart = 0;
+	
+	/** The event dispatch {@link Thread}. */
+	private volatile Thread dispatchThread = null;
+	
+	/** The log file. */
+	private Path logFile = null;
+	
+	/** The {@link PrintWriter} to the log file. */
+	private PrintWriter logWriter = null;
+	
+	/** The phases which have been marked during the current dispatch. */
+	private List<String> phases = new ArrayList<>();
+	
+	/** The samples of the current dispatch. */
+	private List<StackTraceElement[]> samples = new ArrayList<>();
+	
+	/** The listeners which are invoked on a {@link Stall}. */
+	private List<Consumer<Stall>> stallListeners = new CopyOnWriteArrayList<>();
+	
+	/** The recorded {@link Stall}s, oldest first. */
+	private List<Stall> stalls = new ArrayList<>();
+	
+	/** The {@link Stall}s which still need to be written to the log file. */
+	private BlockingQueue<Stall> unloggedStalls = new LinkedBlockingQueue<>();
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link StallDetector}.
+	 * 
+	 * @param pLogFile the log file to which the {@link Stall}s are appended.
+	 * @throws IOException if the log file could not be opened.
+	 */
+	private StallDetector(Path pLogFile) throws IOException
+	{
+		super();
+		
+		logFile = pLogFile;
+		logWriter = new PrintWriter(Files.newBufferedWriter(
+				logFile,
+				StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND));
+		
+		Thread watchdog = new Thread(this::watch, "EDT stall watchdog");
+		watchdog.setDaemon(true);
+		watchdog.start();
+		
+		Thread logger = new Thread(this::log, "EDT stall logger");
+		logger.setDaemon(true);
+		logger.start();
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void dispatchEvent(AWTEvent pEvent)
+	{
+		// A nested dispatch abandons the measurement of the outer one.
+		startDispatch();
+		
+		try
+		{
+			super.dispatchEvent(pEvent);
+		}
+		finally
+		{
+			long start = dispatchStart;
+			
+			dispatchStart = 0;
+			
+			if (start != 0)
+			{
+				endDispatch(pEvent, start, System.nanoTime() - start);
+			}
+		}
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Formats the given {@link Stall} for the log file and for display.
+	 * <p>
+	 * Only the stack which has been sampled most often is included, as
+	 * that is where most of the time was spent.
+	 * 
+	 * @param pStall the {@link Stall}.
+	 * @return the formatted {@link Stall}.
+	 */
+	public static String format(Stall pStall)
+	{
+		StringBuilder builder = new StringBuilder();
+		
+		builder.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(pStall.getTimestamp())));
+		builder.append(String.format(
+				" %s of %.1f ms in %s during %s, %d samples%n",
+				pStall.isFreeze() ? "freeze" : "stall",
+				Double.valueOf(pStall.getDuration() / 1000000d),
+				pStall.getPhase(),
+				pStall.getEvent(),
+				Integer.valueOf(pStall.getSamples().size())));
+		
+		Map<List<StackTraceElement>, Integer> counts = new HashMap<>();
+		List<StackTraceElement> mostSampledStack = null;
+		int mostSampledCount = 0;
+		
+		for (StackTraceElement[] sample : pStall.getSamples())
+		{
+			List<StackTraceElement> stack = Arrays.asList(sample);
+			
+			int count = counts.merge(stack, Integer.valueOf(1), (pOld, pNew) -> Integer.valueOf(pOld.intValue() + 1)).intValue();
+			
+			if (count > mostSampledCount)
+			{
+				mostSampledStack = stack;
+				mostSampledCount = count;
+			}
+		}
+		
+		if (mostSampledStack != null)
+		{
+			builder.append(String.format(
+					"\tmost sampled stack (%d of %d samples):%n",
+					Integer.valueOf(mostSampledCount),
+					Integer.valueOf(pStall.getSamples().size())));
+			
+			for (int index = 0; index < mostSampledStack.size() && index < MAXIMUM_FORMATTED_FRAMES; index++)
+			{
+				builder.append(String.format("\t\tat %s%n", mostSampledStack.get(index)));
+			}
+			
+			if (mostSampledStack.size() > MAXIMUM_FORMATTED_FRAMES)
+			{
+				builder.append(String.format("\t\t... %d more%n", Integer.valueOf(mostSampledStack.size() - MAXIMUM_FORMATTED_FRAMES)));
+			}
+		}
+		else
+		{
+			builder.append(String.format("\tended before it could be sampled%n"));
+		}
+		
+		return builder.toString();
+	}
+	
+	/**
+	 * Gets the installed {@link StallDetector}.
+	 * 
+	 * @return the installed {@link StallDetector}, {@code null} if none has
+	 *         been installed.
+	 */
+	public static StallDetector getInstalledDetector()
+	{
+		return installedDetector;
+	}
+	
+	/**
+	 * Installs a new {@link StallDetector} into the system {@link EventQueue},
+	 * if none has been installed yet.
+	 * 
+	 * @param pLogFile the log file to which the {@link Stall}s are appended.
+	 * @return the installed {@link StallDetector}.
+	 * @throws IOException if the log file could not be opened.
+	 */
+	public static synchronized StallDetector install(Path pLogFile) throws IOException
+	{
+		if (installedDetector == null)
+		{
+			StallDetector detector = new StallDetector(pLogFile);
+			
+			Toolkit.getDefaultToolkit().getSystemEventQueue().push(detector);
+			
+			installedDetector = detector;
+		}
+		
+		return installedDetector;
+	}
+	
+	/**
+	 * Marks that the current event is in the given phase, so that a
+	 * {@link Stall} of the current event is attributed to it.
+	 * <p>
+	 * Does nothing if no {@link StallDetector} is installed or if not invoked
+	 * on the event dispatch thread.
+	 * 
+	 * @param pPhase the phase.
+	 */
+	public static void markPhase(String pPhase)
+	{
+		StallDetector detector = installedDetector;
+		
+		if (detector != null && isDispatchThread())
+		{
+			detector.addPhase(pPhase);
+		}
+	}
+	
+	/**
+	 * Adds the given listener which is invoked on the event dispatch thread
+	 * for every new {@link Stall}.
+	 * 
+	 * @param pStallListener the listener.
+	 */
+	public void addStallListener(Consumer<Stall> pStallListener)
+	{
+		stallListeners.add(pStallListener);
+	}
+	
+	/**
+	 * Gets the log file to which the {@link Stall}s are appended.
+	 * 
+	 * @return the log file.
+	 */
+	public Path getLogFile()
+	{
+		return logFile;
+	}
+	
+	/**
+	 * Gets the recorded {@link Stall}s, oldest first.
+	 * <p>
+	 * Only the last {@value #MAXIMUM_STALLS} {@link Stall}s are kept, but all
+	 * of them are written to the log file.
+	 * 
+	 * @return the recorded {@link Stall}s.
+	 */
+	public synchronized List<Stall> getStalls()
+	{
+		return new ArrayList<>(stalls);
+	}
+	
+	/**
+	 * Removes the given listener.
+	 * 
+	 * @param pStallListener the listener.
+	 */
+	public void removeStallListener(Consumer<Stall> pStallListener)
+	{
+		stallListeners.remove(pStallListener);
+	}
+	
+	/**
+	 * Adds the given phase to the phases of the current dispatch.
+	 * 
+	 * @param pPhase the phase.
+	 */
+	private void addPhase(String pPhase)
+	{
+		if (!phases.contains(pPhase))
+		{
+			phases.add(pPhase);
+		}
+	}
+	
+	/**
+	 * Ends the measurement of the current dispatch and records a
+	 * {@link Stall} if it took too long.
+	 * 
+	 * @param pEvent the dispatched {@link AWTEvent}.
+	 * @param pStart the time the dispatch was started, in nanoseconds.
+	 * @param pDuration the duration of the dispatch, in nanoseconds.
+	 */
+	private void endDispatch(AWTEvent pEvent, long pStart, long pDuration)
+	{
+		if (pDuration < TimeUnit.MILLISECONDS.toNanos(STALL_THRESHOLD))
+		{
+			return;
+		}
+		
+		List<StackTraceElement[]> stallSamples;
+		
+		synchronized (samples)
+		{
+			stallSamples = new ArrayList<>(samples);
+		}
+		
+		String phase = OTHER_PHASE;
+		
+		if (!phases.isEmpty())
+		{
+			phase = String.join(" > ", phases);
+		}
+		
+		Stall stall = new Stall(
+				System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(pDuration),
+				pDuration,
+				phase,
+				pEvent.getClass().getSimpleName(),
+				stallSamples);
+		
+		synchronized (this)
+		{
+			stalls.add(stall);
+			
+			if (stalls.size() > MAXIMUM_STALLS)
+			{
+				stalls.remove(0);
+			}
+		}
+		
+		unloggedStalls.add(stall);
+		
+		for (Consumer<Stall> listener : stallListeners)
+		{
+			listener.accept(stall);
+		}
+	}
+	
+	/**
+	 * The loop of the logger thread, writes the {@link Stall}s to the log file.
+	 */
+	private void log()
+	{
+		while (true)
+		{
+			try
+			{
+				logWriter.print(format(unloggedStalls.take()));
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			
+			if (unloggedStalls.isEmpty())
+			{
+				logWriter.flush();
+			}
+		}
+	}
+	
+	/**
+	 * Starts the measurement of a new dispatch.
+	 */
+	private void startDispatch()
+	{
+		dispatchThread = Thread.currentThread();
+		
+		phases.clear();
+		
+		synchronized (samples)
+		{
+			samples.clear();
+			
+			dispatchSequence++;
+		}
+		
+		dispatchStart = System.nanoTime();
+	}
+	
+	/**
+	 * The loop of the watchdog thread, samples the stack of the event dispatch
+	 * thread while a dispatch takes too long.
+	 */
+	private void watch()
+	{
+		long threshold = TimeUnit.MILLISECONDS.toNanos(STALL_THRESHOLD);
+		
+		while (true)
+		{
+			try
+			{
+				Thread.sleep(SAMPLE_INTERVAL);
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			
+			long sequence = dispatchSequence;
+			long start = dispatchStart;
+			
+			if (start != 0 && System.nanoTime() - start >= threshold)
+			{
+				StackTraceElement[] sample = dispatchThread.getStackTrace();
+				
+				synchronized (samples)
+				{
+					// The dispatch might have ended while the stack was taken.
+					if (sequence == dispatchSequence && dispatchStart != 0)
+					{
+						samples.add(sample);
+					}
+				}
+			}
+		}
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * The {@link Stall} is a single event which took too long to dispatch.
+	 * 
+	 * @author Robert Zenz
+	 */
+	public static final class Stall
+	{
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Class members
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/** The duration, in nanoseconds. */
+		private long duration = 0;
+		
+		/** The name of the event. */
+		private String event = null;
+		
+		/** The phases, separated by " > ". */
+		private String phase = null;
+		
+		/** The sampled stacks of the event dispatch thread. */
+		private List<StackTraceElement[]> samples = null;
+		
+		/** The time the {@link Stall} started, in milliseconds. */
+		private long timestamp = 0;
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// Initialization
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Creates a new instance of {@link Stall}.
+		 * 
+		 * @param pTimestamp the time the {@link Stall} started, in
+		 *            milliseconds.
+		 * @param pDuration the duration, in nanoseconds.
+		 * @param pPhase the phases, separated by " > ".
+		 * @param pEvent the name of the event.
+		 * @param pSamples the sampled stacks of the event dispatch thread.
+		 */
+		private Stall(long pTimestamp, long pDuration, String pPhase, String pEvent, List<StackTraceElement[]> pSamples)
+		{
+			super();
+			
+			timestamp = pTimestamp;
+			duration = pDuration;
+			phase = pPhase;
+			event = pEvent;
+			samples = Collections.unmodifiableList(pSamples);
+		}
+		
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		// User-defined methods
+		//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+		
+		/**
+		 * Gets the duration.
+		 * 
+		 * @return the duration, in nanoseconds.
+		 */
+		public long getDuration()
+		{
+			return duration;
+		}
+		
+		/**
+		 * Gets the name of the event, which is the simple class name of the
+		 * {@link AWTEvent}.
+		 * 
+		 * @return the name of the event.
+		 */
+		public String getEvent()
+		{
+			return event;
+		}
+		
+		/**
+		 * Gets the phases which have been marked while the event was
+		 * dispatched, separated by " > ", or "other" if none was marked.
+		 * 
+		 * @return the phases.
+		 */
+		public String getPhase()
+		{
+			return phase;
+		}
+		
+		/**
+		 * Gets the sampled stacks of the event dispatch thread.
+		 * 
+		 * @return the sampled stacks.
+		 */
+		public List<StackTraceElement[]> getSamples()
+		{
+			return samples;
+		}
+		
+		/**
+		 * Gets the time the {@link Stall} started.
+		 * 
+		 * @return the time the {@link Stall} started, in milliseconds.
+		 */
+		public long getTimestamp()
+		{
+			return timestamp;
+		}
+		
+		/**
+		 * Gets whether this {@link Stall} is longer than
+		 * {@link StallDetector#FREEZE_THRESHOLD}.
+		 * 
+		 * @return {@code true} if this {@link Stall} is a freeze.
+		 */
+		public boolean isFreeze()
+		{
+			return duration >= TimeUnit.MILLISECONDS.toNanos(FREEZE_THRESHOLD);
+		}
+		
+	}	// Stall
+	
+}	// StallDetector
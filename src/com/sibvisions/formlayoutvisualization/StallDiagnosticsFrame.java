@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 SIB Visions GmbH
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.sibvisions.formlayoutvisualization;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.rad.genui.UIColor;
+import javax.rad.genui.component.UILabel;
+import javax.rad.genui.component.UITextArea;
+import javax.rad.genui.container.UIFrame;
+import javax.rad.genui.container.UIPanel;
+import javax.rad.genui.container.UISplitPanel;
+import javax.rad.genui.control.UITable;
+import javax.rad.genui.layout.UIBorderLayout;
+import javax.rad.model.ColumnDefinition;
+import javax.rad.model.ColumnView;
+import javax.rad.model.ModelException;
+import javax.rad.model.datatype.BigDecimalDataType;
+import javax.rad.model.datatype.BooleanDataType;
+import javax.rad.model.datatype.StringDataType;
+import javax.rad.model.datatype.TimestampDataType;
+import javax.rad.model.event.DataBookEvent;
+import javax.rad.ui.container.ISplitPanel;
+
+import com.sibvisions.formlayoutvisualization.StallDetector.Stall;
+import com.sibvisions.rad.model.mem.MemDataBook;
+
+/**
+ * The {@link StallDiagnosticsFrame} is an {@link UIFrame} extension which lists
+ * the {@link Stall}s of a {@link StallDetector}.
+ * <p>
+ * New {@link Stall}s are added while the frame is open, the sampled stack of
+ * the selected {@link Stall} is displayed below the list.
+ * 
+ * @author Robert Zenz
+ */
+public class StallDiagnosticsFrame extends UIFrame
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/** The {@link UITextArea} displaying the selected {@link Stall}. */
+	private UITextArea detailsTextArea = null;
+	
+	/** The {@link StallDetector}. */
+	private StallDetector detector = null;
+	
+	/** The listener which adds new {@link Stall}s. */
+	private Consumer<Stall> stallListener = this::addStall;
+	
+	/** The {@link Stall}s, indexed by the "INDEX" column. */
+	private List<Stall> stalls = new ArrayList<>();
+	
+	/** The {@link MemDataBook} that is used as backend for the list. */
+	private MemDataBook stallsDataBook = null;
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Creates a new instance of {@link StallDiagnosticsFrame}.
+	 * 
+	 * @param pDetector the {@link StallDetector}.
+	 * @throws ModelException when initializing the model failed.
+	 */
+	public StallDiagnosticsFrame(StallDetector pDetector) throws ModelException
+	{
+		super();
+		
+		detector = pDetector;
+		
+		initializeModel();
+		initializeUI();
+		
+		for (Stall stall : detector.getStalls())
+		{
+			addStall(stall);
+		}
+		
+		detector.addStallListener(stallListener);
+		
+		eventWindowClosed().addListener(() -> detector.removeStallListener(stallListener));
+	}
+	
+	/**
+	 * Initializes the model.
+	 * 
+	 * @throws ModelException when initializing the model failed.
+	 */
+	private void initializeModel() throws ModelException
+	{
+		stallsDataBook = new MemDataBook();
+		stallsDataBook.setName("stalls");
+		stallsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("INDEX", new BigDecimalDataType()));
+		stallsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("TIME", new TimestampDataType()));
+		stallsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("DURATION", new BigDecimalDataType()));
+		stallsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("FREEZE", new BooleanDataType()));
+		stallsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("PHASE", new StringDataType()));
+		stallsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("EVENT", new StringDataType()));
+		stallsDataBook.getRowDefinition().addColumnDefinition(new ColumnDefinition("SAMPLES", new BigDecimalDataType()));
+		stallsDataBook.getRowDefinition().getColumnDefinition("DURATION").setLabel("Duration (ms)");
+		stallsDataBook.open();
+		stallsDataBook.eventAfterRowSelected().addListener(this::doStallSelected);
+	}
+	
+	/**
+	 * Initializes the UI.
+	 */
+	private void initializeUI()
+	{
+		UILabel logFileLabel = new UILabel("Log file: " + detector.getLogFile().toAbsolutePath());
+		
+		UIBorderLayout headerPanelLayout = new UIBorderLayout();
+		headerPanelLayout.setMargins(5, 5, 5, 5);
+		
+		UIPanel headerPanel = new UIPanel();
+		headerPanel.setLayout(headerPanelLayout);
+		headerPanel.setBackground(UIColor.white);
+		headerPanel.add(logFileLabel, UIBorderLayout.CENTER);
+		
+		UITable stallsTable = new UITable(stallsDataBook);
+		stallsTable.setColumnView(new ColumnView("TIME", "DURATION", "FREEZE", "PHASE", "EVENT", "SAMPLES"));
+		stallsTable.setEditable(false);
+		
+		detailsTextArea = new UITextArea();
+		detailsTextArea.setEditable(false);
+		
+		UISplitPanel splitPanel = new UISplitPanel(ISplitPanel.SPLIT_TOP_BOTTOM);
+		splitPanel.setFirstComponent(stallsTable);
+		splitPanel.setSecondComponent(detailsTextArea);
+		splitPanel.setDividerPosition(240);
+		
+		setLayout(new UIBorderLayout());
+		setSize(900, 600);
+		setTitle("EDT Stalls");
+		add(headerPanel, UIBorderLayout.NORTH);
+		add(splitPanel, UIBorderLayout.CENTER);
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * Adds the given {@link Stall} to the end of the list and selects it.
+	 * 
+	 * @param pStall the {@link Stall}.
+	 */
+	private void addStall(Stall pStall)
+	{
+		try
+		{
+			stalls.add(pStall);
+			
+			stallsDataBook.setSelectedRow(stallsDataBook.getRowCount() - 1);
+			stallsDataBook.insert(false);
+			stallsDataBook.setValues(
+					new String[] { "INDEX", "TIME", "DURATION", "FREEZE", "PHASE", "EVENT", "SAMPLES" },
+					new Object[] {
+							BigDecimal.valueOf(stalls.size() - 1),
+							new Timestamp(pStall.getTimestamp()),
+							BigDecimal.valueOf(pStall.getDuration() / 100000, 1),
+							Boolean.valueOf(pStall.isFreeze()),
+							pStall.getPhase(),
+							pStall.getEvent(),
+							BigDecimal.valueOf(pStall.getSamples().size()) });
+			stallsDataBook.saveSelectedRow();
+			
+			detailsTextArea.setText(StallDetector.format(pStall));
+		}
+		catch (ModelException e)
+		{
+			throw new IllegalStateException("The stall could not be added.", e);
+		}
+	}
+	
+	//****************************************************************
+	// Subclass definition
+	//****************************************************************
+	
+	/**
+	 * Invoked when a row of the {@link #stallsDataBook} is selected.
+	 * 
+	 * @param pDataBookEvent the event.
+	 * @throws ModelException when accessing the data failed.
+	 */
+	private void doStallSelected(DataBookEvent pDataBookEvent) throws ModelException
+	{
+		BigDecimal index = (BigDecimal)stallsDataBook.getValue("INDEX");
+		
+		if (index != null)
+		{
+			detailsTextArea.setText(StallDetector.format(stalls.get(index.intValue())));
+		}
+		else
+		{
+			detailsTextArea.setText(null);
+		}
+	}
+	
+}	// StallDiagnosticsFrame
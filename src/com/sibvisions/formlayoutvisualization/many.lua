@@ -0,0 +1,6 @@
+-- A reference script for the AllocationBudget with many
+-- components in a single layout.
+
+for index = 0, 1999 do
+	panel:add(UILabel.new("Label " .. index), layout:getConstraints(index % 20, math.floor(index / 20)))
+end
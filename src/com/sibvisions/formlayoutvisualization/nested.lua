@@ -0,0 +1,23 @@
+-- A reference script for the AllocationBudget with nested
+-- panels which have their own FormLayout.
+
+for column = 0, 3 do
+	local columnPanel = UIPanel.new()
+	local columnLayout = UIFormLayout.new()
+	columnPanel:setLayout(columnLayout)
+	
+	for row = 0, 3 do
+		local rowPanel = UIPanel.new()
+		local rowLayout = UIFormLayout.new()
+		rowPanel:setLayout(rowLayout)
+		
+		rowPanel:add(UILabel.new("Name"), rowLayout:getConstraints(0, 0))
+		rowPanel:add(UITextField.new(), rowLayout:getConstraints(1, 0, -1, 0))
+		rowPanel:add(UILabel.new("Value"), rowLayout:getConstraints(0, 1))
+		rowPanel:add(UITextField.new(), rowLayout:getConstraints(1, 1, -1, 1))
+		
+		columnPanel:add(rowPanel, columnLayout:getConstraints(0, row, -1, row))
+	end
+	
+	panel:add(columnPanel, layout:getConstraints(column, 0))
+end